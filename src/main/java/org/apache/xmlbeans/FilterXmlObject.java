@@ -25,6 +25,7 @@ import javax.xml.stream.XMLStreamReader;
 import java.io.*;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.channels.WritableByteChannel;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
@@ -119,6 +120,14 @@ public abstract class FilterXmlObject implements XmlObject, SimpleValue, Delegat
         return underlyingXmlObject().monitor();
     }
 
+    public void releaseDocument() {
+        underlyingXmlObject().releaseDocument();
+    }
+
+    public void confineDocumentTo(Thread owner) {
+        underlyingXmlObject().confineDocumentTo(owner);
+    }
+
     public XmlDocumentProperties documentProperties() {
         return underlyingXmlObject().documentProperties();
     }
@@ -163,6 +172,10 @@ public abstract class FilterXmlObject implements XmlObject, SimpleValue, Delegat
         underlyingXmlObject().save(os);
     }
 
+    public void save(WritableByteChannel channel) throws IOException {
+        underlyingXmlObject().save(channel);
+    }
+
     public void save(Writer w) throws IOException {
         underlyingXmlObject().save(w);
     }
@@ -199,6 +212,10 @@ public abstract class FilterXmlObject implements XmlObject, SimpleValue, Delegat
         underlyingXmlObject().save(os, options);
     }
 
+    public void save(WritableByteChannel channel, XmlOptions options) throws IOException {
+        underlyingXmlObject().save(channel, options);
+    }
+
     public void save(Writer w, XmlOptions options) throws IOException {
         underlyingXmlObject().save(w, options);
     }
@@ -251,6 +268,10 @@ public abstract class FilterXmlObject implements XmlObject, SimpleValue, Delegat
         return ((SimpleValue) underlyingXmlObject()).getByteArrayValue();
     }
 
+    public InputStream getInputStreamValue() {
+        return ((SimpleValue) underlyingXmlObject()).getInputStreamValue();
+    }
+
     public StringEnumAbstractBase getEnumValue() {
         return ((SimpleValue) underlyingXmlObject()).getEnumValue();
     }
@@ -331,6 +352,10 @@ public abstract class FilterXmlObject implements XmlObject, SimpleValue, Delegat
         ((SimpleValue) underlyingXmlObject()).setByteArrayValue(obj);
     }
 
+    public void setInputStreamValue(InputStream in) throws IOException {
+        ((SimpleValue) underlyingXmlObject()).setInputStreamValue(in);
+    }
+
     public void setEnumValue(StringEnumAbstractBase obj) {
         ((SimpleValue) underlyingXmlObject()).setEnumValue(obj);
     }
@@ -15,16 +15,21 @@
 
 package org.apache.xmlbeans;
 
+import org.apache.xmlbeans.impl.common.ByteBufferInputStream;
 import org.w3c.dom.DOMImplementation;
 import org.w3c.dom.Node;
 
 import javax.xml.namespace.QName;
 import javax.xml.stream.XMLStreamReader;
 import java.io.File;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 
 /**
  * Represents a searchable set of XML Schema component definitions.
@@ -196,6 +201,30 @@ public interface SchemaTypeLoader {
      */
     XmlObject parse(InputStream jiois, SchemaType type, XmlOptions options) throws XmlException, IOException;
 
+    /**
+     * Parses an instance of the given type from the bytes between the
+     * position and the limit of the buffer, which is left unchanged.
+     */
+    default XmlObject parse(ByteBuffer buffer, SchemaType type, XmlOptions options) throws XmlException, IOException {
+        return parse(new ByteBufferInputStream(buffer), type, options);
+    }
+
+    /**
+     * Parses an instance of the given type from the bytes read from the
+     * blocking channel up to its end.  The channel is not closed.
+     */
+    default XmlObject parse(ReadableByteChannel channel, SchemaType type, XmlOptions options) throws XmlException, IOException {
+        // The parser reads in blocks of its own, there is no need for another buffer in between,
+        // but it closes the stream when it is done, which must not close the channel
+        InputStream is = new FilterInputStream(Channels.newInputStream(channel)) {
+            @Override
+            public void close() {
+            }
+        };
+
+        return parse(is, type, options);
+    }
+
     /**
      * Parses an instance of the given type.
      */
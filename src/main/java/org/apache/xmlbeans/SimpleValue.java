@@ -15,7 +15,12 @@
 
 package org.apache.xmlbeans;
 
+import org.apache.xmlbeans.impl.common.IOUtil;
+
 import javax.xml.namespace.QName;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.Calendar;
@@ -102,6 +107,16 @@ public interface SimpleValue extends XmlObject {
      */
     byte[] getByteArrayValue();
 
+    /**
+     * Returns the value as a stream of bytes, which is decoded from the
+     * text as it is read when the value comes straight from a document.
+     * The default implementation wraps {@link #getByteArrayValue()}.
+     */
+    default InputStream getInputStreamValue() {
+        byte[] bytes = getByteArrayValue();
+        return bytes == null ? null : new ByteArrayInputStream(bytes);
+    }
+
     /**
      * Returns the value as a {@link StringEnumAbstractBase}.
      */
@@ -204,6 +219,17 @@ public interface SimpleValue extends XmlObject {
      */
     void setByteArrayValue(byte[] obj);
 
+    /**
+     * Sets the value to the bytes read from the stream, which is
+     * read to its end but not closed.  The bytes are encoded as
+     * they are read, without holding all of them in a byte array.
+     * The default implementation reads all of them and passes them
+     * to {@link #setByteArrayValue(byte[])}.
+     */
+    default void setInputStreamValue(InputStream in) throws IOException {
+        setByteArrayValue(in == null ? null : IOUtil.readAllBytes(in));
+    }
+
     /**
      * Sets the value as a {@link StringEnumAbstractBase}.
      */
@@ -15,6 +15,12 @@
 
 package org.apache.xmlbeans;
 
+import org.apache.xmlbeans.impl.common.IOUtil;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
 /**
  * Corresponds to the XML Schema
  * <a target="_blank" href="http://www.w3.org/TR/xmlschema-2/#base64Binary">xs:base64Binary</a> type.
@@ -37,6 +43,21 @@ public interface XmlBase64Binary extends XmlAnySimpleType {
      */
     void setByteArrayValue(byte[] ba);
 
+    /**
+     * Returns this value as a stream of bytes.
+     */
+    default InputStream getInputStreamValue() {
+        byte[] bytes = getByteArrayValue();
+        return bytes == null ? null : new ByteArrayInputStream(bytes);
+    }
+
+    /**
+     * Sets this value to the bytes read from the stream.
+     */
+    default void setInputStreamValue(InputStream in) throws IOException {
+        setByteArrayValue(in == null ? null : IOUtil.readAllBytes(in));
+    }
+
 
     /**
      * A class with methods for creating instances
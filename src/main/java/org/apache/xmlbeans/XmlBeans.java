@@ -417,6 +417,17 @@ public final class XmlBeans {
         return (typeLoaders.length == 1) ? typeLoaders[0] : SchemaTypeLoaderImpl.build(typeLoaders, null, null);
     }
 
+    /**
+     * Returns the union of a list of typeLoaders like {@link #typeLoaderUnion}, but
+     * reads the global components of the type systems among them into an index up
+     * front, so that finding a component by name does not search the type systems or
+     * their classloaders.  This is meant for a fixed set of type systems which are
+     * looked up a lot, e.g. for xsi:type.
+     */
+    public static SchemaTypeLoader typeLoaderIndex(SchemaTypeLoader... typeLoaders) {
+        return SchemaTypeLoaderImpl.buildIndexed(typeLoaders);
+    }
+
     /**
      * Returns a SchemaTypeLoader that searches for compiled schema types
      * in the given ClassLoader.
@@ -15,10 +15,14 @@
 
 package org.apache.xmlbeans;
 
+import org.apache.xmlbeans.impl.store.TokenBufferAccess;
+
 import javax.xml.namespace.QName;
 import java.lang.ref.Reference;
 import java.lang.ref.WeakReference;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -826,6 +830,50 @@ public interface XmlCursor extends XmlTokenSource, AutoCloseable {
 
     TokenType toPrevToken();
 
+    /**
+     * Moves the cursor forward by up to {@link TokenBuffer#capacity()} tokens, as
+     * repeated calls to {@link #toNextToken()} would, and records the token found
+     * after each move in the given buffer.  The buffer is cleared first.  The whole
+     * batch is read while holding the document lock once, and no objects are
+     * created per token other than names which the buffer has not seen before.
+     * <p>
+     * The cursor is left at the last token recorded.  Fewer tokens than the
+     * capacity are recorded only when the end of the document is reached.
+     *
+     * @param buffer The buffer which receives the tokens.
+     * @return The number of tokens recorded; 0 if there is no next token.
+     */
+    default int toNextTokens(TokenBuffer buffer) {
+        // moves token by token, the cursors of the store read the whole batch at once
+
+        buffer.clear();
+
+        while (buffer.size() < buffer.capacity()) {
+            TokenType t = toNextToken();
+
+            if (t == TokenType.NONE) {
+                break;
+            }
+
+            String text = null;
+
+            if (t == TokenType.TEXT) {
+                text = getChars();
+            } else if (t == TokenType.ATTR || t == TokenType.COMMENT || t == TokenType.PROCINST) {
+                text = getTextValue();
+            }
+
+            if (text == null) {
+                buffer.add(t.intValue(), getName(), 0);
+            } else {
+                int start = buffer.add(t.intValue(), getName(), text.length());
+                text.getChars(0, text.length(), buffer.chars(), start);
+            }
+        }
+
+        return buffer.size();
+    }
+
     /**
      * Moves the cursor to the first token in the content of the current
      * START or STARTDOC. That is, the first token after all ATTR and NAMESPACE
@@ -1415,6 +1463,216 @@ public interface XmlCursor extends XmlTokenSource, AutoCloseable {
      */
     ChangeStamp getDocChangeStamp();
 
+    /**
+     * Holds a batch of tokens read by {@link XmlCursor#toNextTokens(TokenBuffer)}
+     * in primitive arrays.  For each token the buffer records its
+     * {@link TokenType#intValue() token type}, the id of its name (as returned by
+     * {@link XmlCursor#getName()}) or -1, and a range of {@link #chars()} holding
+     * the text of a TEXT token or the value of an ATTR, COMMENT or PROCINST token.
+     * <p>
+     * Name ids are assigned by the buffer and stay the same for as long as the
+     * buffer is used, so names can be compared by id across batches.  A buffer
+     * may be reused for any number of calls but must not be shared between
+     * threads.
+     */
+    final class TokenBuffer {
+        static {
+            // the cursors of the store fill buffers through this
+            TokenBufferAccess.install(new TokenBufferAccess.Mutators() {
+                @Override
+                public void clear(TokenBuffer buffer) {
+                    buffer.clear();
+                }
+
+                @Override
+                public int add(TokenBuffer buffer, int tokenType, QName name, int textLength) {
+                    return buffer.add(tokenType, name, textLength);
+                }
+            });
+        }
+
+        /**
+         * Creates a buffer which holds up to <em>capacity</em> tokens per batch.
+         */
+        public TokenBuffer(int capacity) {
+            if (capacity <= 0) {
+                throw new IllegalArgumentException("Capacity must be positive");
+            }
+
+            _tokenTypes = new int[capacity];
+            _nameIds = new int[capacity];
+            _textStarts = new int[capacity];
+            _textLengths = new int[capacity];
+            _chars = new char[256];
+        }
+
+        /**
+         * The maximum number of tokens recorded per batch.
+         */
+        public int capacity() {
+            return _tokenTypes.length;
+        }
+
+        /**
+         * The number of tokens recorded in the last batch.
+         */
+        public int size() {
+            return _size;
+        }
+
+        /**
+         * Token types, one of the TokenType.INT_ values, for indexes below {@link #size()}.
+         */
+        public int[] tokenTypes() {
+            return _tokenTypes;
+        }
+
+        /**
+         * Name ids, or -1 for tokens without a name, for indexes below {@link #size()}.
+         */
+        public int[] nameIds() {
+            return _nameIds;
+        }
+
+        /**
+         * Offsets into {@link #chars()} of the token texts.
+         */
+        public int[] textStarts() {
+            return _textStarts;
+        }
+
+        /**
+         * Lengths of the token texts; 0 for tokens without text.
+         */
+        public int[] textLengths() {
+            return _textLengths;
+        }
+
+        /**
+         * The characters of all the texts of the last batch.
+         */
+        public char[] chars() {
+            return _chars;
+        }
+
+        /**
+         * Returns the name with the given id.
+         */
+        public QName getName(int nameId) {
+            return _names[nameId];
+        }
+
+        /**
+         * The number of distinct names seen by this buffer; name ids are below this count.
+         */
+        public int getNameCount() {
+            return _nameCount;
+        }
+
+        /**
+         * Returns the text of the token at the given index as a string, or null
+         * if the token has no text.
+         */
+        public String getText(int index) {
+            int t = _tokenTypes[index];
+
+            if (t != TokenType.INT_TEXT && t != TokenType.INT_ATTR &&
+                t != TokenType.INT_COMMENT && t != TokenType.INT_PROCINST) {
+                return null;
+            }
+
+            return new String(_chars, _textStarts[index], _textLengths[index]);
+        }
+
+        // Empties the buffer before a new batch
+
+        private void clear() {
+            _size = 0;
+            _charCount = 0;
+        }
+
+        // Records a token and reserves textLength characters for its text, which the
+        // caller copies into _chars at the returned offset
+
+        private int add(int tokenType, QName name, int textLength) {
+            if (_size == _tokenTypes.length) {
+                throw new IllegalStateException("Token buffer is full");
+            }
+
+            int start = _charCount;
+
+            if (start + textLength > _chars.length) {
+                int n = _chars.length * 2;
+
+                while (n < start + textLength) {
+                    n *= 2;
+                }
+
+                _chars = Arrays.copyOf(_chars, n);
+            }
+
+            _charCount += textLength;
+
+            int i = _size++;
+
+            _tokenTypes[i] = tokenType;
+            _nameIds[i] = name == null ? -1 : nameId(name);
+            _textStarts[i] = start;
+            _textLengths[i] = textLength;
+
+            return start;
+        }
+
+        private int nameId(QName name) {
+            if (name == _lastName) {
+                return _lastNameId;
+            }
+
+            // QName equality ignores the prefix, names which only differ in
+            // their prefix are chained from the id found in the table
+
+            Integer first = _nameTable.get(name);
+            int id = first == null ? -1 : first;
+
+            while (id >= 0 && !_names[id].getPrefix().equals(name.getPrefix())) {
+                id = _samePrefixlessName[id];
+            }
+
+            if (id < 0) {
+                if (_nameCount == _names.length) {
+                    _names = Arrays.copyOf(_names, _nameCount * 2);
+                    _samePrefixlessName = Arrays.copyOf(_samePrefixlessName, _nameCount * 2);
+                }
+
+                id = _nameCount++;
+                _names[id] = name;
+                _samePrefixlessName[id] = first == null ? -1 : first;
+                _nameTable.put(name, id);
+            }
+
+            _lastName = name;
+            _lastNameId = id;
+
+            return id;
+        }
+
+        private final int[] _tokenTypes;
+        private final int[] _nameIds;
+        private final int[] _textStarts;
+        private final int[] _textLengths;
+        private int _size;
+
+        private char[] _chars;
+        private int _charCount;
+
+        private QName[] _names = new QName[16];
+        private int[] _samePrefixlessName = new int[16];
+        private int _nameCount;
+        private final Map<QName, Integer> _nameTable = new HashMap<>();
+        private QName _lastName;
+        private int _lastNameId;
+    }
+
     /**
      * Subclasses of XmlBookmark can be used to annotate an XML document.
      * This class is abstract to prevent parties from inadvertently
@@ -15,8 +15,13 @@
 
 package org.apache.xmlbeans;
 
+import org.apache.xmlbeans.impl.common.IOUtil;
 import org.apache.xmlbeans.impl.schema.XmlObjectFactory;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
 /**
  * Corresponds to the XML Schema
  * <a target="_blank" href="http://www.w3.org/TR/xmlschema-2/#hexBinary">xs:hexBinary</a> type.
@@ -40,5 +45,20 @@ public interface XmlHexBinary extends XmlAnySimpleType {
      * Sets this value as a byte array.
      */
     void setByteArrayValue(byte[] ba);
+
+    /**
+     * Returns this value as a stream of bytes.
+     */
+    default InputStream getInputStreamValue() {
+        byte[] bytes = getByteArrayValue();
+        return bytes == null ? null : new ByteArrayInputStream(bytes);
+    }
+
+    /**
+     * Sets this value to the bytes read from the stream.
+     */
+    default void setInputStreamValue(InputStream in) throws IOException {
+        setByteArrayValue(in == null ? null : IOUtil.readAllBytes(in));
+    }
 }
 
@@ -120,6 +120,11 @@ public class XmlOptions implements java.io.Serializable {
         LOAD_MESSAGE_DIGEST,
         LOAD_USE_DEFAULT_RESOLVER,
         LOAD_USE_XMLREADER,
+        LOAD_DEFER_SUBTREE_DEPTH,
+        LOAD_DEFER_SUBTREE_NAMES,
+        LOAD_DEDUPLICATE_TEXT,
+        LOAD_DEDUPLICATE_TEXT_MAX_LENGTH,
+        LOAD_USE_CHAR_BUFFER_POOL,
         XQUERY_CURRENT_NODE_VAR,
         XQUERY_VARIABLE_MAP,
         CHARACTER_ENCODING,
@@ -136,6 +141,11 @@ public class XmlOptions implements java.io.Serializable {
         COMPILE_PARTIAL_TYPESYSTEM,
         COMPILE_PARTIAL_METHODS,
         COMPILE_ANNOTATION_JAVADOC,
+        COMPILE_PACKED_TYPESYSTEM,
+        COMPILE_STATIC_FACTORIES,
+        COMPILE_NAMESPACE_SHARDS,
+        COMPILE_CONFINED_ACCESSORS,
+        COMPILE_CACHE_DIRECTORY,
         VALIDATE_ON_SET,
         VALIDATE_TREAT_LAX_AS_SKIP,
         VALIDATE_STRICT,
@@ -156,7 +166,8 @@ public class XmlOptions implements java.io.Serializable {
         LOAD_USE_LOCALE_CHAR_UTIL,
         XPATH_USE_SAXON,
         XPATH_USE_XMLBEANS,
-        ATTRIBUTE_VALIDATION_COMPAT_MODE
+        ATTRIBUTE_VALIDATION_COMPAT_MODE,
+        SAVE_STREAM_READER_BATCH_SIZE
     }
 
 
@@ -671,6 +682,25 @@ public class XmlOptions implements java.io.Serializable {
         return hasOption(XmlOptionsKeys.SAVE_SAX_NO_NSDECLS_IN_ATTRIBUTES);
     }
 
+    /**
+     * This option makes an XMLStreamReader created over a document read ahead up to the given
+     * number of events while holding the document lock, instead of synchronizing on every call.
+     * The events are served from the buffer afterwards - text is handed out as ranges of the
+     * store's character buffers and attribute values are only turned into strings on request.
+     * A size of 0 or 1 disables the read-ahead.
+     *
+     * @param batchSize the number of events to read ahead
+     * @see XmlTokenSource#newXMLStreamReader(XmlOptions)
+     */
+    public XmlOptions setSaveStreamReaderBatchSize(int batchSize) {
+        return set(XmlOptionsKeys.SAVE_STREAM_READER_BATCH_SIZE, batchSize);
+    }
+
+    public int getSaveStreamReaderBatchSize() {
+        Integer batchSize = (Integer) get(XmlOptionsKeys.SAVE_STREAM_READER_BATCH_SIZE);
+        return batchSize == null ? 0 : batchSize;
+    }
+
 
     /**
      * If this option is set, the document element is replaced with the
@@ -786,6 +816,111 @@ public class XmlOptions implements java.io.Serializable {
         return hasOption(XmlOptionsKeys.LOAD_LINE_NUMBERS_END_ELEMENT);
     }
 
+    /**
+     * If this option is set to a positive depth, the contents of the elements at
+     * that depth (the document element being at depth 1) are not built into the
+     * store when parsing a document.  They are recorded in a compact form and only
+     * built when a cursor, a DOM call or a typed getter first descends into them.
+     * Use this option when only a few elements near the top of large documents
+     * are looked at, e.g. the headers of an envelope.
+     * <p>
+     * The attributes of the deferred elements are always loaded.
+     *
+     * @param depth the depth of the elements whose contents are deferred, 0 to defer none
+     * @see #setLoadDeferSubtreeNames(Set)
+     * @see org.apache.xmlbeans.impl.schema.XmlObjectFactory#parse(java.io.File, XmlOptions)
+     */
+    public XmlOptions setLoadDeferSubtreeDepth(int depth) {
+        return set(XmlOptionsKeys.LOAD_DEFER_SUBTREE_DEPTH, depth);
+    }
+
+    public int getLoadDeferSubtreeDepth() {
+        Integer depth = (Integer) get(XmlOptionsKeys.LOAD_DEFER_SUBTREE_DEPTH);
+        return depth == null ? 0 : depth;
+    }
+
+    /**
+     * If this option is set, the contents of the elements with one of the given
+     * names are deferred when parsing a document, just like the contents of the
+     * elements at the depth given by {@link #setLoadDeferSubtreeDepth(int)}.
+     * The names are matched after applying {@link #setLoadSubstituteNamespaces(Map)}.
+     *
+     * @param names the names of the elements whose contents are deferred
+     * @see org.apache.xmlbeans.impl.schema.XmlObjectFactory#parse(java.io.File, XmlOptions)
+     */
+    public XmlOptions setLoadDeferSubtreeNames(Set<QName> names) {
+        return set(XmlOptionsKeys.LOAD_DEFER_SUBTREE_NAMES, names);
+    }
+
+    @SuppressWarnings("unchecked")
+    public Set<QName> getLoadDeferSubtreeNames() {
+        return (Set<QName>) get(XmlOptionsKeys.LOAD_DEFER_SUBTREE_NAMES);
+    }
+
+    /**
+     * If this option is set, short text and attribute values which occur more than
+     * once in a parsed document share a single String, instead of each occurrence
+     * being copied to the text buffers of the store.  The values are also returned
+     * as is by the getters, which saves creating a String per call.
+     * <p>
+     * The values are looked up in a table of a bounded size, so the memory saved
+     * depends on how often the same values come back, e.g. codes, currencies or
+     * booleans in large documents.
+     *
+     * @see #setLoadDeduplicateTextMaxLength(int)
+     * @see org.apache.xmlbeans.impl.schema.XmlObjectFactory#parse(java.io.File, XmlOptions)
+     */
+    public XmlOptions setLoadDeduplicateText() {
+        return setLoadDeduplicateText(true);
+    }
+
+    public XmlOptions setLoadDeduplicateText(boolean b) {
+        return set(XmlOptionsKeys.LOAD_DEDUPLICATE_TEXT, b);
+    }
+
+    public boolean isLoadDeduplicateText() {
+        return hasOption(XmlOptionsKeys.LOAD_DEDUPLICATE_TEXT);
+    }
+
+    /**
+     * Sets the length of the longest value shared when {@link #setLoadDeduplicateText()}
+     * is set.  The default is 32 chars.
+     *
+     * @param maxLength the maximum number of chars of a shared value
+     */
+    public XmlOptions setLoadDeduplicateTextMaxLength(int maxLength) {
+        return set(XmlOptionsKeys.LOAD_DEDUPLICATE_TEXT_MAX_LENGTH, maxLength);
+    }
+
+    public int getLoadDeduplicateTextMaxLength() {
+        Integer maxLength = (Integer) get(XmlOptionsKeys.LOAD_DEDUPLICATE_TEXT_MAX_LENGTH);
+        return maxLength == null ? 32 : maxLength;
+    }
+
+    /**
+     * If this option is set, the text of a parsed document is kept in char buffers
+     * of its own, taken from a pool shared by all such documents.  Once the document
+     * is not needed any more, {@link XmlTokenSource#releaseDocument()} hands its
+     * buffers back to the pool, so that short lived documents, e.g. one per request,
+     * keep reusing the same memory.
+     * <p>
+     * The buffers are not put back into the pool if text of the document was moved
+     * or copied to another document.
+     *
+     * @see org.apache.xmlbeans.impl.schema.XmlObjectFactory#parse(java.io.File, XmlOptions)
+     */
+    public XmlOptions setLoadUseCharBufferPool() {
+        return setLoadUseCharBufferPool(true);
+    }
+
+    public XmlOptions setLoadUseCharBufferPool(boolean b) {
+        return set(XmlOptionsKeys.LOAD_USE_CHAR_BUFFER_POOL, b);
+    }
+
+    public boolean isLoadUseCharBufferPool() {
+        return hasOption(XmlOptionsKeys.LOAD_USE_CHAR_BUFFER_POOL);
+    }
+
     /**
      * This option sets a map of namespace uri substitutions that happen
      * when parsing a document.
@@ -1100,6 +1235,119 @@ public class XmlOptions implements java.io.Serializable {
         return flag != null && flag;
     }
 
+    /**
+     * If this option is set, the compiled schema is saved as a single archive
+     * with a shared string pool instead of one .xsb file per component, which
+     * makes loading large type systems faster.
+     *
+     * @see XmlBeans#compileXmlBeans
+     */
+    public XmlOptions setCompilePackedTypeSystem() {
+        return setCompilePackedTypeSystem(true);
+    }
+
+    public XmlOptions setCompilePackedTypeSystem(boolean b) {
+        return set(XmlOptionsKeys.COMPILE_PACKED_TYPESYSTEM, b);
+    }
+
+    public boolean isCompilePackedTypeSystem() {
+        return hasOption(XmlOptionsKeys.COMPILE_PACKED_TYPESYSTEM);
+    }
+
+    /**
+     * If this option is set, the generated TypeSystemHolder has a table of
+     * factories for the generated implementation classes, so that they are
+     * instantiated directly rather than looked up and constructed through
+     * reflection.  This includes the instances of restrictions of simple types.
+     * The holder also returns the generated interface and enum classes and the
+     * tables of the enum classes, which are otherwise loaded by name.
+     * <p>
+     * Still looked up by name are the TypeSystemHolder itself, when a type system
+     * is found through a class loader rather than through the generated classes,
+     * and the .xsb resources of the type system.
+     *
+     * @see XmlBeans#compileXmlBeans
+     */
+    public XmlOptions setCompileStaticFactories() {
+        return setCompileStaticFactories(true);
+    }
+
+    public XmlOptions setCompileStaticFactories(boolean b) {
+        return set(XmlOptionsKeys.COMPILE_STATIC_FACTORIES, b);
+    }
+
+    public boolean isCompileStaticFactories() {
+        return hasOption(XmlOptionsKeys.COMPILE_STATIC_FACTORIES);
+    }
+
+    /**
+     * If this option is set, the index of the compiled schema is saved in one
+     * shard per namespace, and only the shards of the namespaces that are
+     * actually used are read when the type system is loaded.
+     *
+     * @see XmlBeans#compileXmlBeans
+     */
+    public XmlOptions setCompileNamespaceShards() {
+        return setCompileNamespaceShards(true);
+    }
+
+    public XmlOptions setCompileNamespaceShards(boolean b) {
+        return set(XmlOptionsKeys.COMPILE_NAMESPACE_SHARDS, b);
+    }
+
+    public boolean isCompileNamespaceShards() {
+        return hasOption(XmlOptionsKeys.COMPILE_NAMESPACE_SHARDS);
+    }
+
+    /**
+     * If this option is set, the generated getters and setters do not synchronize on
+     * the document they belong to.  Each document must then only be used by one thread
+     * at a time.  A document may be handed over to another thread, e.g. after loading
+     * it, as long as the handover itself is safe, like passing it through a
+     * {@link java.util.concurrent.BlockingQueue}.
+     * <p>
+     * Confining the document to its thread with {@link XmlTokenSource#confineDocumentTo(Thread)}
+     * makes the use from other threads fail when assertions are enabled.
+     * <p>
+     * The documents are best loaded or created with {@link #setUnsynchronized()},
+     * so that the store does not synchronize either.
+     *
+     * @see XmlBeans#compileXmlBeans
+     */
+    public XmlOptions setCompileConfinedAccessors() {
+        return setCompileConfinedAccessors(true);
+    }
+
+    public XmlOptions setCompileConfinedAccessors(boolean b) {
+        return set(XmlOptionsKeys.COMPILE_CONFINED_ACCESSORS, b);
+    }
+
+    public boolean isCompileConfinedAccessors() {
+        return hasOption(XmlOptionsKeys.COMPILE_CONFINED_ACCESSORS);
+    }
+
+    /**
+     * Sets a directory in which the type systems compiled by {@link XmlBeans#compileXsd}
+     * are kept, keyed by a hash of the schema documents and of the compile options.
+     * Compiling the same schemas again then loads the saved type system instead.
+     * <p>
+     * The key does not cover the type loader the schemas are linked to, so a directory
+     * should not be shared by compilations which differ in it.  Schemas which include,
+     * redefine or import other documents by location are always compiled, as the key
+     * would not cover these documents either.  No errors or warnings are reported when
+     * a type system is loaded from the directory.
+     *
+     * @param cacheDir the directory, which is created if needed, or null to not cache
+     * @see XmlBeans#compileXsd
+     */
+    public XmlOptions setCompileCacheDirectory(java.io.File cacheDir) {
+        return set(XmlOptionsKeys.COMPILE_CACHE_DIRECTORY, cacheDir);
+    }
+
+    public java.io.File getCompileCacheDirectory() {
+        return (java.io.File) get(XmlOptionsKeys.COMPILE_CACHE_DIRECTORY);
+    }
+
     /**
      * If this option is set when an instance is created, then value
      * facets will be checked on each call to a setter or getter
@@ -22,6 +22,8 @@ import org.xml.sax.ext.LexicalHandler;
 
 import javax.xml.stream.XMLStreamReader;
 import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 
 /**
  * Represents a holder of XML that can return an {@link XmlCursor}
@@ -49,6 +51,32 @@ public interface XmlTokenSource {
      */
     XmlDocumentProperties documentProperties();
 
+    /**
+     * Releases the document this token source is associated with, along with any
+     * other document sharing its {@link #monitor()}.  Afterwards, the document can
+     * not be read or modified any more: doing so through its objects, cursors or
+     * DOM nodes throws an IllegalStateException.  Cursors can still be closed.
+     * <p>
+     * Releasing a document is never required, but for a document parsed with
+     * {@link XmlOptions#setLoadUseCharBufferPool()} it makes its char buffers
+     * available to the next documents.
+     */
+    default void releaseDocument() {
+    }
+
+    /**
+     * Confines the document this token source is associated with, along with any
+     * other document sharing its {@link #monitor()}, to the given thread, or lifts
+     * the confinement when the thread is null.  With assertions enabled, using the
+     * document from any other thread then fails with an AssertionError.
+     * <p>
+     * This is meant for documents of types compiled with
+     * {@link XmlOptions#setCompileConfinedAccessors()}.  A document is handed over
+     * to another thread by confining it to that thread before passing it on.
+     */
+    default void confineDocumentTo(Thread owner) {
+    }
+
     /**
      * Returns a new XML cursor.
      * <p>
@@ -170,6 +198,15 @@ public interface XmlTokenSource {
      */
     void save(OutputStream os) throws IOException;
 
+    /**
+     * Writes the XML represented by this source to the given blocking channel.
+     * This method will save the XML declaration, including encoding information,
+     * with the XML.
+     */
+    default void save(WritableByteChannel channel) throws IOException {
+        save(Channels.newOutputStream(channel));
+    }
+
     /**
      * Writes the XML represented by this source to the given output.
      * Note that this method does not save the XML declaration, including the encoding information.
@@ -336,6 +373,15 @@ public interface XmlTokenSource {
      */
     void save(OutputStream os, XmlOptions options) throws IOException;
 
+    /**
+     * Writes the XML represented by this source to the given blocking channel.
+     * This method will save the XML declaration, including encoding information,
+     * with the XML.
+     */
+    default void save(WritableByteChannel channel, XmlOptions options) throws IOException {
+        save(Channels.newOutputStream(channel), options);
+    }
+
     /**
      * Writes the XML represented by this source to the given output.
      * Note that this method does not save the XML declaration, including the encoding information.
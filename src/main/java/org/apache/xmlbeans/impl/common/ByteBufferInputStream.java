@@ -0,0 +1,58 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.impl.common;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads the bytes between the position and the limit of a heap or direct
+ * {@link ByteBuffer} straight out of the buffer.  Reading goes through a
+ * duplicate, so the position of the given buffer is left alone.
+ */
+public class ByteBufferInputStream extends InputStream {
+    private final ByteBuffer _buf;
+
+    public ByteBufferInputStream(ByteBuffer buf) {
+        _buf = buf.duplicate();
+    }
+
+    public int read() {
+        return _buf.hasRemaining() ? _buf.get() & 0xFF : -1;
+    }
+
+    public int read(byte[] b, int off, int len) {
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        if (len == 0) {
+            return 0;
+        }
+
+        if (!_buf.hasRemaining()) {
+            return -1;
+        }
+
+        int n = Math.min(len, _buf.remaining());
+        _buf.get(b, off, n);
+        return n;
+    }
+
+    public int available() {
+        return _buf.remaining();
+    }
+}
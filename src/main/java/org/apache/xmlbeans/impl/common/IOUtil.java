@@ -27,6 +27,20 @@ public class IOUtil {
     // temporary directory location
     private static final Path tmpdir = Paths.get(System.getProperty("java.io.tmpdir"));
 
+    /**
+     * Reads the stream to its end, without closing it.
+     */
+    public static byte[] readAllBytes(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[8192];
+
+        for (int n; (n = in.read(buf)) >= 0; ) {
+            out.write(buf, 0, n);
+        }
+
+        return out.toByteArray();
+    }
+
     public static void copyCompletely(InputStream input, OutputStream output)
         throws IOException {
         try {
@@ -0,0 +1,388 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.impl.richParser;
+
+import org.apache.xmlbeans.*;
+import org.apache.xmlbeans.impl.common.InvalidLexicalValueException;
+import org.apache.xmlbeans.impl.common.QNameHelper;
+import org.apache.xmlbeans.impl.validator.ValidatingXMLStreamReader;
+import org.apache.xmlbeans.impl.values.NamespaceContext;
+import org.apache.xmlbeans.impl.values.XmlValueOutOfRangeException;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A schema aware {@link XMLStreamReaderExt}: while the stream is read, the
+ * schema type of each element and attribute is looked up in the compiled
+ * {@link SchemaProperty} metadata of its parent, so that values can be
+ * extracted with the lexical and whitespace rules of their schema type
+ * without ever building a tree.
+ * <p>
+ * The reader starts from a document type, i.e. the stream must contain a
+ * single root element.  If no document type is given, it is looked up from
+ * the name of the root element.  Elements which are not declared in their
+ * parent's content model are resolved as global elements, and
+ * {@code xsi:type} is honored when it names a type derived from the declared
+ * one.  Elements and attributes of unknown type have a {@code null} schema type
+ * and their values are read as {@code xs:anySimpleType}.
+ * <p>
+ * When an error listener is given, the stream is additionally validated on the
+ * fly against the document type, the errors being reported to the listener.
+ * <p>
+ * Note that reading the value of an element moves the stream to the
+ * corresponding END_ELEMENT event.
+ */
+public class SchemaXMLStreamReader
+    extends XMLStreamReaderExtImpl {
+    private static final String URI_XSI = "http://www.w3.org/2001/XMLSchema-instance";
+    private static final QName XSI_TYPE = new QName(URI_XSI, "type");
+    private static final QName XSI_NIL = new QName(URI_XSI, "nil");
+
+    private final SchemaTypeLoader _stl;
+    private SchemaType _documentType;
+
+    // One entry per open element: the declaring property, the schema type and the nil flag
+    private SchemaProperty[] _props = new SchemaProperty[16];
+    private SchemaType[] _types = new SchemaType[16];
+    private boolean[] _nils = new boolean[16];
+    private int _depth;
+    private boolean _popPending;
+
+    /**
+     * Creates a non validating schema aware reader.
+     *
+     * @param xmlStream    the stream to read, positioned before or at the root element
+     * @param documentType the document type of the stream, or null to find it from the root element
+     */
+    public SchemaXMLStreamReader(XMLStreamReader xmlStream, SchemaType documentType) {
+        this(xmlStream, documentType, null, null, null);
+    }
+
+    /**
+     * Creates a schema aware reader.
+     *
+     * @param xmlStream     the stream to read, positioned before or at the root element
+     * @param documentType  the document type of the stream, or null to find it from the root element
+     * @param stl           the type loader used for global elements, attributes and xsi:types,
+     *                      defaults to the context type loader
+     * @param options       the validation options
+     * @param errorListener if not null, the stream is validated and the errors are added to it
+     */
+    public SchemaXMLStreamReader(XMLStreamReader xmlStream, SchemaType documentType,
+                                 SchemaTypeLoader stl, XmlOptions options,
+                                 Collection<XmlError> errorListener) {
+        super(validating(xmlStream, documentType, typeLoader(stl, documentType), options, errorListener));
+
+        if (documentType != null && !documentType.isDocumentType()) {
+            throw new IllegalArgumentException("Type '" + documentType + "' is not a document type.");
+        }
+
+        _stl = typeLoader(stl, documentType);
+        _documentType = documentType;
+
+        if (getEventType() == START_ELEMENT) {
+            push();
+        }
+    }
+
+    private static SchemaTypeLoader typeLoader(SchemaTypeLoader stl, SchemaType documentType) {
+        if (stl != null) {
+            return stl;
+        }
+
+        return documentType == null
+            ? XmlBeans.getContextTypeLoader()
+            : XmlBeans.typeLoaderUnion(documentType.getTypeSystem(), XmlBeans.getContextTypeLoader());
+    }
+
+    private static XMLStreamReader validating(XMLStreamReader xmlStream, SchemaType documentType,
+                                              SchemaTypeLoader stl, XmlOptions options,
+                                              Collection<XmlError> errorListener) {
+        if (xmlStream == null || errorListener == null) {
+            return xmlStream;
+        }
+
+        ValidatingXMLStreamReader vxsr = new ValidatingXMLStreamReader();
+        vxsr.init(xmlStream, xmlStream.getEventType() != START_DOCUMENT, documentType, stl, options, errorListener);
+        return vxsr;
+    }
+
+    /**
+     * Returns the document type of the stream, null if it is not known (yet).
+     */
+    public SchemaType getDocumentType() {
+        return _documentType;
+    }
+
+    /**
+     * Returns the schema type of the current element, i.e. the element at a START_ELEMENT
+     * or END_ELEMENT event, or the parent of any other event.  Returns null outside the
+     * root element or if the type of the element is not known.
+     */
+    public SchemaType getElementType() {
+        return _depth == 0 ? null : _types[_depth - 1];
+    }
+
+    /**
+     * Returns the property which declares the current element in its parent type, null if
+     * the element was not declared by its parent.
+     */
+    public SchemaProperty getElementProperty() {
+        return _depth == 0 ? null : _props[_depth - 1];
+    }
+
+    /**
+     * Returns true if the current element has {@code xsi:nil="true"}.
+     */
+    public boolean isNil() {
+        return _depth != 0 && _nils[_depth - 1];
+    }
+
+    /**
+     * Returns the property which declares the attribute at the given index of the current
+     * START_ELEMENT, null if the attribute is not declared by the type of the element.
+     */
+    public SchemaProperty getAttributeProperty(int index) {
+        SchemaType type = getElementType();
+        return type == null ? null : type.getAttributeProperty(getAttributeName(index));
+    }
+
+    /**
+     * Returns the schema type of the attribute at the given index of the current
+     * START_ELEMENT, null if it is not known.
+     */
+    public SchemaType getAttributeSchemaType(int index) {
+        QName name = getAttributeName(index);
+
+        if (URI_XSI.equals(name.getNamespaceURI())) {
+            return null;
+        }
+
+        SchemaProperty prop = getAttributeProperty(index);
+
+        if (prop != null) {
+            return prop.getType();
+        }
+
+        SchemaGlobalAttribute global = _stl.findAttribute(name);
+        return global == null ? null : global.getType();
+    }
+
+    /**
+     * Returns the value of the current element, with the whitespace rule of its schema
+     * type applied.
+     */
+    @Override
+    public String getStringValue()
+        throws XMLStreamException {
+        SchemaType type = getElementType();
+        applyDefault(getElementProperty());
+        return type == null ? super.getStringValue() : super.getStringValue(type.getWhiteSpaceRule());
+    }
+
+    /**
+     * Returns the value of the current element, an element of simple type or with simple
+     * content, as an immutable instance of its schema type.  Returns null for a nil element.
+     * The element's default value applies if the element is empty.
+     */
+    public XmlAnySimpleType getSimpleValue()
+        throws XMLStreamException {
+        if (!isStartElement()) {
+            throw new IllegalStateException("The current event must be a START_ELEMENT.");
+        }
+
+        SchemaType type = getElementType();
+        QName name = getName();
+
+        if (type != null && !type.isSimpleType() && type.getContentType() != SchemaType.SIMPLE_CONTENT) {
+            throw new XMLStreamException("Element '" + name + "' of type '" + type + "' does not have simple content.",
+                getLocation());
+        }
+
+        boolean nil = isNil();
+
+        if (!nil) {
+            applyDefault(getElementProperty());
+        }
+
+        String text = super.getStringValue();
+
+        return nil ? null : newValue(type == null ? XmlAnySimpleType.type : type, text);
+    }
+
+    /**
+     * Returns the value of the attribute at the given index of the current START_ELEMENT as
+     * an immutable instance of its schema type.
+     */
+    public XmlAnySimpleType getAttributeSimpleValue(int index) {
+        SchemaType type = getAttributeSchemaType(index);
+        return newValue(type == null ? XmlAnySimpleType.type : type, getAttributeValue(index));
+    }
+
+    /**
+     * Returns the value of the given attribute of the current START_ELEMENT as an immutable
+     * instance of its schema type.  If the attribute is missing, its default value is
+     * returned, or null if there is none.
+     */
+    public XmlAnySimpleType getAttributeSimpleValue(QName name) {
+        for (int i = 0, n = getAttributeCount(); i < n; i++) {
+            if (name.equals(getAttributeName(i))) {
+                return getAttributeSimpleValue(i);
+            }
+        }
+
+        SchemaType type = getElementType();
+        SchemaProperty prop = type == null ? null : type.getAttributeProperty(name);
+
+        if (prop == null || prop.getDefaultText() == null) {
+            return null;
+        }
+
+        return newValue(prop.getType(), prop.getDefaultText());
+    }
+
+    private void applyDefault(SchemaProperty prop)
+        throws XMLStreamException {
+        if (prop != null && prop.getDefaultText() != null) {
+            setDefaultValue(prop.getDefaultText());
+        }
+    }
+
+    private XmlAnySimpleType newValue(SchemaType type, String text) {
+        // QName values are resolved against the namespaces in scope of the current event
+        NamespaceContext.push(new NamespaceContext(this::getNamespaceURI));
+
+        try {
+            return type.newValue(text);
+        } catch (XmlValueOutOfRangeException e) {
+            throw new InvalidLexicalValueException(e.getMessage(), e, getLocation());
+        } finally {
+            NamespaceContext.pop();
+        }
+    }
+
+    //
+    // Type tracking
+    //
+
+    @Override
+    public int next()
+        throws XMLStreamException {
+        if (_popPending) {
+            _popPending = false;
+            _depth--;
+        }
+
+        int evType = super.next();
+
+        if (evType == START_ELEMENT) {
+            push();
+        } else if (evType == END_ELEMENT) {
+            _popPending = true;
+        }
+
+        return evType;
+    }
+
+    @Override
+    public int nextTag()
+        throws XMLStreamException {
+        int evType = next();
+
+        while (((evType == CHARACTERS || evType == CDATA) && isWhiteSpace()) ||
+               evType == SPACE || evType == PROCESSING_INSTRUCTION || evType == COMMENT) {
+            evType = next();
+        }
+
+        if (evType != START_ELEMENT && evType != END_ELEMENT) {
+            throw new XMLStreamException("expected start or end tag", getLocation());
+        }
+
+        return evType;
+    }
+
+    @Override
+    public String getElementText()
+        throws XMLStreamException {
+        if (!isStartElement()) {
+            throw new XMLStreamException("parser must be on START_ELEMENT to read next text", getLocation());
+        }
+
+        return super.getStringValue();
+    }
+
+    private void push() {
+        QName name = getName();
+        SchemaProperty prop = null;
+        SchemaType type = null;
+
+        SchemaType parent = _depth == 0 ? _documentType : _types[_depth - 1];
+
+        if (_depth == 0 && parent == null) {
+            _documentType = parent = _stl.findDocumentType(name);
+        }
+
+        if (parent != null) {
+            prop = parent.getElementProperty(name);
+        }
+
+        if (prop != null) {
+            type = prop.getType();
+        } else if (_depth > 0 || _documentType == null) {
+            // Not declared by its parent, it could be allowed by a wildcard
+            SchemaGlobalElement global = _stl.findElement(name);
+
+            if (global != null) {
+                type = global.getType();
+            }
+        }
+
+        type = applyXsiType(type);
+
+        if (_depth == _types.length) {
+            int n = _depth * 2;
+            _props = Arrays.copyOf(_props, n);
+            _types = Arrays.copyOf(_types, n);
+            _nils = Arrays.copyOf(_nils, n);
+        }
+
+        String nil = getAttributeValue(URI_XSI, XSI_NIL.getLocalPart());
+
+        _props[_depth] = prop;
+        _types[_depth] = type;
+        _nils[_depth] = nil != null && ("true".equals(nil.trim()) || "1".equals(nil.trim()));
+        _depth++;
+    }
+
+    private SchemaType applyXsiType(SchemaType type) {
+        String xsiType = getAttributeValue(URI_XSI, XSI_TYPE.getLocalPart());
+
+        if (xsiType == null) {
+            return type;
+        }
+
+        xsiType = xsiType.trim();
+
+        String uri = getNamespaceURI(QNameHelper.getPrefixPart(xsiType));
+        SchemaType derived = _stl.findType(new QName(uri == null ? "" : uri, QNameHelper.getLocalPart(xsiType)));
+
+        return derived != null && (type == null || type.isAssignableFrom(derived)) ? derived : type;
+    }
+}
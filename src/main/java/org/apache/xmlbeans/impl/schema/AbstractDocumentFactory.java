@@ -26,6 +26,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
 
 @SuppressWarnings("unchecked")
 public class AbstractDocumentFactory<T> extends ElementFactory<T> {
@@ -71,6 +73,28 @@ public class AbstractDocumentFactory<T> extends ElementFactory<T> {
         return (T) getTypeLoader().parse(is, getType(), options);
     }
 
+    /**
+     * @param buffer the buffer holding the xml document, from its position to its limit
+     */
+    public T parse(ByteBuffer buffer) throws XmlException, IOException {
+        return (T) getTypeLoader().parse(buffer, getType(), null);
+    }
+
+    public T parse(ByteBuffer buffer, XmlOptions options) throws XmlException, IOException {
+        return (T) getTypeLoader().parse(buffer, getType(), options);
+    }
+
+    /**
+     * @param channel the blocking channel from which to read the xml document
+     */
+    public T parse(ReadableByteChannel channel) throws XmlException, IOException {
+        return (T) getTypeLoader().parse(channel, getType(), null);
+    }
+
+    public T parse(ReadableByteChannel channel, XmlOptions options) throws XmlException, IOException {
+        return (T) getTypeLoader().parse(channel, getType(), options);
+    }
+
     public T parse(Reader r) throws XmlException, IOException {
         return (T) getTypeLoader().parse(r, getType(), null);
     }
@@ -0,0 +1,152 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.impl.schema;
+
+import org.apache.xmlbeans.SchemaType;
+import org.apache.xmlbeans.impl.regex.ParseException;
+import org.apache.xmlbeans.impl.regex.RegularExpression;
+import org.apache.xmlbeans.impl.regex.SchemaRegularExpression;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The pattern facets of the builtin types.
+ * <p>
+ * Compiling the regular expressions of the name types is a good part of initializing
+ * the builtin type system, so they are only compiled when they are needed: values made
+ * up of ASCII characters, which are the usual case, are matched by hand, and only the
+ * others are matched against the regular expression.
+ */
+final class BuiltinPatterns {
+    private static final AtomicReferenceArray<RegularExpression> EXPRESSIONS = new AtomicReferenceArray<>(SchemaType.BTC_LAST_BUILTIN + 1);
+
+    private BuiltinPatterns() {
+    }
+
+    /**
+     * @return the pattern of the builtin type with the given code, or null if it does not
+     * have one of its own
+     */
+    static String patternFor(int btc) {
+        switch (btc) {
+            case SchemaType.BTC_LANGUAGE:
+                // we used to have ([a-zA-Z]{2}|[iI]-[a-zA-Z]+|[xX]-[a-zA-Z]{1,8})(-[a-zA-Z]{1,8})*", but s4s uses the more lenient pattern to the left.
+                return "[a-zA-Z]{1,8}(-[a-zA-Z0-9]{1,8})*";
+            case SchemaType.BTC_NMTOKEN:
+                return "\\c+";
+            case SchemaType.BTC_NAME:
+                return "\\i\\c*";
+            case SchemaType.BTC_NCNAME:
+                return "[\\i-[:]][\\c-[:]]*";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @return the compiled pattern of the builtin type with the given code, or null if
+     * it does not have one of its own
+     */
+    static RegularExpression expressionFor(int btc) {
+        RegularExpression result = EXPRESSIONS.get(btc);
+        if (result == null) {
+            String pattern = patternFor(btc);
+            if (pattern == null) {
+                return null;
+            }
+            try {
+                // compiling the same pattern twice in a race does no harm
+                result = SchemaRegularExpression.forPattern(pattern);
+            } catch (ParseException e) {
+                throw new IllegalStateException(e);
+            }
+            EXPRESSIONS.set(btc, result);
+        }
+        return result;
+    }
+
+    /**
+     * Matches a value against the pattern of the builtin type with the given code,
+     * but not against the patterns of its base types.
+     */
+    static boolean matches(int btc, String s) {
+        switch (btc) {
+            case SchemaType.BTC_LANGUAGE:
+                return matchesLanguage(s);
+            case SchemaType.BTC_NMTOKEN:
+            case SchemaType.BTC_NAME:
+            case SchemaType.BTC_NCNAME:
+                break;
+            default:
+                return true;
+        }
+
+        int n = s.length();
+        if (n == 0) {
+            return false;
+        }
+
+        boolean colon = btc != SchemaType.BTC_NCNAME;
+        boolean start = btc != SchemaType.BTC_NMTOKEN;
+        for (int i = 0; i < n; i++) {
+            char ch = s.charAt(i);
+            if (ch >= 0x80) {
+                return expressionFor(btc).matches(s);
+            }
+            if (!(i == 0 && start ? isAsciiNameStart(ch, colon) : isAsciiName(ch, colon))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAsciiNameStart(char ch, boolean colon) {
+        return (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') || ch == '_' || (colon && ch == ':');
+    }
+
+    private static boolean isAsciiName(char ch, boolean colon) {
+        return isAsciiNameStart(ch, colon) || (ch >= '0' && ch <= '9') || ch == '.' || ch == '-';
+    }
+
+    private static boolean matchesLanguage(String s) {
+        int n = s.length();
+        int i = 0;
+        boolean first = true;
+        while (i < n || first) {
+            if (!first) {
+                if (s.charAt(i) != '-') {
+                    return false;
+                }
+                i++;
+            }
+
+            int len = 0;
+            while (i < n && len <= 8 && isLanguageChar(s.charAt(i), first)) {
+                i++;
+                len++;
+            }
+            if (len < 1 || len > 8) {
+                return false;
+            }
+            first = false;
+        }
+        return true;
+    }
+
+    private static boolean isLanguageChar(char ch, boolean first) {
+        return (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') || (!first && ch >= '0' && ch <= '9');
+    }
+}
@@ -971,29 +971,15 @@ public class BuiltinSchemaTypeSystem extends SchemaTypeLoaderBase implements Sch
         result.setDecimalSize(decimalSize);
         result.setAnonymousTypeRefs(EMPTY_SCHEMATYPEREF_ARRAY);
 
-        String pattern = null;
+        // the patterns themselves are only compiled when needed, see BuiltinPatterns
         boolean hasPattern = false;
 
         switch (btc)
         {
             case SchemaType.BTC_LANGUAGE:
-                // we used to have ([a-zA-Z]{2}|[iI]-[a-zA-Z]+|[xX]-[a-zA-Z]{1,8})(-[a-zA-Z]{1,8})*", but s4s uses the more lenient pattern to the left.
-                pattern = "[a-zA-Z]{1,8}(-[a-zA-Z0-9]{1,8})*";
-                hasPattern = true;
-                break;
             case SchemaType.BTC_NMTOKEN:
-                pattern = "\\c+";
-                hasPattern = true;
-                break;
             case SchemaType.BTC_NAME:
-                pattern = "\\i\\c*";
-                hasPattern = true;
-                break;
             case SchemaType.BTC_NCNAME:
-                pattern = "[\\i-[:]][\\c-[:]]*";
-                hasPattern = true;
-                break;
-
             // These types inherit their patterns
             case SchemaType.BTC_ID:
             case SchemaType.BTC_IDREF:
@@ -1002,13 +988,6 @@ public class BuiltinSchemaTypeSystem extends SchemaTypeLoaderBase implements Sch
                 break;
         }
 
-        if (pattern != null)
-        {
-            org.apache.xmlbeans.impl.regex.RegularExpression p = null;
-            try { p = org.apache.xmlbeans.impl.regex.SchemaRegularExpression.forPattern(pattern); }
-            catch (org.apache.xmlbeans.impl.regex.ParseException e) { assert false; }
-            result.setPatterns(new org.apache.xmlbeans.impl.regex.RegularExpression[] {p});
-        }
         result.setPatternFacet(hasPattern);
 
 
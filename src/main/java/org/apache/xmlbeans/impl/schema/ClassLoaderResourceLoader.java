@@ -17,7 +17,10 @@ package org.apache.xmlbeans.impl.schema;
 
 import org.apache.xmlbeans.ResourceLoader;
 
+import java.io.File;
 import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
 
 public class ClassLoaderResourceLoader implements ResourceLoader
 {
@@ -33,5 +36,24 @@ public class ClassLoaderResourceLoader implements ResourceLoader
         return _classLoader.getResourceAsStream(resourceName);
     }
 
+    /**
+     * Returns the file of the given resource if it is a plain file, not in a jar.
+     */
+    File getResourceFile(String resourceName)
+    {
+        URL url = _classLoader.getResource(resourceName);
+        if (url == null || !"file".equals(url.getProtocol()))
+            return null;
+
+        try
+        {
+            return new File(url.toURI());
+        }
+        catch (URISyntaxException | IllegalArgumentException e)
+        {
+            return null;
+        }
+    }
+
     public void close() {}
 }
@@ -61,6 +61,18 @@ public class FileResourceLoader implements ResourceLoader
         }
     }
 
+    /**
+     * Returns the file of the given resource, unless it is in a zip file.
+     */
+    File getResourceFile(String resourceName)
+    {
+        if (_zipfile != null)
+            return null;
+
+        File file = new File(_directory, resourceName);
+        return file.isFile() ? file : null;
+    }
+
     public void close()
     {
         if (_zipfile != null)
@@ -0,0 +1,161 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.impl.schema;
+
+import org.apache.xmlbeans.SchemaProperty;
+
+import javax.xml.namespace.QName;
+import java.util.*;
+
+/**
+ * The element or attribute properties of a type by name.
+ * <p>
+ * A type keeps its property maps for as long as it is loaded, so instead of a hash map
+ * with an entry object per property, the names and the properties are kept in two
+ * arrays in their original order.  Small tables are searched linearly, larger ones
+ * through an open addressing table of indexes into the arrays.
+ */
+final class PropertyTable extends AbstractMap<QName, SchemaProperty> {
+    // up to this many properties are searched linearly
+    private static final int LINEAR_MAX = 8;
+
+    private final QName[] _names;
+    private final SchemaProperty[] _properties;
+    // index + 1 of the property in each slot, 0 for an empty slot
+    private final int[] _slots;
+
+    private PropertyTable(Map<QName, SchemaProperty> properties) {
+        int n = properties.size();
+        _names = new QName[n];
+        _properties = new SchemaProperty[n];
+
+        int i = 0;
+        for (Map.Entry<QName, SchemaProperty> entry : properties.entrySet()) {
+            _names[i] = entry.getKey();
+            _properties[i] = entry.getValue();
+            i++;
+        }
+
+        if (n <= LINEAR_MAX) {
+            _slots = null;
+            return;
+        }
+
+        // a power of two with at most half of the slots used
+        _slots = new int[Integer.highestOneBit(n * 2 - 1) << 1];
+        int mask = _slots.length - 1;
+        for (i = 0; i < n; i++) {
+            int slot = _names[i].hashCode() & mask;
+            while (_slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            _slots[slot] = i + 1;
+        }
+    }
+
+    /**
+     * @return the given properties as a table, or null if they are null
+     */
+    static PropertyTable of(Map<QName, SchemaProperty> properties) {
+        if (properties == null || properties instanceof PropertyTable) {
+            return (PropertyTable) properties;
+        }
+        return new PropertyTable(properties);
+    }
+
+    private int indexOf(Object name) {
+        if (!(name instanceof QName)) {
+            return -1;
+        }
+
+        if (_slots == null) {
+            for (int i = 0; i < _names.length; i++) {
+                if (_names[i].equals(name)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        int mask = _slots.length - 1;
+        for (int slot = name.hashCode() & mask; _slots[slot] != 0; slot = (slot + 1) & mask) {
+            int i = _slots[slot] - 1;
+            if (_names[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public SchemaProperty get(Object name) {
+        int i = indexOf(name);
+        return i < 0 ? null : _properties[i];
+    }
+
+    @Override
+    public boolean containsKey(Object name) {
+        return indexOf(name) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return _properties.length;
+    }
+
+    @Override
+    public Collection<SchemaProperty> values() {
+        return Collections.unmodifiableList(Arrays.asList(_properties));
+    }
+
+    /**
+     * @return a copy of the properties, in their original order
+     */
+    SchemaProperty[] toArray() {
+        return _properties.clone();
+    }
+
+    @Override
+    public Set<Map.Entry<QName, SchemaProperty>> entrySet() {
+        return new AbstractSet<Map.Entry<QName, SchemaProperty>>() {
+            @Override
+            public Iterator<Map.Entry<QName, SchemaProperty>> iterator() {
+                return new Iterator<Map.Entry<QName, SchemaProperty>>() {
+                    private int _next;
+
+                    @Override
+                    public boolean hasNext() {
+                        return _next < _names.length;
+                    }
+
+                    @Override
+                    public Map.Entry<QName, SchemaProperty> next() {
+                        if (_next >= _names.length) {
+                            throw new NoSuchElementException();
+                        }
+                        int i = _next++;
+                        return new AbstractMap.SimpleImmutableEntry<>(_names[i], _properties[i]);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return _names.length;
+            }
+        };
+    }
+}
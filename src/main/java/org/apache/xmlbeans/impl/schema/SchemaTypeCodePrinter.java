@@ -36,6 +36,7 @@ public final class SchemaTypeCodePrinter implements SchemaCodePrinter {
     static final String INDEX_CLASSNAME = "TypeSystemHolder";
     private static final String MAX_SPACES = "                                        ";
     private static final int INDENT_INCREMENT = 4;
+    private static final int FACTORIES_PER_METHOD = 500;
 
     private Writer _writer;
     private int _indent;
@@ -804,6 +805,11 @@ public final class SchemaTypeCodePrinter implements SchemaCodePrinter {
             }
             emit(type + " get" + propertyName + "();", BeanMethod.GET);
 
+            if (javaType == SchemaProperty.JAVA_BYTE_ARRAY) {
+                printJavaDoc((several ? "Gets (as stream) first " : "Gets (as stream) the ") + propdesc, BeanMethod.GET);
+                emit("java.io.InputStream get" + propertyName + "AsStream();", BeanMethod.GET);
+            }
+
             if (!xmltype) {
                 printJavaDoc((several ? "Gets (as xml) first " : "Gets (as xml) the ") + propdesc, BeanMethod.XGET);
                 emit(xtype + " xget" + propertyName + "();", BeanMethod.XGET);
@@ -903,6 +909,11 @@ public final class SchemaTypeCodePrinter implements SchemaCodePrinter {
             }
             emit("void set" + propertyName + "(" + type + " " + safeVarName + ");", BeanMethod.SET);
 
+            if (javaType == SchemaProperty.JAVA_BYTE_ARRAY) {
+                printJavaDoc((several ? "Sets (from stream) first " : "Sets (from stream) the ") + propdesc, BeanMethod.SET);
+                emit("void set" + propertyName + "FromStream(java.io.InputStream " + safeVarName + ") throws java.io.IOException;", BeanMethod.SET);
+            }
+
             if (!xmltype) {
                 printJavaDoc((several ? "Sets (as xml) first " : "Sets (as xml) the ") + propdesc, BeanMethod.XSET);
                 emit("void xset" + propertyName + "(" + xtype + " " + safeVarName + ");", BeanMethod.XSET);
@@ -1083,8 +1094,10 @@ public final class SchemaTypeCodePrinter implements SchemaCodePrinter {
         endBlock();
 
         if (sType.getSimpleVariety() != SchemaType.NOT_SIMPLE) {
+            // public for the factories of the type system holder, which is in another package
+            boolean staticFactories = opt != null && opt.isCompileStaticFactories();
             emit("");
-            emit("protected " + shortName + "(org.apache.xmlbeans.SchemaType sType, boolean b) {");
+            emit((staticFactories ? "public " : "protected ") + shortName + "(org.apache.xmlbeans.SchemaType sType, boolean b) {");
             startBlock();
             emit("super(sType, b);");
             endBlock();
@@ -1206,7 +1219,7 @@ public final class SchemaTypeCodePrinter implements SchemaCodePrinter {
                 break;
 
             case SchemaProperty.JAVA_STRING:
-                em = "ObjectArray(#ID#, org.apache.xmlbeans.SimpleValue::getStringValue, String[]::new);";
+                em = "StringArray(#ID#);";
                 break;
 
             case SchemaProperty.JAVA_BYTE_ARRAY:
@@ -1433,6 +1446,8 @@ public final class SchemaTypeCodePrinter implements SchemaCodePrinter {
         outdent();
         emit("};");
         emit("");
+        emit("private static final int[] PROPERTY_ID = org.apache.xmlbeans.impl.values.ElementNameIds.register(PROPERTY_QNAME);");
+        emit("");
 
         if (countQSet > 1) {
             emit("private static final QNameSet[] PROPERTY_QSET = {");
@@ -1455,12 +1470,20 @@ public final class SchemaTypeCodePrinter implements SchemaCodePrinter {
     }
 
     void emitImplementationPreamble() throws IOException {
+        if (opt != null && opt.isCompileConfinedAccessors()) {
+            // the document is owned by one thread, so no need to synchronize
+            emit("check_confined();");
+            return;
+        }
         emit("synchronized (monitor()) {");
         indent();
         emit("check_orphaned();");
     }
 
     void emitImplementationPostamble() throws IOException {
+        if (opt != null && opt.isCompileConfinedAccessors()) {
+            return;
+        }
         outdent();
         emit("}");
     }
@@ -1535,21 +1558,21 @@ public final class SchemaTypeCodePrinter implements SchemaCodePrinter {
     private static final int ADD_NEW_VALUE = 3;
     private static final int THROW_EXCEPTION = 4;
 
-    void emitGetTarget(String setIdentifier,
+    void emitGetTarget(String lookupIdentifier,
                        String identifier,
                        boolean isAttr,
                        String index,
                        int nullBehaviour,
                        String xtype)
             throws IOException {
-        assert setIdentifier != null && identifier != null;
+        assert lookupIdentifier != null && identifier != null;
 
         emit(xtype + " target = null;");
 
         if (isAttr) {
             emit("target = (" + xtype + ")get_store().find_attribute_user(" + identifier + ");");
         } else {
-            emit("target = (" + xtype + ")get_store().find_element_user(" + setIdentifier + ", " + index + ");");
+            emit("target = (" + xtype + ")get_store().find_element_user(" + lookupIdentifier + ", " + index + ");");
         }
 
         if (nullBehaviour == NOTHING) {
@@ -1634,6 +1657,7 @@ public final class SchemaTypeCodePrinter implements SchemaCodePrinter {
         final QName qName = prop.getName();
         final String identifier = propMap.get(prop).getIdentifier();
         final String setIdentifier = propMap.get(prop).getSetIdentifier();
+        final String lookupIdentifier = propMap.get(prop).getLookupIdentifier();
         final boolean several = prop.extendsJavaArray();
         final boolean nillable = prop.hasNillable() != SchemaProperty.NEVER;
         final String type = javaTypeForProperty(prop);
@@ -1665,7 +1689,7 @@ public final class SchemaTypeCodePrinter implements SchemaCodePrinter {
                 startBlock();
                 emitImplementationPreamble();
 
-                emitGetTarget(setIdentifier, identifier, isAttr, "0", NOTHING, jtargetType);
+                emitGetTarget(lookupIdentifier, identifier, isAttr, "0", NOTHING, jtargetType);
 
                 if (isAttr && (prop.hasDefault() == SchemaProperty.CONSISTENTLY ||
                         prop.hasFixed() == SchemaProperty.CONSISTENTLY)) {
@@ -1683,6 +1707,33 @@ public final class SchemaTypeCodePrinter implements SchemaCodePrinter {
                 endBlock();
             }
 
+            if (javaType == SchemaProperty.JAVA_BYTE_ARRAY && (bmList == null || bmList.contains(BeanMethod.GET))) {
+                // InputStream getPropAsStream()
+                printJavaDoc((several ? "Gets (as stream) first " : "Gets (as stream) the ") + propdesc);
+                if (!opt.isCompileNoAnnotations()) {
+                    emit("@Override");
+                }
+                emit("public java.io.InputStream get" + propertyName + "AsStream() {");
+                startBlock();
+                emitImplementationPreamble();
+
+                emitGetTarget(lookupIdentifier, identifier, isAttr, "0", NOTHING, jtargetType);
+
+                if (isAttr && (prop.hasDefault() == SchemaProperty.CONSISTENTLY ||
+                        prop.hasFixed() == SchemaProperty.CONSISTENTLY)) {
+                    emit("if (target == null) {");
+                    startBlock();
+                    makeAttributeDefaultValue(jtargetType, prop, identifier);
+                    endBlock();
+                }
+
+                emit("return (target == null) ? null : target.getInputStreamValue();");
+
+                emitImplementationPostamble();
+
+                endBlock();
+            }
+
             if (!xmltype && (bmList == null || bmList.contains(BeanMethod.XGET))) {
                 // Value xgetProp()
                 printJavaDoc((several ? "Gets (as xml) first " : "Gets (as xml) the ") + propdesc);
@@ -1692,7 +1743,7 @@ public final class SchemaTypeCodePrinter implements SchemaCodePrinter {
                 emit("public " + xtype + " xget" + propertyName + "() {");
                 startBlock();
                 emitImplementationPreamble();
-                emitGetTarget(setIdentifier, identifier, isAttr, "0", NOTHING, xtype);
+                emitGetTarget(lookupIdentifier, identifier, isAttr, "0", NOTHING, xtype);
 
                 if (isAttr && (prop.hasDefault() == SchemaProperty.CONSISTENTLY ||
                         prop.hasFixed() == SchemaProperty.CONSISTENTLY)) {
@@ -1716,7 +1767,7 @@ public final class SchemaTypeCodePrinter implements SchemaCodePrinter {
                 emit("public boolean isNil" + propertyName + "() {");
                 startBlock();
                 emitImplementationPreamble();
-                emitGetTarget(setIdentifier, identifier, isAttr, "0", NOTHING, xtype);
+                emitGetTarget(lookupIdentifier, identifier, isAttr, "0", NOTHING, xtype);
 
                 emit("return target != null && target.isNil();");
                 emitImplementationPostamble();
@@ -1738,7 +1789,7 @@ public final class SchemaTypeCodePrinter implements SchemaCodePrinter {
             if (isAttr) {
                 emit("return get_store().find_attribute_user(" + identifier + ") != null;");
             } else {
-                emit("return get_store().count_elements(" + setIdentifier + ") != 0;");
+                emit("return get_store().count_elements(" + lookupIdentifier + ") != 0;");
             }
 
             emitImplementationPostamble();
@@ -1781,7 +1832,7 @@ public final class SchemaTypeCodePrinter implements SchemaCodePrinter {
                 startBlock();
                 emitImplementationPreamble();
 
-                emitGetTarget(setIdentifier, identifier, isAttr, "i", THROW_EXCEPTION, jtargetType);
+                emitGetTarget(lookupIdentifier, identifier, isAttr, "i", THROW_EXCEPTION, jtargetType);
                 emit("return " + printJGetValue(javaType, type, (SchemaTypeImpl) prop.getType()) + ";");
 
                 emitImplementationPostamble();
@@ -1813,7 +1864,7 @@ public final class SchemaTypeCodePrinter implements SchemaCodePrinter {
                 emit("public " + xtype + " xget" + arrayName + "(int i) {");
                 startBlock();
                 emitImplementationPreamble();
-                emitGetTarget(setIdentifier, identifier, isAttr, "i", THROW_EXCEPTION, xtype);
+                emitGetTarget(lookupIdentifier, identifier, isAttr, "i", THROW_EXCEPTION, xtype);
                 emit("return target;");
                 emitImplementationPostamble();
                 endBlock();
@@ -1828,7 +1879,7 @@ public final class SchemaTypeCodePrinter implements SchemaCodePrinter {
                 emit("public boolean isNil" + arrayName + "(int i) {");
                 startBlock();
                 emitImplementationPreamble();
-                emitGetTarget(setIdentifier, identifier, isAttr, "i", THROW_EXCEPTION, xtype);
+                emitGetTarget(lookupIdentifier, identifier, isAttr, "i", THROW_EXCEPTION, xtype);
                 emit("return target.isNil();");
                 emitImplementationPostamble();
                 endBlock();
@@ -1843,7 +1894,7 @@ public final class SchemaTypeCodePrinter implements SchemaCodePrinter {
                 emit("public int sizeOf" + arrayName + "() {");
                 startBlock();
                 emitImplementationPreamble();
-                emit("return get_store().count_elements(" + setIdentifier + ");");
+                emit("return get_store().count_elements(" + lookupIdentifier + ");");
                 emitImplementationPostamble();
                 endBlock();
             }
@@ -1855,6 +1906,7 @@ public final class SchemaTypeCodePrinter implements SchemaCodePrinter {
         final QName qName = prop.getName();
         final String identifier = propMap.get(prop).getIdentifier();
         final String setIdentifier = propMap.get(prop).getSetIdentifier();
+        final String lookupIdentifier = propMap.get(prop).getLookupIdentifier();
         final boolean several = prop.extendsJavaArray();
         final boolean nillable = prop.hasNillable() != SchemaProperty.NEVER;
         final String type = javaTypeForProperty(prop);
@@ -1891,7 +1943,7 @@ public final class SchemaTypeCodePrinter implements SchemaCodePrinter {
                 } else {
                     emitImplementationPreamble();
                     emitPre(sType, PrePostExtension.OPERATION_SET, identifier, isAttr, several ? "0" : "-1");
-                    emitGetTarget(setIdentifier, identifier, isAttr, "0", ADD_NEW_VALUE, jtargetType);
+                    emitGetTarget(lookupIdentifier, identifier, isAttr, "0", ADD_NEW_VALUE, jtargetType);
                     printJSetValue(javaType, safeVarName, (SchemaTypeImpl) prop.getType());
                     emitPost(sType, PrePostExtension.OPERATION_SET, identifier, isAttr, several ? "0" : "-1");
                     emitImplementationPostamble();
@@ -1899,6 +1951,23 @@ public final class SchemaTypeCodePrinter implements SchemaCodePrinter {
                 endBlock();
             }
 
+            if (javaType == SchemaProperty.JAVA_BYTE_ARRAY && (bmList == null || bmList.contains(BeanMethod.SET))) {
+                // void setPropFromStream(InputStream v)
+                printJavaDoc((several ? "Sets (from stream) first " : "Sets (from stream) the ") + propdesc);
+                if (!opt.isCompileNoAnnotations()) {
+                    emit("@Override");
+                }
+                emit("public void set" + propertyName + "FromStream(java.io.InputStream " + safeVarName + ") throws java.io.IOException {");
+                startBlock();
+                emitImplementationPreamble();
+                emitPre(sType, PrePostExtension.OPERATION_SET, identifier, isAttr, several ? "0" : "-1");
+                emitGetTarget(lookupIdentifier, identifier, isAttr, "0", ADD_NEW_VALUE, jtargetType);
+                emit("target.setInputStreamValue(" + safeVarName + ");");
+                emitPost(sType, PrePostExtension.OPERATION_SET, identifier, isAttr, several ? "0" : "-1");
+                emitImplementationPostamble();
+                endBlock();
+            }
+
             if (!xmltype && (bmList == null || bmList.contains(BeanMethod.XSET))) {
                 // void xsetProp(Value v)
                 printJavaDoc((several ? "Sets (as xml) first " : "Sets (as xml) the ") + propdesc);
@@ -1909,7 +1978,7 @@ public final class SchemaTypeCodePrinter implements SchemaCodePrinter {
                 startBlock();
                 emitImplementationPreamble();
                 emitPre(sType, PrePostExtension.OPERATION_SET, identifier, isAttr, several ? "0" : "-1");
-                emitGetTarget(setIdentifier, identifier, isAttr, "0", ADD_NEW_VALUE, xtype);
+                emitGetTarget(lookupIdentifier, identifier, isAttr, "0", ADD_NEW_VALUE, xtype);
                 emit("target.set(" + safeVarName + ");");
                 emitPost(sType, PrePostExtension.OPERATION_SET, identifier, isAttr, several ? "0" : "-1");
                 emitImplementationPostamble();
@@ -1944,7 +2013,7 @@ public final class SchemaTypeCodePrinter implements SchemaCodePrinter {
                 startBlock();
                 emitImplementationPreamble();
                 emitPre(sType, PrePostExtension.OPERATION_SET, identifier, isAttr, several ? "0" : "-1");
-                emitGetTarget(setIdentifier, identifier, isAttr, "0", ADD_NEW_VALUE, xtype);
+                emitGetTarget(lookupIdentifier, identifier, isAttr, "0", ADD_NEW_VALUE, xtype);
                 emit("target.setNil();");
                 emitPost(sType, PrePostExtension.OPERATION_SET, identifier, isAttr, several ? "0" : "-1");
                 emitImplementationPostamble();
@@ -1964,7 +2033,7 @@ public final class SchemaTypeCodePrinter implements SchemaCodePrinter {
             if (isAttr) {
                 emit("get_store().remove_attribute(" + identifier + ");");
             } else {
-                emit("get_store().remove_element(" + setIdentifier + ", 0);");
+                emit("get_store().remove_element(" + lookupIdentifier + ", 0);");
             }
             emitPost(sType, PrePostExtension.OPERATION_REMOVE, identifier, isAttr, several ? "0" : "-1");
             emitImplementationPostamble();
@@ -2063,7 +2132,7 @@ public final class SchemaTypeCodePrinter implements SchemaCodePrinter {
                 } else {
                     emitImplementationPreamble();
                     emitPre(sType, PrePostExtension.OPERATION_SET, identifier, isAttr, "i");
-                    emitGetTarget(setIdentifier, identifier, isAttr, "i", THROW_EXCEPTION, jtargetType);
+                    emitGetTarget(lookupIdentifier, identifier, isAttr, "i", THROW_EXCEPTION, jtargetType);
                     printJSetValue(javaType, safeVarName, (SchemaTypeImpl) prop.getType());
                     emitPost(sType, PrePostExtension.OPERATION_SET, identifier, isAttr, "i");
                     emitImplementationPostamble();
@@ -2095,7 +2164,7 @@ public final class SchemaTypeCodePrinter implements SchemaCodePrinter {
                 startBlock();
                 emitImplementationPreamble();
                 emitPre(sType, PrePostExtension.OPERATION_SET, identifier, isAttr, "i");
-                emitGetTarget(setIdentifier, identifier, isAttr, "i", THROW_EXCEPTION, xtype);
+                emitGetTarget(lookupIdentifier, identifier, isAttr, "i", THROW_EXCEPTION, xtype);
                 emit("target.set(" + safeVarName + ");");
                 emitPost(sType, PrePostExtension.OPERATION_SET, identifier, isAttr, "i");
                 emitImplementationPostamble();
@@ -2111,7 +2180,7 @@ public final class SchemaTypeCodePrinter implements SchemaCodePrinter {
                 startBlock();
                 emitImplementationPreamble();
                 emitPre(sType, PrePostExtension.OPERATION_SET, identifier, isAttr, "i");
-                emitGetTarget(setIdentifier, identifier, isAttr, "i", THROW_EXCEPTION, xtype);
+                emitGetTarget(lookupIdentifier, identifier, isAttr, "i", THROW_EXCEPTION, xtype);
                 emit("target.setNil();");
                 emitPost(sType, PrePostExtension.OPERATION_SET, identifier, isAttr, "i");
                 emitImplementationPostamble();
@@ -2209,7 +2278,7 @@ public final class SchemaTypeCodePrinter implements SchemaCodePrinter {
                 startBlock();
                 emitImplementationPreamble();
                 emitPre(sType, PrePostExtension.OPERATION_REMOVE, identifier, isAttr, "i");
-                emit("get_store().remove_element(" + setIdentifier + ", i);");
+                emit("get_store().remove_element(" + lookupIdentifier + ", i);");
                 emitPost(sType, PrePostExtension.OPERATION_REMOVE, identifier, isAttr, "i");
                 emitImplementationPostamble();
                 endBlock();
@@ -2428,10 +2497,148 @@ public final class SchemaTypeCodePrinter implements SchemaCodePrinter {
         emit("super(TypeSystemHolder.class);");
         outdent();
         emit("}");
+
+        if (opt != null && opt.isCompileStaticFactories()) {
+            printTypeFactories(system);
+        }
+
         outdent();
         emit("}");
     }
 
+    /**
+     * Prints the factories of the implementation classes, so that the instances
+     * are constructed directly rather than through reflection, and the lookups of
+     * the interface and enum classes and of the enum tables.  Each lookup is split
+     * into methods of up to FACTORIES_PER_METHOD classes, to keep large type systems
+     * below the size limit of a method.
+     */
+    private void printTypeFactories(SchemaTypeSystem system) throws IOException {
+        Map<String, SchemaType> implTypes = new LinkedHashMap<>();
+        List<SchemaType> types = new ArrayList<>();
+        types.addAll(Arrays.asList(system.globalTypes()));
+        types.addAll(Arrays.asList(system.documentTypes()));
+        types.addAll(Arrays.asList(system.attributeTypes()));
+        for (SchemaType sType : types) {
+            if (!sType.isBuiltinType() && sType.getFullJavaName() != null) {
+                implTypes.put(sType.getFullJavaImplName(), sType);
+                collectNestedImplTypes(sType, implTypes);
+            }
+        }
+
+        Map<String, String> factories = new LinkedHashMap<>();
+        Map<String, String> subtypeFactories = new LinkedHashMap<>();
+        Map<String, String> javaClasses = new LinkedHashMap<>();
+        Map<String, String> enumTables = new LinkedHashMap<>();
+        for (Map.Entry<String, SchemaType> entry : implTypes.entrySet()) {
+            SchemaType sType = entry.getValue();
+            String constructor = entry.getKey().replace('$', '.') + "::new";
+            String javaName = sType.getFullJavaName().replace('$', '.');
+
+            factories.put(entry.getKey(), constructor);
+            if (sType.getSimpleVariety() != SchemaType.NOT_SIMPLE) {
+                subtypeFactories.put(entry.getKey(), constructor);
+            }
+
+            javaClasses.put(sType.getFullJavaName(), javaName + ".class");
+            if (sType.hasStringEnumValues() && !hasBase(sType) &&
+                    (sType.isSimpleType() || sType.getContentType() == SchemaType.SIMPLE_CONTENT)) {
+                javaClasses.put(sType.getFullJavaName() + "$Enum", javaName + ".Enum.class");
+                enumTables.put(sType.getFullJavaName() + "$Enum", javaName + ".Enum.table");
+            }
+        }
+
+        printLookup("typeFactoryForClassname",
+            "java.util.function.Function<org.apache.xmlbeans.SchemaType, org.apache.xmlbeans.impl.values.XmlObjectBase>", factories);
+        printLookup("subtypeFactoryForClassname",
+            "java.util.function.BiFunction<org.apache.xmlbeans.SchemaType, java.lang.Boolean, org.apache.xmlbeans.impl.values.XmlObjectBase>", subtypeFactories);
+        printLookup("javaClassForClassname", "java.lang.Class<?>", javaClasses);
+        printLookup("enumTableForClassname", "org.apache.xmlbeans.StringEnumAbstractBase.Table", enumTables);
+    }
+
+    /**
+     * Prints an override of the given lookup method of {@link SchemaTypeSystemImpl},
+     * which returns the expression of the class name it is called with.
+     */
+    private void printLookup(String method, String returnType, Map<String, String> cases) throws IOException {
+        int methods = Math.max(1, (cases.size() + FACTORIES_PER_METHOD - 1) / FACTORIES_PER_METHOD);
+        List<List<String>> buckets = new ArrayList<>();
+        for (int i = 0; i < methods; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        for (String name : cases.keySet()) {
+            buckets.get(Math.floorMod(name.hashCode(), methods)).add(name);
+        }
+
+        emit("");
+        emit("@Override");
+        emit("protected " + returnType + " " + method + "(String className) {");
+        indent();
+        if (methods == 1) {
+            printLookupSwitch(buckets.get(0), cases);
+        } else {
+            emit("switch (Math.floorMod(className.hashCode(), " + methods + ")) {");
+            indent();
+            for (int i = 0; i < methods; i++) {
+                emit("case " + i + ": return " + method + i + "(className);");
+            }
+            emit("default: return null;");
+            outdent();
+            emit("}");
+        }
+        outdent();
+        emit("}");
+
+        if (methods > 1) {
+            for (int i = 0; i < methods; i++) {
+                emit("");
+                emit("private static " + returnType + " " + method + i + "(String className) {");
+                indent();
+                printLookupSwitch(buckets.get(i), cases);
+                outdent();
+                emit("}");
+            }
+        }
+    }
+
+    private void printLookupSwitch(List<String> names, Map<String, String> cases) throws IOException {
+        if (names.isEmpty()) {
+            emit("return null;");
+            return;
+        }
+
+        emit("switch (className) {");
+        indent();
+        for (String name : names) {
+            emit("case \"" + name + "\": return " + cases.get(name) + ";");
+        }
+        emit("default: return null;");
+        outdent();
+        emit("}");
+    }
+
+    /**
+     * Collects the inner implementation classes the same way
+     * {@link #printNestedTypeImpls} prints them.
+     */
+    private static void collectNestedImplTypes(SchemaType sType, Map<String, SchemaType> implTypes) {
+        boolean redefinition = sType.getName() != null &&
+                sType.getName().equals(sType.getBaseType().getName());
+        while (sType != null) {
+            for (SchemaType anonType : sType.getAnonymousTypes()) {
+                if (!anonType.isSkippedAnonymousType()) {
+                    implTypes.put(anonType.getFullJavaImplName(), anonType);
+                }
+                collectNestedImplTypes(anonType, implTypes);
+            }
+            if (!redefinition ||
+                    (sType.getDerivationType() != SchemaType.DT_EXTENSION && !sType.isSimpleType())) {
+                break;
+            }
+            sType = sType.getBaseType();
+        }
+    }
+
     private static class Identifier {
         private final int getindex;
         private Integer setindex = null;
@@ -2448,6 +2655,11 @@ public final class SchemaTypeCodePrinter implements SchemaCodePrinter {
             return setindex == null ? getIdentifier() : "PROPERTY_QSET["+ setindex + "]";
         }
 
+        // the arguments which identify the elements of the property in the store lookups
+        public String getLookupIdentifier() {
+            return setindex == null ? getIdentifier() + ", PROPERTY_ID[" + getindex + "]" : getSetIdentifier();
+        }
+
         public void setSetIndex(int setindex) {
             this.setindex = setindex;
         }
@@ -29,6 +29,8 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.math.BigInteger;
 import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 public final class SchemaTypeImpl implements SchemaType, TypeStoreUserFactory {
     // global types have names
@@ -75,6 +77,10 @@ public final class SchemaTypeImpl implements SchemaType, TypeStoreUserFactory {
     private volatile Constructor<? extends XmlObjectBase> _javaImplConstructor;
     private volatile Constructor<? extends XmlObjectBase> _javaImplConstructor2;
     private volatile boolean _implNotAvailable;
+    private volatile Function<SchemaType, XmlObjectBase> _javaImplFactory;
+    private volatile boolean _javaImplFactoryEnsured;
+    private volatile BiFunction<SchemaType, Boolean, XmlObjectBase> _javaImplSubtypeFactory;
+    private volatile boolean _javaImplSubtypeFactoryEnsured;
 
     // user data objects not persisted
     private volatile Object _userData;
@@ -90,8 +96,8 @@ public final class SchemaTypeImpl implements SchemaType, TypeStoreUserFactory {
     private volatile SchemaLocalElement[] _localElts; // lazily computed
     private volatile Map<SchemaLocalElement, Integer> _eltToIndexMap; // lazily computed
     private volatile Map<SchemaLocalAttribute, Integer> _attrToIndexMap; // lazily computed
-    private Map<QName, SchemaProperty> _propertyModelByElementName;
-    private Map<QName, SchemaProperty> _propertyModelByAttributeName;
+    private PropertyTable _propertyModelByElementName;
+    private PropertyTable _propertyModelByAttributeName;
     private boolean _hasAllContent;
     private boolean _orderSensitive;
     private QNameSet _typedWildcardElements;
@@ -178,7 +184,7 @@ public final class SchemaTypeImpl implements SchemaType, TypeStoreUserFactory {
 
     // for document types only - only valid during compilation
     private QName _sg;
-    private final List<QName> _sgMembers = new ArrayList<>();
+    private List<QName> _sgMembers = Collections.emptyList();
 
     private String _documentation;
 
@@ -744,6 +750,8 @@ public final class SchemaTypeImpl implements SchemaType, TypeStoreUserFactory {
     }
 
     private static final SchemaProperty[] NO_PROPERTIES = new SchemaProperty[0];
+    private static final XmlValueRef[] NO_FACETS = new XmlValueRef[SchemaType.LAST_FACET + 1];
+    private static final boolean[] NO_FIXED_FACETS = new boolean[SchemaType.LAST_FACET + 1];
 
     public SchemaProperty[] getDerivedProperties() {
         SchemaType baseType = getBaseType();
@@ -812,7 +820,7 @@ public final class SchemaTypeImpl implements SchemaType, TypeStoreUserFactory {
             return NO_PROPERTIES;
         }
 
-        return _propertyModelByElementName.values().toArray(new SchemaProperty[0]);
+        return _propertyModelByElementName.toArray();
     }
 
     public SchemaProperty[] getAttributeProperties() {
@@ -820,7 +828,7 @@ public final class SchemaTypeImpl implements SchemaType, TypeStoreUserFactory {
             return NO_PROPERTIES;
         }
 
-        return _propertyModelByAttributeName.values().toArray(new SchemaProperty[0]);
+        return _propertyModelByAttributeName.toArray();
     }
 
     public SchemaProperty getElementProperty(QName eltName) {
@@ -853,23 +861,25 @@ public final class SchemaTypeImpl implements SchemaType, TypeStoreUserFactory {
         assertResolving();
         _contentModel = contentModel;
         _attributeModel = attrModel;
-        _propertyModelByElementName = propertyModelByElementName;
-        _propertyModelByAttributeName = propertyModelByAttributeName;
+        _propertyModelByElementName = PropertyTable.of(propertyModelByElementName);
+        _propertyModelByAttributeName = PropertyTable.of(propertyModelByAttributeName);
         _hasAllContent = isAll;
 
 
         // Add entries for each element property for substitution group members
         if (_propertyModelByElementName != null) {
-            _validSubstitutions = new LinkedHashSet<>();
+            Set<QName> validSubstitutions = new LinkedHashSet<>();
             Collection<SchemaProperty> eltProps = _propertyModelByElementName.values();
             for (SchemaProperty prop : eltProps) {
                 QName[] names = prop.acceptedNames();
                 for (QName name : names) {
                     if (!_propertyModelByElementName.containsKey(name)) {
-                        _validSubstitutions.add(name);
+                        validSubstitutions.add(name);
                     }
                 }
             }
+            // most types have none, so don't keep an empty set for each of them
+            _validSubstitutions = validSubstitutions.isEmpty() ? Collections.emptySet() : validSubstitutions;
         }
     }
 
@@ -1321,6 +1331,9 @@ public final class SchemaTypeImpl implements SchemaType, TypeStoreUserFactory {
 
     public void addSubstitutionGroupMember(QName member) {
         assertSGResolved();
+        if (_sgMembers.isEmpty()) {
+            _sgMembers = new ArrayList<>();
+        }
         _sgMembers.add(member);
     }
 
@@ -1366,8 +1379,9 @@ public final class SchemaTypeImpl implements SchemaType, TypeStoreUserFactory {
 
     public void setBasicFacets(XmlValueRef[] values, boolean[] fixed) {
         assertResolving();
-        _facetArray = values == null ? null : values.clone();
-        _fixedFacetArray = fixed == null ? null : fixed.clone();
+        // many simple types have no facets of their own, they all share the same empty arrays
+        _facetArray = values == null ? null : Arrays.equals(values, NO_FACETS) ? NO_FACETS : values.clone();
+        _fixedFacetArray = fixed == null ? null : Arrays.equals(fixed, NO_FIXED_FACETS) ? NO_FIXED_FACETS : fixed.clone();
     }
 
     public int ordered() {
@@ -1431,6 +1445,8 @@ public final class SchemaTypeImpl implements SchemaType, TypeStoreUserFactory {
             if (i >= _patterns.length) {
                 return false;
             }
+        } else if (isBuiltinType() && !BuiltinPatterns.matches(_builtinTypeCode, s)) {
+            return false;
         }
 
         return getBaseType().matchPatternFacet(s);
@@ -1438,7 +1454,8 @@ public final class SchemaTypeImpl implements SchemaType, TypeStoreUserFactory {
 
     public String[] getPatterns() {
         if (_patterns == null) {
-            return new String[0];
+            String builtin = isBuiltinType() ? BuiltinPatterns.patternFor(_builtinTypeCode) : null;
+            return (builtin == null) ? new String[0] : new String[]{builtin};
         }
         String[] patterns = new String[_patterns.length];
         for (int i = 0; i < _patterns.length; i++) {
@@ -1449,7 +1466,8 @@ public final class SchemaTypeImpl implements SchemaType, TypeStoreUserFactory {
 
     public org.apache.xmlbeans.impl.regex.RegularExpression[] getPatternExpressions() {
         if (_patterns == null) {
-            return new org.apache.xmlbeans.impl.regex.RegularExpression[0];
+            org.apache.xmlbeans.impl.regex.RegularExpression builtin = isBuiltinType() ? BuiltinPatterns.expressionFor(_builtinTypeCode) : null;
+            return (builtin == null) ? new org.apache.xmlbeans.impl.regex.RegularExpression[0] : new org.apache.xmlbeans.impl.regex.RegularExpression[]{builtin};
         }
         org.apache.xmlbeans.impl.regex.RegularExpression[] result = new org.apache.xmlbeans.impl.regex.RegularExpression[_patterns.length];
         System.arraycopy(_patterns, 0, result, 0, _patterns.length);
@@ -1544,10 +1562,14 @@ public final class SchemaTypeImpl implements SchemaType, TypeStoreUserFactory {
             lookupStringEnumEntry.put(sEnum.getString(), sEnum);
         }
 
-        Class<? extends StringEnumAbstractBase> jc = _baseEnumTyperef.get().getEnumJavaClass();
+        SchemaTypeImpl baseEnumType = (SchemaTypeImpl) _baseEnumTyperef.get();
+        Class<? extends StringEnumAbstractBase> jc = baseEnumType.getEnumJavaClass();
         if (jc != null) {
             try {
-                StringEnumAbstractBase.Table table = (StringEnumAbstractBase.Table) jc.getField("table").get(null);
+                StringEnumAbstractBase.Table table = baseEnumType.getEnumTable();
+                if (table == null) {
+                    table = (StringEnumAbstractBase.Table) jc.getField("table").get(null);
+                }
                 for (SchemaStringEnumEntry sEnum : sEnums) {
                     int j = sEnum.getIntValue();
                     StringEnumAbstractBase enumVal = table.forInt(j);
@@ -1733,6 +1755,12 @@ public final class SchemaTypeImpl implements SchemaType, TypeStoreUserFactory {
     public Class<? extends XmlObject> getJavaClass() {
         // This field is declared volatile and Class is immutable so this is allowed.
         if (_javaClass == null && getFullJavaName() != null) {
+            Class<?> generated = generatedClass(getFullJavaName());
+            if (generated != null) {
+                _javaClass = (Class<? extends XmlObject>) generated;
+                return _javaClass;
+            }
+
             try {
                 _javaClass = (Class<? extends XmlObject>) Class.forName(getFullJavaName(), false, getTypeSystem().getClassLoader());
             } catch (ClassNotFoundException e) {
@@ -1799,12 +1827,71 @@ public final class SchemaTypeImpl implements SchemaType, TypeStoreUserFactory {
 
     }
 
+    /**
+     * Returns the factory of the generated type system holder for the implementation
+     * class, if it was compiled with static factories.
+     */
+    private Function<SchemaType, XmlObjectBase> getJavaImplFactory() {
+        if (!_javaImplFactoryEnsured) {
+            SchemaTypeSystem typeSystem = getTypeSystem();
+            if (typeSystem instanceof SchemaTypeSystemImpl && getFullJavaImplName() != null) {
+                _javaImplFactory = ((SchemaTypeSystemImpl) typeSystem).typeFactoryForClassname(getFullJavaImplName());
+            }
+            _javaImplFactoryEnsured = true;
+        }
+
+        return _javaImplFactory;
+    }
+
+    /**
+     * Returns the factory of the generated type system holder for restrictions of this
+     * type, if it was compiled with static factories.
+     */
+    private BiFunction<SchemaType, Boolean, XmlObjectBase> getJavaImplSubtypeFactory() {
+        if (!_javaImplSubtypeFactoryEnsured) {
+            SchemaTypeSystem typeSystem = getTypeSystem();
+            if (typeSystem instanceof SchemaTypeSystemImpl && getFullJavaImplName() != null) {
+                _javaImplSubtypeFactory = ((SchemaTypeSystemImpl) typeSystem).subtypeFactoryForClassname(getFullJavaImplName());
+            }
+            _javaImplSubtypeFactoryEnsured = true;
+        }
+
+        return _javaImplSubtypeFactory;
+    }
+
+    /**
+     * Returns the generated class with the given name from the type system holder,
+     * if it was compiled with static factories.
+     */
+    private Class<?> generatedClass(String className) {
+        SchemaTypeSystem typeSystem = getTypeSystem();
+        return typeSystem instanceof SchemaTypeSystemImpl ?
+            ((SchemaTypeSystemImpl) typeSystem).javaClassForClassname(className) : null;
+    }
+
+    /**
+     * Returns the table of the generated enum class of this type from the type system
+     * holder, if it was compiled with static factories.
+     */
+    private StringEnumAbstractBase.Table getEnumTable() {
+        SchemaTypeSystem typeSystem = getTypeSystem();
+        return typeSystem instanceof SchemaTypeSystemImpl ?
+            ((SchemaTypeSystemImpl) typeSystem).enumTableForClassname(getFullJavaName() + "$Enum") : null;
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public Class<? extends StringEnumAbstractBase> getEnumJavaClass() {
         // This field is declared volatile and Class is immutable so this is allowed.
         if (_javaEnumClass == null) {
             if (getBaseEnumType() != null) {
+                String enumClassName = getBaseEnumType().getFullJavaName() + "$Enum";
+                Class<?> generated = ((SchemaTypeImpl) getBaseEnumType()).generatedClass(enumClassName);
+                if (generated != null) {
+                    _javaEnumClass = (Class<? extends StringEnumAbstractBase>) generated;
+                    return _javaEnumClass;
+                }
+
                 try {
                     _javaEnumClass = (Class<? extends StringEnumAbstractBase>) Class.forName(getBaseEnumType().getFullJavaName() + "$Enum", false, getTypeSystem().getClassLoader());
                 } catch (ClassNotFoundException e) {
@@ -1886,6 +1973,11 @@ public final class SchemaTypeImpl implements SchemaType, TypeStoreUserFactory {
         XmlObject result = null;
 
         if (!isBuiltinType() && !isNoType()) {
+            Function<SchemaType, XmlObjectBase> factory = getJavaImplFactory();
+            if (factory != null) {
+                return factory.apply(this);
+            }
+
             // System.out.println("Attempting to load impl class: " + getFullJavaImplName());
             Constructor<? extends XmlObjectBase> ctr = getJavaImplConstructor();
             if (ctr != null) {
@@ -1911,6 +2003,11 @@ public final class SchemaTypeImpl implements SchemaType, TypeStoreUserFactory {
 
     private XmlObject createUnattachedSubclass(SchemaType sType) {
         if (!isBuiltinType() && !isNoType()) {
+            BiFunction<SchemaType, Boolean, XmlObjectBase> factory = getJavaImplSubtypeFactory();
+            if (factory != null) {
+                return factory.apply(sType, !sType.isSimpleType());
+            }
+
             Constructor<? extends XmlObjectBase> ctr = getJavaImplConstructor2();
             try {
                 return (ctr == null) ? null : ctr.newInstance(sType, !sType.isSimpleType());
@@ -25,6 +25,7 @@ import javax.xml.namespace.QName;
 import java.io.InputStream;
 import java.lang.ref.SoftReference;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.apache.xmlbeans.impl.schema.SchemaTypeSystemImpl.METADATA_PACKAGE_GEN;
 
@@ -45,6 +46,7 @@ public class SchemaTypeLoaderImpl extends SchemaTypeLoaderBase {
     private Map<QName, Object> _attributeTypeCache;
     private Map<String, Object> _classnameCache;
     private final String _metadataPath;
+    private final Index _index;
 
     public static String METADATA_PACKAGE_LOAD = METADATA_PACKAGE_GEN;
     private static final Object CACHED_NOT_FOUND = new Object();
@@ -168,6 +170,40 @@ public class SchemaTypeLoaderImpl extends SchemaTypeLoaderBase {
         return new SchemaTypeLoaderImpl(list.toArray(), resourceLoader, classLoader, metadataPath);
     }
 
+    /**
+     * Initialize a SchemaTypeLoader over the given type systems, which reads the global
+     * components of all the type systems on its search path into an index up front.
+     * <p>
+     * Unlike the other type loaders, it does not cache the results of the lookups, so
+     * that finding a component is no more than a read of the index, and not finding one
+     * does not search the type systems again.  Loaders on the search path which are not
+     * type systems, e.g. the type loaders of class loaders, can't be read up front and are
+     * searched as usual for the components not in the index.
+     * <p>
+     * The components in the index are not resolved before they are looked up.
+     *
+     * @param searchPath the type systems to index, in the order they are searched
+     * @return the schemaTypeLoader
+     */
+    public static SchemaTypeLoader buildIndexed(SchemaTypeLoader[] searchPath) {
+        SchemaTypeLoaderImpl flattened = (SchemaTypeLoaderImpl) build(searchPath, null, null);
+
+        Index index = new Index();
+        List<SchemaTypeLoader> rest = new ArrayList<>();
+        for (SchemaTypeLoader stl : flattened._searchPath) {
+            if (stl instanceof SchemaTypeSystemImpl) {
+                ((SchemaTypeSystemImpl) stl).addToIndex(index);
+            } else if (stl instanceof SchemaTypeSystem) {
+                index.addComponents((SchemaTypeSystem) stl);
+            } else {
+                rest.add(stl);
+            }
+        }
+        index.complete = rest.isEmpty();
+
+        return new SchemaTypeLoaderImpl(rest.toArray(EMPTY_SCHEMATYPELOADER_ARRAY), null, null, flattened._metadataPath, index);
+    }
+
     /**
      * Just used to avoid duplicate path entries
      */
@@ -182,7 +218,7 @@ public class SchemaTypeLoaderImpl extends SchemaTypeLoaderBase {
             for (SchemaTypeLoader stl : searchPath) {
                 if (stl instanceof SchemaTypeLoaderImpl) {
                     SchemaTypeLoaderImpl sub = (SchemaTypeLoaderImpl) stl;
-                    if (sub._classLoader != null || sub._resourceLoader != null) {
+                    if (sub._classLoader != null || sub._resourceLoader != null || sub._index != null) {
                         add(sub);
                     } else {
                         add(sub._searchPath);
@@ -220,6 +256,11 @@ public class SchemaTypeLoaderImpl extends SchemaTypeLoaderBase {
      * (3) Finally on the classloader supplied.
      */
     private SchemaTypeLoaderImpl(SchemaTypeLoader[] searchPath, ResourceLoader resourceLoader, ClassLoader classLoader, String metadataPath) {
+        this(searchPath, resourceLoader, classLoader, metadataPath, null);
+    }
+
+    private SchemaTypeLoaderImpl(SchemaTypeLoader[] searchPath, ResourceLoader resourceLoader, ClassLoader classLoader, String metadataPath, Index index) {
+        _index = index;
         _searchPath = (searchPath == null) ? EMPTY_SCHEMATYPELOADER_ARRAY : searchPath;
         _resourceLoader = resourceLoader;
         _classLoader = classLoader;
@@ -244,17 +285,17 @@ public class SchemaTypeLoaderImpl extends SchemaTypeLoaderBase {
      * Initializes the caches.
      */
     private void initCaches() {
-        _classpathTypeSystems = Collections.synchronizedMap(new HashMap<>());
-        _classLoaderTypeSystems = Collections.synchronizedMap(new HashMap<>());
-        _elementCache = Collections.synchronizedMap(new HashMap<>());
-        _attributeCache = Collections.synchronizedMap(new HashMap<>());
-        _modelGroupCache = Collections.synchronizedMap(new HashMap<>());
-        _attributeGroupCache = Collections.synchronizedMap(new HashMap<>());
-        _idConstraintCache = Collections.synchronizedMap(new HashMap<>());
-        _typeCache = Collections.synchronizedMap(new HashMap<>());
-        _documentCache = Collections.synchronizedMap(new HashMap<>());
-        _attributeTypeCache = Collections.synchronizedMap(new HashMap<>());
-        _classnameCache = Collections.synchronizedMap(new HashMap<>());
+        _classpathTypeSystems = new ConcurrentHashMap<>();
+        _classLoaderTypeSystems = new ConcurrentHashMap<>();
+        _elementCache = new ConcurrentHashMap<>();
+        _attributeCache = new ConcurrentHashMap<>();
+        _modelGroupCache = new ConcurrentHashMap<>();
+        _attributeGroupCache = new ConcurrentHashMap<>();
+        _idConstraintCache = new ConcurrentHashMap<>();
+        _typeCache = new ConcurrentHashMap<>();
+        _documentCache = new ConcurrentHashMap<>();
+        _attributeTypeCache = new ConcurrentHashMap<>();
+        _classnameCache = new ConcurrentHashMap<>();
     }
 
     SchemaTypeSystemImpl typeSystemForComponent(String searchdir, QName name) {
@@ -323,7 +364,9 @@ public class SchemaTypeLoaderImpl extends SchemaTypeLoaderBase {
         if (result == null) {
             XBeanDebug.LOG.atTrace().log("Type system {}} not cached - consulting field", name);
             result = SchemaTypeSystemImpl.forName(name, _classLoader);
-            _classLoaderTypeSystems.put(name, result);
+            if (result != null) {
+                _classLoaderTypeSystems.put(name, result);
+            }
         }
         return result;
     }
@@ -343,6 +386,10 @@ public class SchemaTypeLoaderImpl extends SchemaTypeLoaderBase {
     }
 
     public boolean isNamespaceDefined(String namespace) {
+        if (_index != null && (_index.complete || _index.namespaces.contains(namespace))) {
+            return _index.namespaces.contains(namespace);
+        }
+
         for (SchemaTypeLoader schemaTypeLoader : _searchPath) {
             if (schemaTypeLoader.isNamespaceDefined(namespace)) {
                 return true;
@@ -354,7 +401,14 @@ public class SchemaTypeLoaderImpl extends SchemaTypeLoaderBase {
     }
 
     public SchemaType.Ref findTypeRef(QName name) {
-        // The maps are synchronized, we use two accesses to the cache (one read and one write), but the code in-between
+        if (_index != null) {
+            SchemaType.Ref indexed = _index.types.get(name);
+            if (indexed != null || _index.complete) {
+                return indexed;
+            }
+        }
+
+        // The maps are concurrent, we use two accesses to the cache (one read and one write), but the code in-between
         // is not synchronized. The assumption is that the underlying datastructures (the search path and the classloader)
         // do not change, so two threads running the code in parallel will come up with the same result.
         Object cached = _typeCache.get(name);
@@ -383,6 +437,13 @@ public class SchemaTypeLoaderImpl extends SchemaTypeLoaderBase {
     public SchemaType typeForClassname(String classname) {
         classname = classname.replace('$', '.');
 
+        if (_index != null) {
+            SchemaType.Ref indexed = _index.classnames.get(classname);
+            if (indexed != null || _index.complete) {
+                return (indexed == null) ? null : indexed.get();
+            }
+        }
+
         Object cached = _classnameCache.get(classname);
         if (cached == CACHED_NOT_FOUND) {
             return null;
@@ -407,6 +468,13 @@ public class SchemaTypeLoaderImpl extends SchemaTypeLoaderBase {
     }
 
     public SchemaType.Ref findDocumentTypeRef(QName name) {
+        if (_index != null) {
+            SchemaType.Ref indexed = _index.documentTypes.get(name);
+            if (indexed != null || _index.complete) {
+                return indexed;
+            }
+        }
+
         Object cached = _documentCache.get(name);
         if (cached == CACHED_NOT_FOUND) {
             return null;
@@ -431,6 +499,13 @@ public class SchemaTypeLoaderImpl extends SchemaTypeLoaderBase {
     }
 
     public SchemaType.Ref findAttributeTypeRef(QName name) {
+        if (_index != null) {
+            SchemaType.Ref indexed = _index.attributeTypes.get(name);
+            if (indexed != null || _index.complete) {
+                return indexed;
+            }
+        }
+
         Object cached = _attributeTypeCache.get(name);
         if (cached == CACHED_NOT_FOUND) {
             return null;
@@ -455,6 +530,13 @@ public class SchemaTypeLoaderImpl extends SchemaTypeLoaderBase {
     }
 
     public SchemaGlobalElement.Ref findElementRef(QName name) {
+        if (_index != null) {
+            SchemaGlobalElement.Ref indexed = _index.elements.get(name);
+            if (indexed != null || _index.complete) {
+                return indexed;
+            }
+        }
+
         Object cached = _elementCache.get(name);
         if (cached == CACHED_NOT_FOUND) {
             return null;
@@ -479,6 +561,13 @@ public class SchemaTypeLoaderImpl extends SchemaTypeLoaderBase {
     }
 
     public SchemaGlobalAttribute.Ref findAttributeRef(QName name) {
+        if (_index != null) {
+            SchemaGlobalAttribute.Ref indexed = _index.attributes.get(name);
+            if (indexed != null || _index.complete) {
+                return indexed;
+            }
+        }
+
         Object cached = _attributeCache.get(name);
         if (cached == CACHED_NOT_FOUND) {
             return null;
@@ -503,6 +592,13 @@ public class SchemaTypeLoaderImpl extends SchemaTypeLoaderBase {
     }
 
     public SchemaModelGroup.Ref findModelGroupRef(QName name) {
+        if (_index != null) {
+            SchemaModelGroup.Ref indexed = _index.modelGroups.get(name);
+            if (indexed != null || _index.complete) {
+                return indexed;
+            }
+        }
+
         Object cached = _modelGroupCache.get(name);
         if (cached == CACHED_NOT_FOUND) {
             return null;
@@ -527,6 +623,13 @@ public class SchemaTypeLoaderImpl extends SchemaTypeLoaderBase {
     }
 
     public SchemaAttributeGroup.Ref findAttributeGroupRef(QName name) {
+        if (_index != null) {
+            SchemaAttributeGroup.Ref indexed = _index.attributeGroups.get(name);
+            if (indexed != null || _index.complete) {
+                return indexed;
+            }
+        }
+
         Object cached = _attributeGroupCache.get(name);
         if (cached == CACHED_NOT_FOUND) {
             return null;
@@ -551,6 +654,13 @@ public class SchemaTypeLoaderImpl extends SchemaTypeLoaderBase {
     }
 
     public SchemaIdentityConstraint.Ref findIdentityConstraintRef(QName name) {
+        if (_index != null) {
+            SchemaIdentityConstraint.Ref indexed = _index.identityConstraints.get(name);
+            if (indexed != null || _index.complete) {
+                return indexed;
+            }
+        }
+
         Object cached = _idConstraintCache.get(name);
         if (cached == CACHED_NOT_FOUND) {
             return null;
@@ -594,6 +704,79 @@ public class SchemaTypeLoaderImpl extends SchemaTypeLoaderBase {
 
     private static final SchemaTypeLoader[] EMPTY_SCHEMATYPELOADER_ARRAY = new SchemaTypeLoader[0];
 
+    /**
+     * The global components of the type systems of an indexed type loader.  It is only
+     * filled in while the type loader is built, and only read afterwards.
+     */
+    static final class Index {
+        final Map<QName, SchemaType.Ref> types = new HashMap<>();
+        final Map<QName, SchemaType.Ref> documentTypes = new HashMap<>();
+        final Map<QName, SchemaType.Ref> attributeTypes = new HashMap<>();
+        final Map<QName, SchemaGlobalElement.Ref> elements = new HashMap<>();
+        final Map<QName, SchemaGlobalAttribute.Ref> attributes = new HashMap<>();
+        final Map<QName, SchemaModelGroup.Ref> modelGroups = new HashMap<>();
+        final Map<QName, SchemaAttributeGroup.Ref> attributeGroups = new HashMap<>();
+        final Map<QName, SchemaIdentityConstraint.Ref> identityConstraints = new HashMap<>();
+        final Map<String, SchemaType.Ref> classnames = new HashMap<>();
+        final Set<String> namespaces = new HashSet<>();
+
+        /**
+         * true if the index holds all the components the type loader can find
+         */
+        boolean complete;
+
+        /**
+         * Adds the components of a type system, unless a type system before it
+         * on the search path has one of the same name.
+         */
+        @SuppressWarnings("unchecked")
+        <T extends SchemaComponent.Ref> void addRefs(Map<QName, T> target, Map<QName, SchemaComponent.Ref> refs) {
+            refs.forEach((name, ref) -> target.putIfAbsent(name, (T) ref));
+        }
+
+        void addClassnames(Map<String, SchemaComponent.Ref> refs) {
+            refs.forEach((classname, ref) -> classnames.putIfAbsent(classname.replace('$', '.'), (SchemaType.Ref) ref));
+        }
+
+        /**
+         * Adds the components of a type system which is not a {@link SchemaTypeSystemImpl},
+         * such as the builtin type system, through its public interface.
+         */
+        void addComponents(SchemaTypeSystem sts) {
+            for (SchemaType type : sts.globalTypes()) {
+                addName(types, type.getName(), type.getRef());
+                if (type.getFullJavaName() != null) {
+                    classnames.putIfAbsent(type.getFullJavaName().replace('$', '.'), type.getRef());
+                }
+            }
+            for (SchemaType type : sts.documentTypes()) {
+                addName(documentTypes, type.getDocumentElementName(), type.getRef());
+            }
+            for (SchemaType type : sts.attributeTypes()) {
+                addName(attributeTypes, type.getAttributeTypeAttributeName(), type.getRef());
+            }
+            for (SchemaGlobalElement elt : sts.globalElements()) {
+                addName(elements, elt.getName(), elt.getRef());
+            }
+            for (SchemaGlobalAttribute attr : sts.globalAttributes()) {
+                addName(attributes, attr.getName(), attr.getRef());
+            }
+            for (SchemaModelGroup group : sts.modelGroups()) {
+                addName(modelGroups, group.getName(), (SchemaModelGroup.Ref) group.getComponentRef());
+            }
+            for (SchemaAttributeGroup group : sts.attributeGroups()) {
+                addName(attributeGroups, group.getName(), (SchemaAttributeGroup.Ref) group.getComponentRef());
+            }
+        }
+
+        private <T> void addName(Map<QName, T> target, QName name, T ref) {
+            if (name != null) {
+                target.putIfAbsent(name, ref);
+                namespaces.add(name.getNamespaceURI());
+            }
+        }
+    }
+
     static {
         SystemCache.set(new SchemaTypeLoaderCache());
     }
@@ -16,9 +16,12 @@
 package org.apache.xmlbeans.impl.schema;
 
 import org.apache.xmlbeans.*;
+import org.apache.xmlbeans.impl.common.XBeanDebug;
 import org.apache.xmlbeans.impl.common.XmlErrorWatcher;
 import org.apache.xmlbeans.impl.repackage.Repackager;
 import org.apache.xmlbeans.impl.util.FilerImpl;
+import org.apache.xmlbeans.impl.util.HexBin;
+import org.apache.xmlbeans.impl.xb.xsdschema.ImportDocument;
 import org.apache.xmlbeans.impl.xb.xsdschema.SchemaDocument;
 import org.apache.xmlbeans.impl.xb.xsdschema.SchemaDocument.Schema;
 
@@ -26,7 +29,14 @@ import java.io.File;
 import java.io.IOException;
 import java.io.Writer;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.zip.CRC32;
 
 public class SchemaTypeSystemCompiler {
     public static class Parameters {
@@ -168,6 +178,19 @@ public class SchemaTypeSystemCompiler {
             }
         }
 
+        // a type system compiled at runtime may be kept in the cache directory, unless it
+        // depends on schema documents which are not part of the key
+        File cacheFile = null;
+        if (options.getCompileCacheDirectory() != null && existingSTS == null && config == null &&
+            filer == null && linkTo != null && !options.isCompilePartialTypesystem() &&
+            !hasLocatedReferences(schemas)) {
+            cacheFile = new File(options.getCompileCacheDirectory(), cacheKey(name, schemas, options) + ".xsa");
+            SchemaTypeSystemImpl cached = loadCached(cacheFile, linkTo);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
         Collection<XmlError> userErrors = options.getErrorListener();
         XmlErrorWatcher errorWatcher = new XmlErrorWatcher(userErrors);
 
@@ -181,14 +204,151 @@ public class SchemaTypeSystemCompiler {
             throw new XmlException(errorWatcher.firstError());
         }
 
+        if (stsi != null && !stsi.isIncomplete() && !errorWatcher.hasError() && cacheFile != null) {
+            saveCached(cacheFile, stsi);
+        }
+
         if (stsi != null && !stsi.isIncomplete() && filer != null) {
-            stsi.save(filer);
+            stsi.setSaveIndexShards(options.isCompileNamespaceShards());
+            if (options.isCompilePackedTypeSystem()) {
+                stsi.savePacked(filer);
+            } else {
+                stsi.save(filer);
+            }
             generateTypes(stsi, filer, options);
         }
 
         return stsi;
     }
 
+    /**
+     * The key of a type system in the cache directory: a hash of everything the compiled
+     * type system depends on, apart from the type loader it is linked to.
+     */
+    private static String cacheKey(String name, List<Schema> schemas, XmlOptions options) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(SchemaTypeSystemImpl.MAJOR_VERSION).append('.')
+            .append(SchemaTypeSystemImpl.MINOR_VERSION).append('.')
+            .append(SchemaTypeSystemImpl.RELEASE_NUMBER).append('\n');
+        sb.append(name).append('\n');
+        sb.append(options.getBaseURI()).append('\n');
+        sb.append(options.isCompileNoUpaRule()).append(options.isCompileNoPvrRule())
+            .append(options.isCompileNoAnnotations()).append(options.isCompileNoValidation())
+            .append(options.isCompileDownloadUrls()).append('\n');
+        if (options.getCompileMdefNamespaces() != null) {
+            sb.append(new TreeSet<>(options.getCompileMdefNamespaces()));
+        }
+        sb.append('\n');
+        if (options.getCompileSubstituteNames() != null) {
+            options.getCompileSubstituteNames().entrySet().stream()
+                .map(Object::toString).sorted().forEach(sb::append);
+        }
+        sb.append('\n');
+        digest.update(sb.toString().getBytes(StandardCharsets.UTF_8));
+
+        for (Schema schema : schemas) {
+            String sourceName = schema.documentProperties().getSourceName();
+            digest.update((sourceName + "\n" + schema.xmlText() + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+
+        return new String(HexBin.encode(digest.digest()), StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Tells if any of the schemas includes, redefines or imports a document by location.
+     * The texts of these documents are not hashed into the cache key, so a change to them
+     * would go unnoticed.
+     */
+    private static boolean hasLocatedReferences(List<Schema> schemas) {
+        for (Schema schema : schemas) {
+            if (schema.sizeOfIncludeArray() > 0 || schema.sizeOfRedefineArray() > 0) {
+                return true;
+            }
+            for (ImportDocument.Import imp : schema.getImportArray()) {
+                if (imp.getSchemaLocation() != null) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // a cache entry ends with the length and the CRC32 of the saved type system
+    private static final int CACHE_TRAILER_LENGTH = 16;
+
+    private static SchemaTypeSystemImpl loadCached(File cacheFile, SchemaTypeLoader linkTo) {
+        if (!cacheFile.isFile()) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(cacheFile.toPath(), StandardOpenOption.READ)) {
+            // the components are read lazily, so a damaged entry has to be caught up front
+            ByteBuffer buffer = checkedPayload(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            if (buffer == null) {
+                XBeanDebug.LOG.atDebug().log("Ignoring damaged cached type system {}", cacheFile);
+                return null;
+            }
+            // linked the same way as when compiling
+            SchemaTypeLoader linker = SchemaTypeLoaderImpl.build(new SchemaTypeLoader[]{BuiltinSchemaTypeSystem.get(), linkTo}, null, null);
+            return SchemaTypeSystemImpl.loadFromBuffer(buffer, linker);
+        } catch (IOException | SchemaTypeLoaderException e) {
+            // compile it again
+            XBeanDebug.LOG.atDebug().withThrowable(e).log("Can't load cached type system {}", cacheFile);
+            return null;
+        }
+    }
+
+    /**
+     * @return the saved type system of a cache entry, or null if the length or the checksum
+     * in the trailer of the entry do not match
+     */
+    private static ByteBuffer checkedPayload(ByteBuffer entry) {
+        int length = entry.limit() - CACHE_TRAILER_LENGTH;
+        if (length < 0 || entry.getLong(length) != length) {
+            return null;
+        }
+
+        ByteBuffer payload = entry.duplicate();
+        payload.position(0).limit(length);
+        payload = payload.slice();
+
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        return crc.getValue() == entry.getLong(length + 8) ? payload : null;
+    }
+
+    private static void saveCached(File cacheFile, SchemaTypeSystemImpl stsi) {
+        try {
+            Path dir = Files.createDirectories(cacheFile.getParentFile().toPath());
+            Path temp = Files.createTempFile(dir, cacheFile.getName(), ".tmp");
+            try {
+                byte[] bytes = stsi.saveToBytes();
+                CRC32 crc = new CRC32();
+                crc.update(bytes, 0, bytes.length);
+                byte[] entry = Arrays.copyOf(bytes, bytes.length + CACHE_TRAILER_LENGTH);
+                ByteBuffer.wrap(entry, bytes.length, CACHE_TRAILER_LENGTH).putLong(bytes.length).putLong(crc.getValue());
+                Files.write(temp, entry);
+                try {
+                    Files.move(temp, cacheFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException | RuntimeException e) {
+            // the cache is only an optimization
+            XBeanDebug.LOG.atDebug().withThrowable(e).log("Can't save type system to cache {}", cacheFile);
+        }
+    }
+
     //
     // Compiles a SchemaTypeSystem
     //
@@ -16,20 +16,30 @@
 package org.apache.xmlbeans.impl.schema;
 
 import org.apache.xmlbeans.*;
+import org.apache.xmlbeans.impl.common.ByteBufferInputStream;
 import org.apache.xmlbeans.impl.common.DefaultClassLoaderResourceLoader;
+import org.apache.xmlbeans.impl.common.IOUtil;
 import org.apache.xmlbeans.impl.common.QNameHelper;
 import org.apache.xmlbeans.impl.common.XBeanDebug;
+import org.apache.xmlbeans.impl.regex.RegularExpression;
 import org.apache.xmlbeans.impl.util.ExceptionUtil;
 import org.apache.xmlbeans.impl.util.FilerImpl;
 import org.apache.xmlbeans.impl.util.HexBin;
 import org.apache.xmlbeans.impl.util.LongUTFDataInputStream;
 import org.apache.xmlbeans.impl.util.LongUTFDataOutputStream;
+import org.apache.xmlbeans.impl.values.XmlObjectBase;
 
 import javax.xml.namespace.QName;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.IntFunction;
 import java.util.regex.Matcher;
@@ -39,7 +49,10 @@ import java.util.stream.Collectors;
 public class SchemaTypeSystemImpl extends SchemaTypeLoaderBase implements SchemaTypeSystem {
     public static final int DATA_BABE = 0xDA7ABABE;
     public static final int MAJOR_VERSION = 2;  // must match == to be compatible
-    public static final int MINOR_VERSION = 24; // must be <= to be compatible
+    public static final int MINOR_VERSION = 25; // must be <= to be compatible
+    // type systems without index shards are saved in the previous minor version, so
+    // that they can still be loaded by releases which do not know about shards
+    static final int MINOR_VERSION_UNSHARDED = 24;
     public static final int RELEASE_NUMBER = 0; // should be compatible even if < or >
 
     public static final int FILETYPE_SCHEMAINDEX = 1;
@@ -140,11 +153,22 @@ public class SchemaTypeSystemImpl extends SchemaTypeLoaderBase implements Schema
     private SchemaTypePool _localHandles;
     private Filer _filer;
 
+    // the packed archive of the .xsb data, if it was saved packed
+    private XsbArchive _archive;
+    // collects the .xsb data while saving packed
+    private XsbArchive.Writer _archiveWriter;
+
     // top-level annotations
     private List<SchemaAnnotation> _annotations;
 
     // container
-    private Map<String, SchemaContainer> _containers = new HashMap<>();
+    private Map<String, SchemaContainer> _containers = new ConcurrentHashMap<>();
+    // the handles of the index shards not read yet by namespace, null if the index is not sharded
+    private Map<String, String> _unloadedShards;
+    // whether the index is saved in shards by namespace
+    private boolean _saveIndexShards;
+    // the minor version the files of the type system are saved in
+    private int _saveMinorVersion = MINOR_VERSION_UNSHARDED;
     // dependencies
     private SchemaDependencies _deps;
 
@@ -233,10 +257,55 @@ public class SchemaTypeSystemImpl extends SchemaTypeLoaderBase implements Schema
         }
     }
 
+    private SchemaTypeSystemImpl(String name, XsbArchive archive, SchemaTypeLoader linker) {
+        _name = name;
+        _linker = linker;
+        _archive = archive;
+        try {
+            initFromHeader();
+        } catch (RuntimeException | Error e) {
+            XBeanDebug.LOG.atDebug().withThrowable(e).log(e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Loads a type system saved by {@link #saveToBytes()}, without generating or loading
+     * any classes.  Like any type system compiled at runtime, its types are backed by
+     * the generic implementation classes.
+     *
+     * @param bytes  the saved type system
+     * @param linker the type loader the type system was compiled against, which is used
+     *               to find the components of other type systems it refers to
+     */
+    public static SchemaTypeSystemImpl loadFromBytes(byte[] bytes, SchemaTypeLoader linker) {
+        return loadFromBuffer(ByteBuffer.wrap(bytes).asReadOnlyBuffer(), linker);
+    }
+
+    static SchemaTypeSystemImpl loadFromBuffer(ByteBuffer buffer, SchemaTypeLoader linker) {
+        String name;
+        int start;
+        try {
+            DataInputStream input = new DataInputStream(new ByteBufferInputStream(buffer.duplicate()));
+            name = input.readUTF();
+            start = buffer.limit() - input.available();
+        } catch (IOException e) {
+            throw new SchemaTypeLoaderException(e.getMessage(), null, XsbArchive.RESOURCE_NAME, SchemaTypeLoaderException.IO_EXCEPTION, e);
+        }
+
+        ByteBuffer archive = buffer.duplicate();
+        archive.position(start);
+        return new SchemaTypeSystemImpl(name, new XsbArchive(name, archive.slice()), linker);
+    }
+
     private void initFromHeader() {
         XBeanDebug.LOG.atTrace().log("Reading unresolved handles for type system {}", _name);
         XsbReader reader = null;
         try {
+            if (_archive == null) {
+                _archive = XsbArchive.open(this);
+            }
+
             // Read the index file, which starts with a header.
             reader = new XsbReader(getTypeSystem(), "index", FILETYPE_SCHEMAINDEX);
 
@@ -284,6 +353,12 @@ public class SchemaTypeSystemImpl extends SchemaTypeLoaderBase implements Schema
             if (reader.atLeast(2, 19, 0)) {
                 _annotations = reader.readAnnotations();
             }
+            if (reader.atLeast(2, 25, 0)) {
+                Map<String, String> shards = reader.readIndexShards();
+                if (!shards.isEmpty()) {
+                    initShards(shards);
+                }
+            }
 
             buildContainers(typeNames, modelGroupNames, attributeGroupNames);
         } finally {
@@ -291,17 +366,166 @@ public class SchemaTypeSystemImpl extends SchemaTypeLoaderBase implements Schema
                 reader.readEnd();
             }
         }
+
+        preResolveInBackground();
+    }
+
+    /**
+     * The components of a sharded index are listed in one shard per namespace, which
+     * is read on the first access to its namespace.  Until then the maps only have the
+     * components of the namespaces already read, so they need to be safe to read while
+     * another shard is added.
+     */
+    private void initShards(Map<String, String> shards) {
+        _unloadedShards = new ConcurrentHashMap<>(shards);
+        _globalElements = new ConcurrentHashMap<>();
+        _globalAttributes = new ConcurrentHashMap<>();
+        _modelGroups = new ConcurrentHashMap<>();
+        _attributeGroups = new ConcurrentHashMap<>();
+        _identityConstraints = new ConcurrentHashMap<>();
+        _globalTypes = new ConcurrentHashMap<>();
+        _documentTypes = new ConcurrentHashMap<>();
+        _attributeTypes = new ConcurrentHashMap<>();
+        _redefinedGlobalTypes = new ArrayList<>();
+        _redefinedModelGroups = new ArrayList<>();
+        _redefinedAttributeGroups = new ArrayList<>();
+        _annotations = new ArrayList<>();
+    }
+
+    /**
+     * Reads the index shard of the given namespace and builds its container, unless the
+     * index is not sharded or the shard has been read already.
+     */
+    private void loadShard(String namespace) {
+        if (_unloadedShards == null || !_unloadedShards.containsKey(namespace)) {
+            return;
+        }
+
+        synchronized (_unloadedShards) {
+            String handle = _unloadedShards.get(namespace);
+            if (handle == null) {
+                return;
+            }
+
+            XBeanDebug.LOG.atTrace().log("Reading index shard of namespace {} for type system {}", namespace, _name);
+            SchemaContainer container = new SchemaContainer(namespace);
+            container.setTypeSystem(this);
+
+            XsbReader reader = null;
+            try {
+                reader = new XsbReader(getTypeSystem(), handle, FILETYPE_SCHEMAINDEX);
+
+                Map<QName, SchemaComponent.Ref> elements = reader.readQNameRefMap();
+                Map<QName, SchemaComponent.Ref> attributes = reader.readQNameRefMap();
+                Map<QName, SchemaComponent.Ref> modelGroups = reader.readQNameRefMap();
+                Map<QName, SchemaComponent.Ref> attributeGroups = reader.readQNameRefMap();
+                Map<QName, SchemaComponent.Ref> identityConstraints = reader.readQNameRefMap();
+                Map<QName, SchemaComponent.Ref> types = reader.readQNameRefMap();
+                Map<QName, SchemaComponent.Ref> documentTypes = reader.readQNameRefMap();
+                Map<QName, SchemaComponent.Ref> attributeTypes = reader.readQNameRefMap();
+                List<SchemaComponent.Ref> redefinedTypes = reader.readQNameRefMapAsList(new ArrayList<>());
+                List<SchemaComponent.Ref> redefinedModelGroups = reader.readQNameRefMapAsList(new ArrayList<>());
+                List<SchemaComponent.Ref> redefinedAttributeGroups = reader.readQNameRefMapAsList(new ArrayList<>());
+                List<SchemaAnnotation> annotations = reader.readAnnotations(container);
+
+                elements.values().forEach(ref -> container.addGlobalElement((SchemaGlobalElement.Ref) ref));
+                attributes.values().forEach(ref -> container.addGlobalAttribute((SchemaGlobalAttribute.Ref) ref));
+                modelGroups.values().forEach(ref -> container.addModelGroup((SchemaModelGroup.Ref) ref));
+                attributeGroups.values().forEach(ref -> container.addAttributeGroup((SchemaAttributeGroup.Ref) ref));
+                identityConstraints.values().forEach(ref -> container.addIdentityConstraint((SchemaIdentityConstraint.Ref) ref));
+                types.values().forEach(ref -> container.addGlobalType((SchemaType.Ref) ref));
+                attributeTypes.values().forEach(ref -> container.addAttributeType((SchemaType.Ref) ref));
+                redefinedTypes.forEach(ref -> container.addRedefinedType((SchemaType.Ref) ref));
+                redefinedModelGroups.forEach(ref -> container.addRedefinedModelGroup((SchemaModelGroup.Ref) ref));
+                redefinedAttributeGroups.forEach(ref -> container.addRedefinedAttributeGroup((SchemaAttributeGroup.Ref) ref));
+                annotations.forEach(container::addAnnotation);
+                container.setImmutable();
+
+                _globalElements.putAll(elements);
+                _globalAttributes.putAll(attributes);
+                _modelGroups.putAll(modelGroups);
+                _attributeGroups.putAll(attributeGroups);
+                _identityConstraints.putAll(identityConstraints);
+                _globalTypes.putAll(types);
+                _documentTypes.putAll(documentTypes);
+                _attributeTypes.putAll(attributeTypes);
+                _redefinedGlobalTypes.addAll(redefinedTypes);
+                _redefinedModelGroups.addAll(redefinedModelGroups);
+                _redefinedAttributeGroups.addAll(redefinedAttributeGroups);
+                _annotations.addAll(annotations);
+            } finally {
+                if (reader != null) {
+                    reader.readEnd();
+                }
+            }
+
+            _containers.put(namespace, container);
+            _unloadedShards.remove(namespace);
+        }
+    }
+
+    private void loadAllShards() {
+        if (_unloadedShards != null) {
+            new ArrayList<>(_unloadedShards.keySet()).forEach(this::loadShard);
+        }
+    }
+
+    private SchemaComponent.Ref findRef(Map<QName, SchemaComponent.Ref> map, QName name) {
+        if (name == null) {
+            return null;
+        }
+        loadShard(name.getNamespaceURI());
+        return map.get(name);
+    }
+
+    /**
+     * @return the handles of the index shards to save by namespace, empty if the index
+     * is not saved in shards
+     */
+    private Map<String, String> indexShards() {
+        Map<String, String> shards = new LinkedHashMap<>();
+        if (_saveIndexShards) {
+            Set<String> namespaces = new TreeSet<>(_namespaces);
+            if (_annotations != null && !_annotations.isEmpty()) {
+                namespaces.add("");
+            }
+            for (String namespace : namespaces) {
+                shards.put(namespace, "index" + (shards.size() + 1));
+            }
+        }
+        return shards;
     }
 
-    void saveIndex() {
+    void saveIndex(Map<String, String> shards) {
         String handle = "index";
         XsbReader saver = new XsbReader(getTypeSystem(), handle);
-        saver.writeIndexData();
+        saver.writeIndexData(shards);
+        saver.writeRealHeader(handle, FILETYPE_SCHEMAINDEX);
+        saver.writeIndexData(shards);
+        saver.writeEnd();
+
+        shards.forEach(this::saveIndexShard);
+    }
+
+    private void saveIndexShard(String namespace, String handle) {
+        XsbReader saver = new XsbReader(getTypeSystem(), handle);
+        saver.writeIndexShardData(namespace);
         saver.writeRealHeader(handle, FILETYPE_SCHEMAINDEX);
-        saver.writeIndexData();
+        saver.writeIndexShardData(namespace);
         saver.writeEnd();
     }
 
+    /**
+     * Sets whether the index is saved split into one shard per namespace.  The index of
+     * a sharded type system only lists the handles, the java classes and the namespaces,
+     * and the global components of a namespace are only read, and its container built,
+     * on the first access to that namespace.  This keeps the cost of loading large type
+     * systems, of which only a few namespaces are used, in line with what is used.
+     */
+    public void setSaveIndexShards(boolean shards) {
+        _saveIndexShards = shards;
+    }
+
     void savePointers() {
         savePointersForComponents(globalElements(), getMetadataPath() + "/element/");
         savePointersForComponents(globalAttributes(), getMetadataPath() + "/attribute/");
@@ -399,6 +623,7 @@ public class SchemaTypeSystemImpl extends SchemaTypeLoaderBase implements Schema
 
     // Container operation
     SchemaContainer getContainer(String namespace) {
+        loadShard(namespace);
         return _containers.get(namespace);
     }
 
@@ -727,6 +952,52 @@ public class SchemaTypeSystemImpl extends SchemaTypeLoaderBase implements Schema
     }
 
     public void save(Filer filer) {
+        save(filer, false);
+    }
+
+    /**
+     * Saves the type system like {@link #save(Filer)}, but with the index and all the
+     * components in a single archive resource with a shared string pool, which is read
+     * through a memory-mapped buffer when the type system is loaded.  Only the pointer
+     * files used to find the type system of a component are saved separately.
+     */
+    public void savePacked(Filer filer) {
+        save(filer, true);
+    }
+
+    /**
+     * Saves the type system in the packed form of {@link #savePacked(Filer)} to a byte
+     * array, from which {@link #loadFromBytes(byte[], SchemaTypeLoader)} loads it again
+     * without compiling the schemas.  This is meant for type systems compiled at runtime,
+     * e.g. to keep them in a cache: no classes are generated and the sources of the schemas
+     * are not included.
+     */
+    public byte[] saveToBytes() {
+        final String resourcename = getBasePackage() + XsbArchive.RESOURCE_NAME;
+        final ByteArrayOutputStream archive = new ByteArrayOutputStream();
+
+        savePacked(new Filer() {
+            public OutputStream createBinaryFile(String typename) {
+                // the pointer files are only needed to find the type system on a classpath
+                return resourcename.equals(typename) ? archive : new ByteArrayOutputStream();
+            }
+
+            public Writer createSourceFile(String typename, String sourceCodeEncoding) {
+                throw new UnsupportedOperationException();
+            }
+        });
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(archive.size() + 256);
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeUTF(_name);
+            archive.writeTo(output);
+        } catch (IOException e) {
+            throw new SchemaTypeLoaderException(e.getMessage(), _name, XsbArchive.RESOURCE_NAME, SchemaTypeLoaderException.IO_EXCEPTION, e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private void save(Filer filer, boolean packed) {
         if (_incomplete) {
             throw new IllegalStateException("Incomplete SchemaTypeSystems cannot be saved.");
         }
@@ -736,6 +1007,11 @@ public class SchemaTypeSystemImpl extends SchemaTypeLoaderBase implements Schema
         }
         _filer = filer;
 
+        loadAllShards();
+        Map<String, String> shards = indexShards();
+        _saveMinorVersion = shards.isEmpty() ? MINOR_VERSION_UNSHARDED : MINOR_VERSION;
+        _archiveWriter = packed ? new XsbArchive.Writer(_name, _saveMinorVersion) : null;
+
         _localHandles.startWriteMode();
         saveTypesRecursively(globalTypes());
         saveTypesRecursively(documentTypes());
@@ -750,7 +1026,14 @@ public class SchemaTypeSystemImpl extends SchemaTypeLoaderBase implements Schema
         saveModelGroups(redefinedModelGroups());
         saveAttributeGroups(redefinedAttributeGroups());
 
-        saveIndex();
+        saveIndex(shards);
+
+        if (_archiveWriter != null) {
+            String resourcename = getBasePackage() + XsbArchive.RESOURCE_NAME;
+            _archiveWriter.writeTo(getSaverStream(resourcename, "index"));
+            _archiveWriter = null;
+        }
+
         savePointers();
     }
 
@@ -922,9 +1205,7 @@ public class SchemaTypeSystemImpl extends SchemaTypeLoaderBase implements Schema
     static final byte[] SINGLE_ZERO_BYTE = {0};
 
     public SchemaType typeForHandle(String handle) {
-        synchronized (_resolvedHandles) {
-            return (SchemaType) _resolvedHandles.get(handle);
-        }
+        return (SchemaType) _resolvedHandles.get(handle);
     }
 
     public SchemaType typeForClassname(String classname) {
@@ -932,57 +1213,129 @@ public class SchemaTypeSystemImpl extends SchemaTypeLoaderBase implements Schema
         return (ref != null) ? ref.get() : null;
     }
 
-    public SchemaComponent resolveHandle(String handle) {
-        SchemaComponent result;
+    /**
+     * Returns the factory of the generated implementation class with the given name,
+     * or null if the instances are to be created through reflection.  Type system
+     * holders generated with {@link XmlOptions#setCompileStaticFactories()} return
+     * factories which construct the classes directly.
+     */
+    protected Function<SchemaType, XmlObjectBase> typeFactoryForClassname(String javaImplName) {
+        return null;
+    }
 
-        synchronized (_resolvedHandles) {
-            result = _resolvedHandles.get(handle);
+    /**
+     * Returns the factory of the generated implementation class with the given name for
+     * the instances of restrictions of its type, or null if they are to be created through
+     * reflection.  See {@link #typeFactoryForClassname(String)}.
+     */
+    protected BiFunction<SchemaType, Boolean, XmlObjectBase> subtypeFactoryForClassname(String javaImplName) {
+        return null;
+    }
+
+    /**
+     * Returns the generated interface or enum class with the given name, or null if it is
+     * to be loaded by name.  See {@link #typeFactoryForClassname(String)}.
+     */
+    protected Class<?> javaClassForClassname(String javaName) {
+        return null;
+    }
+
+    /**
+     * Returns the table of the generated enum class with the given name, or null if it is
+     * to be read through reflection.  See {@link #typeFactoryForClassname(String)}.
+     */
+    protected StringEnumAbstractBase.Table enumTableForClassname(String enumClassName) {
+        return null;
+    }
+
+    public SchemaComponent resolveHandle(String handle) {
+        SchemaComponent result = _resolvedHandles.get(handle);
+        if (result != null) {
+            return result;
         }
-        if (result == null) {
-            XsbReader reader = new XsbReader(getTypeSystem(), handle, 0xFFFF);
-            int filetype = reader.getActualFiletype();
-            switch (filetype) {
-                case FILETYPE_SCHEMATYPE:
-                    XBeanDebug.LOG.atTrace().log("Resolving type for handle {}", handle);
-                    result = reader.finishLoadingType();
-                    break;
-                case FILETYPE_SCHEMAELEMENT:
-                    XBeanDebug.LOG.atTrace().log("Resolving element for handle {}", handle);
-                    result = reader.finishLoadingElement();
-                    break;
-                case FILETYPE_SCHEMAATTRIBUTE:
-                    XBeanDebug.LOG.atTrace().log("Resolving attribute for handle {}", handle);
-                    result = reader.finishLoadingAttribute();
-                    break;
-                case FILETYPE_SCHEMAMODELGROUP:
-                    XBeanDebug.LOG.atTrace().log("Resolving model group for handle {}", handle);
-                    result = reader.finishLoadingModelGroup();
-                    break;
-                case FILETYPE_SCHEMAATTRIBUTEGROUP:
-                    XBeanDebug.LOG.atTrace().log("Resolving attribute group for handle {}", handle);
-                    result = reader.finishLoadingAttributeGroup();
-                    break;
-                case FILETYPE_SCHEMAIDENTITYCONSTRAINT:
-                    XBeanDebug.LOG.atTrace().log("Resolving id constraint for handle {}", handle);
-                    result = reader.finishLoadingIdentityConstraint();
-                    break;
-                default:
-                    throw new IllegalStateException("Illegal handle type");
-            }
 
-            synchronized (_resolvedHandles) {
-                if (!_resolvedHandles.containsKey(handle)) {
-                    _resolvedHandles.put(handle, result);
-                } else {
-                    result = _resolvedHandles.get(handle);
+        // Only one thread reads a handle, the others wait for it.  The lock is
+        // reentrant, so a handle needed again while reading it is read once more.
+        Object lock = _resolvingHandles.computeIfAbsent(handle, h -> new Object());
+        try {
+            synchronized (lock) {
+                result = _resolvedHandles.get(handle);
+                if (result == null) {
+                    result = readHandle(handle);
+                    SchemaComponent other = _resolvedHandles.putIfAbsent(handle, result);
+                    if (other != null) {
+                        result = other;
+                    }
                 }
             }
+        } finally {
+            _resolvingHandles.remove(handle, lock);
         }
         return result;
     }
 
-    private final Map<String, SchemaComponent> _resolvedHandles = new HashMap<>();
-    private boolean _allNonGroupHandlesResolved = false;
+    private SchemaComponent readHandle(String handle) {
+        XsbReader reader = new XsbReader(getTypeSystem(), handle, 0xFFFF);
+        int filetype = reader.getActualFiletype();
+        switch (filetype) {
+            case FILETYPE_SCHEMATYPE:
+                XBeanDebug.LOG.atTrace().log("Resolving type for handle {}", handle);
+                return reader.finishLoadingType();
+            case FILETYPE_SCHEMAELEMENT:
+                XBeanDebug.LOG.atTrace().log("Resolving element for handle {}", handle);
+                return reader.finishLoadingElement();
+            case FILETYPE_SCHEMAATTRIBUTE:
+                XBeanDebug.LOG.atTrace().log("Resolving attribute for handle {}", handle);
+                return reader.finishLoadingAttribute();
+            case FILETYPE_SCHEMAMODELGROUP:
+                XBeanDebug.LOG.atTrace().log("Resolving model group for handle {}", handle);
+                return reader.finishLoadingModelGroup();
+            case FILETYPE_SCHEMAATTRIBUTEGROUP:
+                XBeanDebug.LOG.atTrace().log("Resolving attribute group for handle {}", handle);
+                return reader.finishLoadingAttributeGroup();
+            case FILETYPE_SCHEMAIDENTITYCONSTRAINT:
+                XBeanDebug.LOG.atTrace().log("Resolving id constraint for handle {}", handle);
+                return reader.finishLoadingIdentityConstraint();
+            default:
+                throw new IllegalStateException("Illegal handle type");
+        }
+    }
+
+    // the names, name sets, patterns and values read for the components, shared between them
+    // so that the many which are the same across components are only kept once; one map per
+    // kind, so that keys of different kinds never meet
+    private final Map<QName, QName> _sharedNames = new ConcurrentHashMap<>();
+    private final Map<List<Object>, QNameSet> _sharedNameSets = new ConcurrentHashMap<>();
+    private final Map<String, RegularExpression> _sharedPatterns = new ConcurrentHashMap<>();
+    private final Map<List<Object>, XmlValueRef> _sharedValues = new ConcurrentHashMap<>();
+
+    QName sharedName(QName name) {
+        return shared(_sharedNames, name, k -> name);
+    }
+
+    /**
+     * @param key the flag, URIs and names the set is made of
+     */
+    QNameSet sharedNameSet(List<Object> key, Function<List<Object>, QNameSet> create) {
+        return shared(_sharedNameSets, key, create);
+    }
+
+    RegularExpression sharedPattern(String pattern) {
+        return shared(_sharedPatterns, pattern, k -> new RegularExpression(k, "X"));
+    }
+
+    XmlValueRef sharedValue(SchemaType.Ref typeref, String value) {
+        return shared(_sharedValues, Arrays.asList(typeref, value), k -> new XmlValueRef(typeref, value));
+    }
+
+    private static <K, V> V shared(Map<K, V> values, K key, Function<? super K, ? extends V> create) {
+        V value = values.get(key);
+        return value != null ? value : values.computeIfAbsent(key, create);
+    }
+
+    private final Map<String, SchemaComponent> _resolvedHandles = new ConcurrentHashMap<>();
+    private final Map<String, Object> _resolvingHandles = new ConcurrentHashMap<>();
+    private volatile boolean _allNonGroupHandlesResolved = false;
 
     public void resolve() {
         XBeanDebug.LOG.atTrace().log("Resolve called type system {}", _name);
@@ -992,15 +1345,7 @@ public class SchemaTypeSystemImpl extends SchemaTypeLoaderBase implements Schema
 
         XBeanDebug.LOG.atTrace().log("Resolving all handles for type system {}", _name);
 
-        List<SchemaComponent.Ref> refs = new ArrayList<>();
-        refs.addAll(_globalElements.values());
-        refs.addAll(_globalAttributes.values());
-        refs.addAll(_globalTypes.values());
-        refs.addAll(_documentTypes.values());
-        refs.addAll(_attributeTypes.values());
-        refs.addAll(_identityConstraints.values());
-
-        for (SchemaComponent.Ref ref : refs) {
+        for (SchemaComponent.Ref ref : globalRefs(null)) {
             // Forces ref to be resolved
             ref.getComponent();
         }
@@ -1009,48 +1354,149 @@ public class SchemaTypeSystemImpl extends SchemaTypeLoaderBase implements Schema
         _allNonGroupHandlesResolved = true;
     }
 
+    /**
+     * Resolves the global components like {@link #resolve()}, but in parallel on the
+     * common ForkJoinPool, e.g. to warm up the type system before the first documents
+     * are loaded.
+     *
+     * @param namespaces the namespaces of the components to resolve, or null for all
+     */
+    public void resolveParallel(Set<String> namespaces) {
+        resolveParallel(namespaces, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Resolves the global components of the given namespaces, or of all the namespaces
+     * if null, in parallel on the given pool.
+     */
+    public void resolveParallel(Set<String> namespaces, ForkJoinPool pool) {
+        if (_allNonGroupHandlesResolved) {
+            return;
+        }
+
+        XBeanDebug.LOG.atTrace().log("Resolving handles in parallel for type system {}", _name);
+
+        List<SchemaComponent.Ref> refs = globalRefs(namespaces);
+        pool.submit(() -> refs.parallelStream().forEach(SchemaComponent.Ref::getComponent)).join();
+
+        XBeanDebug.LOG.atTrace().log("Finished resolving handles in parallel for type system {}", _name);
+        if (namespaces == null) {
+            _allNonGroupHandlesResolved = true;
+        }
+    }
+
+    private List<SchemaComponent.Ref> globalRefs(Set<String> namespaces) {
+        if (namespaces == null) {
+            loadAllShards();
+        } else {
+            namespaces.forEach(this::loadShard);
+        }
+
+        List<SchemaComponent.Ref> refs = new ArrayList<>();
+        BiConsumer<QName, SchemaComponent.Ref> add = (name, ref) -> {
+            if (namespaces == null || namespaces.contains(name.getNamespaceURI())) {
+                refs.add(ref);
+            }
+        };
+
+        _globalElements.forEach(add);
+        _globalAttributes.forEach(add);
+        _globalTypes.forEach(add);
+        _documentTypes.forEach(add);
+        _attributeTypes.forEach(add);
+        _identityConstraints.forEach(add);
+        return refs;
+    }
+
+    /**
+     * Starts resolving the type system in the background when the system property
+     * {@code xmlbean.preresolve} is set, either to "true" for all the namespaces or to
+     * a list of the namespaces to resolve (use ##local for no namespace).
+     */
+    private void preResolveInBackground() {
+        String preresolve = SystemProperties.getProperty("xmlbean.preresolve");
+        if (preresolve == null || preresolve.trim().isEmpty() || "false".equals(preresolve)) {
+            return;
+        }
+
+        Set<String> namespaces = null;
+        if (!"true".equals(preresolve)) {
+            namespaces = new HashSet<>();
+            for (String ns : preresolve.trim().split("[,\\s]+")) {
+                namespaces.add("##local".equals(ns) ? "" : ns);
+            }
+        }
+
+        Set<String> resolving = namespaces;
+        ForkJoinPool.commonPool().execute(() -> {
+            try {
+                resolveParallel(resolving);
+            } catch (RuntimeException e) {
+                XBeanDebug.LOG.atDebug().withThrowable(e).log("Could not pre-resolve type system {}", _name);
+            }
+        });
+    }
 
     public boolean isNamespaceDefined(String namespace) {
         return _namespaces.contains(namespace);
     }
 
+    /**
+     * Adds the global components to the index of a type loader, without resolving them.
+     */
+    void addToIndex(SchemaTypeLoaderImpl.Index index) {
+        loadAllShards();
+        index.addRefs(index.types, _globalTypes);
+        index.addRefs(index.documentTypes, _documentTypes);
+        index.addRefs(index.attributeTypes, _attributeTypes);
+        index.addRefs(index.elements, _globalElements);
+        index.addRefs(index.attributes, _globalAttributes);
+        index.addRefs(index.modelGroups, _modelGroups);
+        index.addRefs(index.attributeGroups, _attributeGroups);
+        index.addRefs(index.identityConstraints, _identityConstraints);
+        index.addClassnames(_typeRefsByClassname);
+        index.namespaces.addAll(_namespaces);
+    }
+
     public SchemaType.Ref findTypeRef(QName name) {
-        return (SchemaType.Ref) _globalTypes.get(name);
+        return (SchemaType.Ref) findRef(_globalTypes, name);
     }
 
     public SchemaType.Ref findDocumentTypeRef(QName name) {
-        return (SchemaType.Ref) _documentTypes.get(name);
+        return (SchemaType.Ref) findRef(_documentTypes, name);
     }
 
     public SchemaType.Ref findAttributeTypeRef(QName name) {
-        return (SchemaType.Ref) _attributeTypes.get(name);
+        return (SchemaType.Ref) findRef(_attributeTypes, name);
     }
 
     public SchemaGlobalElement.Ref findElementRef(QName name) {
-        return (SchemaGlobalElement.Ref) _globalElements.get(name);
+        return (SchemaGlobalElement.Ref) findRef(_globalElements, name);
     }
 
     public SchemaGlobalAttribute.Ref findAttributeRef(QName name) {
-        return (SchemaGlobalAttribute.Ref) _globalAttributes.get(name);
+        return (SchemaGlobalAttribute.Ref) findRef(_globalAttributes, name);
     }
 
     public SchemaModelGroup.Ref findModelGroupRef(QName name) {
-        return (SchemaModelGroup.Ref) _modelGroups.get(name);
+        return (SchemaModelGroup.Ref) findRef(_modelGroups, name);
     }
 
     public SchemaAttributeGroup.Ref findAttributeGroupRef(QName name) {
-        return (SchemaAttributeGroup.Ref) _attributeGroups.get(name);
+        return (SchemaAttributeGroup.Ref) findRef(_attributeGroups, name);
     }
 
     public SchemaIdentityConstraint.Ref findIdentityConstraintRef(QName name) {
-        return (SchemaIdentityConstraint.Ref) _identityConstraints.get(name);
+        return (SchemaIdentityConstraint.Ref) findRef(_identityConstraints, name);
     }
 
-    private static <T, U> U[] refHelper(Map<QName, SchemaComponent.Ref> map, Function<T, U> fun, IntFunction<U[]> target, U[] emptyTarget) {
+    private <T, U> U[] refHelper(Map<QName, SchemaComponent.Ref> map, Function<T, U> fun, IntFunction<U[]> target, U[] emptyTarget) {
         return refHelper(map == null ? null : map.values(), fun, target, emptyTarget);
     }
 
-    private static <T, U> U[] refHelper(Collection<SchemaComponent.Ref> list, Function<T, U> fun, IntFunction<U[]> target, U[] emptyTarget) {
+    private <T, U> U[] refHelper(Collection<SchemaComponent.Ref> list, Function<T, U> fun, IntFunction<U[]> target, U[] emptyTarget) {
+        // the maps and lists are only complete with all the shards
+        loadAllShards();
         //noinspection unchecked
         return (list == null || list.isEmpty()) ? emptyTarget : list.stream().map(e -> (T) e).map(fun).toArray(target);
     }
@@ -1068,10 +1514,11 @@ public class SchemaTypeSystemImpl extends SchemaTypeLoaderBase implements Schema
             sourceName = "/" + sourceName;
         }
 
-        return _resourceLoader.getResourceAsStream(getMetadataPath() + "/src" + sourceName);
+        return (_resourceLoader == null) ? null : _resourceLoader.getResourceAsStream(getMetadataPath() + "/src" + sourceName);
     }
 
     SchemaContainer[] containers() {
+        loadAllShards();
         return _containers.values().toArray(new SchemaContainer[0]);
     }
 
@@ -1108,6 +1555,7 @@ public class SchemaTypeSystemImpl extends SchemaTypeLoaderBase implements Schema
     }
 
     public SchemaAnnotation[] annotations() {
+        loadShard("");
         return (_annotations == null || _annotations.isEmpty()) ? EMPTY_ANN_ARRAY : _annotations.toArray(EMPTY_ANN_ARRAY);
     }
 
@@ -1172,6 +1620,50 @@ public class SchemaTypeSystemImpl extends SchemaTypeLoaderBase implements Schema
     }
 
     InputStream getLoaderStream(String resourcename) {
-        return _resourceLoader.getResourceAsStream(resourcename);
+        return (_resourceLoader == null) ? null : _resourceLoader.getResourceAsStream(resourcename);
+    }
+
+    /**
+     * Returns the given resource as a read only buffer, memory-mapped if the resource
+     * is a plain file, or null if there is no such resource.
+     */
+    ByteBuffer getLoaderBuffer(String resourcename) {
+        File file = null;
+        if (_resourceLoader instanceof ClassLoaderResourceLoader) {
+            file = ((ClassLoaderResourceLoader) _resourceLoader).getResourceFile(resourcename);
+        } else if (_resourceLoader instanceof FileResourceLoader) {
+            file = ((FileResourceLoader) _resourceLoader).getResourceFile(resourcename);
+        }
+
+        try {
+            if (file != null) {
+                try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                    return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                }
+            }
+
+            InputStream input = getLoaderStream(resourcename);
+            if (input == null) {
+                return null;
+            }
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            IOUtil.copyCompletely(input, bytes);
+            return ByteBuffer.wrap(bytes.toByteArray()).asReadOnlyBuffer();
+        } catch (IOException e) {
+            throw new SchemaTypeLoaderException(e.getMessage(), getName(), resourcename, SchemaTypeLoaderException.IO_EXCEPTION, e);
+        }
+    }
+
+    XsbArchive getArchive() {
+        return _archive;
+    }
+
+    XsbArchive.Writer getArchiveWriter() {
+        return _archiveWriter;
+    }
+
+    int getSaveMinorVersion() {
+        return _saveMinorVersion;
     }
 }
@@ -24,6 +24,8 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
 
 /**
  * Factory class for creating new instances.  Note that if
@@ -261,6 +263,42 @@ public class XmlObjectFactory<T> extends DocumentFactory<T> {
         return (T)XmlBeans.getContextTypeLoader().parse(is, getInnerType(), options);
     }
 
+    /**
+     * Decodes and parses the bytes of the given {@link ByteBuffer} as XML,
+     * from its position to its limit.  The buffer is left unchanged.
+     */
+    @Override
+    public T parse(ByteBuffer buffer) throws XmlException, IOException {
+        return (T)XmlBeans.getContextTypeLoader().parse(buffer, getInnerType(), null);
+    }
+
+    /**
+     * Decodes and parses the bytes of the given {@link ByteBuffer} as XML,
+     * from its position to its limit.  The buffer is left unchanged.
+     */
+    @Override
+    public T parse(ByteBuffer buffer, XmlOptions options) throws XmlException, IOException {
+        return (T)XmlBeans.getContextTypeLoader().parse(buffer, getInnerType(), options);
+    }
+
+    /**
+     * Decodes and parses the bytes read from the given blocking
+     * {@link ReadableByteChannel} as XML.  The channel is not closed.
+     */
+    @Override
+    public T parse(ReadableByteChannel channel) throws XmlException, IOException {
+        return (T)XmlBeans.getContextTypeLoader().parse(channel, getInnerType(), null);
+    }
+
+    /**
+     * Decodes and parses the bytes read from the given blocking
+     * {@link ReadableByteChannel} as XML.  The channel is not closed.
+     */
+    @Override
+    public T parse(ReadableByteChannel channel, XmlOptions options) throws XmlException, IOException {
+        return (T)XmlBeans.getContextTypeLoader().parse(channel, getInnerType(), options);
+    }
+
     /**
      * Parses the given {@link XMLStreamReader} as XML.
      */
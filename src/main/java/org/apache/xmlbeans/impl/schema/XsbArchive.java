@@ -0,0 +1,232 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.impl.schema;
+
+import org.apache.xmlbeans.SchemaTypeLoaderException;
+import org.apache.xmlbeans.impl.common.ByteBufferInputStream;
+import org.apache.xmlbeans.impl.util.LongUTFDataInputStream;
+import org.apache.xmlbeans.impl.util.LongUTFDataOutputStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.apache.xmlbeans.impl.schema.SchemaTypeSystemImpl.*;
+
+/**
+ * The packed form of the compiled schema of a type system: the index and all the
+ * components in one resource, instead of one .xsb resource each.
+ * <p>
+ * The archive starts with the usual header, followed by a single string pool shared by
+ * all the components and a directory of the handles, their file types and where their
+ * data is.  The data of a component is the same as in its own .xsb file, less the header
+ * and the string pool.
+ * <p>
+ * The archive is opened once with the type system and read through a memory-mapped
+ * buffer where it is a plain file, so that resolving a handle is no more than a lookup
+ * in the directory.  The pointer files used to find the type system of a component stay
+ * separate resources.
+ */
+final class XsbArchive {
+    /**
+     * The name of the archive resource in the metadata package of a type system.
+     */
+    static final String RESOURCE_NAME = "typesystem.xsa";
+
+    static final int DATA_PACK = 0xDA7A9ACC;
+
+    private final ByteBuffer _data;
+    private final int _majorver;
+    private final int _minorver;
+    private final int _releaseno;
+    private final StringPool _stringPool;
+    private final Map<String, Integer> _entries = new HashMap<>();
+    private final int[] _filetypes;
+    private final int[] _offsets;
+    private final int[] _lengths;
+
+    /**
+     * Opens the archive of the given type system.
+     *
+     * @return the archive, or null if the type system was not saved packed
+     */
+    static XsbArchive open(SchemaTypeSystemImpl typeSystem) {
+        ByteBuffer buffer = typeSystem.getLoaderBuffer(typeSystem.getBasePackage() + RESOURCE_NAME);
+        return (buffer == null) ? null : new XsbArchive(typeSystem.getName(), buffer);
+    }
+
+    XsbArchive(String name, ByteBuffer buffer) {
+        try {
+            LongUTFDataInputStream input = new LongUTFDataInputStream(new ByteBufferInputStream(buffer));
+
+            if (input.readInt() != DATA_PACK) {
+                throw new SchemaTypeLoaderException("XML-BEANS compiled schema: Wrong magic cookie", name, RESOURCE_NAME, SchemaTypeLoaderException.WRONG_MAGIC_COOKIE);
+            }
+
+            _majorver = input.readUnsignedShort();
+            _minorver = input.readUnsignedShort();
+            _releaseno = input.readUnsignedShort();
+
+            if (_majorver != MAJOR_VERSION) {
+                throw new SchemaTypeLoaderException("XML-BEANS compiled schema: Wrong major version - expecting " + MAJOR_VERSION + ", got " + _majorver, name, RESOURCE_NAME, SchemaTypeLoaderException.WRONG_MAJOR_VERSION);
+            }
+
+            if (_minorver > MINOR_VERSION) {
+                throw new SchemaTypeLoaderException("XML-BEANS compiled schema: Incompatible minor version - expecting up to " + MINOR_VERSION + ", got " + _minorver, name, RESOURCE_NAME, SchemaTypeLoaderException.WRONG_MINOR_VERSION);
+            }
+
+            _stringPool = new StringPool(RESOURCE_NAME, name);
+            _stringPool.readFrom(input);
+
+            int count = input.readUnsignedShortOrInt();
+            _filetypes = new int[count];
+            _offsets = new int[count];
+            _lengths = new int[count];
+
+            for (int i = 0; i < count; i++) {
+                _entries.put(_stringPool.stringForCode(input.readUnsignedShortOrInt()), i);
+                _filetypes[i] = input.readUnsignedShort();
+                _offsets[i] = input.readInt();
+                _lengths[i] = input.readInt();
+            }
+
+            // the data follows the directory, offsets are relative to it
+            int start = buffer.limit() - input.available();
+            ByteBuffer data = buffer.duplicate();
+            data.position(start);
+            _data = data.slice();
+        } catch (IOException e) {
+            throw new SchemaTypeLoaderException(e.getMessage(), name, RESOURCE_NAME, SchemaTypeLoaderException.IO_EXCEPTION, e);
+        }
+    }
+
+    int getMajorVersion() {
+        return _majorver;
+    }
+
+    int getMinorVersion() {
+        return _minorver;
+    }
+
+    int getReleaseNumber() {
+        return _releaseno;
+    }
+
+    StringPool getStringPool() {
+        return _stringPool;
+    }
+
+    /**
+     * @return the file type of the component with the given handle, or -1 if it is not in the archive
+     */
+    int getFiletype(String handle) {
+        Integer entry = _entries.get(handle);
+        return (entry == null) ? -1 : _filetypes[entry];
+    }
+
+    /**
+     * @return a buffer of its own over the data of the component with the given handle,
+     * or null if it is not in the archive
+     */
+    ByteBuffer getData(String handle) {
+        Integer entry = _entries.get(handle);
+        if (entry == null) {
+            return null;
+        }
+
+        ByteBuffer data = _data.duplicate();
+        data.position(_offsets[entry]);
+        data.limit(_offsets[entry] + _lengths[entry]);
+        return data;
+    }
+
+    /**
+     * Collects the components of a type system being saved and writes them out as one archive.
+     */
+    static final class Writer {
+        private final String _name;
+        private final int _minorVersion;
+        private final StringPool _stringPool;
+        private final List<String> _handles = new ArrayList<>();
+        private final Set<String> _added = new HashSet<>();
+        private final List<Integer> _filetypes = new ArrayList<>();
+        private final List<Integer> _lengths = new ArrayList<>();
+        private final ByteArrayOutputStream _data = new ByteArrayOutputStream();
+
+        Writer(String name, int minorVersion) {
+            _name = name;
+            _minorVersion = minorVersion;
+            _stringPool = new StringPool(RESOURCE_NAME, name);
+        }
+
+        /**
+         * The string pool all the components are written with.
+         */
+        StringPool getStringPool() {
+            return _stringPool;
+        }
+
+        void add(String handle, int filetype, ByteArrayOutputStream data) {
+            if (!_added.add(handle)) {
+                // saved more than once, e.g. when redefined
+                return;
+            }
+
+            _stringPool.codeForString(handle);
+            _handles.add(handle);
+            _filetypes.add(filetype);
+            _lengths.add(data.size());
+
+            try {
+                data.writeTo(_data);
+            } catch (IOException e) {
+                throw new SchemaTypeLoaderException(e.getMessage(), _name, handle, SchemaTypeLoaderException.IO_EXCEPTION, e);
+            }
+        }
+
+        void writeTo(OutputStream rawoutput) {
+            try (LongUTFDataOutputStream output = new LongUTFDataOutputStream(rawoutput)) {
+                output.writeInt(DATA_PACK);
+                output.writeShort(MAJOR_VERSION);
+                output.writeShort(_minorVersion);
+                output.writeShort(RELEASE_NUMBER);
+
+                _stringPool.writeTo(output);
+
+                output.writeShortOrInt(_handles.size());
+                int offset = 0;
+                for (int i = 0; i < _handles.size(); i++) {
+                    output.writeShortOrInt(_stringPool.codeForString(_handles.get(i)));
+                    output.writeShort(_filetypes.get(i));
+                    output.writeInt(offset);
+                    output.writeInt(_lengths.get(i));
+                    offset += _lengths.get(i);
+                }
+
+                _data.writeTo(output);
+            } catch (IOException e) {
+                throw new SchemaTypeLoaderException(e.getMessage(), _name, RESOURCE_NAME, SchemaTypeLoaderException.IO_EXCEPTION, e);
+            }
+        }
+    }
+}
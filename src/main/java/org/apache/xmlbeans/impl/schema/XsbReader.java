@@ -16,6 +16,7 @@
 package org.apache.xmlbeans.impl.schema;
 
 import org.apache.xmlbeans.*;
+import org.apache.xmlbeans.impl.common.ByteBufferInputStream;
 import org.apache.xmlbeans.impl.common.QNameHelper;
 import org.apache.xmlbeans.impl.util.LongUTFDataInputStream;
 import org.apache.xmlbeans.impl.util.LongUTFDataOutputStream;
@@ -26,11 +27,14 @@ import org.apache.xmlbeans.soap.SOAPArrayType;
 import org.apache.xmlbeans.soap.SchemaWSDLArrayType;
 
 import javax.xml.namespace.QName;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.function.Function;
 
 import static org.apache.xmlbeans.impl.schema.SchemaTypeSystemImpl.*;
 
@@ -39,10 +43,19 @@ class XsbReader {
     // MAX_UNSIGNED_SHORT
     private static final int MAX_UNSIGNED_SHORT = Short.MAX_VALUE * 2 + 1;
 
+    private static final SchemaComponent[] EMPTY_COMPONENTS = new SchemaComponent[0];
+    private static final SchemaType[] EMPTY_TYPES = new SchemaType[0];
+    private static final SchemaAnnotation[] EMPTY_ANNOTATIONS = new SchemaAnnotation[0];
+    private static final SchemaAnnotation.Attribute[] EMPTY_ATTRIBUTES = new SchemaAnnotation.Attribute[0];
+    private static final String[] EMPTY_STRINGS = new String[0];
+
     private final SchemaTypeSystemImpl typeSystem;
     private LongUTFDataInputStream _input;
     private LongUTFDataOutputStream _output;
     private SchemaTypeSystemImpl.StringPool _stringPool;
+    private XsbArchive.Writer _packer;
+    private ByteArrayOutputStream _packed;
+    private int _packedFiletype;
     private String _handle;
     private int _majorver;
     private int _minorver;
@@ -52,11 +65,19 @@ class XsbReader {
     XsbReader(SchemaTypeSystemImpl typeSystem, String handle) {
         this.typeSystem = typeSystem;
         _handle = handle;
-        _stringPool = new SchemaTypeSystemImpl.StringPool(_handle, typeSystem.getName());
+        _packer = typeSystem.getArchiveWriter();
+        _stringPool = (_packer != null) ? _packer.getStringPool() : new SchemaTypeSystemImpl.StringPool(_handle, typeSystem.getName());
     }
 
     public XsbReader(SchemaTypeSystemImpl typeSystem, String handle, int filetype) {
         this.typeSystem = typeSystem;
+
+        XsbArchive archive = typeSystem.getArchive();
+        if (archive != null) {
+            readFromArchive(archive, handle, filetype);
+            return;
+        }
+
         String resourcename = typeSystem.getBasePackage()  + handle + ".xsb";
         InputStream rawinput = typeSystem.getLoaderStream(resourcename);
         if (rawinput == null) {
@@ -105,6 +126,27 @@ class XsbReader {
         _actualfiletype = actualfiletype;
     }
 
+    private void readFromArchive(XsbArchive archive, String handle, int filetype) {
+        ByteBuffer data = archive.getData(handle);
+        if (data == null) {
+            throw new SchemaTypeLoaderException("XML-BEANS compiled schema: Could not locate compiled schema " + handle + " in " + typeSystem.getBasePackage() + XsbArchive.RESOURCE_NAME, typeSystem.getName(), handle, SchemaTypeLoaderException.NO_RESOURCE);
+        }
+
+        _input = new LongUTFDataInputStream(new ByteBufferInputStream(data));
+        _handle = handle;
+        _majorver = archive.getMajorVersion();
+        _minorver = archive.getMinorVersion();
+        _releaseno = archive.getReleaseNumber();
+
+        int actualfiletype = archive.getFiletype(handle);
+        if (actualfiletype != filetype && filetype != 0xFFFF) {
+            throw new SchemaTypeLoaderException("XML-BEANS compiled schema: File has the wrong type - expecting type " + filetype + ", got type " + actualfiletype, typeSystem.getName(), handle, SchemaTypeLoaderException.WRONG_FILE_TYPE);
+        }
+
+        _stringPool = archive.getStringPool();
+        _actualfiletype = actualfiletype;
+    }
+
     protected boolean atLeast(int majorver, int minorver, int releaseno) {
         if (_majorver > majorver) {
             return true;
@@ -142,6 +184,15 @@ class XsbReader {
     }
 
     void writeRealHeader(String handle, int filetype) {
+        if (_packer != null) {
+            // the header and the string pool are written once for the whole archive
+            _packed = new ByteArrayOutputStream();
+            _packedFiletype = filetype;
+            _output = new LongUTFDataOutputStream(_packed);
+            _handle = handle;
+            return;
+        }
+
         // hackeroo: if handle contains a "/" it's not relative.
         String resourcename;
 
@@ -161,7 +212,7 @@ class XsbReader {
 
         writeInt(DATA_BABE);
         writeShort(MAJOR_VERSION);
-        writeShort(MINOR_VERSION);
+        writeShort(typeSystem.getSaveMinorVersion());
         writeShort(RELEASE_NUMBER);
         writeShort(filetype);
 
@@ -190,38 +241,45 @@ class XsbReader {
         } catch (IOException e) {
             throw new SchemaTypeLoaderException(e.getMessage(), typeSystem.getName(), _handle, SchemaTypeLoaderException.IO_EXCEPTION, e);
         }
+        if (_packed != null) {
+            _packer.add(_handle, _packedFiletype, _packed);
+            _packed = null;
+        }
         _output = null;
         _stringPool = null;
         _handle = null;
     }
 
-    void writeIndexData() {
+    void writeIndexData(Map<String, String> shards) {
+        // a sharded index lists the components in the shards of their namespace instead
+        boolean sharded = !shards.isEmpty();
+
         // has a handle pool (count, handle/type, handle/type...)
         typeSystem.getTypePool().writeHandlePool(this);
 
         // then a qname map of global elements (count, qname/handle, qname/handle...)
-        writeQNameMap(typeSystem.globalElements());
+        writeQNameMap(sharded ? EMPTY_COMPONENTS : typeSystem.globalElements());
 
         // qname map of global attributes
-        writeQNameMap(typeSystem.globalAttributes());
+        writeQNameMap(sharded ? EMPTY_COMPONENTS : typeSystem.globalAttributes());
 
         // qname map of model groups
-        writeQNameMap(typeSystem.modelGroups());
+        writeQNameMap(sharded ? EMPTY_COMPONENTS : typeSystem.modelGroups());
 
         // qname map of attribute groups
-        writeQNameMap(typeSystem.attributeGroups());
+        writeQNameMap(sharded ? EMPTY_COMPONENTS : typeSystem.attributeGroups());
 
         // qname map of identity constraints
-        writeQNameMap(typeSystem.identityConstraints());
+        writeQNameMap(sharded ? EMPTY_COMPONENTS : typeSystem.identityConstraints());
 
         // qname map of global types
-        writeQNameMap(typeSystem.globalTypes());
+        writeQNameMap(sharded ? EMPTY_COMPONENTS : typeSystem.globalTypes());
 
         // qname map of document types, by the qname of the contained element
-        writeDocumentTypeMap(typeSystem.documentTypes());
+        writeDocumentTypeMap(sharded ? EMPTY_TYPES : typeSystem.documentTypes());
 
         // qname map of attribute types, by the qname of the contained attribute
-        writeAttributeTypeMap(typeSystem.attributeTypes());
+        writeAttributeTypeMap(sharded ? EMPTY_TYPES : typeSystem.attributeTypes());
 
         // all the types by classname
         writeClassnameMap(typeSystem.getTypeRefsByClassname());
@@ -230,10 +288,61 @@ class XsbReader {
         writeNamespaces(typeSystem.getNamespaces());
 
         // VERSION 2.15 and newer below
-        writeQNameMap(typeSystem.redefinedGlobalTypes());
-        writeQNameMap(typeSystem.redefinedModelGroups());
-        writeQNameMap(typeSystem.redefinedAttributeGroups());
-        writeAnnotations(typeSystem.annotations());
+        writeQNameMap(sharded ? EMPTY_COMPONENTS : typeSystem.redefinedGlobalTypes());
+        writeQNameMap(sharded ? EMPTY_COMPONENTS : typeSystem.redefinedModelGroups());
+        writeQNameMap(sharded ? EMPTY_COMPONENTS : typeSystem.redefinedAttributeGroups());
+        writeAnnotations(sharded ? EMPTY_ANNOTATIONS : typeSystem.annotations());
+
+        // VERSION 2.25 and newer below, which is only written with shards
+        if (sharded) {
+            writeIndexShards(shards);
+        }
+    }
+
+    /**
+     * Writes the part of the index for the components of one namespace, in the same
+     * order as the index itself.  The top-level annotations go with the no-namespace shard.
+     */
+    void writeIndexShardData(String namespace) {
+        writeQNameMap(inNamespace(typeSystem.globalElements(), namespace, SchemaComponent::getName));
+        writeQNameMap(inNamespace(typeSystem.globalAttributes(), namespace, SchemaComponent::getName));
+        writeQNameMap(inNamespace(typeSystem.modelGroups(), namespace, SchemaComponent::getName));
+        writeQNameMap(inNamespace(typeSystem.attributeGroups(), namespace, SchemaComponent::getName));
+        writeQNameMap(inNamespace(typeSystem.identityConstraints(), namespace, SchemaComponent::getName));
+        writeQNameMap(inNamespace(typeSystem.globalTypes(), namespace, SchemaComponent::getName));
+        writeDocumentTypeMap(inNamespace(typeSystem.documentTypes(), namespace, SchemaType::getDocumentElementName));
+        writeAttributeTypeMap(inNamespace(typeSystem.attributeTypes(), namespace, SchemaType::getAttributeTypeAttributeName));
+        writeQNameMap(inNamespace(typeSystem.redefinedGlobalTypes(), namespace, SchemaComponent::getName));
+        writeQNameMap(inNamespace(typeSystem.redefinedModelGroups(), namespace, SchemaComponent::getName));
+        writeQNameMap(inNamespace(typeSystem.redefinedAttributeGroups(), namespace, SchemaComponent::getName));
+        writeAnnotations(namespace.isEmpty() ? typeSystem.annotations() : EMPTY_ANNOTATIONS);
+    }
+
+    private static <T extends SchemaComponent> T[] inNamespace(T[] components, String namespace, Function<T, QName> name) {
+        return Arrays.stream(components)
+            .filter(c -> namespace.equals(name.apply(c).getNamespaceURI()))
+            .toArray(n -> Arrays.copyOf(components, n));
+    }
+
+    /**
+     * @return the handles of the index shards by namespace, empty if the index is not sharded
+     */
+    Map<String, String> readIndexShards() {
+        Map<String, String> result = new LinkedHashMap<>();
+        int size = readShort();
+        for (int i = 0; i < size; i++) {
+            String namespace = readString();
+            result.put(namespace, readString());
+        }
+        return result;
+    }
+
+    void writeIndexShards(Map<String, String> shards) {
+        writeShort(shards.size());
+        shards.forEach((namespace, handle) -> {
+            writeString(namespace);
+            writeString(handle);
+        });
     }
 
     int readShort() {
@@ -309,7 +418,8 @@ class XsbReader {
         if (localname == null) {
             return null;
         }
-        return new QName(namespace, localname);
+        QName name = new QName(namespace, localname);
+        return typeSystem.sharedName(name);
     }
 
     void writeQName(QName qname) {
@@ -383,8 +493,10 @@ class XsbReader {
         if (n == -1) {
             return null;
         }
+        // most annotations have no attributes and only some of the items,
+        // so the empty arrays are shared between all of them
         SchemaAnnotation.Attribute[] attributes =
-            new SchemaAnnotation.Attribute[n];
+            n == 0 ? EMPTY_ATTRIBUTES : new SchemaAnnotation.Attribute[n];
         for (int i = 0; i < n; i++) {
             QName name = readQName();
             String value = readString();
@@ -397,14 +509,14 @@ class XsbReader {
 
         // Read documentation items
         n = readInt();
-        String[] docStrings = new String[n];
+        String[] docStrings = n == 0 ? EMPTY_STRINGS : new String[n];
         for (int i = 0; i < n; i++) {
             docStrings[i] = readString();
         }
 
         // Read application info items
         n = readInt();
-        String[] appInfoStrings = new String[n];
+        String[] appInfoStrings = n == 0 ? EMPTY_STRINGS : new String[n];
         for (int i = 0; i < n; i++) {
             appInfoStrings[i] = readString();
         }
@@ -413,6 +525,15 @@ class XsbReader {
             docStrings, attributes);
     }
 
+    List<SchemaAnnotation> readAnnotations(SchemaContainer container) {
+        int n = readInt();
+        List<SchemaAnnotation> result = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            result.add(readAnnotation(container));
+        }
+        return result;
+    }
+
     void writeAnnotations(SchemaAnnotation[] anns) {
         writeInt(anns.length);
         for (SchemaAnnotation ann : anns) {
@@ -423,6 +544,9 @@ class XsbReader {
     List<SchemaAnnotation> readAnnotations() {
         int n = readInt();
         List<SchemaAnnotation> result = new ArrayList<>(n);
+        if (n == 0) {
+            return result;
+        }
         // BUGBUG(radup)
         SchemaContainer container = typeSystem.getContainerNonNull("");
         for (int i = 0; i < n; i++) {
@@ -983,7 +1107,8 @@ class XsbReader {
                 int patternCount = readShort();
                 org.apache.xmlbeans.impl.regex.RegularExpression[] patterns = new org.apache.xmlbeans.impl.regex.RegularExpression[patternCount];
                 for (int i = 0; i < patternCount; i++) {
-                    patterns[i] = new org.apache.xmlbeans.impl.regex.RegularExpression(readString(), "X");
+                    String pattern = readString();
+                    patterns[i] = typeSystem.sharedPattern(pattern);
                 }
                 impl.setPatterns(patterns);
 
@@ -1615,8 +1740,11 @@ class XsbReader {
             case SchemaType.BTC_G_DAY:
             case SchemaType.BTC_G_MONTH:
             case SchemaType.BTC_DECIMAL:
-            case SchemaType.BTC_BOOLEAN:
-                return new XmlValueRef(typeref, readString());
+            case SchemaType.BTC_BOOLEAN: {
+                // restrictions repeat the enumerations and facets of their base type
+                String value = readString();
+                return typeSystem.sharedValue(typeref, value);
+            }
 
             case SchemaType.BTC_BASE_64_BINARY:
             case SchemaType.BTC_HEX_BINARY:
@@ -1728,11 +1856,10 @@ class XsbReader {
             qnameSet2.add(readQName());
         }
 
-        if (flag == 1) {
-            return QNameSet.forSets(uriSet, null, qnameSet1, qnameSet2);
-        } else {
-            return QNameSet.forSets(null, uriSet, qnameSet2, qnameSet1);
-        }
+        // most sets are the transition rules of the particles, which are the same for many of them
+        return typeSystem.sharedNameSet(Arrays.asList(flag, uriSet, qnameSet1, qnameSet2), k -> (flag == 1)
+            ? QNameSet.forSets(uriSet, null, qnameSet1, qnameSet2)
+            : QNameSet.forSets(null, uriSet, qnameSet2, qnameSet1));
     }
 
     void writeQNameSet(QNameSet set) {
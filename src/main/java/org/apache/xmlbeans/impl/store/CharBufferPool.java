@@ -0,0 +1,92 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.impl.store;
+
+import org.apache.xmlbeans.SystemProperties;
+
+import java.util.List;
+
+/**
+ * Pool of the char buffers of the documents loaded with
+ * {@link org.apache.xmlbeans.XmlOptions#setLoadUseCharBufferPool()}.
+ * <p>
+ * Such a document has a CharUtil of its own, which takes its buffers from this pool.
+ * When the document is released with {@link org.apache.xmlbeans.XmlTokenSource#releaseDocument()},
+ * its buffers go back to the pool for the next documents to use.
+ * <p>
+ * The pool keeps at most {@code xmlbean.charbufferpool.size} buffers (64 by default, also
+ * when the property is not a number),
+ * the buffers given back beyond that are left to the garbage collector.
+ */
+final class CharBufferPool {
+    static final int BUFFER_SIZE = 1024 * 32;
+
+    private static final int DEFAULT_MAX_BUFFERS = 64;
+
+    private static final int MAX_BUFFERS = maxBuffers();
+
+    private static final char[][] _buffers = new char[MAX_BUFFERS][];
+    private static int _count;
+
+    private CharBufferPool() {
+    }
+
+    private static int maxBuffers() {
+        String size = SystemProperties.getProperty("xmlbean.charbufferpool.size");
+
+        if (size != null) {
+            try {
+                return Math.max(0, Integer.parseInt(size.trim()));
+            } catch (NumberFormatException e) {
+                // fall back to the default
+            }
+        }
+
+        return DEFAULT_MAX_BUFFERS;
+    }
+
+    /**
+     * Returns a buffer of {@link #BUFFER_SIZE} chars, from the pool if there is one left.
+     */
+    static char[] take() {
+        synchronized (_buffers) {
+            if (_count > 0) {
+                char[] buffer = _buffers[--_count];
+                _buffers[_count] = null;
+                return buffer;
+            }
+        }
+
+        return new char[BUFFER_SIZE];
+    }
+
+    /**
+     * Puts the given buffers back into the pool.  No one may look at them afterwards.
+     */
+    static void give(List<char[]> buffers) {
+        synchronized (_buffers) {
+            for (char[] buffer : buffers) {
+                if (_count == MAX_BUFFERS) {
+                    break;
+                }
+
+                assert buffer.length == BUFFER_SIZE;
+
+                _buffers[_count++] = buffer;
+            }
+        }
+    }
+}
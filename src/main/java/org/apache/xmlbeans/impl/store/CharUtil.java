@@ -15,11 +15,45 @@
 package org.apache.xmlbeans.impl.store;
 
 import java.io.PrintStream;
+import java.io.Reader;
 import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.List;
 
 public final class CharUtil {
     public CharUtil(int charBufSize) {
         _charBufSize = charBufSize;
+        _pooledBuffers = null;
+    }
+
+    private CharUtil() {
+        _charBufSize = CharBufferPool.BUFFER_SIZE;
+        _pooledBuffers = new ArrayList<>();
+    }
+
+    /**
+     * Returns a CharUtil which takes its buffers from the {@link CharBufferPool}, for a
+     * single locale.
+     */
+    static CharUtil newPooledCharUtil() {
+        return new CharUtil();
+    }
+
+    /**
+     * Drops the buffers of a pooled CharUtil, putting them back into the pool if the
+     * chars in them are not used any more.
+     */
+    void releaseBuffers(boolean recycle) {
+        if (_pooledBuffers != null) {
+            if (recycle) {
+                CharBufferPool.give(_pooledBuffers);
+            }
+
+            _pooledBuffers.clear();
+        }
+
+        _currentBuffer = null;
+        _currentOffset = 0;
     }
 
     public CharIterator getCharIterator(Object src, int off, int cch) {
@@ -361,7 +395,13 @@ public final class CharUtil {
         assert _currentBuffer == null || _currentBuffer.length - _currentOffset > 0;
 
         if (_currentBuffer == null) {
-            _currentBuffer = new char[Math.max(cch, _charBufSize)];
+            if (_pooledBuffers != null && cch <= CharBufferPool.BUFFER_SIZE) {
+                _currentBuffer = CharBufferPool.take();
+                _pooledBuffers.add(_currentBuffer);
+            } else {
+                _currentBuffer = new char[Math.max(cch, _charBufSize)];
+            }
+
             _currentOffset = 0;
         }
 
@@ -566,6 +606,39 @@ public final class CharUtil {
         }
     }
 
+    /**
+     * Returns the given strings, one after the other, as a single source of chars.  The
+     * chunks are joined as a balanced tree, so its depth only grows with the log of their
+     * number.  Returns null if there are no chunks.
+     */
+    public static Object join(List<String> chunks) {
+        return chunks.isEmpty() ? null : join(chunks, 0, chunks.size());
+    }
+
+    private static Object join(List<String> chunks, int from, int to) {
+        if (to - from == 1) {
+            return chunks.get(from);
+        }
+
+        int mid = (from + to) >>> 1;
+
+        return new CharJoin(join(chunks, from, mid), 0, length(chunks, from, mid), join(chunks, mid, to), 0);
+    }
+
+    public static int length(List<String> chunks) {
+        return length(chunks, 0, chunks.size());
+    }
+
+    private static int length(List<String> chunks, int from, int to) {
+        int cch = 0;
+
+        for (int i = from; i < to; i++) {
+            cch += chunks.get(i).length();
+        }
+
+        return cch;
+    }
+
     public static boolean isValid(Object src, int off, int cch) {
         if (cch < 0 || off < 0) {
             return false;
@@ -596,6 +669,54 @@ public final class CharUtil {
     // Private stuff
     //
 
+    /**
+     * Reader over a (src, off, cch) triple.  The chars such a triple refers to are never
+     * changed, modifications of the text always result in new triples, so the reader keeps
+     * returning the chars it was created for.
+     */
+    static final class CharsReader extends Reader {
+        CharsReader(Object src, int off, int cch) {
+            assert isValid(src, off, cch);
+
+            _src = src;
+            _off = off;
+            _cch = cch;
+        }
+
+        public int read(char[] cbuf, int off, int len) {
+            if (off < 0 || len < 0 || len > cbuf.length - off) {
+                throw new IndexOutOfBoundsException();
+            }
+
+            if (len == 0) {
+                return 0;
+            }
+
+            if (_cch == 0) {
+                return -1;
+            }
+
+            int n = Math.min(len, _cch);
+
+            getChars(cbuf, off, _src, _off, n);
+
+            _off += n;
+            _cch -= n;
+
+            return n;
+        }
+
+        public void close() {
+            _src = null;
+            _off = 0;
+            _cch = 0;
+        }
+
+        private Object _src;
+        private int _off;
+        private int _cch;
+    }
+
     public static final class CharJoin {
         public CharJoin(
             Object srcLeft, int offLeft, int cchLeft, Object srcRight, int offRight) {
@@ -864,6 +985,9 @@ public final class CharUtil {
     private int _currentOffset;
     private char[] _currentBuffer;
 
+    // The buffers taken from the pool, null if not pooled
+    private final List<char[]> _pooledBuffers;
+
     // These members are used to communicate offset and character count
     // information back to a caller of various methods on CharUtil.
     // Usually, the methods returns the src Object, and these two hold
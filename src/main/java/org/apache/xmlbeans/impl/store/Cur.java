@@ -27,6 +27,7 @@ import org.w3c.dom.DocumentFragment;
 import javax.xml.namespace.QName;
 import java.io.PrintStream;
 import java.util.Map;
+import java.util.Set;
 
 import static org.apache.xmlbeans.impl.values.TypeStore.WS_PRESERVE;
 
@@ -515,6 +516,12 @@ public final class Cur {
         assert _state == EMBEDDED || (_xobj == null || !isOnList(_xobj._embedded));
         assert _state == REGISTERED || (_xobj != null && isOnList(_xobj._embedded));
 
+        // Moving into an element whose contents are deferred builds them
+
+        if (x != null && x.isDeferred() && (p == END_POS || (p > 0 && p < x.posAfter()))) {
+            x.ensureContent();
+        }
+
         moveToNoCheck(x, p);
 
         assert isNormal() || (_xobj.isVacant() && _xobj._cchValue == 0 && _xobj._user == null);
@@ -1723,7 +1730,7 @@ public final class Cur {
             // I need to keep them alive.  I do this by moving these chars to a new root.  Note
             // that because Curs will stay behind, I don't have to check for them.
 
-            for (Bookmark b = _xobj._bookmarks; b != null; b = b._next) {
+            for (Bookmark b = _xobj.firstBookmark(null); b != null; b = b._next) {
                 if (inChars(b, cchMove, false)) {
                     Cur c = _locale.tempCur();
 
@@ -1761,6 +1768,8 @@ public final class Cur {
 
             // Copy the chars here, I'll remove the originals next
 
+            _locale.charsMovedTo(to._locale);
+
             to.insertChars(srcMoved, offMoved, cchMove);
         }
 
@@ -1853,6 +1862,8 @@ public final class Cur {
         assert to == null || !to.isRoot();
 
         if (to != null) {
+            x._locale.charsMovedTo(to._locale);
+
             // Before I go much further, I want to make sure that if "to" is in the container of
             // a vacant node, I get it occupied.  I do not need to worry about the source being
             // vacant.
@@ -1877,6 +1888,7 @@ public final class Cur {
         // Notify the locale(s) about the change I am about to make.
 
         x._locale.notifyChange();
+        x._locale.lineNumbersMoving(x, to);
 
         x._locale._versionAll++;
         x._locale._versionSansText++;
@@ -1991,6 +2003,10 @@ public final class Cur {
 
         assert to == null || !to.isRoot();
 
+        if (to != null) {
+            x._locale.charsMovedTo(to._locale);
+        }
+
         // Collect a bit of information about the contents to move first.  Note that the collection
         // of this info must not cause a vacant value to become occupied.
 
@@ -2070,6 +2086,8 @@ public final class Cur {
 
         // TODO - did I forget to put a changeNotification here?  Look more closely ...
 
+        x._locale.lineNumbersMoving(x, to);
+
         // Deal with the value text of x which is either on x or the last attribute of x.
         // I need to get it out of the way to properly deal with the walk of the contents.
         // In order to reposition "to" properly later, I need to record how many chars were moved.
@@ -2252,7 +2270,7 @@ public final class Cur {
         assert isNormal();
         assert key != null;
 
-        for (Bookmark b = _xobj._bookmarks; b != null; b = b._next) {
+        for (Bookmark b = _xobj.firstBookmark(key); b != null; b = b._next) {
             if (b._pos == _pos && b._key == key) {
                 return b._value;
             }
@@ -2270,7 +2288,7 @@ public final class Cur {
         int d = -1;
 
         if (isText()) {
-            for (Bookmark b = _xobj._bookmarks; b != null; b = b._next) {
+            for (Bookmark b = _xobj.firstBookmark(key); b != null; b = b._next) {
                 if (b._key == key && inChars(b, cch, false)) {
                     d = (d == -1 || b._pos - _pos < d) ? b._pos - _pos : d;
                 }
@@ -2292,7 +2310,7 @@ public final class Cur {
             Xobj x = getDenormal();
             int p = _posTemp - cch;
 
-            for (Bookmark b = x._bookmarks; b != null; b = b._next) {
+            for (Bookmark b = x.firstBookmark(key); b != null; b = b._next) {
                 if (b._key == key && x.inChars(p, b._xobj, b._pos, cch, false)) {
                     d = (d == -1 || b._pos - p < d) ? b._pos - p : d;
                 }
@@ -2729,16 +2747,50 @@ public final class Cur {
 
     public static final class CurLoadContext extends LoadContext {
         public CurLoadContext(Locale l, XmlOptions options) {
-            options = XmlOptions.maskNull(options);
+            this(l, XmlOptions.maskNull(options), createDomDocumentRootXobj(l));
+
+            if (_deferDepth > 0 || _deferNames != null) {
+                // The options are needed again when the deferred contents are built
+                _deferOptions = new XmlOptions(_options);
+            }
+
+            _locale._versionAll++;
+            _locale._versionSansText++;
+        }
+
+        /**
+         * Creates a context building the deferred contents of the given element.  As those
+         * contents were already there, this is not a change of the document.
+         */
+        CurLoadContext(Xobj x, DeferredContent content) {
+            this(x._locale, content.getOptions(), x);
+
+            _deferOptions = content.getOptions();
+            _depth = content.getElementDepth();
 
+            setIdAttrs(content.getIdAttrs());
+
+            // Pick up where the load was when the first deferred node came along, that is after
+            // the text following the attributes, if any
+
+            Xobj lastAttr = x.lastAttr();
+
+            if (lastAttr != null) {
+                _frontier = lastAttr;
+                _after = true;
+            }
+        }
+
+        private CurLoadContext(Locale l, XmlOptions options, Xobj frontier) {
             _locale = l;
+            _options = options;
 
             _charUtil =
-                options.isLoadUseLocaleCharUtil()
+                options.isLoadUseLocaleCharUtil() || _locale.usesCharBufferPool()
                     ? _locale.getCharUtil()
                     : CharUtil.getThreadLocalCharUtil();
 
-            _frontier = createDomDocumentRootXobj(_locale);
+            _frontier = frontier;
             _after = false;
 
             _lastXobj = _frontier;
@@ -2754,8 +2806,12 @@ public final class Cur {
             _substituteNamespaces = options.getLoadSubstituteNamespaces();
             _additionalNamespaces = options.getLoadAdditionalNamespaces();
 
-            _locale._versionAll++;
-            _locale._versionSansText++;
+            _deferDepth = options.getLoadDeferSubtreeDepth();
+            _deferNames = options.getLoadDeferSubtreeNames();
+
+            if (options.isLoadDeduplicateText()) {
+                _interner = new TextInterner(options.getLoadDeduplicateTextMaxLength());
+            }
         }
 
         //
@@ -2804,9 +2860,25 @@ public final class Cur {
             _lastXobj = _frontier;
             _lastPos = _frontier._cchValue + 1;
 
+            // The first chars of a value are shared when deduplicating, the ones following them
+            // in later calls are joined as usual
+
+            String interned = null;
+
+            if (_interner != null && (_after ? _frontier._cchAfter : _frontier._cchValue) == 0) {
+                interned = _interner.intern(src, off, cch);
+            }
+
             if (_after) {
                 _lastPos += _frontier._cchAfter + 1;
 
+                if (interned != null) {
+                    _frontier._srcAfter = interned;
+                    _frontier._offAfter = 0;
+                    _frontier._cchAfter = cch;
+                    return;
+                }
+
                 _frontier._srcAfter =
                     _charUtil.saveChars(
                         src, off, cch,
@@ -2816,6 +2888,13 @@ public final class Cur {
                 _frontier._cchAfter = _charUtil._cchSrc;
 
             } else {
+                if (interned != null) {
+                    _frontier._srcValue = interned;
+                    _frontier._offValue = 0;
+                    _frontier._cchValue = cch;
+                    return;
+                }
+
                 _frontier._srcValue =
                     _charUtil.saveChars(
                         src, off, cch,
@@ -2872,18 +2951,85 @@ public final class Cur {
         }
 
         protected void startElement(QName name) {
-            start(createElementXobj(_locale, checkName(name, false), parent()._name));
+            if (isDeferring()) {
+                _deferred.startElement(name);
+                return;
+            }
+
+            name = checkName(name, false);
+
+            start(createElementXobj(_locale, name, parent()._name));
             _stripLeft = true;
+
+            _depth++;
+
+            if (_deferDepth == _depth || (_deferNames != null && _deferNames.contains(name))) {
+                _deferrable = _frontier;
+            }
         }
 
         protected void endElement() {
+            if (_deferred != null && _deferred.endElement()) {
+                return;
+            }
+
             assert parent().isElem();
 
+            if (_deferred != null) {
+                assert _deferrable == parent();
+
+                _deferrable.setBit(Xobj.DEFERRED);
+                _deferrable.setBookmark(0, DeferredContent.class, _deferred);
+                _deferred = null;
+                _sawDeferred = true;
+            }
+
+            _deferrable = null;
+
             end();
             _stripLeft = true;
+
+            _depth--;
+        }
+
+        // Deferring starts with the first child node of a deferrable element, its attributes
+        // and the text before the first child node are loaded as usual.
+
+        private boolean isDeferring() {
+            if (_deferred != null) {
+                return true;
+            }
+
+            if (_deferrable == null) {
+                return false;
+            }
+
+            // Same as start() does for a child node
+
+            flushText();
+
+            _deferred = new DeferredContent(_deferOptions, _depth, getIdAttrs());
+
+            return true;
+        }
+
+        /**
+         * Called after the deferred contents have been replayed into this context.
+         */
+        void finishDeferred() {
+            assert _deferred == null;
+
+            // Same as end() does for the deferred element
+
+            flushText();
         }
 
         protected void xmlns(String prefix, String uri) {
+            if (_deferred != null) {
+                _deferred.xmlns(prefix, uri);
+                return;
+            }
+
             assert parent().isContainer();
             // BUGBUG - should assert there that there is no text before this attr
 
@@ -2909,6 +3055,11 @@ public final class Cur {
         }
 
         public void attr(QName name, String value) {
+            if (_deferred != null) {
+                _deferred.attr(name, value);
+                return;
+            }
+
             assert parent().isContainer();
             // BUGBUG - should assert there that there is no text before this attr
 
@@ -2941,6 +3092,13 @@ public final class Cur {
         }
 
         protected void procInst(String target, String value) {
+            // Stripped nodes are still recorded once deferring, they matter to stripping whitespace
+
+            if (_deferred != null || (!_stripProcinsts && isDeferring())) {
+                _deferred.procInst(target, value);
+                return;
+            }
+
             if (!_stripProcinsts) {
                 Xobj x = new ProcInstXobj(_locale, target);
 
@@ -2955,6 +3113,11 @@ public final class Cur {
         }
 
         protected void comment(String comment) {
+            if (_deferred != null || (!_stripComments && isDeferring())) {
+                _deferred.comment(comment, 0, comment.length());
+                return;
+            }
+
             if (!_stripComments) {
                 comment(comment, 0, comment.length());
             }
@@ -2962,6 +3125,16 @@ public final class Cur {
         }
 
         protected void comment(char[] chars, int off, int cch) {
+            if (_deferred != null && _stripComments) {
+                _deferred.comment("", 0, 0);
+                return;
+            }
+
+            if (_deferred != null || (!_stripComments && isDeferring())) {
+                _deferred.comment(_charUtil.saveChars(chars, off, cch), _charUtil._offSrc, _charUtil._cchSrc);
+                return;
+            }
+
             if (!_stripComments) {
                 comment(
                     _charUtil.saveChars(chars, off, cch),
@@ -2970,6 +3143,13 @@ public final class Cur {
             _stripLeft = true;
         }
 
+        void deferredComment(Object src, int off, int cch) {
+            if (!_stripComments) {
+                comment(src, off, cch);
+            }
+            _stripLeft = true;
+        }
+
         private void comment(Object src, int off, int cch) {
             Xobj x = new CommentXobj(_locale);
 
@@ -3002,18 +3182,44 @@ public final class Cur {
                 return;
             }
 
+            if (_deferred != null) {
+                _deferred.text(s, 0, s.length());
+                return;
+            }
+
             stripText(s, 0, s.length());
         }
 
         protected void text(char[] src, int off, int cch) {
+            if (_deferred != null) {
+                if (cch > 0) {
+                    _deferred.text(_charUtil.saveChars(src, off, cch), _charUtil._offSrc, _charUtil._cchSrc);
+                }
+                return;
+            }
+
+            stripText(src, off, cch);
+        }
+
+        void deferredText(Object src, int off, int cch) {
             stripText(src, off, cch);
         }
 
         protected void bookmark(XmlBookmark bm) {
+            if (_deferred != null) {
+                _deferred.bookmark(bm);
+                return;
+            }
+
             _lastXobj.setBookmark(_lastPos, bm.getKey(), bm);
         }
 
         protected void bookmarkLastNonAttr(XmlBookmark bm) {
+            if (_deferred != null) {
+                _deferred.bookmarkLastNonAttr(bm);
+                return;
+            }
+
             if (_lastPos > 0 || !_lastXobj.isAttr()) {
                 _lastXobj.setBookmark(_lastPos, bm.getKey(), bm);
             } else {
@@ -3024,6 +3230,11 @@ public final class Cur {
         }
 
         protected void bookmarkLastAttr(QName attrName, XmlBookmark bm) {
+            if (_deferred != null) {
+                _deferred.bookmarkLastAttr(attrName, bm);
+                return;
+            }
+
             if (_lastPos == 0 && _lastXobj.isAttr()) {
                 assert _lastXobj._parent != null;
 
@@ -3036,13 +3247,32 @@ public final class Cur {
         }
 
         protected void lineNumber(int line, int column, int offset) {
-            _lastXobj.setBookmark(
-                _lastPos,
-                XmlLineNumber.class,
-                new XmlLineNumber(line, column, offset));
+            if (_deferred != null) {
+                _deferred.lineNumber(line, column, offset);
+                return;
+            }
+
+            if (_lineNumbers == null) {
+                Xobj root = _lastXobj;
+
+                while (root._parent != null) {
+                    root = root._parent;
+                }
+
+                _lineNumbers = _locale.newLineNumberTable(root);
+            }
+
+            _lineNumbers.add(_lastXobj, _lastPos, line, column, offset);
+        }
+
+        void deferredLineNumber(int line, int column, int offset) {
+            // The contents are built on demand, the side table is of no use here
+            _lastXobj.setBookmark(_lastPos, XmlLineNumber.class, new XmlLineNumber(line, column, offset));
         }
 
         protected void abort() {
+            _deferred = null;
+            _deferrable = null;
             _stripLeft = true;
             while (!parent().isRoot()) {
                 end();
@@ -3171,6 +3401,10 @@ public final class Cur {
 
             assert c.isRoot();
 
+            if (_sawDeferred && _frontier instanceof DocumentXobj) {
+                ((DocumentXobj) _frontier).setDeferredContent();
+            }
+
             return c;
         }
 
@@ -3179,6 +3413,7 @@ public final class Cur {
         }
 
         private final Locale _locale;
+        private final XmlOptions _options;
         private final CharUtil _charUtil;
 
         private Xobj _frontier;
@@ -3187,6 +3422,8 @@ public final class Cur {
         private Xobj _lastXobj;
         private int _lastPos;
 
+        private LineNumberTable _lineNumbers;
+
         private final boolean _discardDocElem;
         private final QName _replaceDocElem;
         private final boolean _stripWhitespace;
@@ -3198,6 +3435,19 @@ public final class Cur {
         private String _doctypeName;
         private String _doctypePublicId;
         private String _doctypeSystemId;
+
+        private final int _deferDepth;
+        private final Set<QName> _deferNames;
+        private XmlOptions _deferOptions;
+
+        // Depth of the parent of the next element, the element whose contents may be deferred
+        // if it gets a child node, and the recording of the deferred contents going on
+        private int _depth;
+        private Xobj _deferrable;
+        private DeferredContent _deferred;
+        private boolean _sawDeferred;
+
+        private TextInterner _interner;
     }
 
     static String kindName(int kind) {
@@ -3269,7 +3519,7 @@ public final class Cur {
     }
 
     private static void dumpBookmarks(PrintStream o, Xobj xo, Object ref) {
-        for (Bookmark b = xo._bookmarks; b != null; b = b._next) {
+        for (Bookmark b = xo.firstBookmark(null); b != null; b = b._next) {
             o.print(" ");
 
             if (ref == b) {
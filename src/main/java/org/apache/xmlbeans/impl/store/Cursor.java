@@ -33,9 +33,13 @@ import org.xml.sax.ext.LexicalHandler;
 import javax.xml.namespace.QName;
 import javax.xml.stream.XMLStreamReader;
 import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 public final class Cursor implements XmlCursor, ChangeListener {
@@ -404,6 +408,52 @@ public final class Cursor implements XmlCursor, ChangeListener {
         return _currentTokenType();
     }
 
+    public int _toNextTokens(TokenBuffer buffer) {
+        assert isValid();
+
+        TokenBufferAccess.clear(buffer);
+
+        while (buffer.size() < buffer.capacity()) {
+            TokenType t = _toNextToken();
+
+            if (t == TokenType.NONE) {
+                break;
+            }
+
+            Object src = null;
+
+            switch (_cur.kind()) {
+                case TEXT:
+                    src = _cur.getChars(-1);
+                    break;
+
+                case ATTR:
+                    if (_cur.isXmlns()) {
+                        break;
+                    }
+
+                    // Fall thru
+
+                case COMMENT:
+                case PROCINST:
+                    src = _cur.getFirstChars();
+                    break;
+            }
+
+            if (src == null) {
+                TokenBufferAccess.add(buffer, t.intValue(), _getName(), 0);
+            } else {
+                int off = _cur._offSrc;
+                int cch = _cur._cchSrc;
+                int start = TokenBufferAccess.add(buffer, t.intValue(), _getName(), cch);
+
+                CharUtil.getChars(buffer.chars(), start, src, off, cch);
+            }
+        }
+
+        return buffer.size();
+    }
+
     public TokenType _toPrevToken() {
         assert isValid();
 
@@ -510,6 +560,10 @@ public final class Cursor implements XmlCursor, ChangeListener {
         _save(os, null);
     }
 
+    public void _save(WritableByteChannel channel) throws IOException {
+        _save(channel, null);
+    }
+
     public void _save(Writer w) throws IOException {
         _save(w, null);
     }
@@ -564,6 +618,13 @@ public final class Cursor implements XmlCursor, ChangeListener {
             throw new IllegalArgumentException("Null OutputStream specified");
         }
 
+        Saver.ByteSaver saver = Saver.ByteSaver.newByteSaver(_cur, options);
+
+        if (saver != null) {
+            saver.save(os);
+            return;
+        }
+
         try (InputStream is = _newInputStream(options)) {
             byte[] bytes = new byte[8192];
 
@@ -579,6 +640,20 @@ public final class Cursor implements XmlCursor, ChangeListener {
         }
     }
 
+    public void _save(WritableByteChannel channel, XmlOptions options) throws IOException {
+        if (channel == null) {
+            throw new IllegalArgumentException("Null WritableByteChannel specified");
+        }
+
+        Saver.ByteSaver saver = Saver.ByteSaver.newByteSaver(_cur, options);
+
+        if (saver != null) {
+            saver.save(channel);
+        } else {
+            _save(Channels.newOutputStream(channel), options);
+        }
+    }
+
     public void _save(Writer w, XmlOptions options) throws IOException {
         if (w == null) {
             throw new IllegalArgumentException("Null Writer specified");
@@ -1308,7 +1383,7 @@ public final class Cursor implements XmlCursor, ChangeListener {
 
     public void _getAllBookmarkRefs(Collection<Object> listToFill) {
         if (listToFill != null) {
-            for (Bookmark b = _cur._xobj._bookmarks; b != null; b = b._next) {
+            for (Bookmark b = _cur._xobj.firstBookmark(null); b != null; b = b._next) {
                 if (b._value instanceof XmlBookmark) {
                     listToFill.add(b._value);
                 }
@@ -1724,26 +1799,30 @@ public final class Cursor implements XmlCursor, ChangeListener {
     private static final int COPY_CHARS = 5;
 
     private int twoLocaleOp(XmlCursor xOther, int op, int arg) {
+        return twoLocaleWrap(xOther, other -> twoLocaleOp(other, op, arg));
+    }
+
+    private <T> T twoLocaleWrap(XmlCursor xOther, Function<Cursor, T> inner) {
         Cursor other = checkCursors(xOther);
 
         Locale locale = _cur._locale;
         Locale otherLocale = other._cur._locale;
 
         if (locale == otherLocale) {
-            return syncWrapNoEnter(() -> twoLocaleOp(other, op, arg));
+            return syncWrapNoEnter(() -> inner.apply(other));
         }
 
         if (locale.noSync()) {
             if (otherLocale.noSync()) {
-                return twoLocaleOp(other, op, arg);
+                return inner.apply(other);
             } else {
                 synchronized (otherLocale) {
-                    return twoLocaleOp(other, op, arg);
+                    return inner.apply(other);
                 }
             }
         } else if (otherLocale.noSync()) {
             synchronized (locale) {
-                return twoLocaleOp(other, op, arg);
+                return inner.apply(other);
             }
         }
 
@@ -1758,7 +1837,7 @@ public final class Cursor implements XmlCursor, ChangeListener {
                     GlobalLock.release();
                     acquired = false;
 
-                    return twoLocaleOp(other, op, arg);
+                    return inner.apply(other);
                 }
             }
         } catch (InterruptedException e) {
@@ -1823,6 +1902,25 @@ public final class Cursor implements XmlCursor, ChangeListener {
         return twoLocaleOp(xTo, COPY_CHARS, cch);
     }
 
+    List<TreeDiff.Edit> diff(XmlCursor xOther, boolean valueEquality) {
+        return twoLocaleWrap(xOther, other -> {
+            if (!_cur.isContainer() || !other._cur.isContainer()) {
+                throw new IllegalStateException("Cursors must be at a START or STARTDOC token");
+            }
+
+            Locale locale = _cur._locale;
+            Locale otherLocale = other._cur._locale;
+
+            locale.enter(otherLocale);
+
+            try {
+                return new TreeDiff(valueEquality).diff(_cur._xobj, other._cur._xobj);
+            } finally {
+                locale.exit(otherLocale);
+            }
+        });
+    }
+
 
     //
     // Special methods involving multiple cursors which can be in different locales, but do not
@@ -1913,10 +2011,28 @@ public final class Cursor implements XmlCursor, ChangeListener {
     @Override
     public void close() {
         if (_cur != null) {
+            if (_cur._locale.isReleased()) {
+                // Nothing left to clean up in a released document
+                _cur = null;
+                return;
+            }
+
             syncWrap(this::_dispose);
         }
     }
 
+    public void releaseDocument() {
+        if (_cur != null) {
+            _cur._locale.release();
+        }
+    }
+
+    public void confineDocumentTo(Thread owner) {
+        if (_cur != null) {
+            _cur._locale.confineTo(owner);
+        }
+    }
+
     @Override
     @Deprecated
     public void dispose() {
@@ -1975,6 +2091,10 @@ public final class Cursor implements XmlCursor, ChangeListener {
         syncWrapIOEx(() -> _save(os));
     }
 
+    public void save(WritableByteChannel channel) throws IOException {
+        syncWrapIOEx(() -> _save(channel));
+    }
+
     public void save(Writer w) throws IOException {
         syncWrapIOEx(() -> _save(w));
     }
@@ -2007,6 +2127,10 @@ public final class Cursor implements XmlCursor, ChangeListener {
         syncWrapIOEx(() -> _save(os, options));
     }
 
+    public void save(WritableByteChannel channel, XmlOptions options) throws IOException {
+        syncWrapIOEx(() -> _save(channel, options));
+    }
+
     public void save(Writer w, XmlOptions options) throws IOException {
         syncWrapIOEx(() -> _save(w, options));
     }
@@ -2155,6 +2279,10 @@ public final class Cursor implements XmlCursor, ChangeListener {
         return syncWrap(this::_toNextToken);
     }
 
+    public int toNextTokens(TokenBuffer buffer) {
+        return syncWrap(() -> _toNextTokens(buffer));
+    }
+
     public TokenType toPrevToken() {
         return syncWrap(this::_toPrevToken);
     }
@@ -2511,6 +2639,8 @@ public final class Cursor implements XmlCursor, ChangeListener {
         final Locale l = _cur._locale;
         if (enterLocale) {
             l.enter();
+        } else {
+            l.checkNotReleased();
         }
         try {
             inner.run();
@@ -2525,6 +2655,8 @@ public final class Cursor implements XmlCursor, ChangeListener {
         final Locale l = _cur._locale;
         if (enterLocale) {
             l.enter();
+        } else {
+            l.checkNotReleased();
         }
         try {
             return inner.get();
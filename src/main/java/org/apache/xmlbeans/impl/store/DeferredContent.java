@@ -0,0 +1,346 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.impl.store;
+
+import org.apache.xmlbeans.XmlCursor.XmlBookmark;
+import org.apache.xmlbeans.XmlOptions;
+
+import javax.xml.namespace.QName;
+import java.util.Arrays;
+import java.util.Hashtable;
+import java.util.function.Predicate;
+
+/**
+ * The contents of an element which were not built while loading a document with
+ * {@link XmlOptions#setLoadDeferSubtreeDepth(int)} or {@link XmlOptions#setLoadDeferSubtreeNames}.
+ * <p>
+ * Instead of creating Xobjs, the load context records the events of the contents in two
+ * arrays: the ints hold the kind of each event, and the offsets and lengths of its text, the
+ * objects hold the names, values and text sources (the text itself stays in the buffers of
+ * the CharUtil it was saved to).  The element is flagged with {@link Xobj#DEFERRED} and the
+ * record hangs off it as a bookmark keyed with this class, so that it moves along with the
+ * element.  The first time the contents of the element are looked at, the events are
+ * replayed into a load context positioned inside the element.
+ * <p>
+ * Only the child nodes of the element, and the text following them, are deferred.  The text
+ * before the first child node is loaded, so that the positions in the element do not change
+ * when its contents are built.
+ */
+final class DeferredContent {
+    private static final int START_ELEMENT = 0;
+    private static final int END_ELEMENT = 1;
+    private static final int XMLNS = 2;
+    private static final int ATTR = 3;
+    private static final int PROCINST = 4;
+    private static final int COMMENT = 5;
+    private static final int TEXT = 6;
+    private static final int BOOKMARK = 7;
+    private static final int BOOKMARK_LAST_NON_ATTR = 8;
+    private static final int BOOKMARK_LAST_ATTR = 9;
+    private static final int LINE_NUMBER = 10;
+
+    private final XmlOptions _options;
+    private final int _elementDepth;
+    private final Hashtable<String, String> _idAttrs;
+
+    private int[] _ints = new int[16];
+    private int _intCount;
+
+    private Object[] _objs = new Object[8];
+    private int _objCount;
+
+    // Nesting of the recorded elements
+    private int _depth;
+
+    /**
+     * @param options      the options of the load, to apply the same ones when replaying
+     * @param elementDepth the depth of the deferred element in the loaded document
+     * @param idAttrs      the ID attributes declared by the DTD of the document, if any
+     */
+    DeferredContent(XmlOptions options, int elementDepth, Hashtable<String, String> idAttrs) {
+        _options = options;
+        _elementDepth = elementDepth;
+        _idAttrs = idAttrs;
+    }
+
+    int getElementDepth() {
+        return _elementDepth;
+    }
+
+    XmlOptions getOptions() {
+        return _options;
+    }
+
+    Hashtable<String, String> getIdAttrs() {
+        return _idAttrs;
+    }
+
+    void startElement(QName name) {
+        add(START_ELEMENT);
+        add(name);
+        _depth++;
+    }
+
+    /**
+     * Records the end of an element, returning false for the end of the deferred element
+     * itself, which is not part of its contents.
+     */
+    boolean endElement() {
+        if (_depth == 0) {
+            return false;
+        }
+
+        add(END_ELEMENT);
+        _depth--;
+
+        return true;
+    }
+
+    void xmlns(String prefix, String uri) {
+        add(XMLNS);
+        add(prefix);
+        add(uri);
+    }
+
+    void attr(QName name, String value) {
+        add(ATTR);
+        add(name);
+        add(value);
+    }
+
+    void procInst(String target, String value) {
+        add(PROCINST);
+        add(target);
+        add(value);
+    }
+
+    void comment(Object src, int off, int cch) {
+        add(COMMENT);
+        add(off);
+        add(cch);
+        add(src);
+    }
+
+    void text(Object src, int off, int cch) {
+        add(TEXT);
+        add(off);
+        add(cch);
+        add(src);
+    }
+
+    void bookmark(XmlBookmark bm) {
+        add(BOOKMARK);
+        add(bm);
+    }
+
+    void bookmarkLastNonAttr(XmlBookmark bm) {
+        add(BOOKMARK_LAST_NON_ATTR);
+        add(bm);
+    }
+
+    void bookmarkLastAttr(QName attrName, XmlBookmark bm) {
+        add(BOOKMARK_LAST_ATTR);
+        add(attrName);
+        add(bm);
+    }
+
+    void lineNumber(int line, int column, int offset) {
+        add(LINE_NUMBER);
+        add(line);
+        add(column);
+        add(offset);
+    }
+
+    /**
+     * Whether the deferred contents of the given element may hold an element whose name
+     * is accepted by the given test, looking at the recorded events instead of building
+     * the contents.
+     */
+    static boolean mayHoldElement(Xobj x, Predicate<QName> test) {
+        assert x.isDeferred();
+
+        DeferredContent content = contentOf(x);
+
+        return content != null && content.hasElement(test);
+    }
+
+    /**
+     * Builds the deferred contents of the given element.
+     */
+    static void materialize(Xobj x) {
+        assert x.isDeferred();
+
+        x.clearBit(Xobj.DEFERRED);
+
+        DeferredContent content = contentOf(x);
+
+        if (content == null) {
+            return;
+        }
+
+        x.setBookmark(0, DeferredContent.class, null);
+
+        Locale l = x._locale;
+
+        l.enter();
+
+        try {
+            Cur.CurLoadContext context = new Cur.CurLoadContext(x, content);
+
+            content.replay(context);
+
+            context.finishDeferred();
+        } finally {
+            l.exit();
+        }
+    }
+
+    /**
+     * Builds all the deferred contents in the tree under the given Xobj.
+     */
+    static void materializeAll(Xobj root) {
+        for (Xobj x = root; x != null; x = x.walk(root, true)) {
+            x.ensureContent();
+        }
+    }
+
+    private static DeferredContent contentOf(Xobj x) {
+        for (Bookmark b = x._bookmarks; b != null; b = b._next) {
+            if (b._key == DeferredContent.class) {
+                return (DeferredContent) b._value;
+            }
+        }
+
+        return null;
+    }
+
+    private boolean hasElement(Predicate<QName> test) {
+        int o = 0;
+
+        for (int i = 0; i < _intCount; ) {
+            switch (_ints[i++]) {
+                case START_ELEMENT:
+                    if (test.test((QName) _objs[o++])) {
+                        return true;
+                    }
+                    break;
+
+                case END_ELEMENT:
+                    break;
+
+                case XMLNS:
+                case ATTR:
+                case PROCINST:
+                case BOOKMARK_LAST_ATTR:
+                    o += 2;
+                    break;
+
+                case COMMENT:
+                case TEXT:
+                    o++;
+                    i += 2;
+                    break;
+
+                case BOOKMARK:
+                case BOOKMARK_LAST_NON_ATTR:
+                    o++;
+                    break;
+
+                case LINE_NUMBER:
+                    i += 3;
+                    break;
+
+                default:
+                    assert false : "Unknown deferred event";
+            }
+        }
+
+        return false;
+    }
+
+    private void replay(Cur.CurLoadContext context) {
+        int o = 0;
+
+        for (int i = 0; i < _intCount; ) {
+            switch (_ints[i++]) {
+                case START_ELEMENT:
+                    context.startElement((QName) _objs[o++]);
+                    break;
+
+                case END_ELEMENT:
+                    context.endElement();
+                    break;
+
+                case XMLNS:
+                    context.xmlns((String) _objs[o++], (String) _objs[o++]);
+                    break;
+
+                case ATTR:
+                    context.attr((QName) _objs[o++], (String) _objs[o++]);
+                    break;
+
+                case PROCINST:
+                    context.procInst((String) _objs[o++], (String) _objs[o++]);
+                    break;
+
+                case COMMENT:
+                    context.deferredComment(_objs[o++], _ints[i++], _ints[i++]);
+                    break;
+
+                case TEXT:
+                    context.deferredText(_objs[o++], _ints[i++], _ints[i++]);
+                    break;
+
+                case BOOKMARK:
+                    context.bookmark((XmlBookmark) _objs[o++]);
+                    break;
+
+                case BOOKMARK_LAST_NON_ATTR:
+                    context.bookmarkLastNonAttr((XmlBookmark) _objs[o++]);
+                    break;
+
+                case BOOKMARK_LAST_ATTR:
+                    context.bookmarkLastAttr((QName) _objs[o++], (XmlBookmark) _objs[o++]);
+                    break;
+
+                case LINE_NUMBER:
+                    context.deferredLineNumber(_ints[i++], _ints[i++], _ints[i++]);
+                    break;
+
+                default:
+                    assert false : "Unknown deferred event";
+            }
+        }
+
+        assert o == _objCount;
+    }
+
+    private void add(int i) {
+        if (_intCount == _ints.length) {
+            _ints = Arrays.copyOf(_ints, _intCount * 2);
+        }
+
+        _ints[_intCount++] = i;
+    }
+
+    private void add(Object o) {
+        if (_objCount == _objs.length) {
+            _objs = Arrays.copyOf(_objs, _objCount * 2);
+        }
+
+        _objs[_objCount++] = o;
+    }
+}
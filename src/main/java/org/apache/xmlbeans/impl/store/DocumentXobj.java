@@ -17,6 +17,9 @@ package org.apache.xmlbeans.impl.store;
 
 import org.w3c.dom.*;
 
+import javax.xml.namespace.QName;
+import java.util.function.Predicate;
+
 import static org.apache.xmlbeans.impl.store.Cur.ROOT;
 
 class DocumentXobj extends NodeXobj implements Document {
@@ -81,10 +84,13 @@ class DocumentXobj extends NodeXobj implements Document {
     }
 
     public Element getElementById(String elementId) {
-        if (_idToElement == null) {
-            return null;
+        Xobj o = _idToElement == null ? null : (Xobj) _idToElement.get(elementId);
+        if (o == null && _deferredContent) {
+            // Ids are registered when the contents holding them are built
+            _deferredContent = false;
+            DomImpl._document_buildDeferredContent(this);
+            o = _idToElement == null ? null : (Xobj) _idToElement.get(elementId);
         }
-        Xobj o = (Xobj) _idToElement.get(elementId);
         if (o == null) {
             return null;
         }
@@ -174,11 +180,57 @@ class DocumentXobj extends NodeXobj implements Document {
         _idToElement.put(idVal, e);
     }
 
+    void setDeferredContent() {
+        _deferredContent = true;
+    }
+
     void removeIdElement(String idVal) {
         if (_idToElement != null) {
             _idToElement.remove(idVal);
         }
     }
 
+    /**
+     * Returns the element name index of this document if it covers the current contents
+     * under root, for elements accepted by match.  When {@code build} is set, a new index
+     * is built if the document has not changed since the previous such call, so that
+     * alternately changing the document and querying it does not build one each time.
+     */
+    DomImpl.ElementNameIndex getElementNameIndex(boolean build, Xobj root, Predicate<QName> match) {
+        for (; ; ) {
+            if (_elementNameIndex != null && !_elementNameIndex.isCurrent(_locale)) {
+                _elementNameIndex = null;
+            }
+
+            if (_elementNameIndex == null) {
+                if (!build) {
+                    return null;
+                }
+
+                if (_elementNameIndexRequested != _locale._versionSansText) {
+                    _elementNameIndexRequested = _locale._versionSansText;
+                    return null;
+                }
+
+                _elementNameIndex = new DomImpl.ElementNameIndex(this);
+            }
+
+            if (root != this && !_elementNameIndex.contains(root)) {
+                return null;
+            }
+
+            if (_elementNameIndex.buildDeferred(root, match)) {
+                return _elementNameIndex;
+            }
+
+            // Contents were built, which the index does not know about
+
+            _elementNameIndex = null;
+        }
+    }
+
     private java.util.Hashtable<String,DomImpl.Dom> _idToElement;
+    private DomImpl.ElementNameIndex _elementNameIndex;
+    private long _elementNameIndexRequested = -1;
+    private boolean _deferredContent;
 }
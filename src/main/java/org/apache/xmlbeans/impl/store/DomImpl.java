@@ -32,6 +32,7 @@ import java.io.PrintStream;
 import java.util.*;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 
 // DOM Level 3
@@ -476,12 +477,17 @@ public final class DomImpl {
         public int getLength() {
             ensureElements();
 
-            return _elements.size();
+            return _indexed == null ? _elements.size() : _end - _start;
         }
 
         public Node item(int i) {
             ensureElements();
-            return i < 0 || i >= _elements.size() ? null : (Node) _elements.get(i);
+
+            if (_indexed == null) {
+                return i < 0 || i >= _elements.size() ? null : (Node) _elements.get(i);
+            }
+
+            return i < 0 || i >= _end - _start ? null : (Node) _index.element(_indexed[_start + i]);
         }
 
         private void ensureElements() {
@@ -490,32 +496,249 @@ public final class DomImpl {
             }
 
             _version = _locale.version();
-            _elements = new ArrayList<>();
+            _elements = null;
+            _indexed = null;
 
             syncWrapHelper(_locale, true, () -> {
-                addElements(_root);
+                Xobj root = rootXobj();
+                Xobj top = root;
+
+                while (top._parent != null) {
+                    top = top._parent;
+                }
+
+                // Lists over a whole document may (re)build the document's index, lists over
+                // an element only use it when it is current, so that alternately changing
+                // the document and looking into a small subtree does not rescan it all.
+
+                _index = top instanceof DocumentXobj
+                    ? ((DocumentXobj) top).getElementNameIndex(root == top, root, this::match) : null;
+
+                if (_index == null) {
+                    _elements = new ArrayList<>();
+                    addElements(root);
+                } else {
+                    _indexed = _index.matching(indexKey(), this::match);
+                    _start = _index.firstAfter(_indexed, root);
+                    _end = _index.firstAfterSubtree(_indexed, root);
+                }
+
                 return null;
             });
         }
 
-        private void addElements(Dom node) {
-            for (Node c = firstChild(node); c != null; c = nextSibling((Dom) c)) {
-                if (((Dom) c).nodeType() == ELEMENT) {
-                    if (match((Dom) c)) {
+        private Xobj rootXobj() {
+            if (_root instanceof Xobj) {
+                return (Xobj) _root;
+            }
+
+            Cur c = _root.tempCur();
+            Xobj x = c._xobj;
+            c.release();
+
+            return x;
+        }
+
+        private void addElements(Xobj x) {
+            // Deferred contents without a matching element are not built just to be scanned
+
+            if (x.isDeferred() && !DeferredContent.mayHoldElement(x, this::match)) {
+                return;
+            }
+
+            x.ensureOccupancy();
+
+            for (Xobj c = x._firstChild; c != null; c = c._nextSibling) {
+                if (c.isElem()) {
+                    if (match(c._name)) {
                         _elements.add((Dom) c);
                     }
 
-                    addElements((Dom) c);
+                    addElements(c);
                 }
             }
         }
 
-        protected abstract boolean match(Dom element);
+        protected abstract boolean match(QName elementName);
+
+        /**
+         * Key under which the elements matched by this list are cached in the
+         * document's {@link ElementNameIndex}.  Lists which return equal keys
+         * must match the same elements.
+         */
+        protected abstract Object indexKey();
 
         private final Dom _root;
         private final Locale _locale;
         private long _version;
         private ArrayList<Dom> _elements;
+
+        private ElementNameIndex _index;
+        private int[] _indexed;
+        private int _start;
+        private int _end;
+    }
+
+    /**
+     * Elements of a document in document order, together with lists of the
+     * elements matching a given tag name.  The index is shared by all the
+     * NodeLists of a document and is dropped once nodes of the document have
+     * been added, moved or renamed (text changes keep it valid), so repeated
+     * getElementsByTagName calls do not rescan the tree.
+     * <p>
+     * Deferred contents are not built to be indexed.  The elements holding them
+     * are recorded instead, and only the ones which may hold a match for a
+     * query are built, after which the index is replaced.
+     */
+    static final class ElementNameIndex {
+        private static final int MAX_MATCHES = 32;
+
+        ElementNameIndex(DocumentXobj doc) {
+            _version = doc._locale._versionSansText;
+            _elements = new Xobj[64];
+            _ends = new int[64];
+            _order = new IdentityHashMap<>();
+
+            addElements(doc);
+        }
+
+        boolean isCurrent(Locale l) {
+            return _version == l._versionSansText;
+        }
+
+        Dom element(int i) {
+            return (Dom) _elements[i];
+        }
+
+        boolean contains(Xobj x) {
+            return _order.containsKey(x);
+        }
+
+        /**
+         * Builds the deferred contents under root which may hold elements accepted by the
+         * given matcher.  Returns false when the index does not cover all the elements under
+         * root anymore, because of these contents or of contents built since it was made.
+         */
+        boolean buildDeferred(Xobj root, Predicate<QName> match) {
+            Integer r = _order.get(root);
+            int from = r == null ? 0 : r;
+            int to = r == null ? _count : _ends[r];
+            boolean covered = true;
+
+            for (int i = 0; i < _deferredCount; i++) {
+                int p = _deferred[i];
+
+                if (p >= from && p < to) {
+                    Xobj x = _elements[p];
+
+                    if (x.isDeferred() && DeferredContent.mayHoldElement(x, match)) {
+                        x.ensureContent();
+                    }
+
+                    covered &= x.isDeferred();
+                }
+            }
+
+            return covered;
+        }
+
+        /**
+         * Returns the positions, in document order, of all the elements accepted by
+         * the given matcher, reusing the result of a recent call with the same key.
+         */
+        int[] matching(Object key, Predicate<QName> match) {
+            int[] indexed = _matches.get(key);
+
+            if (indexed == null) {
+                int[] positions = new int[16];
+                int n = 0;
+
+                for (int i = 0; i < _count; i++) {
+                    if (match.test(_elements[i]._name)) {
+                        if (n == positions.length) {
+                            positions = Arrays.copyOf(positions, n * 2);
+                        }
+
+                        positions[n++] = i;
+                    }
+                }
+
+                indexed = Arrays.copyOf(positions, n);
+                _matches.put(key, indexed);
+            }
+
+            return indexed;
+        }
+
+        /**
+         * Index into the given positions of the first element which follows the
+         * start of x in document order.
+         */
+        int firstAfter(int[] indexed, Xobj x) {
+            Integer i = _order.get(x);
+            return i == null ? 0 : lowerBound(indexed, i + 1);
+        }
+
+        /**
+         * Index into the given positions of the first element which follows the
+         * end of x in document order.
+         */
+        int firstAfterSubtree(int[] indexed, Xobj x) {
+            Integer i = _order.get(x);
+            return i == null ? indexed.length : lowerBound(indexed, _ends[i]);
+        }
+
+        private static int lowerBound(int[] indexed, int position) {
+            int i = Arrays.binarySearch(indexed, position);
+            return i < 0 ? -i - 1 : i;
+        }
+
+        private void addElements(Xobj x) {
+            if (x.isDeferred()) {
+                if (_deferredCount == _deferred.length) {
+                    _deferred = Arrays.copyOf(_deferred, _deferredCount * 2);
+                }
+
+                _deferred[_deferredCount++] = _count - 1;
+                return;
+            }
+
+            x.ensureOccupancy();
+
+            for (Xobj c = x._firstChild; c != null; c = c._nextSibling) {
+                if (c.isElem()) {
+                    if (_count == _elements.length) {
+                        _elements = Arrays.copyOf(_elements, _count * 2);
+                        _ends = Arrays.copyOf(_ends, _count * 2);
+                    }
+
+                    int i = _count++;
+
+                    _elements[i] = c;
+                    _order.put(c, i);
+
+                    addElements(c);
+
+                    _ends[i] = _count;
+                }
+            }
+        }
+
+        private final long _version;
+        private Xobj[] _elements;
+        private int[] _ends;
+        private int _count;
+        private final IdentityHashMap<Xobj, Integer> _order;
+        private int[] _deferred = new int[8];
+        private int _deferredCount;
+
+        // Most recently used lists only, keys are made up by the callers
+        private final LinkedHashMap<Object, int[]> _matches = new LinkedHashMap<Object, int[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, int[]> eldest) {
+                return size() > MAX_MATCHES;
+            }
+        };
     }
 
     private static class ElementsByTagNameNodeList extends ElementsNodeList {
@@ -525,8 +748,20 @@ public final class DomImpl {
             assert (_name != null);
         }
 
-        protected boolean match(Dom element) {
-            return _name.equals("*") || _name.equals(_node_getNodeName(element));
+        protected boolean match(QName elementName) {
+            if (_name.equals("*")) {
+                return true;
+            }
+
+            // Same as the node name of the element
+            String prefix = elementName.getPrefix();
+
+            return _name.equals(prefix.isEmpty()
+                ? elementName.getLocalPart() : prefix + ":" + elementName.getLocalPart());
+        }
+
+        protected Object indexKey() {
+            return _name;
         }
 
         private final String _name;
@@ -541,12 +776,16 @@ public final class DomImpl {
             assert (local != null);
         }
 
-        protected boolean match(Dom element) {
-            if (!(_uri.equals("*") || _uri.equals(_node_getNamespaceURI(element)))) {
+        protected boolean match(QName elementName) {
+            if (!(_uri.equals("*") || _uri.equals(elementName.getNamespaceURI()))) {
                 return false;
             }
 
-            return _local.equals("*") || _local.equals(_node_getLocalName(element));
+            return _local.equals("*") || _local.equals(elementName.getLocalPart());
+        }
+
+        protected Object indexKey() {
+            return new QName(_uri, _local);
         }
 
         private final String _uri;
@@ -829,9 +1068,16 @@ public final class DomImpl {
     //////////////////////////////////////////////////////////////////////////////////////
     //////////////////////////////////////////////////////////////////////////////////////
 
-    @SuppressWarnings("unused")
     public static Element _document_getElementById(Dom d, String elementId) {
-        throw new RuntimeException("Not implemented");
+        return syncWrap(d, p -> document_getElementById(p, elementId));
+    }
+
+    public static Element document_getElementById(Dom d, String elementId) {
+        Cur c = d.tempCur();
+        Xobj x = c._xobj;
+        c.release();
+
+        return x instanceof DocumentXobj ? ((DocumentXobj) x).getElementById(elementId) : null;
     }
 
     //////////////////////////////////////////////////////////////////////////////////////
@@ -1093,7 +1339,7 @@ public final class DomImpl {
     public static Node _node_getFirstChild(Dom n) {
         assert n instanceof Xobj;
         Xobj node = (Xobj) n;
-        if (!node.isVacant()) {
+        if (!node.isVacant() && !node.isDeferred()) {
             if (node.isFirstChildPtrDomUsable()) {
                 return (Node) node._firstChild;
             }
@@ -1447,6 +1693,14 @@ public final class DomImpl {
     //////////////////////////////////////////////////////////////////////////////////////
     //////////////////////////////////////////////////////////////////////////////////////
 
+    public static void _document_buildDeferredContent(Dom n) {
+        syncWrapVoid(n, d -> DeferredContent.materializeAll((Xobj) d));
+    }
+
+    //////////////////////////////////////////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////////////////////
+
     public static boolean _node_hasChildNodes(Dom n) {
         // TODO - make this faster
         return n instanceof Xobj && _node_getFirstChild(n) != null;
@@ -2324,7 +2578,7 @@ public final class DomImpl {
         assert n instanceof Xobj;
         int count;
         Xobj node = (Xobj) n;
-        if (!node.isVacant() &&
+        if (!node.isVacant() && !node.isDeferred() &&
             (count = node.getDomZeroOneChildren()) < 2) {
             return count;
         }
@@ -3759,6 +4013,8 @@ public final class DomImpl {
     private static <T> T syncWrapHelper2(Locale l, boolean enter, Supplier<T> inner) {
         if (enter) {
             l.enter();
+        } else {
+            l.checkNotReleased();
         }
         try {
             return inner.get();
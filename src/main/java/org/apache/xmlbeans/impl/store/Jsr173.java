@@ -25,9 +25,11 @@ import javax.xml.namespace.QName;
 import javax.xml.stream.Location;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
+import java.util.Arrays;
 import java.util.ConcurrentModificationException;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.function.Supplier;
 
 public class Jsr173 {
     public static Node nodeFromStream(XMLStreamReader xs) {
@@ -60,9 +62,7 @@ public class Jsr173 {
     }
 
     public static Node nodeFromStreamImpl(Jsr173GateWay gw) {
-        Cur c = gw._xs.getStreamCur();
-
-        return c.isNode() ? (Node) c.getDom() : (Node) null;
+        return gw.getNode();
     }
 
     public static XMLStreamReader newXmlStreamReader(Cur c, Object src, int off, int cch) {
@@ -97,6 +97,12 @@ public class Jsr173 {
             xs = new XMLStreamReaderForNode(c, false);
         }
 
+        int batchSize = options.getSaveStreamReaderBatchSize();
+
+        if (batchSize > 1 && xs instanceof XMLStreamReaderForNode) {
+            return new BatchedJsr173(c._locale, (XMLStreamReaderForNode) xs, batchSize);
+        }
+
         if (c._locale.noSync()) {
             return new UnsyncedJsr173(c._locale, xs);
         } else {
@@ -1171,6 +1177,12 @@ public class Jsr173 {
             _xs = xs;
         }
 
+        Node getNode() {
+            Cur c = _xs.getStreamCur();
+
+            return c.isNode() ? (Node) c.getDom() : (Node) null;
+        }
+
         Locale _l;
         XMLStreamReaderBase _xs;
     }
@@ -1763,8 +1775,8 @@ public class Jsr173 {
         }
 
         public Object getProperty(java.lang.String name) {
+            _l.enter();
             try {
-                _l.enter();
                 return _xs.getProperty(name);
             } finally {
                 _l.exit();
@@ -1772,8 +1784,8 @@ public class Jsr173 {
         }
 
         public int next() throws XMLStreamException {
+            _l.enter();
             try {
-                _l.enter();
                 return _xs.next();
             } finally {
                 _l.exit();
@@ -1781,8 +1793,8 @@ public class Jsr173 {
         }
 
         public void require(int type, String namespaceURI, String localName) throws XMLStreamException {
+            _l.enter();
             try {
-                _l.enter();
                 _xs.require(type, namespaceURI, localName);
             } finally {
                 _l.exit();
@@ -1790,8 +1802,8 @@ public class Jsr173 {
         }
 
         public String getElementText() throws XMLStreamException {
+            _l.enter();
             try {
-                _l.enter();
                 return _xs.getElementText();
             } finally {
                 _l.exit();
@@ -1799,8 +1811,8 @@ public class Jsr173 {
         }
 
         public int nextTag() throws XMLStreamException {
+            _l.enter();
             try {
-                _l.enter();
                 return _xs.nextTag();
             } finally {
                 _l.exit();
@@ -1808,8 +1820,8 @@ public class Jsr173 {
         }
 
         public boolean hasNext() throws XMLStreamException {
+            _l.enter();
             try {
-                _l.enter();
                 return _xs.hasNext();
             } finally {
                 _l.exit();
@@ -1817,8 +1829,8 @@ public class Jsr173 {
         }
 
         public void close() throws XMLStreamException {
+            _l.enter();
             try {
-                _l.enter();
                 _xs.close();
             } finally {
                 _l.exit();
@@ -1826,8 +1838,8 @@ public class Jsr173 {
         }
 
         public String getNamespaceURI(String prefix) {
+            _l.enter();
             try {
-                _l.enter();
                 return _xs.getNamespaceURI(prefix);
             } finally {
                 _l.exit();
@@ -1835,8 +1847,8 @@ public class Jsr173 {
         }
 
         public boolean isStartElement() {
+            _l.enter();
             try {
-                _l.enter();
                 return _xs.isStartElement();
             } finally {
                 _l.exit();
@@ -1844,8 +1856,8 @@ public class Jsr173 {
         }
 
         public boolean isEndElement() {
+            _l.enter();
             try {
-                _l.enter();
                 return _xs.isEndElement();
             } finally {
                 _l.exit();
@@ -1853,8 +1865,8 @@ public class Jsr173 {
         }
 
         public boolean isCharacters() {
+            _l.enter();
             try {
-                _l.enter();
                 return _xs.isCharacters();
             } finally {
                 _l.exit();
@@ -1862,8 +1874,8 @@ public class Jsr173 {
         }
 
         public boolean isWhiteSpace() {
+            _l.enter();
             try {
-                _l.enter();
                 return _xs.isWhiteSpace();
             } finally {
                 _l.exit();
@@ -1871,8 +1883,8 @@ public class Jsr173 {
         }
 
         public String getAttributeValue(String namespaceURI, String localName) {
+            _l.enter();
             try {
-                _l.enter();
                 return _xs.getAttributeValue(namespaceURI, localName);
             } finally {
                 _l.exit();
@@ -1880,8 +1892,8 @@ public class Jsr173 {
         }
 
         public int getAttributeCount() {
+            _l.enter();
             try {
-                _l.enter();
                 return _xs.getAttributeCount();
             } finally {
                 _l.exit();
@@ -1889,8 +1901,8 @@ public class Jsr173 {
         }
 
         public QName getAttributeName(int index) {
+            _l.enter();
             try {
-                _l.enter();
                 return _xs.getAttributeName(index);
             } finally {
                 _l.exit();
@@ -1898,8 +1910,8 @@ public class Jsr173 {
         }
 
         public String getAttributeNamespace(int index) {
+            _l.enter();
             try {
-                _l.enter();
                 return _xs.getAttributeNamespace(index);
             } finally {
                 _l.exit();
@@ -1907,8 +1919,8 @@ public class Jsr173 {
         }
 
         public String getAttributeLocalName(int index) {
+            _l.enter();
             try {
-                _l.enter();
                 return _xs.getAttributeLocalName(index);
             } finally {
                 _l.exit();
@@ -1916,8 +1928,8 @@ public class Jsr173 {
         }
 
         public String getAttributePrefix(int index) {
+            _l.enter();
             try {
-                _l.enter();
                 return _xs.getAttributePrefix(index);
             } finally {
                 _l.exit();
@@ -1925,8 +1937,8 @@ public class Jsr173 {
         }
 
         public String getAttributeType(int index) {
+            _l.enter();
             try {
-                _l.enter();
                 return _xs.getAttributeType(index);
             } finally {
                 _l.exit();
@@ -1934,8 +1946,8 @@ public class Jsr173 {
         }
 
         public String getAttributeValue(int index) {
+            _l.enter();
             try {
-                _l.enter();
                 return _xs.getAttributeValue(index);
             } finally {
                 _l.exit();
@@ -1943,8 +1955,8 @@ public class Jsr173 {
         }
 
         public boolean isAttributeSpecified(int index) {
+            _l.enter();
             try {
-                _l.enter();
                 return _xs.isAttributeSpecified(index);
             } finally {
                 _l.exit();
@@ -1952,8 +1964,8 @@ public class Jsr173 {
         }
 
         public int getNamespaceCount() {
+            _l.enter();
             try {
-                _l.enter();
                 return _xs.getNamespaceCount();
             } finally {
                 _l.exit();
@@ -1961,8 +1973,8 @@ public class Jsr173 {
         }
 
         public String getNamespacePrefix(int index) {
+            _l.enter();
             try {
-                _l.enter();
                 return _xs.getNamespacePrefix(index);
             } finally {
                 _l.exit();
@@ -1970,8 +1982,8 @@ public class Jsr173 {
         }
 
         public String getNamespaceURI(int index) {
+            _l.enter();
             try {
-                _l.enter();
                 return _xs.getNamespaceURI(index);
             } finally {
                 _l.exit();
@@ -1983,8 +1995,8 @@ public class Jsr173 {
         }
 
         public int getEventType() {
+            _l.enter();
             try {
-                _l.enter();
                 return _xs.getEventType();
             } finally {
                 _l.exit();
@@ -1992,8 +2004,8 @@ public class Jsr173 {
         }
 
         public String getText() {
+            _l.enter();
             try {
-                _l.enter();
                 return _xs.getText();
             } finally {
                 _l.exit();
@@ -2001,8 +2013,8 @@ public class Jsr173 {
         }
 
         public char[] getTextCharacters() {
+            _l.enter();
             try {
-                _l.enter();
                 return _xs.getTextCharacters();
             } finally {
                 _l.exit();
@@ -2010,8 +2022,8 @@ public class Jsr173 {
         }
 
         public int getTextCharacters(int sourceStart, char[] target, int targetStart, int length) throws XMLStreamException {
+            _l.enter();
             try {
-                _l.enter();
                 return _xs.getTextCharacters(sourceStart, target, targetStart, length);
             } finally {
                 _l.exit();
@@ -2019,8 +2031,8 @@ public class Jsr173 {
         }
 
         public int getTextStart() {
+            _l.enter();
             try {
-                _l.enter();
                 return _xs.getTextStart();
             } finally {
                 _l.exit();
@@ -2028,8 +2040,8 @@ public class Jsr173 {
         }
 
         public int getTextLength() {
+            _l.enter();
             try {
-                _l.enter();
                 return _xs.getTextLength();
             } finally {
                 _l.exit();
@@ -2037,8 +2049,8 @@ public class Jsr173 {
         }
 
         public String getEncoding() {
+            _l.enter();
             try {
-                _l.enter();
                 return _xs.getEncoding();
             } finally {
                 _l.exit();
@@ -2046,8 +2058,8 @@ public class Jsr173 {
         }
 
         public boolean hasText() {
+            _l.enter();
             try {
-                _l.enter();
                 return _xs.hasText();
             } finally {
                 _l.exit();
@@ -2055,8 +2067,8 @@ public class Jsr173 {
         }
 
         public Location getLocation() {
+            _l.enter();
             try {
-                _l.enter();
                 return _xs.getLocation();
             } finally {
                 _l.exit();
@@ -2064,8 +2076,8 @@ public class Jsr173 {
         }
 
         public QName getName() {
+            _l.enter();
             try {
-                _l.enter();
                 return _xs.getName();
             } finally {
                 _l.exit();
@@ -2073,8 +2085,8 @@ public class Jsr173 {
         }
 
         public String getLocalName() {
+            _l.enter();
             try {
-                _l.enter();
                 return _xs.getLocalName();
             } finally {
                 _l.exit();
@@ -2082,8 +2094,8 @@ public class Jsr173 {
         }
 
         public boolean hasName() {
+            _l.enter();
             try {
-                _l.enter();
                 return _xs.hasName();
             } finally {
                 _l.exit();
@@ -2091,8 +2103,8 @@ public class Jsr173 {
         }
 
         public String getNamespaceURI() {
+            _l.enter();
             try {
-                _l.enter();
                 return _xs.getNamespaceURI();
             } finally {
                 _l.exit();
@@ -2100,8 +2112,8 @@ public class Jsr173 {
         }
 
         public String getPrefix() {
+            _l.enter();
             try {
-                _l.enter();
                 return _xs.getPrefix();
             } finally {
                 _l.exit();
@@ -2109,8 +2121,8 @@ public class Jsr173 {
         }
 
         public String getVersion() {
+            _l.enter();
             try {
-                _l.enter();
                 return _xs.getVersion();
             } finally {
                 _l.exit();
@@ -2118,8 +2130,8 @@ public class Jsr173 {
         }
 
         public boolean isStandalone() {
+            _l.enter();
             try {
-                _l.enter();
                 return _xs.isStandalone();
             } finally {
                 _l.exit();
@@ -2127,8 +2139,8 @@ public class Jsr173 {
         }
 
         public boolean standaloneSet() {
+            _l.enter();
             try {
-                _l.enter();
                 return _xs.standaloneSet();
             } finally {
                 _l.exit();
@@ -2136,8 +2148,8 @@ public class Jsr173 {
         }
 
         public String getCharacterEncodingScheme() {
+            _l.enter();
             try {
-                _l.enter();
                 return _xs.getCharacterEncodingScheme();
             } finally {
                 _l.exit();
@@ -2145,8 +2157,8 @@ public class Jsr173 {
         }
 
         public String getPITarget() {
+            _l.enter();
             try {
-                _l.enter();
                 return _xs.getPITarget();
             } finally {
                 _l.exit();
@@ -2154,8 +2166,8 @@ public class Jsr173 {
         }
 
         public String getPIData() {
+            _l.enter();
             try {
-                _l.enter();
                 return _xs.getPIData();
             } finally {
                 _l.exit();
@@ -2163,8 +2175,8 @@ public class Jsr173 {
         }
 
         public String getPrefix(String namespaceURI) {
+            _l.enter();
             try {
-                _l.enter();
                 return _xs.getPrefix(namespaceURI);
             } finally {
                 _l.exit();
@@ -2172,8 +2184,8 @@ public class Jsr173 {
         }
 
         public Iterator<String> getPrefixes(String namespaceURI) {
+            _l.enter();
             try {
-                _l.enter();
                 return _xs.getPrefixes(namespaceURI);
             } finally {
                 _l.exit();
@@ -2181,8 +2193,8 @@ public class Jsr173 {
         }
 
         public int getCharacterOffset() {
+            _l.enter();
             try {
-                _l.enter();
                 return _xs.getCharacterOffset();
             } finally {
                 _l.exit();
@@ -2190,8 +2202,8 @@ public class Jsr173 {
         }
 
         public int getColumnNumber() {
+            _l.enter();
             try {
-                _l.enter();
                 return _xs.getColumnNumber();
             } finally {
                 _l.exit();
@@ -2242,5 +2254,773 @@ public class Jsr173 {
             }
         }
     }
-}
 
+    /**
+     * Gateway which reads ahead a batch of events from an {@link XMLStreamReaderForNode}
+     * while holding the document lock once, and then serves the buffered events without
+     * taking the lock again.  Text is handed out as ranges of the store's character
+     * buffers, and attribute values are only turned into strings when asked for.
+     * Queries which depend on the position in the document (namespace context, location,
+     * document properties) still enter the locale, at the position recorded for the
+     * current event.
+     */
+    private static final class BatchedJsr173 extends Jsr173GateWay implements XMLStreamReader, Location, NamespaceContext {
+        public BatchedJsr173(Locale l, XMLStreamReaderForNode xs, int batchSize) {
+            super(l, xs);
+
+            _node = xs;
+            _version = l.version();
+
+            _types = new int[batchSize];
+            _xobjs = new Xobj[batchSize];
+            _poss = new int[batchSize];
+            _names = new QName[batchSize];
+            _srcs = new Object[batchSize];
+            _offs = new int[batchSize];
+            _cchs = new int[batchSize];
+            _attrFirst = new int[batchSize];
+            _attrCount = new int[batchSize];
+            _nsFirst = new int[batchSize];
+            _nsCount = new int[batchSize];
+
+            // The gateway is created inside the locale, so the current event can be recorded directly
+
+            record();
+        }
+
+        Node getNode() {
+            return _poss[_index] == 0 ? (Node) _xobjs[_index].getDom() : null;
+        }
+
+        //
+        // Buffering
+        //
+
+        private void checkChanged() {
+            // the recorded chars may be pooled buffers that belong to another document by now
+            _l.checkNotReleased();
+
+            if (_version != _l.version()) {
+                throw new ConcurrentModificationException("Document changed while streaming");
+            }
+        }
+
+        @SuppressWarnings("SynchronizeOnNonFinalField")
+        private <T> T syncWrap(Supplier<T> inner) {
+            if (_l.noSync()) {
+                return syncWrapHelper(inner);
+            } else {
+                synchronized (_l) {
+                    return syncWrapHelper(inner);
+                }
+            }
+        }
+
+        private <T> T syncWrapHelper(Supplier<T> inner) {
+            _l.enter();
+            try {
+                return inner.get();
+            } finally {
+                _l.exit();
+            }
+        }
+
+        private Integer fill() {
+            _node.checkChanged();
+
+            if (_node._done) {
+                throw new IllegalStateException("No next event in stream");
+            }
+
+            _count = 0;
+            _attrTotal = 0;
+            _nsTotal = 0;
+
+            try {
+                do {
+                    _node.next();
+                    record();
+                }
+                while (_count < _types.length && !_node._done);
+            } catch (XMLStreamException e) {
+                throw new RuntimeException(e.getMessage(), e);
+            }
+
+            _index = 0;
+            _fills++;
+
+            return _types[0];
+        }
+
+        private void record() {
+            Cur c = _node._cur;
+            int i = _count++;
+            int k = c.kind();
+
+            _types[i] = _node.getEventType();
+            _xobjs[i] = c._xobj;
+            _poss[i] = c._pos;
+            _names[i] = null;
+            _srcs[i] = null;
+            _offs[i] = 0;
+            _cchs[i] = 0;
+            _attrFirst[i] = _attrTotal;
+            _attrCount[i] = 0;
+            _nsFirst[i] = _nsTotal;
+            _nsCount[i] = 0;
+
+            switch (k) {
+                case Cur.ELEM:
+                case -Cur.ELEM: {
+                    _names[i] = c.getName();
+
+                    Cur ca = c.tempCur();
+
+                    if (k == -Cur.ELEM) {
+                        ca.toParent();
+                    }
+
+                    if (ca.toFirstAttr()) {
+                        do {
+                            if (ca.isXmlns()) {
+                                recordXmlns(i, ca);
+                            } else if (k == Cur.ELEM && ca.isNormalAttr()) {
+                                recordAttr(i, ca);
+                            }
+                        }
+                        while (ca.toNextSibling());
+                    }
+
+                    ca.release();
+                    break;
+                }
+                case Cur.ATTR:
+                    if (c.isXmlns()) {
+                        recordXmlns(i, c);
+                    } else {
+                        recordAttr(i, c);
+                    }
+                    break;
+                case Cur.TEXT:
+                    _srcs[i] = c.getChars(-1);
+                    _offs[i] = c._offSrc;
+                    _cchs[i] = c._cchSrc;
+                    break;
+                case Cur.PROCINST:
+                    _names[i] = c.getName();
+                    // fall through
+                case Cur.COMMENT:
+                    _srcs[i] = c.getFirstChars();
+                    _offs[i] = c._offSrc;
+                    _cchs[i] = c._cchSrc;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void recordAttr(int i, Cur ca) {
+            if (_attrTotal == _attrNames.length) {
+                int n = _attrTotal * 2;
+                _attrNames = Arrays.copyOf(_attrNames, n);
+                _attrSrcs = Arrays.copyOf(_attrSrcs, n);
+                _attrOffs = Arrays.copyOf(_attrOffs, n);
+                _attrCchs = Arrays.copyOf(_attrCchs, n);
+            }
+
+            _attrNames[_attrTotal] = ca.getName();
+            _attrSrcs[_attrTotal] = ca.getFirstChars();
+            _attrOffs[_attrTotal] = ca._offSrc;
+            _attrCchs[_attrTotal] = ca._cchSrc;
+
+            _attrTotal++;
+            _attrCount[i]++;
+        }
+
+        private void recordXmlns(int i, Cur ca) {
+            if (_nsTotal == _nsPrefixes.length) {
+                int n = _nsTotal * 2;
+                _nsPrefixes = Arrays.copyOf(_nsPrefixes, n);
+                _nsUris = Arrays.copyOf(_nsUris, n);
+            }
+
+            _nsPrefixes[_nsTotal] = ca.getXmlnsPrefix();
+            _nsUris[_nsTotal] = ca.getXmlnsUri();
+
+            _nsTotal++;
+            _nsCount[i]++;
+        }
+
+        private Cur positionedCur() {
+            Cur c = _node._cur.tempCur();
+            c.moveTo(_xobjs[_index], _poss[_index]);
+            return c;
+        }
+
+        //
+        // XMLStreamReader methods
+        //
+
+        public Object getProperty(java.lang.String name) {
+            checkChanged();
+
+            if (name == null) {
+                throw new IllegalArgumentException("Property name is null");
+            }
+
+            return null;
+        }
+
+        public int next() throws XMLStreamException {
+            checkChanged();
+
+            if (_index + 1 < _count) {
+                return _types[++_index];
+            }
+
+            return syncWrap(this::fill);
+        }
+
+        public void require(int type, String namespaceURI, String localName) throws XMLStreamException {
+            checkChanged();
+
+            if (type != getEventType()) {
+                throw new XMLStreamException();
+            }
+
+            if (namespaceURI != null && !getNamespaceURI().equals(namespaceURI)) {
+                throw new XMLStreamException();
+            }
+
+            if (localName != null && !getLocalName().equals(localName)) {
+                throw new XMLStreamException();
+            }
+        }
+
+        public String getElementText() throws XMLStreamException {
+            checkChanged();
+
+            if (!isStartElement()) {
+                throw new IllegalStateException();
+            }
+
+            StringBuilder sb = new StringBuilder();
+
+            for (; ; ) {
+                if (!hasNext()) {
+                    throw new XMLStreamException();
+                }
+
+                int e = next();
+
+                if (e == END_ELEMENT) {
+                    break;
+                } else if (e == START_ELEMENT) {
+                    throw new XMLStreamException();
+                } else if (e != COMMENT && e != PROCESSING_INSTRUCTION) {
+                    sb.append(getText());
+                }
+            }
+
+            return sb.toString();
+        }
+
+        public int nextTag() throws XMLStreamException {
+            checkChanged();
+
+            for (; ; ) {
+                if (isStartElement() || isEndElement()) {
+                    return getEventType();
+                }
+
+                if (!isWhiteSpace()) {
+                    throw new XMLStreamException();
+                }
+
+                if (!hasNext()) {
+                    throw new XMLStreamException();
+                }
+
+                next();
+            }
+        }
+
+        public boolean hasNext() throws XMLStreamException {
+            checkChanged();
+
+            return _index + 1 < _count || !_node._done;
+        }
+
+        public void close() throws XMLStreamException {
+            checkChanged();
+        }
+
+        public String getNamespaceURI(String prefix) {
+            checkChanged();
+
+            return syncWrap(() -> {
+                Cur c = positionedCur();
+
+                if (!c.isContainer()) {
+                    c.toParent();
+                }
+
+                String ns = c.namespaceForPrefix(prefix, true);
+
+                c.release();
+
+                return ns;
+            });
+        }
+
+        public boolean isStartElement() {
+            return getEventType() == START_ELEMENT;
+        }
+
+        public boolean isEndElement() {
+            return getEventType() == END_ELEMENT;
+        }
+
+        public boolean isCharacters() {
+            return getEventType() == CHARACTERS;
+        }
+
+        public boolean isWhiteSpace() {
+            checkChanged();
+
+            if (!hasText()) {
+                return false;
+            }
+
+            return _l.getCharUtil().isWhiteSpace(_srcs[_index], _offs[_index], _cchs[_index]);
+        }
+
+        private int attrIndex(int index) {
+            int t = _types[_index];
+
+            if (t != START_ELEMENT && t != ATTRIBUTE) {
+                throw new IllegalStateException();
+            }
+
+            if (index < 0) {
+                throw new IndexOutOfBoundsException("Attribute index is negative");
+            }
+
+            if (index >= _attrCount[_index]) {
+                throw new IndexOutOfBoundsException("Attribute index is too large");
+            }
+
+            return _attrFirst[_index] + index;
+        }
+
+        public String getAttributeValue(String namespaceURI, String localName) {
+            checkChanged();
+
+            if (namespaceURI == null || localName == null || localName.isEmpty()) {
+                throw new IllegalArgumentException();
+            }
+
+            int n = getAttributeCount();
+
+            for (int i = 0; i < n; i++) {
+                QName name = _attrNames[_attrFirst[_index] + i];
+
+                if (name.getLocalPart().equals(localName) && name.getNamespaceURI().equals(namespaceURI)) {
+                    return getAttributeValue(i);
+                }
+            }
+
+            return null;
+        }
+
+        public int getAttributeCount() {
+            checkChanged();
+
+            int t = _types[_index];
+
+            if (t != START_ELEMENT && t != ATTRIBUTE) {
+                throw new IllegalStateException();
+            }
+
+            return _attrCount[_index];
+        }
+
+        public QName getAttributeName(int index) {
+            checkChanged();
+            return _attrNames[attrIndex(index)];
+        }
+
+        public String getAttributeNamespace(int index) {
+            return getAttributeName(index).getNamespaceURI();
+        }
+
+        public String getAttributeLocalName(int index) {
+            return getAttributeName(index).getLocalPart();
+        }
+
+        public String getAttributePrefix(int index) {
+            return getAttributeName(index).getPrefix();
+        }
+
+        public String getAttributeType(int index) {
+            checkChanged();
+            attrIndex(index);
+            return "CDATA";
+        }
+
+        public String getAttributeValue(int index) {
+            checkChanged();
+            int i = attrIndex(index);
+            return CharUtil.getString(_attrSrcs[i], _attrOffs[i], _attrCchs[i]);
+        }
+
+        public boolean isAttributeSpecified(int index) {
+            checkChanged();
+            attrIndex(index);
+            return false;
+        }
+
+        private int nsIndex(int index) {
+            int t = _types[_index];
+
+            if (t != START_ELEMENT && t != END_ELEMENT && t != NAMESPACE) {
+                throw new IllegalStateException();
+            }
+
+            if (index < 0) {
+                throw new IndexOutOfBoundsException("Namespace index is negative");
+            }
+
+            if (index >= _nsCount[_index]) {
+                throw new IndexOutOfBoundsException("Namespace index is too large");
+            }
+
+            return _nsFirst[_index] + index;
+        }
+
+        public int getNamespaceCount() {
+            checkChanged();
+
+            int t = _types[_index];
+
+            if (t != START_ELEMENT && t != END_ELEMENT && t != NAMESPACE) {
+                throw new IllegalStateException();
+            }
+
+            return _nsCount[_index];
+        }
+
+        public String getNamespacePrefix(int index) {
+            checkChanged();
+            return _nsPrefixes[nsIndex(index)];
+        }
+
+        public String getNamespaceURI(int index) {
+            checkChanged();
+            return _nsUris[nsIndex(index)];
+        }
+
+        public NamespaceContext getNamespaceContext() {
+            return this;
+        }
+
+        public int getEventType() {
+            checkChanged();
+            return _types[_index];
+        }
+
+        public String getText() {
+            checkChanged();
+
+            if (!hasText()) {
+                throw new IllegalStateException();
+            }
+
+            return CharUtil.getString(_srcs[_index], _offs[_index], _cchs[_index]);
+        }
+
+        private void fetchChars() {
+            if (!hasText()) {
+                throw new IllegalStateException();
+            }
+
+            if (_charsIndex == _index && _charsFill == _fills) {
+                return;
+            }
+
+            // Always copy, the chars of the store must not be handed out to be scribbled on
+
+            int cch = _cchs[_index];
+
+            if (_chars == null || _chars.length < cch) {
+                int l = 256;
+
+                while (l < cch) {
+                    l *= 2;
+                }
+
+                _chars = new char[l];
+            }
+
+            CharUtil.getChars(_chars, 0, _srcs[_index], _offs[_index], cch);
+
+            _charsIndex = _index;
+            _charsFill = _fills;
+        }
+
+        public char[] getTextCharacters() {
+            checkChanged();
+            fetchChars();
+            return _chars;
+        }
+
+        public int getTextStart() {
+            checkChanged();
+            fetchChars();
+            return 0;
+        }
+
+        public int getTextLength() {
+            checkChanged();
+
+            if (!hasText()) {
+                throw new IllegalStateException();
+            }
+
+            return _cchs[_index];
+        }
+
+        public int getTextCharacters(int sourceStart, char[] target, int targetStart, int length) throws XMLStreamException {
+            checkChanged();
+
+            if (length < 0) {
+                throw new IndexOutOfBoundsException();
+            }
+
+            if (targetStart < 0 || targetStart >= target.length) {
+                throw new IndexOutOfBoundsException();
+            }
+
+            if (targetStart + length > target.length) {
+                throw new IndexOutOfBoundsException();
+            }
+
+            if (!hasText()) {
+                throw new IllegalStateException();
+            }
+
+            int cch = _cchs[_index];
+
+            if (sourceStart < 0 || sourceStart > cch) {
+                throw new IndexOutOfBoundsException();
+            }
+
+            if (sourceStart + length > cch) {
+                length = cch - sourceStart;
+            }
+
+            CharUtil.getChars(target, targetStart, _srcs[_index], _offs[_index] + sourceStart, length);
+
+            return length;
+        }
+
+        public String getEncoding() {
+            checkChanged();
+            return null;
+        }
+
+        public boolean hasText() {
+            int t = getEventType();
+            return t == CHARACTERS || t == COMMENT;
+        }
+
+        public Location getLocation() {
+            checkChanged();
+
+            XmlLineNumber ln = syncWrap(() -> {
+                Cur c = positionedCur();
+                XmlLineNumber b = (XmlLineNumber) c.getBookmark(XmlLineNumber.class);
+                c.release();
+                return b;
+            });
+
+            if (ln != null) {
+                _line = ln.getLine();
+                _column = ln.getColumn();
+                _offset = ln.getOffset();
+            } else {
+                _line = -1;
+                _column = -1;
+                _offset = -1;
+            }
+
+            return this;
+        }
+
+        public boolean hasName() {
+            int t = getEventType();
+            return t == START_ELEMENT || t == END_ELEMENT;
+        }
+
+        public QName getName() {
+            if (!hasName()) {
+                throw new IllegalStateException();
+            }
+
+            return _names[_index];
+        }
+
+        public String getNamespaceURI() {
+            return getName().getNamespaceURI();
+        }
+
+        public String getLocalName() {
+            return getName().getLocalPart();
+        }
+
+        public String getPrefix() {
+            return getName().getPrefix();
+        }
+
+        public String getVersion() {
+            XmlDocumentProperties props = getDocProps();
+            return props == null ? null : props.getVersion();
+        }
+
+        public boolean isStandalone() {
+            XmlDocumentProperties props = getDocProps();
+            return props != null && props.getStandalone();
+        }
+
+        public boolean standaloneSet() {
+            checkChanged();
+            return false;
+        }
+
+        public String getCharacterEncodingScheme() {
+            XmlDocumentProperties props = getDocProps();
+            return props == null ? null : props.getEncoding();
+        }
+
+        private XmlDocumentProperties getDocProps() {
+            checkChanged();
+
+            return syncWrap(() -> {
+                Cur c = positionedCur();
+                XmlDocumentProperties props = Locale.getDocProps(c, false);
+                c.release();
+                return props;
+            });
+        }
+
+        public String getPITarget() {
+            checkChanged();
+            return _types[_index] == PROCESSING_INSTRUCTION ? _names[_index].getLocalPart() : null;
+        }
+
+        public String getPIData() {
+            checkChanged();
+            return _types[_index] == PROCESSING_INSTRUCTION
+                ? CharUtil.getString(_srcs[_index], _offs[_index], _cchs[_index]) : null;
+        }
+
+        //
+        // NamespaceContext methods
+        //
+
+        public String getPrefix(String namespaceURI) {
+            checkChanged();
+
+            return syncWrap(() -> {
+                Cur c = positionedCur();
+
+                if (!c.isContainer()) {
+                    c.toParent();
+                }
+
+                String prefix = c.prefixForNamespace(namespaceURI, null, false);
+
+                c.release();
+
+                return prefix;
+            });
+        }
+
+        public Iterator<String> getPrefixes(String namespaceURI) {
+            HashMap<String, String> map = new HashMap<>();
+
+            map.put(namespaceURI, getPrefix(namespaceURI));
+
+            return map.values().iterator();
+        }
+
+        //
+        // Location methods
+        //
+
+        public int getCharacterOffset() {
+            return _offset;
+        }
+
+        public int getColumnNumber() {
+            return _column;
+        }
+
+        public int getLineNumber() {
+            return _line;
+        }
+
+        public String getLocationURI() {
+            return null;
+        }
+
+        public String getPublicId() {
+            return null;
+        }
+
+        public String getSystemId() {
+            return null;
+        }
+
+        //
+        //
+        //
+
+        private final XMLStreamReaderForNode _node;
+        private final long _version;
+
+        private int _index;
+        private int _count;
+        private int _fills;
+
+        private final int[] _types;
+        private final Xobj[] _xobjs;
+        private final int[] _poss;
+        private final QName[] _names;
+        private final Object[] _srcs;
+        private final int[] _offs;
+        private final int[] _cchs;
+
+        private final int[] _attrFirst;
+        private final int[] _attrCount;
+        private int _attrTotal;
+        private QName[] _attrNames = new QName[16];
+        private Object[] _attrSrcs = new Object[16];
+        private int[] _attrOffs = new int[16];
+        private int[] _attrCchs = new int[16];
+
+        private final int[] _nsFirst;
+        private final int[] _nsCount;
+        private int _nsTotal;
+        private String[] _nsPrefixes = new String[8];
+        private String[] _nsUris = new String[8];
+
+        private int _charsIndex = -1;
+        private int _charsFill;
+        private char[] _chars;
+
+        private int _line = -1;
+        private int _column = -1;
+        private int _offset = -1;
+    }
+}
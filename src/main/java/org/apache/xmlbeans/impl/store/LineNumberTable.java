@@ -0,0 +1,203 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.impl.store;
+
+import org.apache.xmlbeans.XmlLineNumber;
+
+import java.util.Arrays;
+
+/**
+ * Side table holding the line numbers recorded while loading a document with
+ * {@link org.apache.xmlbeans.XmlOptions#setLoadLineNumbers()}.
+ * <p>
+ * Instead of hanging a {@link Bookmark} and an {@link XmlLineNumber} off every
+ * Xobj, the locations are kept in primitive arrays and the Xobj is only flagged
+ * with {@link Xobj#PENDING_LINE_NUMBERS}.  The first time the bookmarks of a
+ * flagged Xobj are looked at, its entries are turned into the very same
+ * bookmarks the loader used to create.  Edits only materialize what they
+ * can move: the entries of an Xobj before its chars change, and the whole
+ * table before content leaves the tree, as the entries of that content could
+ * no longer be found from its new root.
+ * <p>
+ * The table itself hangs off the root of the loaded tree as a bookmark keyed
+ * with this class, so it lives exactly as long as the document does.
+ */
+final class LineNumberTable {
+    private static final int FIELDS = 4;
+
+    private final Xobj _root;
+
+    // Entries in load order: the owning Xobj, plus (pos, line, column, offset)
+    // and the index of the previous entry of the same Xobj (or -1)
+    private Xobj[] _xobjs = new Xobj[64];
+    private int[] _data = new int[64 * FIELDS];
+    private int[] _prev = new int[64];
+    private int _count;
+
+    // Open addressing table from Xobj to (index + 1) of its last entry
+    private int[] _slots = new int[128];
+    private int _used;
+
+    LineNumberTable(Xobj root) {
+        assert root._parent == null;
+        _root = root;
+    }
+
+    Xobj getRoot() {
+        return _root;
+    }
+
+    void add(Xobj x, int pos, int line, int column, int offset) {
+        assert x.isNormal(pos);
+
+        if (_count == _xobjs.length) {
+            int n = _count * 2;
+            _xobjs = Arrays.copyOf(_xobjs, n);
+            _data = Arrays.copyOf(_data, n * FIELDS);
+            _prev = Arrays.copyOf(_prev, n);
+        }
+
+        int i = _count++;
+        int d = i * FIELDS;
+
+        _xobjs[i] = x;
+        _data[d] = pos;
+        _data[d + 1] = line;
+        _data[d + 2] = column;
+        _data[d + 3] = offset;
+
+        int slot = find(x);
+
+        if (_slots[slot] == 0) {
+            _prev[i] = -1;
+            _used++;
+        } else {
+            _prev[i] = _slots[slot] - 1;
+        }
+
+        _slots[slot] = i + 1;
+
+        if (_used * 2 > _slots.length) {
+            rehash();
+        }
+
+        x.setBit(Xobj.PENDING_LINE_NUMBERS);
+    }
+
+    /**
+     * Creates the bookmarks of all the pending entries of the given Xobj.
+     */
+    void materialize(Xobj x) {
+        x.clearBit(Xobj.PENDING_LINE_NUMBERS);
+
+        int slot = find(x);
+
+        if (_slots[slot] == 0) {
+            return;
+        }
+
+        // The chain runs from the last entry backwards, bookmarks are created in load order
+        // so that a later location at the same position wins, just like when loading.
+
+        int n = 0;
+
+        for (int i = _slots[slot] - 1; i >= 0; i = _prev[i]) {
+            n++;
+        }
+
+        int[] chain = new int[n];
+
+        for (int i = _slots[slot] - 1; i >= 0; i = _prev[i]) {
+            chain[--n] = i;
+        }
+
+        for (int i : chain) {
+            create(i);
+        }
+    }
+
+    /**
+     * Creates the bookmarks of all the entries still pending and detaches the table from
+     * the root of the document.
+     */
+    void materializeAll() {
+        for (int i = 0; i < _count; i++) {
+            if (_xobjs[i].bitIsSet(Xobj.PENDING_LINE_NUMBERS)) {
+                materialize(_xobjs[i]);
+            }
+        }
+
+        _xobjs = null;
+        _data = null;
+        _prev = null;
+        _slots = null;
+        _count = 0;
+
+        _root.setBookmark(0, LineNumberTable.class, null);
+    }
+
+    /**
+     * Resolves the pending line numbers of the given Xobj, if any.
+     */
+    static void materializeFor(Xobj x) {
+        Xobj r = x;
+
+        while (r._parent != null) {
+            r = r._parent;
+        }
+
+        for (Bookmark b = r._bookmarks; b != null; b = b._next) {
+            if (b._key == LineNumberTable.class) {
+                ((LineNumberTable) b._value).materialize(x);
+                return;
+            }
+        }
+
+        // No table, the entries went away with it
+        x.clearBit(Xobj.PENDING_LINE_NUMBERS);
+    }
+
+    private void create(int i) {
+        int d = i * FIELDS;
+
+        _xobjs[i].setBookmark(
+            _data[d], XmlLineNumber.class, new XmlLineNumber(_data[d + 1], _data[d + 2], _data[d + 3]));
+    }
+
+    private int find(Xobj x) {
+        int mask = _slots.length - 1;
+
+        for (int slot = System.identityHashCode(x) & mask; ; slot = (slot + 1) & mask) {
+            int e = _slots[slot];
+
+            if (e == 0 || _xobjs[e - 1] == x) {
+                return slot;
+            }
+        }
+    }
+
+    private void rehash() {
+        int[] old = _slots;
+
+        _slots = new int[old.length * 2];
+
+        for (int e : old) {
+            if (e != 0) {
+                _slots[find(_xobjs[e - 1])] = e;
+            }
+        }
+    }
+}
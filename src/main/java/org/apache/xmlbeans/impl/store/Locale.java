@@ -43,8 +43,12 @@ import java.io.StringReader;
 import java.lang.ref.PhantomReference;
 import java.lang.ref.ReferenceQueue;
 import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
@@ -102,6 +106,8 @@ public final class Locale
 
         _validateOnSet = options.isValidateOnSet();
 
+        _usesCharBufferPool = options.isLoadUseCharBufferPool();
+
         //
         // Check for Saaj implementation request
         //
@@ -1014,6 +1020,66 @@ public final class Locale
         _locations.notifyChange();
     }
 
+    /**
+     * Called before the node x, or the contents of x, are moved to "to", or removed when "to"
+     * is null.  Pending line numbers are only reachable from the root of their tree, so the
+     * side table of that tree becomes real bookmarks before content leaves it.  Moves within
+     * the tree and text edits leave the tables alone: entries stay with their Xobj, and the
+     * char helpers materialize an Xobj before its text positions shift.
+     */
+    void lineNumbersMoving(Xobj x, Cur to) {
+        if (_lineNumberTables == null) {
+            return;
+        }
+
+        Xobj root = rootOf(x);
+
+        if (to != null && rootOf(to._xobj) == root) {
+            return;
+        }
+
+        for (Iterator<WeakReference<LineNumberTable>> i = _lineNumberTables.iterator(); i.hasNext(); ) {
+            LineNumberTable table = i.next().get();
+
+            if (table == null) {
+                i.remove();
+            } else if (table.getRoot() == root) {
+                i.remove();
+                table.materializeAll();
+            }
+        }
+
+        if (_lineNumberTables.isEmpty()) {
+            _lineNumberTables = null;
+        }
+    }
+
+    private static Xobj rootOf(Xobj x) {
+        while (x._parent != null) {
+            x = x._parent;
+        }
+
+        return x;
+    }
+
+    LineNumberTable newLineNumberTable(Xobj root) {
+        assert root._locale == this;
+
+        LineNumberTable table = new LineNumberTable(root);
+
+        root.setBookmark(0, LineNumberTable.class, table);
+
+        if (_lineNumberTables == null) {
+            _lineNumberTables = new ArrayList<>();
+        } else {
+            _lineNumberTables.removeIf(ref -> ref.get() == null);
+        }
+
+        _lineNumberTables.add(new WeakReference<>(table));
+
+        return table;
+    }
+
     //
     // Cursor helpers
     //
@@ -1192,11 +1258,85 @@ public final class Locale
         private final StringBuffer _sb;
     }
 
+    /**
+     * A view of text in the store with the whitespace at both ends left out,
+     * for values which are lexed without building a String first.
+     */
+    static final class TrimmedChars implements CharSequence {
+        // Returns this view over the given chars, or null if they are not in a single
+        // buffer or have whitespace inside, in which case collapsing would change them
+
+        TrimmedChars init(Object src, int off, int cch) {
+            if (!(src instanceof char[]) && !(src instanceof String)) {
+                return null;
+            }
+
+            _src = src;
+
+            int end = off + cch;
+
+            while (off < end && isWhiteSpace(charAt(src, off))) {
+                off++;
+            }
+
+            while (end > off && isWhiteSpace(charAt(src, end - 1))) {
+                end--;
+            }
+
+            for (int i = off; i < end; i++) {
+                if (isWhiteSpace(charAt(src, i))) {
+                    return null;
+                }
+            }
+
+            _off = off;
+            _cch = end - off;
+
+            return this;
+        }
+
+        private static boolean isWhiteSpace(char ch) {
+            return ch == ' ' || ch == '\n' || ch == '\r' || ch == '\t';
+        }
+
+        private static char charAt(Object src, int i) {
+            return src instanceof char[] ? ((char[]) src)[i] : ((String) src).charAt(i);
+        }
+
+        public int length() {
+            return _cch;
+        }
+
+        public char charAt(int index) {
+            return charAt(_src, _off + index);
+        }
+
+        public CharSequence subSequence(int start, int end) {
+            return toString().subSequence(start, end);
+        }
+
+        public String toString() {
+            return CharUtil.getString(_src, _off, _cch);
+        }
+
+        private Object _src;
+        private int _off;
+        private int _cch;
+    }
+
     private static final ThreadLocal<SoftReference<ScrubBuffer>> tl_scrubBuffer =
         ThreadLocal.withInitial(() -> new SoftReference<>(new ScrubBuffer()));
 
+    private static final ThreadLocal<TrimmedChars> tl_trimmedChars =
+        ThreadLocal.withInitial(TrimmedChars::new);
+
     public static void clearThreadLocals() {
         tl_scrubBuffer.remove();
+        tl_trimmedChars.remove();
+    }
+
+    static TrimmedChars getTrimmedChars(Object src, int off, int cch) {
+        return tl_trimmedChars.get().init(src, off, cch);
     }
 
     static ScrubBuffer getScrubBuffer(int wsr) {
@@ -1875,12 +2015,87 @@ public final class Locale
 
     CharUtil getCharUtil() {
         if (_charUtil == null) {
-            _charUtil = new CharUtil(1024);
+            _charUtil = _usesCharBufferPool ? CharUtil.newPooledCharUtil() : new CharUtil(1024);
         }
 
         return _charUtil;
     }
 
+    NamespaceCache getNamespaceCache() {
+        if (_namespaceCache == null) {
+            _namespaceCache = new NamespaceCache(this);
+        }
+
+        return _namespaceCache;
+    }
+
+    boolean usesCharBufferPool() {
+        return _usesCharBufferPool;
+    }
+
+    /**
+     * Called before chars of this locale are moved or copied to the given one.  Once they
+     * are, the buffers of this locale can not go back to the pool, as the other locale may
+     * still be looking at them after this one is released.
+     */
+    void charsMovedTo(Locale l) {
+        if (l != this) {
+            _charsShared = true;
+        }
+    }
+
+    /**
+     * Called when chars of this locale are handed out to be read later without entering
+     * it, e.g. by a Reader which may outlive the document, so that its buffers do not go
+     * back to the pool when it is released.
+     */
+    void charsHandedOut() {
+        _charsShared = true;
+    }
+
+    /**
+     * Releases the documents of this locale, see {@link org.apache.xmlbeans.XmlTokenSource#releaseDocument()}.
+     */
+    public void release() {
+        if (noSync()) {
+            releaseImpl();
+        } else {
+            synchronized (this) {
+                releaseImpl();
+            }
+        }
+    }
+
+    private void releaseImpl() {
+        if (_released) {
+            return;
+        }
+
+        _released = true;
+
+        if (_charUtil != null) {
+            _charUtil.releaseBuffers(!_charsShared);
+            _charUtil = null;
+        }
+    }
+
+    boolean isReleased() {
+        return _released;
+    }
+
+    /**
+     * Confines the documents of this locale to the given thread, see
+     * {@link org.apache.xmlbeans.XmlTokenSource#confineDocumentTo(Thread)}.
+     */
+    public void confineTo(Thread owner) {
+        _owner = owner;
+    }
+
+    boolean isConfinedToOtherThread() {
+        Thread owner = _owner;
+        return owner != null && owner != Thread.currentThread();
+    }
+
     public long version() {
         return _versionAll;
     }
@@ -1996,6 +2211,9 @@ public final class Locale
     }
 
     public void enter(Locale otherLocale) {
+        // both are checked before either is entered
+        otherLocale.checkNotReleased();
+
         enter();
 
         if (otherLocale != this) {
@@ -2004,6 +2222,11 @@ public final class Locale
     }
 
     public void enter() {
+        // Checked before taking a frame, as callers only exit once they have entered
+
+        checkNotReleased();
+
+        assert !isConfinedToOtherThread() : "A confined document is used by another thread than its owner";
         assert _numTempFramesLeft >= 0;
 
         if (--_numTempFramesLeft <= 0) {
@@ -2021,6 +2244,16 @@ public final class Locale
         }
     }
 
+    /**
+     * Throws if the documents of this locale were released, for the calls into the store
+     * which do not enter the locale.
+     */
+    void checkNotReleased() {
+        if (_released) {
+            throw new IllegalStateException("The document has been released");
+        }
+    }
+
     private void pollQueue() {
         if (_refQueue != null) {
             for (; ; ) {
@@ -2199,6 +2432,14 @@ public final class Locale
             return eName.equals(urnName);
         }
 
+        java.util.Hashtable<String,String> getIdAttrs() {
+            return _idAttrs;
+        }
+
+        void setIdAttrs(java.util.Hashtable<String,String> idAttrs) {
+            _idAttrs = idAttrs;
+        }
+
         private java.util.Hashtable<String,String> _idAttrs;
     }
 
@@ -2320,9 +2561,8 @@ public final class Locale
             _context.startElement(_locale.makeQualifiedQName(uri, qName));
 
             if (_wantLineNumbers && _startLocator != null) {
-                _context.bookmark(
-                    new XmlLineNumber(_startLocator.getLineNumber(),
-                        _startLocator.getColumnNumber() - 1, -1));
+                _context.lineNumber(_startLocator.getLineNumber(),
+                    _startLocator.getColumnNumber() - 1, -1);
             }
 
             for (Map.Entry<String, String> nsEntry : delayedPrefixMappings.entrySet()) {
@@ -2350,9 +2590,8 @@ public final class Locale
         public void endElement(String namespaceURI, String localName, String qName) throws SAXException {
             _context.endElement();
             if (_wantLineNumbersAtEndElt && _startLocator != null) {
-                _context.bookmark(
-                    new XmlLineNumber(_startLocator.getLineNumber(),
-                        _startLocator.getColumnNumber() - 1, -1));
+                _context.lineNumber(_startLocator.getLineNumber(),
+                    _startLocator.getColumnNumber() - 1, -1);
             }
         }
 
@@ -2775,7 +3014,16 @@ public final class Locale
 
     Locations _locations;
 
+    private List<WeakReference<LineNumberTable>> _lineNumberTables;
+
     private CharUtil _charUtil;
+    private final boolean _usesCharBufferPool;
+    private boolean _charsShared;
+    private boolean _released;
+    // written by whichever thread hands the documents over, read by the one using them
+    private volatile Thread _owner;
+
+    private NamespaceCache _namespaceCache;
 
     int _offSrc;
     int _cchSrc;
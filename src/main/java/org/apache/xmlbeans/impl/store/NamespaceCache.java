@@ -0,0 +1,71 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.impl.store;
+
+/**
+ * Cache of the namespaces the prefixes map to in the scope of a container, so that
+ * resolving the QName values of the same elements and attributes again, e.g. for
+ * xsi:type or when validating, does not walk up the tree each time.
+ * <p>
+ * An entry holds the version of the locale it was found at.  Any change to the tree,
+ * including the text of xmlns attributes and moving nodes, gives the locale a new
+ * version, so that the entries made before simply stop matching.
+ */
+final class NamespaceCache {
+    /**
+     * Returned by {@link #get} for a prefix not in the cache.  Prefixes which are not
+     * mapped are cached as null.
+     */
+    static final String MISS = new String("");
+
+    private static final int SLOTS = 64;
+
+    private final Locale _locale;
+
+    private final Xobj[] _xobjs = new Xobj[SLOTS];
+    private final String[] _prefixes = new String[SLOTS];
+    private final String[] _uris = new String[SLOTS];
+    private final long[] _versions = new long[SLOTS];
+
+    NamespaceCache(Locale l) {
+        _locale = l;
+    }
+
+    String get(Xobj x, String prefix) {
+        int slot = slot(x, prefix);
+
+        if (_xobjs[slot] == x && _versions[slot] == _locale._versionAll && _prefixes[slot].equals(prefix)) {
+            return _uris[slot];
+        }
+
+        return MISS;
+    }
+
+    void put(Xobj x, String prefix, String uri) {
+        int slot = slot(x, prefix);
+
+        _xobjs[slot] = x;
+        _prefixes[slot] = prefix;
+        _uris[slot] = uri;
+        _versions[slot] = _locale._versionAll;
+    }
+
+    private static int slot(Xobj x, String prefix) {
+        int h = System.identityHashCode(x) * 31 + prefix.hashCode();
+
+        return (h ^ (h >>> 16)) & (SLOTS - 1);
+    }
+}
@@ -28,6 +28,10 @@ import org.xml.sax.helpers.AttributesImpl;
 
 import javax.xml.namespace.QName;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 abstract class Saver {
@@ -71,6 +75,14 @@ abstract class Saver {
 
     protected abstract void emitText(SaveCur c);
 
+    /**
+     * Savers which emit large texts in pieces return true here while
+     * the text they are on has not been emitted completely.
+     */
+    protected boolean hasPendingText() {
+        return false;
+    }
+
     protected abstract void emitComment(SaveCur c);
 
     protected abstract void emitProcinst(SaveCur c);
@@ -299,6 +311,11 @@ abstract class Saver {
             }
             case TEXT: {
                 emitText(_cur);
+
+                if (hasPendingText()) {
+                    return true;
+                }
+
                 break;
             }
 
@@ -975,14 +992,84 @@ abstract class Saver {
         protected void emitText(SaveCur c) {
             assert c.isText();
 
+            if (_textDone > 0) {
+                emitTextChunk(c);
+                return;
+            }
+
             // c.isTextCData() is expensive do it only if useCDataBookmarks option is enabled
             boolean forceCData = _useCDataBookmarks && c.isTextCData();
 
+            Object src = c.getChars();
+
+            if (!forceCData && c._cchSrc > _textChunkSize && !isCDataCandidate(src, c._offSrc, c._cchSrc)) {
+                emitTextChunk(c);
+                return;
+            }
+
             emit(c);
 
             entitizeContent(forceCData);
         }
 
+        protected boolean hasPendingText() {
+            return _textDone > 0;
+        }
+
+        // Large texts are emitted in chunks, so that reading a saved document does not
+        // copy all of such a text into the buffer at once.  The escaping of a chunk only
+        // depends on the chunk itself, unless the text as a whole would be saved as a CDATA
+        // section, which is why those texts are emitted in one piece.
+
+        private void emitTextChunk(SaveCur c) {
+            Object src = c.getChars();
+            int off = c._offSrc;
+            int cch = c._cchSrc;
+
+            int start = _textDone;
+            int end = Math.min(start + _textChunkSize, cch);
+
+            // Don't split a "]]>" over two chunks, it would not be escaped
+
+            while (end < cch && charAt(src, off + end - 1) == ']') {
+                end++;
+            }
+
+            emit(src, off + start, end - start);
+
+            entitizeContent(false);
+
+            _textDone = end < cch ? end : 0;
+        }
+
+        private boolean isCDataCandidate(Object src, int off, int cch) {
+            if (cch <= _cdataLengthThreshold) {
+                return false;
+            }
+
+            char[] buf = new char[_textChunkSize];
+            int count = 0;
+
+            for (int i = 0; i < cch; i += buf.length) {
+                int n = Math.min(buf.length, cch - i);
+
+                CharUtil.getChars(buf, 0, src, off + i, n);
+
+                for (int j = 0; j < n; j++) {
+                    if ((buf[j] == '<' || buf[j] == '&') && ++count > _cdataEntityCountThreshold) {
+                        return true;
+                    }
+                }
+            }
+
+            return false;
+        }
+
+        private char charAt(Object src, int off) {
+            CharUtil.getChars(_char, 0, src, off, 1);
+            return _char[0];
+        }
+
         protected void emitComment(SaveCur c) {
             assert c.isComment();
 
@@ -1179,24 +1266,27 @@ abstract class Saver {
         private void emit(SaveCur c) {
             if (c.isText()) {
                 Object src = c.getChars();
-                int cch = c._cchSrc;
 
-                if (preEmit(cch)) {
-                    return;
-                }
+                emit(src, c._offSrc, c._cchSrc);
+            } else {
+                preEmit(0);
+            }
+        }
 
-                int chunk;
+        private void emit(Object src, int off, int cch) {
+            if (preEmit(cch)) {
+                return;
+            }
 
-                if (_in <= _out || cch < (chunk = _cbuf.length - _in)) {
-                    CharUtil.getChars(_cbuf, _in, src, c._offSrc, cch);
-                    _in += cch;
-                } else {
-                    CharUtil.getChars(_cbuf, _in, src, c._offSrc, chunk);
-                    CharUtil.getChars(_cbuf, 0, src, c._offSrc + chunk, cch - chunk);
-                    _in = (_in + cch) % _cbuf.length;
-                }
+            int chunk;
+
+            if (_in <= _out || cch < (chunk = _cbuf.length - _in)) {
+                CharUtil.getChars(_cbuf, _in, src, off, cch);
+                _in += cch;
             } else {
-                preEmit(0);
+                CharUtil.getChars(_cbuf, _in, src, off, chunk);
+                CharUtil.getChars(_cbuf, 0, src, off + chunk, cch - chunk);
+                _in = (_in + cch) % _cbuf.length;
             }
         }
 
@@ -1769,6 +1859,10 @@ abstract class Saver {
         private int _lastEmitIn;
         private int _lastEmitCch;
 
+        private static final int _textChunkSize = 8192;
+        private final char[] _char = new char[1];
+        private int _textDone;
+
         private int _free;
         private int _in;
         private int _out;
@@ -2249,6 +2343,23 @@ abstract class Saver {
 
             _outStreamImpl = new OutputStreamImpl();
 
+            String encoding = getSaveEncoding(c, options);
+            String javaEncoding = getJavaEncoding(encoding);
+
+            try {
+                _converter = new OutputStreamWriter(_outStreamImpl, javaEncoding);
+            } catch (UnsupportedEncodingException e) {
+                throw new RuntimeException(e);
+            }
+
+            _textSaver = new TextSaver(c, options, encoding);
+        }
+
+        /**
+         * Returns the IANA name of the encoding to save in: the one given in the options,
+         * else the one of the document, else UTF-8.
+         */
+        static String getSaveEncoding(Cur c, XmlOptions options) {
             String encoding = null;
 
             XmlDocumentProperties props = Locale.getDocProps(c, false);
@@ -2274,19 +2385,17 @@ abstract class Saver {
                 encoding = EncodingMap.getJava2IANAMapping("UTF8");
             }
 
+            return encoding;
+        }
+
+        static String getJavaEncoding(String encoding) {
             String javaEncoding = (encoding == null) ? null : EncodingMap.getIANA2JavaMapping(encoding);
 
             if (javaEncoding == null) {
                 throw new IllegalStateException("Unknown encoding: " + encoding);
             }
 
-            try {
-                _converter = new OutputStreamWriter(_outStreamImpl, javaEncoding);
-            } catch (UnsupportedEncodingException e) {
-                throw new RuntimeException(e);
-            }
-
-            _textSaver = new TextSaver(c, options, encoding);
+            return javaEncoding;
         }
 
         public void close() {
@@ -2529,6 +2638,175 @@ abstract class Saver {
         private final OutputStreamWriter _converter;
     }
 
+    /**
+     * Saves straight to bytes in the encodings simple enough to be encoded by hand:
+     * UTF-8, US-ASCII and ISO-8859-1.  The chars of the text saver are encoded into a
+     * reusable byte array, which is handed to the output as is, instead of passing them
+     * through an OutputStreamWriter into the byte ring of an InputStreamSaver and copying
+     * them out of there again.  Like the CharsetEncoder, chars which can not be encoded
+     * are replaced with a '?'.
+     */
+    static final class ByteSaver {
+        private static final int UTF_8 = 0;
+        private static final int ISO_8859_1 = 1;
+        private static final int US_ASCII = 2;
+
+        private static final int CHUNK = 8192;
+
+        private ByteSaver(Cur c, XmlOptions options, String encoding, int charset) {
+            _textSaver = new TextSaver(c, options, encoding);
+            _charset = charset;
+        }
+
+        /**
+         * Returns a saver for the encoding the given options resolve to, or null if
+         * that encoding has to go through an InputStreamSaver.
+         */
+        static ByteSaver newByteSaver(Cur c, XmlOptions options) {
+            assert c._locale.entered();
+
+            options = XmlOptions.maskNull(options);
+
+            String encoding = InputStreamSaver.getSaveEncoding(c, options);
+
+            Charset cs;
+
+            try {
+                cs = Charset.forName(InputStreamSaver.getJavaEncoding(encoding));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+
+            if (cs.equals(StandardCharsets.UTF_8)) {
+                return new ByteSaver(c, options, encoding, UTF_8);
+            } else if (cs.equals(StandardCharsets.ISO_8859_1)) {
+                return new ByteSaver(c, options, encoding, ISO_8859_1);
+            } else if (cs.equals(StandardCharsets.US_ASCII)) {
+                return new ByteSaver(c, options, encoding, US_ASCII);
+            }
+
+            return null;
+        }
+
+        void save(OutputStream os) throws IOException {
+            for (int n; (n = encode()) > 0; ) {
+                os.write(_bytes, 0, n);
+            }
+        }
+
+        /**
+         * Writes to a blocking channel.
+         */
+        void save(WritableByteChannel channel) throws IOException {
+            for (int n; (n = encode()) > 0; ) {
+                ByteBuffer bb = ByteBuffer.wrap(_bytes, 0, n);
+
+                while (bb.hasRemaining()) {
+                    channel.write(bb);
+                }
+            }
+        }
+
+        // Encodes the next chars of the text saver into _bytes and returns the number of
+        // bytes, 0 at the end.  A high surrogate at the end of the chars is kept back until
+        // its low surrogate has been read.
+
+        private int encode() {
+            for (; ; ) {
+                int n = _textSaver.read(_chars, _pending, CHUNK - _pending);
+
+                if (n < 0) {
+                    if (_pending == 0) {
+                        return 0;
+                    }
+
+                    n = 0;
+                }
+
+                int end = _pending + n;
+
+                _pending = n > 0 && Character.isHighSurrogate(_chars[end - 1]) ? 1 : 0;
+
+                end -= _pending;
+
+                int cb = _charset == UTF_8 ? encodeUtf8(end) : encodeSingleByte(end, _charset == US_ASCII ? 0x7F : 0xFF);
+
+                if (_pending > 0) {
+                    _chars[0] = _chars[end];
+                }
+
+                // Nothing to write when all there was is the kept back surrogate
+
+                if (cb > 0) {
+                    return cb;
+                }
+            }
+        }
+
+        private int encodeUtf8(int end) {
+            final char[] chars = _chars;
+            final byte[] bytes = _bytes;
+
+            int j = 0;
+
+            for (int i = 0; i < end; ) {
+                char ch = chars[i++];
+
+                if (ch < 0x80) {
+                    bytes[j++] = (byte) ch;
+                } else if (ch < 0x800) {
+                    bytes[j++] = (byte) (0xC0 | (ch >> 6));
+                    bytes[j++] = (byte) (0x80 | (ch & 0x3F));
+                } else if (!Character.isSurrogate(ch)) {
+                    bytes[j++] = (byte) (0xE0 | (ch >> 12));
+                    bytes[j++] = (byte) (0x80 | ((ch >> 6) & 0x3F));
+                    bytes[j++] = (byte) (0x80 | (ch & 0x3F));
+                } else if (Character.isHighSurrogate(ch) && i < end && Character.isLowSurrogate(chars[i])) {
+                    int cp = Character.toCodePoint(ch, chars[i++]);
+
+                    bytes[j++] = (byte) (0xF0 | (cp >> 18));
+                    bytes[j++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                    bytes[j++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                    bytes[j++] = (byte) (0x80 | (cp & 0x3F));
+                } else {
+                    bytes[j++] = '?';
+                }
+            }
+
+            return j;
+        }
+
+        private int encodeSingleByte(int end, int max) {
+            final char[] chars = _chars;
+            final byte[] bytes = _bytes;
+
+            int j = 0;
+
+            for (int i = 0; i < end; ) {
+                char ch = chars[i++];
+
+                if (ch <= max) {
+                    bytes[j++] = (byte) ch;
+                } else {
+                    // a surrogate pair is a single char which can not be encoded
+                    if (Character.isHighSurrogate(ch) && i < end && Character.isLowSurrogate(chars[i])) {
+                        i++;
+                    }
+
+                    bytes[j++] = '?';
+                }
+            }
+
+            return j;
+        }
+
+        private final TextSaver _textSaver;
+        private final int _charset;
+        private final char[] _chars = new char[CHUNK];
+        private final byte[] _bytes = new byte[CHUNK * 3];
+        private int _pending;
+    }
+
     static final class SaxSaver extends Saver {
         SaxSaver(Cur c, XmlOptions options, ContentHandler ch, LexicalHandler lh)
             throws SAXException {
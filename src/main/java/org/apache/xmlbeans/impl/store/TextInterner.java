@@ -0,0 +1,100 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.impl.store;
+
+/**
+ * Table of the short text values seen while loading a document with
+ * {@link org.apache.xmlbeans.XmlOptions#setLoadDeduplicateText()}.
+ * <p>
+ * The table is direct mapped: a value goes to the slot its hash maps to, replacing
+ * the value which was there before.  So the table never holds more than a fixed
+ * number of Strings, the values which come back often keep their slot and the ones
+ * seen only once are soon replaced.
+ */
+final class TextInterner {
+    private static final int SLOTS = 1024;
+
+    private final int _maxLength;
+    private final String[] _strings = new String[SLOTS];
+    private final char[] _buf;
+
+    TextInterner(int maxLength) {
+        _maxLength = maxLength;
+        _buf = new char[Math.max(maxLength, 0)];
+    }
+
+    /**
+     * Returns the String shared by all the values with the given chars, or null
+     * if the chars are too long to be shared.
+     */
+    String intern(Object src, int off, int cch) {
+        assert CharUtil.isValid(src, off, cch);
+
+        if (cch > _maxLength || cch == 0) {
+            return null;
+        }
+
+        char[] chars;
+
+        if (src instanceof char[]) {
+            chars = (char[]) src;
+        } else {
+            CharUtil.getChars(_buf, 0, src, off, cch);
+            chars = _buf;
+            off = 0;
+        }
+
+        int h = 0;
+
+        for (int i = 0; i < cch; i++) {
+            h = 31 * h + chars[off + i];
+        }
+
+        int slot = (h ^ (h >>> 16)) & (SLOTS - 1);
+
+        String s = _strings[slot];
+
+        if (s != null && matches(s, chars, off, cch)) {
+            return s;
+        }
+
+        // A String holding just the value can be shared as is, e.g. an attribute value
+
+        if (src instanceof String && off == 0 && ((String) src).length() == cch) {
+            s = (String) src;
+        } else {
+            s = new String(chars, off, cch);
+        }
+
+        _strings[slot] = s;
+
+        return s;
+    }
+
+    private static boolean matches(String s, char[] chars, int off, int cch) {
+        if (s.length() != cch) {
+            return false;
+        }
+
+        for (int i = 0; i < cch; i++) {
+            if (s.charAt(i) != chars[off + i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,71 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.impl.store;
+
+import org.apache.xmlbeans.XmlCursor.TokenBuffer;
+
+import javax.xml.namespace.QName;
+
+/**
+ * Lets the cursors of the store fill a {@link TokenBuffer}, whose mutators are not part
+ * of the public API.  TokenBuffer installs them when it is initialized, which happens
+ * before any buffer can be passed to a cursor.
+ */
+public final class TokenBufferAccess {
+    /**
+     * The mutators of TokenBuffer.  Only the ones declared by TokenBuffer itself are accepted.
+     */
+    public interface Mutators {
+        /**
+         * Empties the buffer before a new batch.
+         */
+        void clear(TokenBuffer buffer);
+
+        /**
+         * Records a token and reserves <em>textLength</em> characters for its text, which
+         * the caller copies into the chars of the buffer at the returned offset.
+         */
+        int add(TokenBuffer buffer, int tokenType, QName name, int textLength);
+    }
+
+    private static volatile Mutators _mutators;
+
+    private TokenBufferAccess() {
+    }
+
+    /**
+     * Called once by TokenBuffer when it is initialized.
+     */
+    public static synchronized void install(Mutators mutators) {
+        if (mutators.getClass().getEnclosingClass() != TokenBuffer.class) {
+            throw new IllegalArgumentException("Token buffer mutators must be declared by TokenBuffer");
+        }
+
+        if (_mutators != null) {
+            throw new IllegalStateException("Token buffer access is already set up");
+        }
+
+        _mutators = mutators;
+    }
+
+    static void clear(TokenBuffer buffer) {
+        _mutators.clear(buffer);
+    }
+
+    static int add(TokenBuffer buffer, int tokenType, QName name, int textLength) {
+        return _mutators.add(buffer, tokenType, name, textLength);
+    }
+}
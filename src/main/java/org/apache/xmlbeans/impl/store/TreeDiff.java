@@ -0,0 +1,782 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.impl.store;
+
+import org.apache.xmlbeans.SchemaType;
+import org.apache.xmlbeans.XmlCursor;
+import org.apache.xmlbeans.XmlObject;
+
+import javax.xml.namespace.QName;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Structural comparison of two trees in the store.
+ * <p>
+ * Only elements, attributes and text are compared; namespace declarations,
+ * comments, processing instructions and prefixes are ignored.  Subtrees are
+ * hashed bottom-up once per diff, and branches with equal hashes are compared
+ * once to confirm they are equal, then skipped.  Sibling elements are aligned
+ * on their contents first and then on their names, so an inserted or removed
+ * element does not show up as a change to all of its following siblings.
+ * <p>
+ * In element content, text which is only whitespace is not significant.  When
+ * value equality is requested, the text of two attributes or of two elements
+ * without element children is compared with {@link XmlObject#valueEquals}
+ * if both are of a simple type or of a complex type with simple content,
+ * so that e.g. "1.0" and "1" are equal for xs:decimal.
+ */
+public final class TreeDiff {
+    /**
+     * The kinds of edits in the result of a diff.
+     */
+    public enum Kind {
+        ELEMENT_ADDED,
+        ELEMENT_REMOVED,
+        ATTRIBUTE_ADDED,
+        ATTRIBUTE_REMOVED,
+        ATTRIBUTE_CHANGED,
+        TEXT_CHANGED
+    }
+
+    /**
+     * A single difference between two trees.  The path of an added element or
+     * attribute is its location in the second tree; all other paths are
+     * locations in the first tree.
+     */
+    public static final class Edit {
+        Edit(Kind kind, String path, String oldValue, String newValue) {
+            _kind = kind;
+            _path = path;
+            _oldValue = oldValue;
+            _newValue = newValue;
+        }
+
+        public Kind getKind() {
+            return _kind;
+        }
+
+        /**
+         * An XPath like "/a[1]/b[2]/@c" or "/a[1]/text()" locating the edit.
+         */
+        public String getPath() {
+            return _path;
+        }
+
+        /**
+         * The text or attribute value in the first tree, or null.
+         */
+        public String getOldValue() {
+            return _oldValue;
+        }
+
+        /**
+         * The text or attribute value in the second tree, or null.
+         */
+        public String getNewValue() {
+            return _newValue;
+        }
+
+        public String toString() {
+            return _kind + " " + _path +
+                   (_oldValue == null && _newValue == null ? "" : ": " + _oldValue + " -> " + _newValue);
+        }
+
+        private final Kind _kind;
+        private final String _path;
+        private final String _oldValue;
+        private final String _newValue;
+    }
+
+    /**
+     * Compares the trees of two XmlObjects.
+     *
+     * @param valueEquality whether to compare simple values with {@link XmlObject#valueEquals}
+     * @return the differences, empty if the trees are equal
+     */
+    public static List<Edit> diff(XmlObject a, XmlObject b, boolean valueEquality) {
+        try (XmlCursor ca = a.newCursor(); XmlCursor cb = b.newCursor()) {
+            return diff(ca, cb, valueEquality);
+        }
+    }
+
+    /**
+     * Compares the trees at two cursors, which must both be at a START or
+     * STARTDOC token.  The cursors may be in different documents.
+     *
+     * @param valueEquality whether to compare simple values with {@link XmlObject#valueEquals}
+     * @return the differences, empty if the trees are equal
+     */
+    public static List<Edit> diff(XmlCursor a, XmlCursor b, boolean valueEquality) {
+        if (!(a instanceof Cursor)) {
+            throw new IllegalArgumentException("Incompatible cursor: " + a);
+        }
+
+        return ((Cursor) a).diff(b, valueEquality);
+    }
+
+    TreeDiff(boolean valueEquality) {
+        _valueEquality = valueEquality;
+    }
+
+    List<Edit> diff(Xobj a, Xobj b) {
+        assert a.isContainer() && b.isContainer();
+
+        String pathA = a.isRoot() ? "" : "/" + qnameString(a._name);
+        String pathB = b.isRoot() ? "" : "/" + qnameString(b._name);
+
+        if (a.isRoot() != b.isRoot() || (!a.isRoot() && !a._name.equals(b._name))) {
+            _edits.add(new Edit(Kind.ELEMENT_REMOVED, pathA, null, null));
+            _edits.add(new Edit(Kind.ELEMENT_ADDED, pathB, null, null));
+        } else if (hash(a) != hash(b) || !contentEquals(a, b)) {
+            diffTree(new Pair(a, b, pathA, pathB));
+        }
+
+        return _edits;
+    }
+
+    /**
+     * Diffs two containers and, in document order, all their children which differ.
+     * Instead of recursing, each container pair yields its edits interleaved with the
+     * child pairs still to diff, which are expanded in turn from an explicit stack.
+     */
+    private void diffTree(Pair root) {
+        Deque<Iterator<Object>> stack = new ArrayDeque<>();
+        stack.push(diffContainers(root).iterator());
+
+        while (!stack.isEmpty()) {
+            Iterator<Object> steps = stack.peek();
+
+            if (!steps.hasNext()) {
+                stack.pop();
+                continue;
+            }
+
+            Object step = steps.next();
+
+            if (step instanceof Pair) {
+                stack.push(diffContainers((Pair) step).iterator());
+            } else {
+                _edits.add((Edit) step);
+            }
+        }
+    }
+
+    private static final class Pair {
+        Pair(Xobj a, Xobj b, String pathA, String pathB) {
+            _a = a;
+            _b = b;
+            _pathA = pathA;
+            _pathB = pathB;
+        }
+
+        private final Xobj _a;
+        private final Xobj _b;
+        private final String _pathA;
+        private final String _pathB;
+    }
+
+    //
+    // Hashing
+    //
+
+    private long hash(Xobj x) {
+        Long memo = _hashes.get(x);
+
+        if (memo != null) {
+            return memo;
+        }
+
+        // Without recursion, so that deep documents do not overflow the stack: the
+        // containers are listed level by level and hashed backwards, children first
+
+        List<Xobj> pending = new ArrayList<>();
+        pending.add(x);
+
+        for (int i = 0; i < pending.size(); i++) {
+            Xobj y = pending.get(i);
+
+            y.ensureOccupancy();
+
+            for (Xobj c = y._firstChild; c != null; c = c._nextSibling) {
+                if (c.isElem() && !_hashes.containsKey(c)) {
+                    pending.add(c);
+                }
+            }
+        }
+
+        for (int i = pending.size() - 1; i >= 0; i--) {
+            Xobj y = pending.get(i);
+            _hashes.put(y, hashContainer(y));
+        }
+
+        return _hashes.get(x);
+    }
+
+    private long hashContainer(Xobj x) {
+        long h = x.isRoot() ? 1 : x._name.hashCode();
+
+        long attrs = 0;
+
+        for (Xobj c = x._firstChild; c != null && c.isAttr(); c = c._nextSibling) {
+            if (c.isNormalAttr()) {
+                c.ensureOccupancy();
+                attrs += mix(c._name.hashCode(), hashChars(17, c._srcValue, c._offValue, c._cchValue));
+            }
+        }
+
+        h = mix(h, attrs);
+
+        boolean hasElems = x.hasChildren() && firstElem(x) != null;
+
+        // Text is folded in char by char, so it hashes the same however it
+        // is split across comments and procinsts
+
+        _gapHash = 0;
+        _gapNonWhite = false;
+
+        hashGapChars(x._srcValue, x._offValue, x._cchValue);
+
+        for (Xobj c = x._firstChild; c != null; c = c._nextSibling) {
+            if (c.isElem()) {
+                h = foldGap(h, hasElems);
+                h = mix(h, _hashes.get(c));
+                _gapHash = 0;
+                _gapNonWhite = false;
+            }
+
+            hashGapChars(c._srcAfter, c._offAfter, c._cchAfter);
+        }
+
+        return foldGap(h, hasElems);
+    }
+
+    private long foldGap(long h, boolean hasElems) {
+        return hasElems && !_gapNonWhite ? h : mix(h, _gapHash);
+    }
+
+    private void hashGapChars(Object src, int off, int cch) {
+        if (cch == 0) {
+            return;
+        }
+
+        long h = _gapHash;
+
+        if (src instanceof char[]) {
+            char[] chars = (char[]) src;
+
+            for (int i = off; i < off + cch; i++) {
+                char ch = chars[i];
+                h = 31 * h + ch;
+                _gapNonWhite |= !CharUtil.isWhiteSpace(ch);
+            }
+        } else {
+            String s = src instanceof String ? (String) src : CharUtil.getString(src, off, cch);
+
+            if (!(src instanceof String)) {
+                off = 0;
+            }
+
+            for (int i = off; i < off + cch; i++) {
+                char ch = s.charAt(i);
+                h = 31 * h + ch;
+                _gapNonWhite |= !CharUtil.isWhiteSpace(ch);
+            }
+        }
+
+        _gapHash = h;
+    }
+
+    private long hashChars(long h, Object src, int off, int cch) {
+        _gapHash = h;
+        hashGapChars(src, off, cch);
+        return _gapHash;
+    }
+
+    private static long mix(long h, long v) {
+        h ^= v + 0x9E3779B97F4A7C15L + (h << 6) + (h >>> 2);
+        return h * 0xBF58476D1CE4E5B9L;
+    }
+
+    //
+    // Comparison
+    //
+
+    /**
+     * Returns the edits between two containers, and the pairs of their children to
+     * diff next, in document order.
+     */
+    private List<Object> diffContainers(Pair pair) {
+        Xobj a = pair._a;
+        Xobj b = pair._b;
+        String pathA = pair._pathA;
+        String pathB = pair._pathB;
+
+        _steps = new ArrayList<>();
+
+        diffAttrs(a, b, pathA, pathB);
+
+        List<Xobj> elemsA = new ArrayList<>();
+        List<Xobj> elemsB = new ArrayList<>();
+        List<String> gapsA = new ArrayList<>();
+        List<String> gapsB = new ArrayList<>();
+
+        collectContent(a, elemsA, gapsA);
+        collectContent(b, elemsB, gapsB);
+
+        if (elemsA.isEmpty() && elemsB.isEmpty()) {
+            String textA = gapsA.get(0);
+            String textB = gapsB.get(0);
+
+            if (!textA.equals(textB) && !valueEquals(a, b)) {
+                _steps.add(new Edit(Kind.TEXT_CHANGED, pathA + "/text()", textA, textB));
+            }
+
+            return _steps;
+        }
+
+        int na = elemsA.size();
+        int nb = elemsB.size();
+
+        Map<Long, List<Xobj>> classes = new HashMap<>();
+        Map<Xobj, Integer> ids = new IdentityHashMap<>();
+
+        int[] idsA = classIds(elemsA, classes, ids);
+        int[] idsB = classIds(elemsB, classes, ids);
+
+        int[] match = align(elemsA, elemsB, idsA, idsB);
+
+        int[] indexesA = siblingIndexes(elemsA);
+        int[] indexesB = siblingIndexes(elemsB);
+
+        // Removed elements are reported in document order of the first
+        // tree, added elements interleaved where they appear in the second.
+        // Text is compared between consecutive matched elements, so text
+        // next to an added or removed element is compared as a whole
+
+        int j = 0;
+        int prevI = -1;
+        int prevM = -1;
+
+        for (int i = 0; i < na; i++) {
+            int m = match[i];
+
+            if (m < 0) {
+                _steps.add(new Edit(Kind.ELEMENT_REMOVED, childPath(pathA, elemsA.get(i), indexesA[i]), null, null));
+                continue;
+            }
+
+            for (; j < m; j++) {
+                _steps.add(new Edit(Kind.ELEMENT_ADDED, childPath(pathB, elemsB.get(j), indexesB[j]), null, null));
+            }
+
+            j = m + 1;
+
+            diffGaps(joinGaps(gapsA, prevI, i), joinGaps(gapsB, prevM, m), pathA);
+
+            prevI = i;
+            prevM = m;
+
+            if (idsA[i] != idsB[m]) {
+                _steps.add(new Pair(elemsA.get(i), elemsB.get(m),
+                    childPath(pathA, elemsA.get(i), indexesA[i]),
+                    childPath(pathB, elemsB.get(m), indexesB[m])));
+            }
+        }
+
+        for (; j < nb; j++) {
+            _steps.add(new Edit(Kind.ELEMENT_ADDED, childPath(pathB, elemsB.get(j), indexesB[j]), null, null));
+        }
+
+        diffGaps(joinGaps(gapsA, prevI, na), joinGaps(gapsB, prevM, nb), pathA);
+
+        return _steps;
+    }
+
+    /**
+     * Returns the text between the element at <em>from</em> and the one at
+     * <em>to</em>, leaving out any elements in between.
+     */
+    private static String joinGaps(List<String> gaps, int from, int to) {
+        if (from + 1 == to) {
+            return gaps.get(to);
+        }
+
+        StringBuilder sb = new StringBuilder();
+
+        for (int i = from + 1; i <= to; i++) {
+            sb.append(gaps.get(i));
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Numbers the elements so that two elements get the same id exactly when their
+     * subtrees are equal.  Equal hashes are confirmed by comparing the subtrees, so a
+     * hash collision does not make different subtrees look the same.
+     */
+    private int[] classIds(List<Xobj> elems, Map<Long, List<Xobj>> classes, Map<Xobj, Integer> ids) {
+        int[] result = new int[elems.size()];
+
+        for (int i = 0; i < result.length; i++) {
+            Xobj x = elems.get(i);
+            List<Xobj> members = classes.computeIfAbsent(hash(x), k -> new ArrayList<>(1));
+            Integer id = null;
+
+            for (Xobj m : members) {
+                if (contentEquals(m, x)) {
+                    id = ids.get(m);
+                    break;
+                }
+            }
+
+            if (id == null) {
+                id = ids.size();
+                members.add(x);
+                ids.put(x, id);
+            }
+
+            result[i] = id;
+        }
+
+        return result;
+    }
+
+    /**
+     * Compares two subtrees the way they are hashed, walking them side by side
+     * without recursion.
+     */
+    private boolean contentEquals(Xobj a, Xobj b) {
+        List<Xobj> pending = new ArrayList<>();
+        List<Xobj> elemsA = new ArrayList<>();
+        List<Xobj> elemsB = new ArrayList<>();
+        List<String> gapsA = new ArrayList<>();
+        List<String> gapsB = new ArrayList<>();
+
+        pending.add(a);
+        pending.add(b);
+
+        while (!pending.isEmpty()) {
+            Xobj y = pending.remove(pending.size() - 1);
+            Xobj x = pending.remove(pending.size() - 1);
+
+            if (x == y) {
+                continue;
+            }
+
+            if (hash(x) != hash(y) || x.isRoot() != y.isRoot() ||
+                (!x.isRoot() && !x._name.equals(y._name)) || !attrsEqual(x, y)) {
+                return false;
+            }
+
+            elemsA.clear();
+            elemsB.clear();
+            gapsA.clear();
+            gapsB.clear();
+
+            collectContent(x, elemsA, gapsA);
+            collectContent(y, elemsB, gapsB);
+
+            if (elemsA.size() != elemsB.size()) {
+                return false;
+            }
+
+            boolean hasElems = !elemsA.isEmpty();
+
+            for (int i = 0; i < gapsA.size(); i++) {
+                String gapA = gapsA.get(i);
+                String gapB = gapsB.get(i);
+
+                if (!gapA.equals(gapB) && !(hasElems && isWhiteSpace(gapA) && isWhiteSpace(gapB))) {
+                    return false;
+                }
+            }
+
+            for (int i = 0; i < elemsA.size(); i++) {
+                pending.add(elemsA.get(i));
+                pending.add(elemsB.get(i));
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean attrsEqual(Xobj a, Xobj b) {
+        int n = 0;
+
+        for (Xobj x = a._firstChild; x != null && x.isAttr(); x = x._nextSibling) {
+            if (x.isNormalAttr()) {
+                Xobj y = b.getAttr(x._name);
+
+                if (y == null || !x.getValueAsString().equals(y.getValueAsString())) {
+                    return false;
+                }
+
+                n++;
+            }
+        }
+
+        for (Xobj y = b._firstChild; y != null && y.isAttr(); y = y._nextSibling) {
+            if (y.isNormalAttr()) {
+                n--;
+            }
+        }
+
+        return n == 0;
+    }
+
+    private void diffAttrs(Xobj a, Xobj b, String pathA, String pathB) {
+        for (Xobj x = a._firstChild; x != null && x.isAttr(); x = x._nextSibling) {
+            if (!x.isNormalAttr()) {
+                continue;
+            }
+
+            Xobj y = b.getAttr(x._name);
+            String valueA = x.getValueAsString();
+
+            if (y == null) {
+                _steps.add(new Edit(Kind.ATTRIBUTE_REMOVED, attrPath(pathA, x), valueA, null));
+            } else {
+                String valueB = y.getValueAsString();
+
+                if (!valueA.equals(valueB) && !valueEquals(x, y)) {
+                    _steps.add(new Edit(Kind.ATTRIBUTE_CHANGED, attrPath(pathA, x), valueA, valueB));
+                }
+            }
+        }
+
+        for (Xobj y = b._firstChild; y != null && y.isAttr(); y = y._nextSibling) {
+            if (y.isNormalAttr() && a.getAttr(y._name) == null) {
+                _steps.add(new Edit(Kind.ATTRIBUTE_ADDED, attrPath(pathB, y), null, y.getValueAsString()));
+            }
+        }
+    }
+
+    private void diffGaps(String gapA, String gapB, String pathA) {
+        if (!gapA.equals(gapB) && !(isWhiteSpace(gapA) && isWhiteSpace(gapB))) {
+            _steps.add(new Edit(Kind.TEXT_CHANGED, pathA + "/text()", gapA, gapB));
+        }
+    }
+
+    private boolean valueEquals(Xobj x, Xobj y) {
+        if (!_valueEquality) {
+            return false;
+        }
+
+        XmlObject ox = x.getObject();
+        XmlObject oy = y.getObject();
+
+        return hasSimpleValue(ox) && hasSimpleValue(oy) && ox.valueEquals(oy);
+    }
+
+    private static boolean hasSimpleValue(XmlObject o) {
+        SchemaType st = o.schemaType();
+
+        return !st.isNoType() && (st.isSimpleType() || st.getContentType() == SchemaType.SIMPLE_CONTENT);
+    }
+
+    /**
+     * Collects the child elements of a container and the text before, between
+     * and after them; there is always one more gap than there are elements.
+     */
+    private static void collectContent(Xobj x, List<Xobj> elems, List<String> gaps) {
+        StringBuilder sb = new StringBuilder();
+
+        appendChars(sb, x._srcValue, x._offValue, x._cchValue);
+
+        for (Xobj c = x._firstChild; c != null; c = c._nextSibling) {
+            if (c.isElem()) {
+                elems.add(c);
+                gaps.add(sb.toString());
+                sb.setLength(0);
+            }
+
+            appendChars(sb, c._srcAfter, c._offAfter, c._cchAfter);
+        }
+
+        gaps.add(sb.toString());
+    }
+
+    private static void appendChars(StringBuilder sb, Object src, int off, int cch) {
+        if (cch == 0) {
+            return;
+        }
+
+        if (src instanceof char[]) {
+            sb.append((char[]) src, off, cch);
+        } else if (src instanceof String) {
+            sb.append((String) src, off, off + cch);
+        } else {
+            sb.append(CharUtil.getString(src, off, cch));
+        }
+    }
+
+    /**
+     * Pairs up the elements of two sibling lists.  Returns, for each element
+     * of the first list, the index of its partner in the second list or -1.
+     * Partners are increasing, equal subtrees (equal ids) are matched first
+     * and the remaining elements are paired by name.
+     */
+    private static int[] align(List<Xobj> elemsA, List<Xobj> elemsB, int[] idsA, int[] idsB) {
+        int na = idsA.length;
+        int nb = idsB.length;
+
+        int[] match = new int[na];
+        Arrays.fill(match, -1);
+
+        int start = 0;
+
+        while (start < na && start < nb && idsA[start] == idsB[start]) {
+            match[start] = start;
+            start++;
+        }
+
+        int endA = na;
+        int endB = nb;
+
+        while (endA > start && endB > start && idsA[endA - 1] == idsB[endB - 1]) {
+            match[--endA] = --endB;
+        }
+
+        if (start < endA && start < endB && (long) (endA - start) * (endB - start) <= MAX_LCS_CELLS) {
+            lcs(idsA, start, endA, idsB, start, endB, match);
+        }
+
+        // Pair what is left by name, within the ranges between matched elements
+
+        int lastB = start - 1;
+
+        for (int i = start; i < endA; i++) {
+            if (match[i] >= 0) {
+                lastB = match[i];
+                continue;
+            }
+
+            int limit = endB;
+
+            for (int k = i + 1; k < endA; k++) {
+                if (match[k] >= 0) {
+                    limit = match[k];
+                    break;
+                }
+            }
+
+            QName name = elemsA.get(i)._name;
+
+            for (int k = lastB + 1; k < limit; k++) {
+                if (elemsB.get(k)._name.equals(name)) {
+                    match[i] = k;
+                    lastB = k;
+                    break;
+                }
+            }
+        }
+
+        return match;
+    }
+
+    private static void lcs(int[] a, int startA, int endA, int[] b, int startB, int endB, int[] match) {
+        int n = endA - startA;
+        int m = endB - startB;
+
+        int[][] len = new int[n + 1][m + 1];
+
+        for (int i = n - 1; i >= 0; i--) {
+            for (int j = m - 1; j >= 0; j--) {
+                len[i][j] = a[startA + i] == b[startB + j]
+                    ? len[i + 1][j + 1] + 1
+                    : Math.max(len[i + 1][j], len[i][j + 1]);
+            }
+        }
+
+        for (int i = 0, j = 0; i < n && j < m; ) {
+            if (a[startA + i] == b[startB + j]) {
+                match[startA + i] = startB + j;
+                i++;
+                j++;
+            } else if (len[i + 1][j] >= len[i][j + 1]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+    }
+
+    private static int[] siblingIndexes(List<Xobj> elems) {
+        int[] indexes = new int[elems.size()];
+        Map<QName, Integer> counts = new HashMap<>();
+
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = counts.merge(elems.get(i)._name, 1, Integer::sum);
+        }
+
+        return indexes;
+    }
+
+    private static boolean isWhiteSpace(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (!CharUtil.isWhiteSpace(s.charAt(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static Xobj firstElem(Xobj x) {
+        for (Xobj c = x._firstChild; c != null; c = c._nextSibling) {
+            if (c.isElem()) {
+                return c;
+            }
+        }
+
+        return null;
+    }
+
+    private static String childPath(String path, Xobj x, int index) {
+        return path + "/" + qnameString(x._name) + "[" + index + "]";
+    }
+
+    private static String attrPath(String path, Xobj x) {
+        return path + "/@" + qnameString(x._name);
+    }
+
+    private static String qnameString(QName name) {
+        String prefix = name.getPrefix();
+        return prefix.isEmpty() ? name.getLocalPart() : prefix + ":" + name.getLocalPart();
+    }
+
+    // Above this many cells, siblings are only aligned on a common prefix and suffix and on names
+    private static final long MAX_LCS_CELLS = 1 << 22;
+
+    private final boolean _valueEquality;
+    private final Map<Xobj, Long> _hashes = new IdentityHashMap<>();
+    private final List<Edit> _edits = new ArrayList<>();
+
+    // Edits and child Pairs of the containers being diffed
+    private List<Object> _steps;
+
+    private long _gapHash;
+    private boolean _gapNonWhite;
+}
@@ -20,6 +20,7 @@ import org.apache.xmlbeans.impl.common.QNameHelper;
 import org.apache.xmlbeans.impl.common.ValidatorListener;
 import org.apache.xmlbeans.impl.common.XmlLocale;
 import org.apache.xmlbeans.impl.store.DomImpl.Dom;
+import org.apache.xmlbeans.impl.values.ElementNameIds;
 import org.apache.xmlbeans.impl.values.TypeStore;
 import org.apache.xmlbeans.impl.values.TypeStoreUser;
 import org.apache.xmlbeans.impl.values.TypeStoreUserFactory;
@@ -28,9 +29,11 @@ import org.apache.xmlbeans.impl.xpath.XPathFactory;
 
 import javax.xml.namespace.QName;
 import java.io.PrintStream;
+import java.io.Reader;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.ObjIntConsumer;
 import java.util.stream.Collectors;
 
 import static org.apache.xmlbeans.impl.store.Cur.*;
@@ -131,6 +134,7 @@ abstract class Xobj implements TypeStore {
     }
 
     final boolean hasChildren() {
+        ensureContent();
         return _lastChild != null && !_lastChild.isAttr();
     }
 
@@ -449,10 +453,31 @@ abstract class Xobj implements TypeStore {
         return false;
     }
 
+    // Returns the head of the bookmark list, first resolving the line numbers which are still
+    // pending in the document's LineNumberTable if they can be relevant for the given key (a null
+    // key stands for all the bookmarks).
+
+    final Bookmark firstBookmark(Object key) {
+        if (bitIsSet(PENDING_LINE_NUMBERS) && (key == null || key == XmlLineNumber.class)) {
+            LineNumberTable.materializeFor(this);
+        }
+
+        return _bookmarks;
+    }
+
+    // Line numbers may be recorded at text positions, which shift with the chars of this Xobj.
+    // Turns them into bookmarks before the chars change, so that they are shifted along.
+
+    private void materializeLineNumbers() {
+        if (bitIsSet(PENDING_LINE_NUMBERS)) {
+            LineNumberTable.materializeFor(this);
+        }
+    }
+
     final Bookmark setBookmark(int p, Object key, Object value) {
         assert isNormal(p);
 
-        for (Bookmark b = _bookmarks; b != null; b = b._next) {
+        for (Bookmark b = firstBookmark(key); b != null; b = b._next) {
             if (p == b._pos && key == b._key) {
                 if (value == null) {
                     _bookmarks = b.listRemove(_bookmarks);
@@ -482,7 +507,7 @@ abstract class Xobj implements TypeStore {
     }
 
     final boolean hasBookmark(Object key, int pos) {
-        for (Bookmark b = _bookmarks; b != null; b = b._next) {
+        for (Bookmark b = firstBookmark(key); b != null; b = b._next) {
             if (b._pos == pos && key == b._key) {
                 //System.out.println("hasCDataBookmark  pos: " + pos + " xobj: " + getQName() + " b._pos: " + _bookmarks._pos);
                 return true;
@@ -566,6 +591,7 @@ abstract class Xobj implements TypeStore {
             QName oldName = _name;
 
             _name = newName;
+            _registeredName = null;
             if (this instanceof NamedNodeXobj) {
                 NamedNodeXobj me = (NamedNodeXobj) this;
                 me._canHavePrefixUri = true;
@@ -906,6 +932,8 @@ abstract class Xobj implements TypeStore {
         assert cchRight(p) >= cchRemove;
         assert !moveCurs || xTo != null;
 
+        materializeLineNumbers();
+
         // Here I check the span of text to be removed for cursors.  If xTo/pTo is not specified,
         // then the caller wants these cursors to collapse to be after the text being removed.  If
         // the caller specifies moveCurs, then the caller has arranged for the text being removed
@@ -1001,6 +1029,8 @@ abstract class Xobj implements TypeStore {
         assert p > 0;
         assert p >= posAfter() || isOccupied();
 
+        materializeLineNumbers();
+
         int pa = posAfter();
 
         // Here I shuffle bookmarks and cursors affected by the insertion of the new text.  Because
@@ -1050,6 +1080,8 @@ abstract class Xobj implements TypeStore {
     }
 
     Xobj copyNode(Locale toLocale) {
+        _locale.charsMovedTo(toLocale);
+
         Xobj newParent = null;
         Xobj copy = null;
 
@@ -1165,6 +1197,14 @@ abstract class Xobj implements TypeStore {
                 return s;
             }
 
+            // A whole String without whitespace, e.g. a value shared when loading, reads the
+            // same once scrubbed
+
+            if (src instanceof String && _locale._offSrc == 0 &&
+                _locale._cchSrc == ((String) src).length() && !hasWhiteSpace((String) src)) {
+                return (String) src;
+            }
+
             Locale.ScrubBuffer scrub = Locale.getScrubBuffer(wsr);
 
             scrub.scrub(src, _locale._offSrc, _locale._cchSrc);
@@ -1201,6 +1241,16 @@ abstract class Xobj implements TypeStore {
         return getValueAsString(WS_PRESERVE);
     }
 
+    private static boolean hasWhiteSpace(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (CharUtil.isWhiteSpace(s.charAt(i))) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     // Returns just chars just after the begin tag ... does not get all the text if there are
     // children
 
@@ -1298,6 +1348,8 @@ abstract class Xobj implements TypeStore {
     static final int VACANT = 0x100;
     static final int STABLE_USER = 0x200;
     static final int INHIBIT_DISCONNECT = 0x400;
+    static final int PENDING_LINE_NUMBERS = 0x800;
+    static final int DEFERRED = 0x1000;
 
     final boolean isVacant() {
         return bitIsSet(VACANT);
@@ -1307,6 +1359,10 @@ abstract class Xobj implements TypeStore {
         return bitIsClear(VACANT);
     }
 
+    final boolean isDeferred() {
+        return bitIsSet(DEFERRED);
+    }
+
     final boolean inhibitDisconnect() {
         return bitIsSet(INHIBIT_DISCONNECT);
     }
@@ -1411,6 +1467,20 @@ abstract class Xobj implements TypeStore {
             return Locale._xmlnsUri;
         }
 
+        NamespaceCache cache = _locale.getNamespaceCache();
+
+        String uri = cache.get(this, prefix);
+
+        if (uri == NamespaceCache.MISS) {
+            uri = findNamespaceForPrefix(prefix);
+
+            cache.put(this, prefix, uri);
+        }
+
+        return uri == null && defaultAlwaysMapped && prefix.isEmpty() ? "" : uri;
+    }
+
+    private String findNamespaceForPrefix(String prefix) {
         for (Xobj x = this; x != null; x = x._parent) {
             for (Xobj a = x._firstChild; a != null && a.isAttr(); a = a._nextSibling) {
                 if (a.isXmlns() && a.getXmlnsPrefix().equals(prefix)) {
@@ -1419,7 +1489,7 @@ abstract class Xobj implements TypeStore {
             }
         }
 
-        return defaultAlwaysMapped && prefix.isEmpty() ? "" : null;
+        return null;
     }
 
     final String prefixForNamespace(String ns, String suggestion, boolean createIfMissing) {
@@ -1585,6 +1655,10 @@ abstract class Xobj implements TypeStore {
         assert _user != null || (!isRoot() && !isStableUser());
 
         if (_user == null) {
+            // A typed getter is about to look at the contents
+
+            ensureContent();
+
             // BUGBUG - this is recursive
 
             TypeStoreUser parentUser =
@@ -1612,9 +1686,19 @@ abstract class Xobj implements TypeStore {
         }
     }
 
+    // Builds the contents which were deferred when loading, see DeferredContent
+
+    final void ensureContent() {
+        if (isDeferred()) {
+            DeferredContent.materialize(this);
+        }
+    }
+
     final void ensureOccupancy() {
         assert isValid();
 
+        ensureContent();
+
         if (isVacant()) {
             assert isUserNode();
 
@@ -1676,6 +1760,18 @@ abstract class Xobj implements TypeStore {
         return _locale;
     }
 
+    public void release_document() {
+        _locale.release();
+    }
+
+    public void confine_document(Thread owner) {
+        _locale.confineTo(owner);
+    }
+
+    public boolean is_confined_to_other_thread() {
+        return _locale.isConfinedToOtherThread();
+    }
+
     // TODO - remove this when I've replaced the old store
     public Object get_root_object() {
         return _locale;
@@ -1731,6 +1827,50 @@ abstract class Xobj implements TypeStore {
         }
     }
 
+    public CharSequence fetch_trimmed_chars() {
+        _locale.enter();
+
+        try {
+            assert isValid() && isOccupied();
+
+            if (hasChildren()) {
+                return null;
+            }
+
+            Object src = getFirstChars();
+
+            return Locale.getTrimmedChars(src, _locale._offSrc, _locale._cchSrc);
+        } finally {
+            _locale.exit();
+        }
+    }
+
+    public Reader fetch_text_reader() {
+        _locale.enter();
+
+        try {
+            assert isValid() && isOccupied();
+
+            if (hasChildren()) {
+                return null;
+            }
+
+            Object src = getFirstChars();
+            int off = _locale._offSrc;
+            int cch = _locale._cchSrc;
+
+            if (_locale.getCharUtil().isWhiteSpace(src, off, cch)) {
+                return null;
+            }
+
+            _locale.charsHandedOut();
+
+            return new CharUtil.CharsReader(src, off, cch);
+        } finally {
+            _locale.exit();
+        }
+    }
+
     public XmlCursor new_cursor() {
         _locale.enter();
 
@@ -1846,6 +1986,34 @@ abstract class Xobj implements TypeStore {
         }
     }
 
+    public void store_text_chunks(List<String> chunks) {
+        _locale.enter();
+
+        TypeStoreUser user = _user;
+        _user = null;
+
+        try {
+            Cur c = tempCur();
+
+            c.moveNodeContents(null, false);
+
+            Object src = CharUtil.join(chunks);
+            int cch = CharUtil.length(chunks);
+
+            if (cch > 0) {
+                c.next();
+                c.insertChars(src, 0, cch);
+            }
+
+            c.release();
+        } finally {
+            assert _user == null;
+            _user = user;
+
+            _locale.exit();
+        }
+    }
+
     public int compute_flags() {
         if (isRoot()) {
             return 0;
@@ -1962,6 +2130,38 @@ abstract class Xobj implements TypeStore {
         return _locale.count(this, null, names);
     }
 
+    public int count_elements(QName name, int nameId) {
+        int n = 0;
+
+        for (Xobj x = _firstChild; x != null; x = x._nextSibling) {
+            if (x.isElem(name, nameId)) {
+                n++;
+            }
+        }
+
+        return n;
+    }
+
+    // Tells if this is an element of the given name, whose registered id is nameId.  The
+    // registered name of this element is looked up once and keeps its id registered; names
+    // which were not registered then are compared as they are.
+
+    private boolean isElem(QName name, int nameId) {
+        if (!isElem()) {
+            return false;
+        }
+
+        ElementNameIds.RegisteredName registered = _registeredName;
+
+        if (registered == null) {
+            _registeredName = registered = ElementNameIds.lookup(_name);
+        }
+
+        int id = registered.getId();
+
+        return id == nameId || (id == ElementNameIds.UNREGISTERED && _name.equals(name));
+    }
+
     public TypeStoreUser find_element_user(QName name, int i) {
         for (Xobj x = _firstChild; x != null; x = x._nextSibling) {
             if (x.isElem() && x._name.equals(name) && --i < 0) {
@@ -1972,6 +2172,16 @@ abstract class Xobj implements TypeStore {
         return null;
     }
 
+    public TypeStoreUser find_element_user(QName name, int nameId, int i) {
+        for (Xobj x = _firstChild; x != null; x = x._nextSibling) {
+            if (x.isElem(name, nameId) && --i < 0) {
+                return x.getUser();
+            }
+        }
+
+        return null;
+    }
+
     public TypeStoreUser find_element_user(QNameSet names, int i) {
         for (Xobj x = _firstChild; x != null; x = x._nextSibling) {
             if (x.isElem() && names.contains(x._name) && --i < 0) {
@@ -2002,6 +2212,39 @@ abstract class Xobj implements TypeStore {
         }
     }
 
+    @Override
+    public void find_all_element_text(QName name, int wsr, ObjIntConsumer<String> textSink, ObjIntConsumer<TypeStoreUser> userSink) {
+        _locale.enter();
+
+        try {
+            int i = 0;
+
+            for (Xobj x = _firstChild; x != null; x = x._nextSibling) {
+                if (!x.isElem() || !x._name.equals(name)) {
+                    continue;
+                }
+
+                String text = x.isTextDetermined() ? x.getValueAsString(wsr) : null;
+
+                if (text == null || text.isEmpty()) {
+                    userSink.accept(x.getUser(), i++);
+                } else {
+                    textSink.accept(text, i++);
+                }
+            }
+        } finally {
+            _locale.exit();
+        }
+    }
+
+    // Tells if the value of this element is given by its text alone, i.e. without consulting a
+    // (potentially not yet existing) user for a cached value, nil-ness or an xsi:type
+
+    private boolean isTextDetermined() {
+        return _user == null && !hasChildren() &&
+               (!hasAttrs() || (getAttr(Locale._xsiNil) == null && getAttr(Locale._xsiType) == null));
+    }
+
     private static TypeStoreUser insertElement(QName name, Xobj x, int pos) {
         x._locale.enter();
 
@@ -2066,6 +2309,18 @@ abstract class Xobj implements TypeStore {
             throw new IllegalStateException();
         }
 
+        Xobj candidate = findAddedElementSuccessor(name);
+
+        return
+            candidate == null
+                ? insertElement(name, this, END_POS)
+                : insertElement(name, candidate, 0);
+    }
+
+    // Returns the child before which a new element of the given name has to be inserted to be
+    // adjacent to the existing elements of this name, or null if it has to be appended
+
+    private Xobj findAddedElementSuccessor(QName name) {
         QNameSet endSet = null;
         boolean gotEndSet = false;
 
@@ -2088,10 +2343,7 @@ abstract class Xobj implements TypeStore {
             }
         }
 
-        return
-            candidate == null
-                ? insertElement(name, this, END_POS)
-                : insertElement(name, candidate, 0);
+        return candidate;
     }
 
     private static void removeElement(Xobj x) {
@@ -2130,6 +2382,26 @@ abstract class Xobj implements TypeStore {
         removeElement(x);
     }
 
+    public void remove_element(QName name, int nameId, int i) {
+        if (i < 0) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        if (!isContainer()) {
+            throw new IllegalStateException();
+        }
+
+        Xobj x;
+
+        for (x = _firstChild; x != null; x = x._nextSibling) {
+            if (x.isElem(name, nameId) && --i < 0) {
+                break;
+            }
+        }
+
+        removeElement(x);
+    }
+
     public void remove_element(QNameSet names, int i) {
         if (i < 0) {
             throw new IndexOutOfBoundsException();
@@ -2375,6 +2647,63 @@ abstract class Xobj implements TypeStore {
         }
     }
 
+    @Override
+    public void array_text_setter(String[] texts, QName elementName) {
+        if (!isContainer()) {
+            throw new IllegalStateException();
+        }
+
+        _locale.enter();
+
+        try {
+            List<Xobj> elements = new ArrayList<>();
+
+            for (Xobj x = _firstChild; x != null; x = x._nextSibling) {
+                if (x.isElem() && x._name.equals(elementName)) {
+                    elements.add(x);
+                }
+            }
+
+            for (int i = elements.size() - 1; i >= texts.length; i--) {
+                removeElement(elements.get(i));
+            }
+
+            Cur c = tempCur();
+
+            for (int i = 0; i < texts.length; i++) {
+                if (i < elements.size()) {
+                    Xobj x = elements.get(i);
+
+                    if (x.hasAttrs()) {
+                        x.removeAttr(Locale._xsiNil);
+                    }
+
+                    c.moveTo(x);
+                    c.moveNodeContents(null, false);
+                } else {
+                    Xobj candidate = findAddedElementSuccessor(elementName);
+
+                    if (candidate == null) {
+                        c.moveTo(this, END_POS);
+                    } else {
+                        c.moveTo(candidate);
+                    }
+
+                    c.createElement(elementName);
+                }
+
+                if (!texts[i].isEmpty()) {
+                    c.next();
+                    c.insertString(texts[i]);
+                }
+            }
+
+            c.release();
+        } finally {
+            _locale.exit();
+        }
+    }
+
     public void visit_elements(TypeStoreVisitor visitor) {
         throw new RuntimeException("Not implemeneted");
     }
@@ -2411,6 +2740,8 @@ abstract class Xobj implements TypeStore {
 
     Locale _locale;
     QName _name;
+    // the registered name equal to _name, null until it is looked up
+    ElementNameIds.RegisteredName _registeredName;
 
     Cur _embedded;
 
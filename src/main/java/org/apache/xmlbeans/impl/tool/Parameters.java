@@ -54,6 +54,10 @@ public class Parameters {
     private boolean noExt;
     private boolean debug;
     private boolean copyAnn;
+    private boolean packXsb;
+    private boolean staticFactories;
+    private boolean nsShards;
+    private boolean confinedAccessors;
     private String sourceCodeEncoding;
     private boolean incrementalSrcGen;
     private String repackage;
@@ -296,6 +300,38 @@ public class Parameters {
         copyAnn = newCopyAnn;
     }
 
+    public boolean isPackXsb() {
+        return packXsb;
+    }
+
+    public void setPackXsb(boolean newPackXsb) {
+        packXsb = newPackXsb;
+    }
+
+    public boolean isStaticFactories() {
+        return staticFactories;
+    }
+
+    public void setStaticFactories(boolean newStaticFactories) {
+        staticFactories = newStaticFactories;
+    }
+
+    public boolean isNsShards() {
+        return nsShards;
+    }
+
+    public void setNsShards(boolean newNsShards) {
+        nsShards = newNsShards;
+    }
+
+    public boolean isConfinedAccessors() {
+        return confinedAccessors;
+    }
+
+    public void setConfinedAccessors(boolean newConfinedAccessors) {
+        confinedAccessors = newConfinedAccessors;
+    }
+
     public List<Extension> getExtensions() {
         return extensions;
     }
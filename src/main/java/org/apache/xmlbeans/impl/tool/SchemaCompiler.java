@@ -68,6 +68,10 @@ public class SchemaCompiler {
         System.out.println("    -repackage - repackage specification, e.g. \"org.apache.xmlbeans.metadata:mypackage.metadata\" to change the metadata directory");
         System.out.println("    -copyann - copy schema annotations to javadoc (default false) - don't activate on untrusted schema sources!");
         System.out.println("    -sourcecodeencoding [encodingName] - Generate Java source code with the specified encoding (ISO-8859-1 is the legacy default)");
+        System.out.println("    -packxsb - save the compiled schema as a single archive instead of one .xsb file per component");
+        System.out.println("    -staticfactories - generate factories for the implementation classes instead of creating them through reflection");
+        System.out.println("    -nsshards - save the index of the compiled schema in one shard per namespace, which is only read when the namespace is used");
+        System.out.println("    -confined - generate getters and setters which do not synchronize, for documents only used by one thread");
         /* Undocumented feature - pass in one schema compiler extension and related parameters
         System.out.println("    -extension - registers a schema compiler extension");
         System.out.println("    -extensionParms - specify parameters for the compiler extension");
@@ -99,6 +103,10 @@ public class SchemaCompiler {
         flags.add("noext");
         flags.add("srconly");
         flags.add("debug");
+        flags.add("packxsb");
+        flags.add("staticfactories");
+        flags.add("nsshards");
+        flags.add("confined");
 
         Set<String> opts = new HashSet<>();
         opts.add("out");
@@ -188,6 +196,10 @@ public class SchemaCompiler {
         boolean nojavac = (cl.getOpt("srconly") != null);
         boolean debug = (cl.getOpt("debug") != null);
         boolean copyAnn = (cl.getOpt("copyann") != null);
+        boolean packXsb = (cl.getOpt("packxsb") != null);
+        boolean staticFactories = (cl.getOpt("staticfactories") != null);
+        boolean nsShards = (cl.getOpt("nsshards") != null);
+        boolean confinedAccessors = (cl.getOpt("confined") != null);
         String sourceCodeEncoding = cl.getOpt("sourcecodeencoding");
 
         String allowmdef = cl.getOpt("allowmdef");
@@ -345,6 +357,10 @@ public class SchemaCompiler {
         params.setSchemaCodePrinter(codePrinter);
         params.setPartialMethods(parsePartialMethods(partialMethods));
         params.setCopyAnn(copyAnn);
+        params.setPackXsb(packXsb);
+        params.setStaticFactories(staticFactories);
+        params.setNsShards(nsShards);
+        params.setConfinedAccessors(confinedAccessors);
         boolean result = compile(params);
 
         if (tempdir != null) {
@@ -621,6 +637,10 @@ public class SchemaCompiler {
         boolean noExt = params.isNoExt();
         boolean incrSrcGen = params.isIncrementalSrcGen();
         boolean copyAnn = params.isCopyAnn();
+        boolean packXsb = params.isPackXsb();
+        boolean staticFactories = params.isStaticFactories();
+        boolean nsShards = params.isNsShards();
+        boolean confinedAccessors = params.isConfinedAccessors();
         String sourceCodeEncoding = params.getSourceCodeEncoding();
         Collection<XmlError> outerErrorListener = params.getErrorListener();
         Set<BeanMethod> partialMethods = params.getPartialMethods();
@@ -701,10 +721,19 @@ public class SchemaCompiler {
             options.setCompilePartialMethod(partialMethods);
             options.setCompileNoAnnotations(noAnn);
             options.setCompileAnnotationAsJavadoc(copyAnn);
+            options.setCompileStaticFactories(staticFactories);
+            options.setCompileConfinedAccessors(confinedAccessors);
             options.setCharacterEncoding(sourceCodeEncoding);
 
             // save .xsb files
-            system.save(filer);
+            if (nsShards && system instanceof SchemaTypeSystemImpl) {
+                ((SchemaTypeSystemImpl) system).setSaveIndexShards(true);
+            }
+            if (packXsb && system instanceof SchemaTypeSystemImpl) {
+                ((SchemaTypeSystemImpl) system).savePacked(filer);
+            } else {
+                system.save(filer);
+            }
 
             // gen source files
             result = SchemaTypeSystemCompiler.generateTypes(system, filer, options);
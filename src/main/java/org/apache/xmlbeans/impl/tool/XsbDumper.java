@@ -144,7 +144,7 @@ public class XsbDumper {
 
     public static final int DATA_BABE = 0xDA7ABABE;
     public static final int MAJOR_VERSION = 2;
-    public static final int MINOR_VERSION = 24;
+    public static final int MINOR_VERSION = 25;
 
     public static final int FILETYPE_SCHEMAINDEX = 1;
     public static final int FILETYPE_SCHEMATYPE = 2;
@@ -471,6 +471,11 @@ public class XsbDumper {
             dumpAnnotations();
         }
 
+        // version 25 index shards by namespace
+        if (atLeast(2, 25, 0)) {
+            dumpIndexShards();
+        }
+
         readEnd();
     }
 
@@ -730,7 +735,18 @@ public class XsbDumper {
         outdent();
     }
 
-    void dumpAnnotations() {
+    void dumpIndexShards() {
+        int n = readShort();
+        emit("Index shards (" + n + "):");
+        indent();
+        for (int i = 0; i < n; i++) {
+            String namespace = readString();
+            emit(namespace + ": " + readString());
+        }
+        outdent();
+    }
+
+        void dumpAnnotations() {
         int n = readInt();
         if (n > 0) {
             emit("Top-level annotations (" + n + "):");
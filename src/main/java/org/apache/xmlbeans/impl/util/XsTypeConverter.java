@@ -99,6 +99,11 @@ public final class XsTypeConverter {
     // ======================== double ========================
     public static double lexDouble(CharSequence cs)
         throws NumberFormatException {
+        final double fast = parseSimpleDouble(cs);
+        if (!Double.isNaN(fast)) {
+            return fast;
+        }
+
         final String v = cs.toString();
 
         try {
@@ -246,8 +251,7 @@ public final class XsTypeConverter {
     // ======================== long ========================
     public static long lexLong(CharSequence cs)
         throws NumberFormatException {
-        final String v = cs.toString();
-        return Long.parseLong(trimInitialPlus(v));
+        return parseLong(cs);
     }
 
     public static long lexLong(CharSequence cs, Collection<XmlError> errors) {
@@ -635,6 +639,138 @@ public final class XsTypeConverter {
         return sign * result;
     }
 
+    private static long parseLong(CharSequence ch) {
+        // long parser on a CharSequence, see parseIntXsdNumber
+        int length = ch.length();
+        if (length < 1) {
+            throw new NumberFormatException("For input string: \"" + ch.toString() + "\"");
+        }
+
+        int sign = -1;
+        long result = 0;
+        int start = 0;
+        long limit = -(Long.MAX_VALUE / 10);
+        long limit2 = Long.MAX_VALUE % 10;
+
+        char c = ch.charAt(0);
+        if (c == '-') {
+            start++;
+            sign = 1;
+            limit = Long.MIN_VALUE / 10;
+            limit2 = -(Long.MIN_VALUE % 10);
+        } else if (c == '+') {
+            start++;
+        }
+
+        if (start == length) {
+            throw new NumberFormatException("For input string: \"" + ch.toString() + "\"");
+        }
+
+        for (int i = start; i < length; i++) {
+            int v = Character.digit(ch.charAt(i), 10);
+
+            if (v < 0 || result < limit || (result == limit && v > limit2)) {
+                throw new NumberFormatException("For input string: \"" + ch.toString() + "\"");
+            }
+
+            result = result * 10 - v;
+        }
+
+        return sign * result;
+    }
+
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * Parses plain decimal notation with an optional exponent without building a String,
+     * as long as the result is exact before a single rounding, i.e. there are at most 15
+     * significant digits and the power of ten is at most 22.  Returns NaN otherwise, and
+     * for anything Double.parseDouble would have to decide.
+     */
+    private static double parseSimpleDouble(CharSequence cs) {
+        final int length = cs.length();
+        int i = 0;
+
+        boolean negative = false;
+        if (i < length && (cs.charAt(i) == '-' || cs.charAt(i) == '+')) {
+            negative = cs.charAt(i) == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int significant = 0;
+        int scale = 0;
+        boolean sawDot = false;
+
+        for (; i < length; i++) {
+            char c = cs.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits++;
+                if (mantissa != 0 || c != '0') {
+                    if (++significant > 15) {
+                        return Double.NaN;
+                    }
+                    mantissa = mantissa * 10 + (c - '0');
+                }
+                if (sawDot) {
+                    scale--;
+                }
+            } else if (c == '.' && !sawDot) {
+                sawDot = true;
+            } else {
+                break;
+            }
+        }
+
+        if (digits == 0) {
+            return Double.NaN;
+        }
+
+        if (i < length) {
+            char c = cs.charAt(i++);
+            if (c != 'e' && c != 'E' || i == length) {
+                return Double.NaN;
+            }
+
+            boolean negativeExp = false;
+            if (cs.charAt(i) == '-' || cs.charAt(i) == '+') {
+                negativeExp = cs.charAt(i) == '-';
+                i++;
+            }
+
+            if (i == length || length - i > 3) {
+                return Double.NaN;
+            }
+
+            int exp = 0;
+            for (; i < length; i++) {
+                c = cs.charAt(i);
+                if (c < '0' || c > '9') {
+                    return Double.NaN;
+                }
+                exp = exp * 10 + (c - '0');
+            }
+
+            scale += negativeExp ? -exp : exp;
+        }
+
+        double value = mantissa;
+
+        if (mantissa != 0) {
+            if (scale < -22 || scale > 22) {
+                return Double.NaN;
+            }
+
+            value = scale < 0 ? value / POWERS_OF_TEN[-scale] : value * POWERS_OF_TEN[scale];
+        }
+
+        return negative ? -value : value;
+    }
+
     // ======================== anyURI ========================
 
     /**
@@ -31,6 +31,29 @@ import java.util.stream.Collectors;
 
 public final class Validator
     implements ValidatorListener {
+    // the bounds of the builtin integer types, by builtin type code
+    private static final BigDecimal[] BUILTIN_MIN_INCLUSIVE = new BigDecimal[SchemaType.BTC_LAST_BUILTIN + 1];
+    private static final BigDecimal[] BUILTIN_MAX_INCLUSIVE = new BigDecimal[SchemaType.BTC_LAST_BUILTIN + 1];
+
+    static {
+        SchemaType[] integers = {
+            XmlInteger.type, XmlLong.type, XmlInt.type, XmlShort.type, XmlByte.type,
+            XmlNonPositiveInteger.type, XmlNegativeInteger.type, XmlNonNegativeInteger.type, XmlPositiveInteger.type,
+            XmlUnsignedLong.type, XmlUnsignedInt.type, XmlUnsignedShort.type, XmlUnsignedByte.type
+        };
+
+        for (SchemaType type : integers) {
+            // there are no exclusive bounds, total or fraction digits apart from the 0 fraction digits
+            assert type.getFacet(SchemaType.FACET_MIN_EXCLUSIVE) == null && type.getFacet(SchemaType.FACET_MAX_EXCLUSIVE) == null;
+            assert type.getFacet(SchemaType.FACET_TOTAL_DIGITS) == null && !type.hasPatternFacet();
+
+            XmlObject min = type.getFacet(SchemaType.FACET_MIN_INCLUSIVE);
+            XmlObject max = type.getFacet(SchemaType.FACET_MAX_INCLUSIVE);
+            BUILTIN_MIN_INCLUSIVE[type.getBuiltinTypeCode()] = (min == null) ? null : ((XmlObjectBase) min).getBigDecimalValue();
+            BUILTIN_MAX_INCLUSIVE[type.getBuiltinTypeCode()] = (max == null) ? null : ((XmlObjectBase) max).getBigDecimalValue();
+        }
+    }
+
     public Validator(
         SchemaType type, SchemaField field, SchemaTypeLoader globalLoader,
         XmlOptions options, Collection<XmlError> defaultErrorListener) {
@@ -1086,6 +1109,12 @@ public final class Validator
         int errorState = _errorState;
         _vc._event = event;
 
+        int btc = type.getBuiltinTypeCode();
+        if (btc >= SchemaType.BTC_INTEGER && btc <= SchemaType.BTC_UNSIGNED_BYTE) {
+            validateBuiltinInteger(type, btc, value);
+            return;
+        }
+
         switch (type.getPrimitiveType().getBuiltinTypeCode()) {
             case SchemaType.BTC_ANY_SIMPLE: {
                 // Always valid!
@@ -1239,6 +1268,40 @@ public final class Validator
         }
     }
 
+    /**
+     * Validates the value of one of the builtin integer types like the decimal case of
+     * {@link #validateAtomicType}, but with their bounds at hand instead of looking up
+     * all the facets.
+     */
+    private void validateBuiltinInteger(SchemaType type, int btc, String value) {
+        int errorState = _errorState;
+
+        JavaDecimalHolder.validateLexical(value, _vc);
+
+        if (value.lastIndexOf('.') >= 0) {
+            _vc.invalid(XmlErrorCodes.INTEGER, new Object[]{value});
+        }
+
+        if (errorState != _errorState) {
+            return;
+        }
+
+        _decimalValue = new BigDecimal(value);
+
+        BigDecimal min = BUILTIN_MIN_INCLUSIVE[btc];
+        if (min != null && _decimalValue.compareTo(min) < 0) {
+            _vc.invalid(XmlErrorCodes.DATATYPE_MIN_INCLUSIVE_VALID,
+                new Object[]{"decimal", _decimalValue, min, QNameHelper.readable(type)});
+            return;
+        }
+
+        BigDecimal max = BUILTIN_MAX_INCLUSIVE[btc];
+        if (max != null && _decimalValue.compareTo(max) > 0) {
+            _vc.invalid(XmlErrorCodes.DATATYPE_MAX_INCLUSIVE_VALID,
+                new Object[]{"decimal", _decimalValue, max, QNameHelper.readable(type)});
+        }
+    }
+
     private void validateListType(
         SchemaType type, String value, Event event) {
         int errorState = _errorState;
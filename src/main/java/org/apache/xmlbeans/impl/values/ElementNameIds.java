@@ -0,0 +1,112 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.impl.values;
+
+import javax.xml.namespace.QName;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Dense integer ids for the property names of generated classes.
+ * <p>
+ * The generated implementation classes register their property names when they are
+ * initialized and pass the ids along with the names to the {@link TypeStore}.  The
+ * store looks up the registered name of each of its elements once, so finding and
+ * counting the elements of a property compares ints instead of QNames.
+ * <p>
+ * A name stays registered as long as its {@link RegisteredName} is reachable, i.e. while
+ * a class or a store node which uses its id is alive.  Ids are never reused, so two names
+ * have the same id only if they are equal.
+ */
+public final class ElementNameIds {
+    /**
+     * The id of names that are not registered.
+     */
+    public static final int UNREGISTERED = -1;
+
+    private static final RegisteredName NONE = new RegisteredName("", "", UNREGISTERED);
+
+    private static final Map<QName, WeakReference<RegisteredName>> NAMES = new WeakHashMap<>();
+    private static int nextId = 1;
+
+    private ElementNameIds() {
+    }
+
+    /**
+     * A name together with its id.  The registration of the name is kept while
+     * an instance of it is reachable.
+     */
+    public static final class RegisteredName extends QName {
+        private static final long serialVersionUID = 1L;
+
+        private final int id;
+
+        private RegisteredName(String namespaceURI, String localPart, int id) {
+            super(namespaceURI, localPart);
+            this.id = id;
+        }
+
+        /**
+         * @return the id of this name, or {@link #UNREGISTERED}
+         */
+        public int getId() {
+            return id;
+        }
+    }
+
+    /**
+     * Registers the given names.  The names in the array are replaced with equal
+     * {@link RegisteredName}s without a prefix, so the array keeps them registered.
+     *
+     * @return the ids of the names, which are positive
+     */
+    public static synchronized int[] register(QName... names) {
+        int[] ids = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            RegisteredName name = find(names[i]);
+            if (name == null) {
+                name = new RegisteredName(names[i].getNamespaceURI(), names[i].getLocalPart(), nextId++);
+                NAMES.put(name, new WeakReference<>(name));
+            }
+            names[i] = name;
+            ids[i] = name.getId();
+        }
+        return ids;
+    }
+
+    /**
+     * @return the registered name equal to the given name, whose id is {@link #UNREGISTERED}
+     * if the name has not been registered (yet)
+     */
+    public static synchronized RegisteredName lookup(QName name) {
+        RegisteredName registered = find(name);
+        return registered == null ? NONE : registered;
+    }
+
+    /**
+     * @return the id of the given name, or {@link #UNREGISTERED} if it has not been
+     * registered (yet)
+     */
+    public static int idOf(QName name) {
+        return lookup(name).getId();
+    }
+
+    private static RegisteredName find(QName name) {
+        WeakReference<RegisteredName> ref = NAMES.get(name);
+        return ref == null ? null : ref.get();
+    }
+}
@@ -23,10 +23,16 @@ import org.apache.xmlbeans.impl.common.QNameHelper;
 import org.apache.xmlbeans.impl.common.ValidationContext;
 import org.apache.xmlbeans.impl.schema.BuiltinSchemaTypeSystem;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
+import java.util.List;
 
 public abstract class JavaBase64Holder extends XmlObjectBase {
     public SchemaType schemaType() {
@@ -92,6 +98,16 @@ public abstract class JavaBase64Holder extends XmlObjectBase {
         return result;
     }
 
+    public InputStream getInputStreamValue() {
+        Reader text = get_store_text_reader();
+        if (text != null) {
+            return Base64.getMimeDecoder().wrap(new TextInputStream(text));
+        }
+
+        check_dated();
+        return _value == null ? null : new ByteArrayInputStream(_value);
+    }
+
     // setters
     protected void set_ByteArray(byte[] ba) {
         _hashcached = false;
@@ -99,6 +115,61 @@ public abstract class JavaBase64Holder extends XmlObjectBase {
         System.arraycopy(ba, 0, _value, 0, ba.length);
     }
 
+    protected List<String> encode_chunks(InputStream in) throws IOException {
+        _hashcached = false;
+        _value = null;
+
+        List<String> chunks = new ArrayList<>();
+        Base64.Encoder encoder = Base64.getEncoder();
+
+        // a multiple of 3 bytes, so that only the last chunk is padded
+        byte[] buf = new byte[CHUNK_SIZE];
+
+        for (int n; (n = read_fully(in, buf)) > 0; ) {
+            chunks.add(encoder.encodeToString(n == buf.length ? buf : Arrays.copyOf(buf, n)));
+        }
+
+        return chunks;
+    }
+
+    private static final int CHUNK_SIZE = 3 * 4096;
+
+    // The base64 text as bytes for the decoder, which skips the chars
+    // outside of the alphabet just like it does when decoding a String
+
+    private static final class TextInputStream extends InputStream {
+        private final Reader _text;
+        private final char[] _buf = new char[1024];
+
+        TextInputStream(Reader text) {
+            _text = text;
+        }
+
+        public int read() throws IOException {
+            int ch = _text.read();
+            return ch < 0 ? -1 : ch > 0xFF ? '?' : ch;
+        }
+
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+
+            int n = _text.read(_buf, 0, Math.min(len, _buf.length));
+
+            for (int i = 0; i < n; i++) {
+                char ch = _buf[i];
+                b[off + i] = (byte) (ch > 0xFF ? '?' : ch);
+            }
+
+            return n;
+        }
+
+        public void close() throws IOException {
+            _text.close();
+        }
+    }
+
     // comparators
     protected boolean equal_to(XmlObject i) {
         byte[] ival = ((XmlBase64Binary) i).getByteArrayValue();
@@ -20,7 +20,9 @@ import org.apache.xmlbeans.XmlErrorCodes;
 import org.apache.xmlbeans.XmlObject;
 import org.apache.xmlbeans.SchemaType;
 import org.apache.xmlbeans.XmlBoolean;
+import org.apache.xmlbeans.impl.common.InvalidLexicalValueException;
 import org.apache.xmlbeans.impl.common.ValidationContext;
+import org.apache.xmlbeans.impl.util.XsTypeConverter;
 
 public abstract class JavaBooleanHolder extends XmlObjectBase
 {
@@ -49,6 +51,24 @@ public abstract class JavaBooleanHolder extends XmlObjectBase
 
         return false;
     }
+    protected boolean lexes_chars()
+    {
+        return true;
+    }
+
+    protected boolean set_chars(CharSequence chars)
+    {
+        try
+        {
+            _value = XsTypeConverter.lexBoolean(chars);
+        }
+        catch (InvalidLexicalValueException e)
+        {
+            return false;
+        }
+        return true;
+    }
+
     protected void set_nil()
     {
         _value = false;
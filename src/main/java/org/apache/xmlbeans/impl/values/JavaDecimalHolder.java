@@ -52,6 +52,69 @@ public class JavaDecimalHolder extends XmlObjectBase {
         }
     }
 
+    protected boolean lexes_chars() {
+        return true;
+    }
+
+    protected boolean set_chars(CharSequence chars) {
+        BigDecimal v = lexSimpleDecimal(chars);
+
+        if (v == null) {
+            return false;
+        }
+
+        set_BigDecimal(v);
+        return true;
+    }
+
+    /**
+     * Lexes a decimal of at most 18 digits the way new BigDecimal(String)
+     * does, keeping the scale, but without building a String first.
+     * Returns null for anything else.
+     */
+    static BigDecimal lexSimpleDecimal(CharSequence chars) {
+        int l = chars.length();
+        int i = 0;
+
+        boolean negative = false;
+
+        if (chars.charAt(0) == '+' || chars.charAt(0) == '-') {
+            negative = chars.charAt(0) == '-';
+            i++;
+        }
+
+        long unscaled = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean sawDot = false;
+
+        for (; i < l; i++) {
+            char ch = chars.charAt(i);
+
+            if (ch >= '0' && ch <= '9') {
+                if (++digits > 18) {
+                    return null;
+                }
+
+                unscaled = unscaled * 10 + (ch - '0');
+
+                if (sawDot) {
+                    scale++;
+                }
+            } else if (ch == '.' && !sawDot) {
+                sawDot = true;
+            } else {
+                return null;
+            }
+        }
+
+        if (digits == 0) {
+            return null;
+        }
+
+        return BigDecimal.valueOf(negative ? -unscaled : unscaled, scale);
+    }
+
     protected void set_nil() {
         _value = null;
     }
@@ -65,6 +65,19 @@ public abstract class JavaDoubleHolder extends XmlObjectBase {
         }
     }
 
+    protected boolean lexes_chars() {
+        return true;
+    }
+
+    protected boolean set_chars(CharSequence chars) {
+        try {
+            set_double(XsTypeConverter.lexDouble(chars));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        return true;
+    }
+
     protected void set_nil() {
         _value = 0.0;
     }
@@ -24,10 +24,16 @@ import org.apache.xmlbeans.impl.common.ValidationContext;
 import org.apache.xmlbeans.impl.schema.BuiltinSchemaTypeSystem;
 import org.apache.xmlbeans.impl.util.HexBin;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 public abstract class JavaHexBinaryHolder extends XmlObjectBase {
     public SchemaType schemaType() {
@@ -95,6 +101,16 @@ public abstract class JavaHexBinaryHolder extends XmlObjectBase {
         return result;
     }
 
+    public InputStream getInputStreamValue() {
+        Reader text = get_store_text_reader();
+        if (text != null) {
+            return new HexInputStream(text);
+        }
+
+        check_dated();
+        return _value == null ? null : new ByteArrayInputStream(_value);
+    }
+
     // setters
     protected void set_ByteArray(byte[] ba) {
         _hashcached = false;
@@ -102,6 +118,109 @@ public abstract class JavaHexBinaryHolder extends XmlObjectBase {
         System.arraycopy(ba, 0, _value, 0, ba.length);
     }
 
+    protected List<String> encode_chunks(InputStream in) throws IOException {
+        _hashcached = false;
+        _value = null;
+
+        List<String> chunks = new ArrayList<>();
+        byte[] buf = new byte[CHUNK_SIZE];
+
+        for (int n; (n = read_fully(in, buf)) > 0; ) {
+            byte[] hex = HexBin.encode(n == buf.length ? buf : Arrays.copyOf(buf, n));
+            chunks.add(new String(hex, StandardCharsets.ISO_8859_1));
+        }
+
+        return chunks;
+    }
+
+    private static final int CHUNK_SIZE = 8192;
+
+    // Decodes the hex text as it is read.  Like lex, which sees the collapsed
+    // text, whitespace is only allowed before and after the digits.
+
+    private static final class HexInputStream extends InputStream {
+        private final Reader _text;
+        private final char[] _buf = new char[2048];
+        private int _pos;
+        private int _end;
+        private boolean _started;
+        private boolean _trailing;
+
+        HexInputStream(Reader text) {
+            _text = text;
+        }
+
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+        }
+
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+
+            int n = 0;
+
+            while (n < len) {
+                int hi = nextDigit();
+
+                if (hi < 0) {
+                    break;
+                }
+
+                int lo = nextDigit();
+
+                if (lo < 0) {
+                    throw new IOException("hexBinary value has an odd number of digits");
+                }
+
+                b[off + n++] = (byte) ((hi << 4) | lo);
+            }
+
+            return n == 0 ? -1 : n;
+        }
+
+        // Returns the value of the next digit, or -1 at the end of the text
+
+        private int nextDigit() throws IOException {
+            for (; ; ) {
+                if (_pos == _end) {
+                    _end = _text.read(_buf, 0, _buf.length);
+                    _pos = 0;
+
+                    if (_end < 0) {
+                        _end = 0;
+                        return -1;
+                    }
+                }
+
+                char ch = _buf[_pos++];
+
+                if (ch == ' ' || ch == '\t' || ch == '\n' || ch == '\r') {
+                    _trailing = _started;
+                    continue;
+                }
+
+                int digit = ch >= '0' && ch <= '9' ? ch - '0' :
+                    ch >= 'a' && ch <= 'f' ? ch - 'a' + 10 :
+                    ch >= 'A' && ch <= 'F' ? ch - 'A' + 10 : -1;
+
+                if (digit < 0 || _trailing) {
+                    throw new IOException("hexBinary value is not encoded properly");
+                }
+
+                _started = true;
+
+                return digit;
+            }
+        }
+
+        public void close() throws IOException {
+            _text.close();
+        }
+    }
+
     // comparators
     protected boolean equal_to(XmlObject i) {
         byte[] ival = ((XmlHexBinary) i).getByteArrayValue();
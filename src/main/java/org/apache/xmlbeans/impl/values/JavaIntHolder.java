@@ -47,6 +47,19 @@ public abstract class JavaIntHolder extends XmlObjectBase {
         }
     }
 
+    protected boolean lexes_chars() {
+        return true;
+    }
+
+    protected boolean set_chars(CharSequence chars) {
+        try {
+            set_int(XsTypeConverter.lexInt(chars));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        return true;
+    }
+
     protected void set_nil() {
         _value = 0;
     }
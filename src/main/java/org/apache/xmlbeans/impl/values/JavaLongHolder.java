@@ -47,6 +47,19 @@ public abstract class JavaLongHolder extends XmlObjectBase {
         }
     }
 
+    protected boolean lexes_chars() {
+        return true;
+    }
+
+    protected boolean set_chars(CharSequence chars) {
+        try {
+            set_long(XsTypeConverter.lexLong(chars));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        return true;
+    }
+
     protected void set_nil() {
         _value = 0L;
     }
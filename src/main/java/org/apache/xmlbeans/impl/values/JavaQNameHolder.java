@@ -146,13 +146,7 @@ public class JavaQNameHolder extends XmlObjectBase {
     }
 
     protected void set_text(String s) {
-        PrefixResolver resolver = NamespaceContext.getCurrent();
-
-        if (resolver == null && has_store()) {
-            resolver = get_store();
-        }
-
-        _value = parse(s, resolver);
+        _value = parse(s, get_namespace_context());
     }
 
     // BUGBUG - having prefix here may not work
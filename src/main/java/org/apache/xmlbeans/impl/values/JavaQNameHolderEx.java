@@ -43,10 +43,7 @@ public abstract class JavaQNameHolderEx extends JavaQNameHolder
 
     protected void set_text(String s)
     {
-        PrefixResolver resolver = NamespaceContext.getCurrent();
-
-        if (resolver == null && has_store())
-            resolver = get_store();
+        PrefixResolver resolver = get_namespace_context();
 
         QName v;
         if (_validateOnSet())
@@ -20,7 +20,7 @@ import org.apache.xmlbeans.impl.common.PrefixResolver;
 import org.apache.xmlbeans.XmlObject;
 import org.apache.xmlbeans.XmlCursor;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Map;
 import java.lang.reflect.Proxy;
 import java.lang.ref.SoftReference;
@@ -74,54 +74,59 @@ public class NamespaceContext implements PrefixResolver
      */
     private static final class NamespaceContextStack
     {
+        // Pre-sized, contexts are hardly ever nested more than a few levels deep
         NamespaceContext current;
-        ArrayList<NamespaceContext> stack = new ArrayList<>();
+        NamespaceContext[] stack = new NamespaceContext[8];
+        int size;
         final void push(NamespaceContext next)
         {
-            stack.add(current);
+            if (size == stack.length)
+                stack = Arrays.copyOf(stack, size * 2);
+            stack[size++] = current;
             current = next;
         }
         final void pop()
         {
-            current = stack.get(stack.size() - 1);
-            stack.remove(stack.size() - 1);
+            current = stack[--size];
+            stack[size] = null;
         }
     }
 
-    private static ThreadLocal tl_namespaceContextStack = new ThreadLocal();
+    private static final ThreadLocal<NamespaceContextStack> tl_namespaceContextStack = new ThreadLocal<>();
 
     public static void clearThreadLocals() {
         tl_namespaceContextStack.remove();
     }
 
-    private static NamespaceContextStack getNamespaceContextStack()
+    public static void push(NamespaceContext next)
     {
-        NamespaceContextStack namespaceContextStack = (NamespaceContextStack) tl_namespaceContextStack.get();
+        NamespaceContextStack namespaceContextStack = tl_namespaceContextStack.get();
         if (namespaceContextStack==null)
         {
             namespaceContextStack = new NamespaceContextStack();
             tl_namespaceContextStack.set(namespaceContextStack);
         }
-        return namespaceContextStack;
-    }
-
-    public static void push(NamespaceContext next)
-    {
-        getNamespaceContextStack().push(next);
+        namespaceContextStack.push(next);
     }
 
     public static void pop()
     {
-        NamespaceContextStack nsContextStack = getNamespaceContextStack();
+        NamespaceContextStack nsContextStack = tl_namespaceContextStack.get();
         nsContextStack.pop();
 
-        if (nsContextStack.stack.size()==0)
-            tl_namespaceContextStack.set(null);
+        if (nsContextStack.size==0)
+            tl_namespaceContextStack.remove();
     }
 
+    /**
+     * Returns the innermost pushed context, or null if there is none.  Values
+     * held in a store should rather use {@link XmlObjectBase#get_namespace_context()},
+     * which does not have to look the context up.
+     */
     public static PrefixResolver getCurrent()
     {
-        return getNamespaceContextStack().current;
+        NamespaceContextStack nsContextStack = tl_namespaceContextStack.get();
+        return nsContextStack == null ? null : nsContextStack.current;
     }
 
     public String getNamespaceForPrefix(String prefix)
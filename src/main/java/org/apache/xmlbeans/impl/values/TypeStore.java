@@ -20,7 +20,9 @@ import org.apache.xmlbeans.impl.common.ValidatorListener;
 import org.apache.xmlbeans.impl.common.XmlLocale;
 
 import javax.xml.namespace.QName;
+import java.io.Reader;
 import java.util.List;
+import java.util.function.ObjIntConsumer;
 
 public interface TypeStore extends NamespaceManager
 {
@@ -75,6 +77,29 @@ public interface TypeStore extends NamespaceManager
     // BUGBUG (ericvas) 12111
     String fetch_text(int whitespaceRule);
 
+    /**
+     * Like fetch_text with the collapse rule, but returns a view of the
+     * text as it is kept in the store instead of a new String, with the
+     * whitespace at both ends left out.  The view is only valid until the
+     * next call on any TypeStore by the same thread.
+     *
+     * Returns null if there is no such view; that is when the text has
+     * whitespace inside, is not kept in a single buffer, or the value is
+     * not simple content.
+     */
+    CharSequence fetch_trimmed_chars();
+
+    /**
+     * Returns a reader over the text of this simple value as it is kept in
+     * the store, without whitespace processing and without building a
+     * String.  The reader stays usable after the tree changes, it keeps
+     * reading the text as it was when it was asked for.
+     *
+     * Returns null if the text is empty or only whitespace, or if the value
+     * is not simple content.
+     */
+    Reader fetch_text_reader();
+
     int WS_UNSPECIFIED = 0;
     int WS_PRESERVE = 1;
     int WS_REPLACE = 2;
@@ -88,6 +113,13 @@ public interface TypeStore extends NamespaceManager
      */
     void store_text(String text);
 
+    /**
+     * Like store_text, but the text is given in consecutive chunks which
+     * the store keeps as they are, so a large text never has to be
+     * concatenated into a single String.
+     */
+    void store_text_chunks(List<String> chunks);
+
     /**
      * Here the TypeStore is responsible for locating the default value.
      * This is done as follows
@@ -155,6 +187,13 @@ public interface TypeStore extends NamespaceManager
      */
     int count_elements(QNameSet names);
 
+    /**
+     * Like count_elements, but compares the registered id of the name.
+     *
+     * @see ElementNameIds
+     */
+    int count_elements(QName name, int nameId);
+
     /**
      * Returns the TypeStoreUser underneath the ith element with the given
      * name owned by this textstore, or null if none was found.
@@ -166,6 +205,13 @@ public interface TypeStore extends NamespaceManager
      */
     TypeStoreUser find_element_user(QName name, int i);
 
+    /**
+     * Like find_element_user, but compares the registered id of the name.
+     *
+     * @see ElementNameIds
+     */
+    TypeStoreUser find_element_user(QName name, int nameId, int i);
+
     /**
      * Like find_element_user but accepts a set of names to search for.
      */
@@ -185,6 +231,21 @@ public interface TypeStore extends NamespaceManager
      */
     <T extends XmlObject> void find_all_element_users(QNameSet name, List<T> fillMeUp);
 
+    /**
+     * Visits all elements with the given name owned by this typestore
+     * in document order, without creating TypeStoreUsers for them
+     * where it can be avoided.
+     *
+     * For each element, textSink is passed the element's text with the
+     * given whitespace rule applied, along with the index of the element.
+     * If the value of an element cannot be derived from its text alone
+     * (it already has a TypeStoreUser, it has an xsi:type or xsi:nil
+     * attribute, it has element content, or its text is empty and might
+     * be defaulted), userSink is passed the TypeStoreUser of the element
+     * instead.
+     */
+    void find_all_element_text(QName name, int wsr, ObjIntConsumer<String> textSink, ObjIntConsumer<TypeStoreUser> userSink);
+
     /**
      * Inserts a new element at the position that will make it
      * the ith element with the given name owned by this textstore,
@@ -224,6 +285,13 @@ public interface TypeStore extends NamespaceManager
      */
     void remove_element(QName name, int i);
 
+    /**
+     * Like remove_element, but compares the registered id of the name.
+     *
+     * @see ElementNameIds
+     */
+    void remove_element(QName name, int nameId, int i);
+
     /**
      * Removes the ith element that matches names.
      */
@@ -307,6 +375,18 @@ public interface TypeStore extends NamespaceManager
 
     void array_setter ( XmlObject[] sources, QName elementName );
 
+    /**
+     * Replaces the text of all the elements of the given name under the
+     * current typestore with the given texts.
+     *
+     * Elements are removed from the end or appended, so that there is
+     * one element per text afterwards. Newly added elements don't get a
+     * TypeStoreUser attached, existing users are invalidated and an
+     * xsi:nil attribute is removed, as if the value had been set on the
+     * TypeStoreUser.
+     */
+    void array_text_setter(String[] texts, QName elementName);
+
     /**
      * Visits all the elements immediately, using the given visitor.
      * A TypeStoreUser calls this when somebody has requested validation.
@@ -326,4 +406,21 @@ public interface TypeStore extends NamespaceManager
      * gateway requirements for calls into the xml store
      */
     XmlLocale get_locale ( );
+
+    /**
+     * Releases the document of this store, see {@link org.apache.xmlbeans.XmlTokenSource#releaseDocument()}.
+     */
+    void release_document ( );
+
+    /**
+     * Confines the document of this store to the given thread, see
+     * {@link org.apache.xmlbeans.XmlTokenSource#confineDocumentTo(Thread)}.
+     */
+    void confine_document ( Thread owner );
+
+    /**
+     * Tells if the document of this store is confined to another thread than
+     * the current one.
+     */
+    boolean is_confined_to_other_thread ( );
 }
@@ -22,9 +22,11 @@ import org.apache.xmlbeans.impl.schema.SchemaTypeVisitorImpl;
 import javax.xml.namespace.QName;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
+import java.util.Objects;
 import java.util.function.BiConsumer;
 
 public class XmlComplexContentImpl extends XmlObjectBase {
@@ -156,6 +158,15 @@ public class XmlComplexContentImpl extends XmlObjectBase {
 
     @SuppressWarnings("ConstantConditions")
     protected void arraySetterHelper(double[] sources, QName elemName) {
+        if (isBulkTextSetterProperty(elemName, SchemaType.BTC_DOUBLE)) {
+            int n = (sources == null) ? 0 : sources.length;
+            String[] texts = new String[n];
+            for (int i = 0; i < n; i++) {
+                texts[i] = JavaDoubleHolder.serialize(sources[i]);
+            }
+            get_store().array_text_setter(texts, elemName);
+            return;
+        }
         commonSetterHelper(elemName, null, (sources == null) ? 0 : sources.length, (u, i) -> u.setDoubleValue(sources[i]));
     }
 
@@ -171,11 +182,29 @@ public class XmlComplexContentImpl extends XmlObjectBase {
 
     @SuppressWarnings("ConstantConditions")
     protected void arraySetterHelper(int[] sources, QName elemName) {
+        if (isBulkTextSetterProperty(elemName, SchemaType.BTC_DECIMAL)) {
+            int n = (sources == null) ? 0 : sources.length;
+            String[] texts = new String[n];
+            for (int i = 0; i < n; i++) {
+                texts[i] = Integer.toString(sources[i]);
+            }
+            get_store().array_text_setter(texts, elemName);
+            return;
+        }
         commonSetterHelper(elemName, null, (sources == null) ? 0 : sources.length, (u, i) -> u.setIntValue(sources[i]));
     }
 
     @SuppressWarnings("ConstantConditions")
     protected void arraySetterHelper(long[] sources, QName elemName) {
+        if (isBulkTextSetterProperty(elemName, SchemaType.BTC_DECIMAL)) {
+            int n = (sources == null) ? 0 : sources.length;
+            String[] texts = new String[n];
+            for (int i = 0; i < n; i++) {
+                texts[i] = Long.toString(sources[i]);
+            }
+            get_store().array_text_setter(texts, elemName);
+            return;
+        }
         commonSetterHelper(elemName, null, (sources == null) ? 0 : sources.length, (u, i) -> u.setLongValue(sources[i]));
     }
 
@@ -188,6 +217,11 @@ public class XmlComplexContentImpl extends XmlObjectBase {
     }
 
     protected void arraySetterHelper(String[] sources, QName elemName) {
+        if (isBulkTextSetterProperty(elemName, SchemaType.BTC_STRING) &&
+            (sources == null || Arrays.stream(sources).allMatch(Objects::nonNull))) {
+            get_store().array_text_setter((sources == null) ? new String[0] : sources, elemName);
+            return;
+        }
         commonSetterHelper2(elemName, null, sources, XmlObjectBase::setStringValue);
     }
 
@@ -429,6 +463,16 @@ public class XmlComplexContentImpl extends XmlObjectBase {
     }
 
 
+    /**
+     * Tells if the text of the elements with the given name can be replaced in bulk, i.e.
+     * without setting the value on a TypeStoreUser per element. Fixed values need to be
+     * checked by the typed setters and are not handled in bulk.
+     */
+    private boolean isBulkTextSetterProperty(QName elemName, int primitiveTypeCode) {
+        return isBulkTextProperty(elemName, primitiveTypeCode) &&
+               _schemaType.getElementProperty(elemName).hasFixed() == SchemaProperty.NEVER;
+    }
+
     private <T> void commonSetterHelper(QName elemName, QNameSet set, T[] sources, BiConsumer<XmlObjectBase, Integer> fun) {
         commonSetterHelper(elemName, set, (sources == null) ? 0 : sources.length, fun);
     }
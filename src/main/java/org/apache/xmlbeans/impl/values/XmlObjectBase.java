@@ -20,6 +20,7 @@ import org.apache.xmlbeans.impl.common.*;
 import org.apache.xmlbeans.impl.schema.SchemaTypeImpl;
 import org.apache.xmlbeans.impl.schema.SchemaTypeVisitorImpl;
 import org.apache.xmlbeans.impl.util.LongUTFDataInputStream;
+import org.apache.xmlbeans.impl.util.XsTypeConverter;
 import org.apache.xmlbeans.impl.validator.Validator;
 import org.w3c.dom.Node;
 import org.xml.sax.ContentHandler;
@@ -32,6 +33,7 @@ import java.io.*;
 import java.lang.reflect.Array;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.channels.WritableByteChannel;
 import java.util.*;
 import java.util.function.Function;
 import java.util.function.IntFunction;
@@ -127,6 +129,35 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
         }
     }
 
+    /**
+     * Returns the namespace context to resolve the prefixes of the text being set: the
+     * store while the value is being read from it, else the pushed {@link NamespaceContext}
+     * if any, else the store.
+     */
+    protected final PrefixResolver get_namespace_context() {
+        if ((_flags & FLAG_TEXT_FROM_STORE) == 0) {
+            PrefixResolver resolver = NamespaceContext.getCurrent();
+
+            if (resolver != null) {
+                return resolver;
+            }
+        }
+
+        return has_store() ? get_store() : null;
+    }
+
+    public void releaseDocument() {
+        if (has_store()) {
+            get_store().release_document();
+        }
+    }
+
+    public void confineDocumentTo(Thread owner) {
+        if (has_store()) {
+            get_store().confine_document(owner);
+        }
+    }
+
     public XMLStreamReader newXMLStreamReader() {
         return newXMLStreamReader(null);
     }
@@ -191,6 +222,12 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
         }
     }
 
+    public void save(WritableByteChannel channel, XmlOptions options) throws IOException {
+        try (XmlCursor cur = newCursorForce()) {
+            cur.save(channel, makeInnerOptions(options));
+        }
+    }
+
     public void save(Writer w, XmlOptions options) throws IOException {
         try (XmlCursor cur = newCursorForce()) {
             cur.save(w, makeInnerOptions(options));
@@ -209,6 +246,10 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
         save(os, null);
     }
 
+    public void save(WritableByteChannel channel) throws IOException {
+        save(channel, null);
+    }
+
     public void save(Writer w) throws IOException {
         save(w, null);
     }
@@ -580,6 +621,7 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
     private static final int FLAG_COMPLEXCONTENT = 16384;
     private static final int FLAG_NOT_VARIABLE = 32768;
     private static final int FLAG_VALIDATE_ON_SET = 65536;
+    private static final int FLAG_TEXT_FROM_STORE = 131072;
 
 
     /**
@@ -1195,6 +1237,22 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
         }
     }
 
+    /**
+     * Called instead of synchronizing before every getter and setter
+     * on the strongly typed classes which were compiled for confined
+     * use, to ensure that the object has not been orphaned and, with
+     * assertions enabled, that its document is not confined to another
+     * thread.
+     *
+     * @see XmlOptions#setCompileConfinedAccessors()
+     * @see XmlTokenSource#confineDocumentTo(Thread)
+     */
+    protected final void check_confined() {
+        check_orphaned();
+        assert !has_store() || !get_store().is_confined_to_other_thread() :
+            "A confined document is used by another thread than its owner";
+    }
+
     /**
      * Called prior to every get operation, to ensure
      * that the value being read is valid. If the value
@@ -1242,14 +1300,19 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
             if (!nilled) {
                 String text;
 
-                if ((_flags & FLAG_COMPLEXCONTENT) != 0 || (text = get_wscanon_text()) == null) {
+                if ((_flags & FLAG_COMPLEXCONTENT) != 0) {
+                    update_from_complex_content();
+                } else if (update_from_trimmed_chars()) {
+                    _flags &= ~(FLAG_NIL | FLAG_ISDEFAULT);
+                } else if ((text = get_wscanon_text()) == null) {
                     update_from_complex_content();
                 } else {
-                    NamespaceContext.push(new NamespaceContext(get_store()));
+                    // Prefixes in the text are resolved with the store itself, see get_namespace_context
+                    _flags |= FLAG_TEXT_FROM_STORE;
                     try {
                         update_from_wscanon_text(text);
                     } finally {
-                        NamespaceContext.pop();
+                        _flags &= ~FLAG_TEXT_FROM_STORE;
                     }
                 }
             }
@@ -1313,6 +1376,59 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
      */
     abstract protected void set_text(String text);
 
+    /**
+     * Types which can lex their value straight from the chars in the
+     * store override this to return true.
+     */
+    protected boolean lexes_chars() {
+        return false;
+    }
+
+    /**
+     * Sets the value from the trimmed, non-empty chars of the store,
+     * without a String being built for them.  Returns false and leaves
+     * the value alone if the chars have to go through set_text instead,
+     * e.g. because they are invalid and set_text reports the error.
+     */
+    protected boolean set_chars(CharSequence chars) {
+        return false;
+    }
+
+    // Fast path of check_dated for the types which lex chars.  Validation on
+    // set and empty text, which may have to be defaulted, use set_text
+
+    private boolean update_from_trimmed_chars() {
+        if ((_flags & (FLAG_STORE | FLAG_VALIDATE_ON_SET)) != FLAG_STORE || !lexes_chars() ||
+            get_wscanon_rule() != SchemaType.WS_COLLAPSE) {
+            return false;
+        }
+
+        CharSequence chars = get_store().fetch_trimmed_chars();
+
+        return chars != null && chars.length() > 0 && set_chars(chars);
+    }
+
+    /**
+     * Returns a reader over the literal text of this value as it is kept in
+     * the store, so that types holding large values can decode them
+     * incrementally.  Returns null when the value has to be read through
+     * check_dated instead: when it is not attached to a store or is already
+     * current, or when it is nil, empty (and so maybe defaulted) or not
+     * simple content.
+     */
+    protected final Reader get_store_text_reader() {
+        if ((_flags & (FLAG_STORE | FLAG_VALUE_DATED | FLAG_ORPHANED | FLAG_COMPLEXCONTENT)) !=
+            (FLAG_STORE | FLAG_VALUE_DATED)) {
+            return null;
+        }
+
+        if ((_flags & FLAG_NIL_DATED) != 0 ? get_store().find_nil() : (_flags & FLAG_NIL) != 0) {
+            return null;
+        }
+
+        return get_store().fetch_text_reader();
+    }
+
     /**
      * This should clear the value, and set it to whatever
      * is supposed to be returned when the value is nilled.
@@ -1482,6 +1598,11 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
             new Object[]{getPrimitiveTypeName(), "byte[]"});
     }
 
+    public InputStream getInputStreamValue() {
+        throw new XmlValueNotSupportedException(XmlErrorCodes.EXCEPTION_VALUE_NOT_SUPPORTED_S2J,
+            new Object[]{getPrimitiveTypeName(), "InputStream"});
+    }
+
     public boolean getBooleanValue() {
         throw new XmlValueNotSupportedException(XmlErrorCodes.EXCEPTION_VALUE_NOT_SUPPORTED_S2J,
             new Object[]{getPrimitiveTypeName(), "boolean"});
@@ -1595,6 +1716,47 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
         }
     }
 
+    /**
+     * Encodes the bytes of the stream chunk by chunk directly into the
+     * store, where the value is lexed from again when it is asked for.
+     * Values not attached to a store, or validated on set, take the
+     * regular byte[] route.
+     */
+    public final void setInputStreamValue(InputStream in) throws IOException {
+        if (in == null) {
+            setNil();
+            return;
+        }
+
+        synchronized (monitor()) {
+            set_prepare();
+
+            if ((_flags & (FLAG_STORE | FLAG_VALIDATE_ON_SET)) != FLAG_STORE) {
+                set_ByteArray(IOUtil.readAllBytes(in));
+                set_commit();
+                return;
+            }
+
+            List<String> chunks = encode_chunks(in);
+
+            if (chunks.isEmpty()) {
+                set_ByteArray(new byte[0]);
+                set_commit();
+                return;
+            }
+
+            boolean wasNilled = ((_flags & FLAG_NIL) != 0);
+
+            get_store().store_text_chunks(chunks);
+
+            _flags &= ~(FLAG_NIL | FLAG_ISDEFAULT | FLAG_VALUE_DATED);
+            if (wasNilled) {
+                get_store().invalidate_nil();
+            }
+            _flags |= FLAG_VALUE_DATED;
+        }
+    }
+
     public final void setEnumValue(StringEnumAbstractBase obj) {
         if (obj == null) {
             setNil();
@@ -2269,6 +2431,37 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
         set_ByteArray(b);
     }
 
+    /**
+     * Reads the given stream to its end and returns the lexical
+     * representation of its bytes, in consecutive chunks.  The
+     * current value may be dropped, it is going to be lexed again
+     * from the chunks.
+     */
+    protected List<String> encode_chunks(InputStream in) throws IOException {
+        throw new XmlValueNotSupportedException(XmlErrorCodes.EXCEPTION_VALUE_NOT_SUPPORTED_J2S,
+            new Object[]{"InputStream", getPrimitiveTypeName()});
+    }
+
+    /**
+     * Reads from the stream until the buffer is full or the stream
+     * ends, and returns the number of bytes read.
+     */
+    protected static int read_fully(InputStream in, byte[] buf) throws IOException {
+        int n = 0;
+
+        while (n < buf.length) {
+            int r = in.read(buf, n, buf.length - n);
+
+            if (r < 0) {
+                break;
+            }
+
+            n += r;
+        }
+
+        return n;
+    }
+
     protected void set_hex(byte[] b) {
         set_ByteArray(b);
     }
@@ -3112,12 +3305,71 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
         return targetList;
     }
 
+    /**
+     * Tells if the values of the elements with the given name can be read from (and written to)
+     * their text directly, without going through a TypeStoreUser per element. This is the case
+     * for atomic simple types of the given primitive type, as long as no validation on set is
+     * requested.
+     */
+    boolean isBulkTextProperty(QName elementName, int primitiveTypeCode) {
+        if (!has_store() || get_store().validate_on_set()) {
+            return false;
+        }
+        SchemaProperty prop = schemaType().getElementProperty(elementName);
+        if (prop == null) {
+            return false;
+        }
+        SchemaType sType = prop.getType();
+        return sType.getSimpleVariety() == SchemaType.ATOMIC &&
+               sType.getPrimitiveType().getBuiltinTypeCode() == primitiveTypeCode;
+    }
+
+    private static int lexIntArrayValue(String s) {
+        try {
+            return XsTypeConverter.lexInt(s);
+        } catch (NumberFormatException e) {
+            throw new XmlValueOutOfRangeException(XmlErrorCodes.INT, new Object[]{s});
+        }
+    }
+
+    private static long lexLongArrayValue(String s) {
+        try {
+            return XsTypeConverter.lexLong(s);
+        } catch (NumberFormatException e) {
+            throw new XmlValueOutOfRangeException(XmlErrorCodes.LONG, new Object[]{s});
+        }
+    }
+
+    private static double lexDoubleArrayValue(String s) {
+        try {
+            return XsTypeConverter.lexDouble(s);
+        } catch (NumberFormatException e) {
+            throw new XmlValueOutOfRangeException(XmlErrorCodes.DOUBLE, new Object[]{s});
+        }
+    }
+
     protected <T> T[] getObjectArray(QName elementName, Function<SimpleValue, T> fun, IntFunction<T[]> arrayCon) {
         synchronized (monitor()) {
             return getBaseArray(elementName).stream().map(fun).toArray(arrayCon);
         }
     }
 
+    protected String[] getStringArray(QName elementName) {
+        synchronized (monitor()) {
+            if (isBulkTextProperty(elementName, SchemaType.BTC_STRING)) {
+                check_orphaned();
+                TypeStore store = get_store();
+                String[] result = new String[store.count_elements(elementName)];
+                int wsr = schemaType().getElementProperty(elementName).getType().getWhiteSpaceRule();
+                store.find_all_element_text(elementName, wsr,
+                    (s, i) -> result[i] = s,
+                    (u, i) -> result[i] = ((SimpleValue) u).getStringValue());
+                return result;
+            }
+            return getBaseArray(elementName).stream().map(SimpleValue::getStringValue).toArray(String[]::new);
+        }
+    }
+
     protected <T> T[] getEnumArray(QName elementName, IntFunction<T[]> arrayCon) {
         synchronized (monitor()) {
             return getBaseArray(elementName).stream().map(SimpleValue::getEnumValue).toArray(arrayCon);
@@ -3148,6 +3400,15 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
 
     protected double[] getDoubleArray(QName elementName) {
         synchronized (monitor()) {
+            if (isBulkTextProperty(elementName, SchemaType.BTC_DOUBLE)) {
+                check_orphaned();
+                TypeStore store = get_store();
+                double[] result = new double[store.count_elements(elementName)];
+                store.find_all_element_text(elementName, SchemaType.WS_COLLAPSE,
+                    (s, i) -> result[i] = lexDoubleArrayValue(s),
+                    (u, i) -> result[i] = ((SimpleValue) u).getDoubleValue());
+                return result;
+            }
             List<XmlObjectBase> targetList = getBaseArray(elementName);
             return targetList.stream()
                 .map(org.apache.xmlbeans.SimpleValue.class::cast)
@@ -3180,6 +3441,15 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
 
     protected int[] getIntArray(QName elementName) {
         synchronized (monitor()) {
+            if (isBulkTextProperty(elementName, SchemaType.BTC_DECIMAL)) {
+                check_orphaned();
+                TypeStore store = get_store();
+                int[] result = new int[store.count_elements(elementName)];
+                store.find_all_element_text(elementName, SchemaType.WS_COLLAPSE,
+                    (s, i) -> result[i] = lexIntArrayValue(s),
+                    (u, i) -> result[i] = ((SimpleValue) u).getIntValue());
+                return result;
+            }
             List<XmlObjectBase> targetList = getBaseArray(elementName);
             return targetList.stream()
                 .map(org.apache.xmlbeans.SimpleValue.class::cast)
@@ -3190,6 +3460,15 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
 
     protected long[] getLongArray(QName elementName) {
         synchronized (monitor()) {
+            if (isBulkTextProperty(elementName, SchemaType.BTC_DECIMAL)) {
+                check_orphaned();
+                TypeStore store = get_store();
+                long[] result = new long[store.count_elements(elementName)];
+                store.find_all_element_text(elementName, SchemaType.WS_COLLAPSE,
+                    (s, i) -> result[i] = lexLongArrayValue(s),
+                    (u, i) -> result[i] = ((SimpleValue) u).getLongValue());
+                return result;
+            }
             List<XmlObjectBase> targetList = getBaseArray(elementName);
             return targetList.stream()
                 .map(org.apache.xmlbeans.SimpleValue.class::cast)
@@ -3210,6 +3489,12 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
         }
     }
 
+    protected String[] getStringArray(QNameSet elementSet) {
+        synchronized (monitor()) {
+            return getBaseArray(elementSet).stream().map(SimpleValue::getStringValue).toArray(String[]::new);
+        }
+    }
+
     protected <T> T[] getEnumArray(QNameSet elementSet, IntFunction<T[]> arrayCon) {
         synchronized (monitor()) {
             return getBaseArray(elementSet).stream().map(SimpleValue::getEnumValue).toArray(arrayCon);
@@ -16,14 +16,21 @@ package compile.scomp.checkin;
 
 import compile.scomp.common.mockobj.TestFiler;
 import org.apache.xmlbeans.*;
+import org.apache.xmlbeans.impl.schema.FileResourceLoader;
 import org.apache.xmlbeans.impl.schema.SchemaTypeSystemImpl;
 import org.hamcrest.MatcherAssert;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 
+import javax.xml.namespace.QName;
+import java.io.DataInputStream;
 import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static common.Common.OUTPUTROOT;
@@ -99,6 +106,207 @@ public class XmlBeansCompCheckinTests {
         MatcherAssert.assertThat(f.getSrcFileVec(), is(expSrcType));
     }
 
+    @Test
+    void test_Filer_packed_compilation() throws Exception {
+        XmlObject[] schemas = {XmlObject.Factory.parse(FOR_XSD)};
+        XmlOptions opts = new XmlOptions(xm_opts).setCompilePackedTypeSystem();
+
+        TestFiler f = new TestFiler();
+        XmlBeans.compileXmlBeans("apiCompilePacked", null, schemas, null, XmlBeans.getBuiltinTypeSystem(), f, opts);
+
+        // the components and the index go into the archive, only the pointers are separate
+        List<String> expBin = Arrays.asList(
+            "org/apache/xmlbeans/metadata/system/apiCompilePacked/typesystem.xsa",
+            "org/apache/xmlbeans/metadata/element/http_3A_2F_2Fbaz/elName.xsb",
+            "org/apache/xmlbeans/metadata/type/http_3A_2F_2Fbaz/aType.xsb",
+            "org/apache/xmlbeans/metadata/namespace/http_3A_2F_2Fbaz/xmlns.xsb",
+            "org/apache/xmlbeans/metadata/javaname/baz/ElNameDocument.xsb",
+            "org/apache/xmlbeans/metadata/javaname/baz/AType.xsb"
+        );
+        MatcherAssert.assertThat(f.getBinFileVec(), is(expBin));
+
+        File classes = new File(new File(OUTPUTROOT, "filer"), "classes");
+        SchemaTypeLoader stl = XmlBeans.typeLoaderForResource(new FileResourceLoader(classes));
+
+        SchemaType aType = stl.findType(new QName("http://baz", "aType"));
+        assertNotNull(aType);
+        assertEquals("apiCompilePacked", aType.getTypeSystem().getName());
+        assertEquals(1, aType.getAttributeProperties().length);
+
+        SchemaGlobalElement elName = stl.findElement(new QName("http://baz", "elName"));
+        assertNotNull(elName);
+        assertSame(aType, elName.getType());
+
+        XmlObject doc = stl.parse("<elName xmlns='http://baz' attrName='a'>text</elName>", null, null);
+        assertTrue(doc.validate());
+    }
+
+    @Test
+    void test_Filer_namespaceShards() throws Exception {
+        XmlObject[] schemas = {XmlObject.Factory.parse(FOR_XSD)};
+        XmlOptions opts = new XmlOptions(xm_opts).setCompileNamespaceShards();
+
+        TestFiler f = new TestFiler();
+        XmlBeans.compileXmlBeans("apiCompileShards", null, schemas, null, XmlBeans.getBuiltinTypeSystem(), f, opts);
+        assertTrue(f.getBinFileVec().contains("org/apache/xmlbeans/metadata/system/apiCompileShards/index.xsb"));
+        assertTrue(f.getBinFileVec().contains("org/apache/xmlbeans/metadata/system/apiCompileShards/index1.xsb"));
+
+        File classes = new File(new File(OUTPUTROOT, "filer"), "classes");
+        assertEquals(SchemaTypeSystemImpl.MINOR_VERSION, minorVersion(new File(classes, "org/apache/xmlbeans/metadata/system/apiCompileShards/index.xsb")));
+        assertEquals(SchemaTypeSystemImpl.MINOR_VERSION, minorVersion(new File(classes, "org/apache/xmlbeans/metadata/system/apiCompileShards/index1.xsb")));
+        SchemaTypeLoader stl = XmlBeans.typeLoaderForResource(new FileResourceLoader(classes));
+
+        SchemaType aType = stl.findType(new QName("http://baz", "aType"));
+        assertNotNull(aType);
+        assertEquals("apiCompileShards", aType.getTypeSystem().getName());
+        assertSame(aType, stl.findElement(new QName("http://baz", "elName")).getType());
+        assertEquals(1, aType.getTypeSystem().globalTypes().length);
+
+        XmlObject doc = stl.parse("<elName xmlns='http://baz' attrName='a'>text</elName>", null, null);
+        assertTrue(doc.validate());
+    }
+
+    @Test
+    void test_Filer_unshardedFormatVersion() throws Exception {
+        XmlObject[] schemas = {XmlObject.Factory.parse(FOR_XSD)};
+
+        TestFiler f = new TestFiler();
+        XmlBeans.compileXmlBeans("apiCompileVersion", null, schemas, null, XmlBeans.getBuiltinTypeSystem(), f, xm_opts);
+
+        // without index shards the files keep the previous format version
+        File classes = new File(new File(OUTPUTROOT, "filer"), "classes");
+        assertEquals(24, minorVersion(new File(classes, "org/apache/xmlbeans/metadata/system/apiCompileVersion/index.xsb")));
+        assertEquals(24, minorVersion(new File(classes, "org/apache/xmlbeans/metadata/type/http_3A_2F_2Fbaz/aType.xsb")));
+
+        SchemaTypeLoader stl = XmlBeans.typeLoaderForResource(new FileResourceLoader(classes));
+        SchemaType aType = stl.findType(new QName("http://baz", "aType"));
+        assertNotNull(aType);
+        assertEquals("apiCompileVersion", aType.getTypeSystem().getName());
+        assertSame(aType, stl.findElement(new QName("http://baz", "elName")).getType());
+    }
+
+    private static int minorVersion(File xsb) throws Exception {
+        try (DataInputStream input = new DataInputStream(Files.newInputStream(xsb.toPath()))) {
+            assertEquals(SchemaTypeSystemImpl.DATA_BABE, input.readInt());
+            assertEquals(SchemaTypeSystemImpl.MAJOR_VERSION, input.readShort());
+            return input.readShort();
+        }
+    }
+
+    @Test
+    void test_Filer_staticFactories() throws Exception {
+        XmlObject[] schemas = {XmlObject.Factory.parse(FOR_XSD)};
+        XmlOptions opts = new XmlOptions(xm_opts).setCompileStaticFactories();
+
+        TestFiler f = new TestFiler();
+        XmlBeans.compileXmlBeans("apiCompileFactories", null, schemas, null, XmlBeans.getBuiltinTypeSystem(), f, opts);
+        assertTrue(f.getSrcFileVec().contains("org.apache.xmlbeans.metadata.system.apiCompileFactories.TypeSystemHolder"));
+
+        File holder = new File(OUTPUTROOT, "filer/src/org/apache/xmlbeans/metadata/system/apiCompileFactories/TypeSystemHolder.java");
+        String source = new String(Files.readAllBytes(holder.toPath()), StandardCharsets.ISO_8859_1);
+        assertTrue(source.contains("typeFactoryForClassname(String className)"));
+        assertTrue(source.contains("case \"baz.impl.ATypeImpl\": return baz.impl.ATypeImpl::new;"));
+        assertTrue(source.contains("case \"baz.impl.ElNameDocumentImpl\": return baz.impl.ElNameDocumentImpl::new;"));
+        // restrictions of the simple content type are created through its two argument constructor
+        assertTrue(source.contains("subtypeFactoryForClassname(String className)"));
+        assertTrue(source.contains("case \"baz.AType\": return baz.AType.class;"));
+
+        File impl = new File(OUTPUTROOT, "filer/src/baz/impl/ATypeImpl.java");
+        String implSource = new String(Files.readAllBytes(impl.toPath()), StandardCharsets.ISO_8859_1);
+        assertTrue(implSource.contains("public ATypeImpl(org.apache.xmlbeans.SchemaType sType, boolean b)"));
+    }
+
+    @Test
+    void test_Filer_confinedAccessors() throws Exception {
+        XmlObject[] schemas = {XmlObject.Factory.parse(FOR_XSD)};
+        XmlOptions opts = new XmlOptions(xm_opts).setCompileConfinedAccessors();
+
+        TestFiler f = new TestFiler();
+        XmlBeans.compileXmlBeans("apiCompileConfined", null, schemas, null, XmlBeans.getBuiltinTypeSystem(), f, opts);
+
+        File impl = new File(OUTPUTROOT, "filer/src/baz/impl/ElNameDocumentImpl.java");
+        String source = new String(Files.readAllBytes(impl.toPath()), StandardCharsets.ISO_8859_1);
+        assertTrue(source.contains("check_confined();"));
+        assertFalse(source.contains("synchronized (monitor())"));
+    }
+
+    @Test
+    void test_resolveParallel() throws Exception {
+        XmlObject[] schemas = {XmlObject.Factory.parse(FOR_XSD)};
+
+        TestFiler f = new TestFiler();
+        XmlBeans.compileXmlBeans("apiCompileResolve", null, schemas, null, XmlBeans.getBuiltinTypeSystem(), f, xm_opts);
+
+        File classes = new File(new File(OUTPUTROOT, "filer"), "classes");
+        SchemaTypeLoader stl = XmlBeans.typeLoaderForResource(new FileResourceLoader(classes));
+
+        SchemaType.Ref ref = stl.findTypeRef(new QName("http://baz", "aType"));
+        assertNotNull(ref);
+        SchemaTypeSystemImpl sts = (SchemaTypeSystemImpl) ref.getTypeSystem();
+        assertNull(sts.typeForHandle(ref._handle));
+
+        // other namespaces are left alone
+        sts.resolveParallel(Collections.singleton("http://other"));
+        assertNull(sts.typeForHandle(ref._handle));
+
+        sts.resolveParallel(null);
+        SchemaType aType = sts.typeForHandle(ref._handle);
+        assertNotNull(aType);
+        assertSame(aType, ref.get());
+        assertSame(aType, stl.findElement(new QName("http://baz", "elName")).getType());
+    }
+
+    @Test
+    void test_saveToBytes() throws Exception {
+        XmlObject[] schemas = {XmlObject.Factory.parse(FOR_XSD)};
+        SchemaTypeSystemImpl sts = (SchemaTypeSystemImpl) XmlBeans.compileXsd(schemas, XmlBeans.getBuiltinTypeSystem(), xm_opts);
+
+        SchemaTypeSystemImpl loaded = SchemaTypeSystemImpl.loadFromBytes(sts.saveToBytes(), XmlBeans.getBuiltinTypeSystem());
+        assertEquals(sts.getName(), loaded.getName());
+
+        SchemaType aType = loaded.findType(new QName("http://baz", "aType"));
+        assertNotNull(aType);
+        assertSame(aType, loaded.findElement(new QName("http://baz", "elName")).getType());
+
+        XmlObject doc = XmlObject.Factory.parse("<elName xmlns='http://baz'/>", new XmlOptions().setDocumentType(loaded.findDocumentType(new QName("http://baz", "elName"))));
+        assertTrue(doc.validate());
+    }
+
+    @Test
+    void test_compileCacheDirectory() throws Exception {
+        File cacheDir = new File(OUTPUTROOT, "compileCache");
+        if (cacheDir.exists()) {
+            for (File f : cacheDir.listFiles()) {
+                assertTrue(f.delete());
+            }
+        }
+
+        XmlOptions opts = new XmlOptions().setCompileCacheDirectory(cacheDir);
+        XmlObject[] schemas = {XmlObject.Factory.parse(FOR_XSD)};
+        SchemaTypeSystem compiled = XmlBeans.compileXsd(schemas, XmlBeans.getBuiltinTypeSystem(), opts);
+        assertEquals(1, cacheDir.listFiles().length);
+
+        SchemaTypeSystem cached = XmlBeans.compileXsd(schemas, XmlBeans.getBuiltinTypeSystem(), opts);
+        assertNotSame(compiled, cached);
+        assertEquals(compiled.getName(), cached.getName());
+        assertNotNull(cached.findType(new QName("http://baz", "aType")));
+
+        // other options give another key
+        XmlBeans.compileXsd(schemas, XmlBeans.getBuiltinTypeSystem(), new XmlOptions(opts).setCompileNoUpaRule());
+        assertEquals(2, cacheDir.listFiles().length);
+
+        // a damaged entry is compiled again
+        for (File f : cacheDir.listFiles()) {
+            try (RandomAccessFile raf = new RandomAccessFile(f, "rw")) {
+                raf.setLength(raf.length() - 1);
+            }
+        }
+        SchemaTypeSystem recompiled = XmlBeans.compileXsd(schemas, XmlBeans.getBuiltinTypeSystem(), opts);
+        SchemaType aType = recompiled.findType(new QName("http://baz", "aType"));
+        assertNotNull(aType);
+        assertNotNull(aType.getContentModel());
+    }
+
     /**
      * Verify Partial SOM cannot be saved to file system
      */
@@ -348,6 +348,34 @@ public class DocumentTest extends NodeWithChildrenTest {
         assertEquals(0, result.getLength());
     }
 
+    @Test
+    void testGetElementsByTagNameLive() {
+        Document doc = m_docNS;
+        NodeList docFoos = doc.getElementsByTagName("foo");
+        assertEquals(2, docFoos.getLength());
+
+        Element outer = (Element) docFoos.item(0);
+        NodeList innerFoos = outer.getElementsByTagName("foo");
+        assertEquals(1, innerFoos.getLength());
+        assertEquals("nestedfoo", innerFoos.item(0).getFirstChild().getNodeValue());
+
+        // text changes keep the lists valid
+        innerFoos.item(0).getFirstChild().setNodeValue("changed");
+        assertEquals("changed", doc.getElementsByTagName("foo").item(1).getFirstChild().getNodeValue());
+
+        Element added = doc.createElement("foo");
+        outer.appendChild(added);
+        assertEquals(3, docFoos.getLength());
+        assertEquals(added, docFoos.item(2));
+        assertEquals(2, innerFoos.getLength());
+        assertEquals(2, outer.getElementsByTagName("foo").getLength());
+
+        outer.removeChild(added);
+        assertEquals(2, docFoos.getLength());
+        assertEquals(1, innerFoos.getLength());
+        assertNull(innerFoos.item(1));
+    }
+
     @Test
     void testGetElementsByTagNameNS() {
         m_node = m_docNS;
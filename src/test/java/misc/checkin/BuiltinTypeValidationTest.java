@@ -0,0 +1,74 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package misc.checkin;
+
+import org.apache.xmlbeans.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import javax.xml.namespace.QName;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class BuiltinTypeValidationTest {
+    @ParameterizedTest
+    @CsvSource(value = {
+        "int, 2147483647, ",
+        "int, 2147483648, cvc-maxInclusive-valid",
+        "int, -2147483649, cvc-minInclusive-valid",
+        "int, +007, ",
+        "int, 1.0, integer",
+        "int, abc, decimal",
+        "unsignedLong, 18446744073709551615, ",
+        "unsignedLong, 18446744073709551616, cvc-maxInclusive-valid",
+        "positiveInteger, 0, cvc-minInclusive-valid",
+        "negativeInteger, 0, cvc-maxInclusive-valid",
+        "integer, 123456789012345678901234567890, ",
+        "NCName, _a.b-c, ",
+        "NCName, a:b, cvc-datatype-valid.1.1",
+        "NCName, 1a, cvc-datatype-valid.1.1",
+        "NCName, \u00e9t\u00e9, ",
+        "NCName, \u00e9:t, cvc-datatype-valid.1.1",
+        "Name, a:b, ",
+        "Name, -a, cvc-datatype-valid.1.1",
+        "NMTOKEN, -a, ",
+        "NMTOKEN, \u00b7x, ",
+        "language, en-US, ",
+        "language, x-12345678, ",
+        "language, en-, cvc-datatype-valid.1.1",
+        "language, abcdefghi, cvc-datatype-valid.1.1",
+        "ID, 1a, cvc-datatype-valid.1.1",
+        "IDREF, a:b, cvc-datatype-valid.1.1"
+    })
+    void testBuiltinValues(String typeName, String value, String errorCode) throws XmlException {
+        SchemaType type = XmlBeans.getBuiltinTypeSystem().findType(new QName("http://www.w3.org/2001/XMLSchema", typeName));
+        XmlObject obj = XmlObject.Factory.parse("<v>" + value + "</v>", new XmlOptions().setDocumentType(type));
+
+        List<XmlError> errors = new ArrayList<>();
+        obj.validate(new XmlOptions().setErrorListener(errors));
+
+        assertEquals(errorCode, errors.isEmpty() ? null : errors.get(0).getErrorCode(), typeName + " " + value);
+    }
+
+    @ParameterizedTest
+    @CsvSource({"NCName, [\\i-[:]][\\c-[:]]*", "language, [a-zA-Z]{1,8}(-[a-zA-Z0-9]{1,8})*"})
+    void testBuiltinPatterns(String typeName, String pattern) {
+        SchemaType type = XmlBeans.getBuiltinTypeSystem().findType(new QName("http://www.w3.org/2001/XMLSchema", typeName));
+        assertArrayEquals(new String[]{pattern}, type.getPatterns());
+    }
+}
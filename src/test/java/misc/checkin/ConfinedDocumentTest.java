@@ -0,0 +1,96 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package misc.checkin;
+
+import org.apache.xmlbeans.XmlCursor;
+import org.apache.xmlbeans.XmlException;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class ConfinedDocumentTest {
+    private static final String XML = "<r><x>hello</x></r>";
+
+    private static final XmlOptions UNSYNCHRONIZED = new XmlOptions().setUnsynchronized();
+
+    private static boolean assertionsEnabled() {
+        boolean enabled = false;
+        //noinspection AssertWithSideEffects,ConstantConditions
+        assert enabled = true;
+        return enabled;
+    }
+
+    private static Throwable runInThread(Thread thread) throws InterruptedException {
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        thread.setUncaughtExceptionHandler((t, e) -> failure.set(e));
+        thread.start();
+        thread.join();
+        return failure.get();
+    }
+
+    @Test
+    void testOtherThreadFails() throws Exception {
+        assumeTrue(assertionsEnabled());
+
+        XmlObject doc = XmlObject.Factory.parse(XML, UNSYNCHRONIZED);
+        doc.confineDocumentTo(Thread.currentThread());
+
+        Throwable failure = runInThread(new Thread(doc::xmlText));
+        assertTrue(failure instanceof AssertionError, String.valueOf(failure));
+
+        // the failed call left the document as it was
+        assertEquals(XML, doc.xmlText());
+
+        try (XmlCursor c = doc.newCursor()) {
+            c.toFirstChild();
+            failure = runInThread(new Thread(c::getTextValue));
+            assertTrue(failure instanceof AssertionError, String.valueOf(failure));
+            assertEquals("hello", c.getTextValue());
+        }
+    }
+
+    @Test
+    void testHandOver() throws Exception {
+        assumeTrue(assertionsEnabled());
+
+        XmlObject doc = XmlObject.Factory.parse(XML, UNSYNCHRONIZED);
+        doc.confineDocumentTo(Thread.currentThread());
+
+        AtomicReference<String> text = new AtomicReference<>();
+        Thread next = new Thread(() -> text.set(doc.xmlText()));
+        doc.confineDocumentTo(next);
+
+        assertNull(runInThread(next));
+        assertEquals(XML, text.get());
+        assertThrows(AssertionError.class, doc::xmlText);
+
+        // lifting the confinement allows any thread again
+        doc.confineDocumentTo(null);
+        assertNull(runInThread(new Thread(doc::xmlText)));
+        assertEquals(XML, doc.xmlText());
+    }
+
+    @Test
+    void testUnconfinedDocument() throws XmlException, InterruptedException {
+        XmlObject doc = XmlObject.Factory.parse(XML);
+        assertNull(runInThread(new Thread(doc::xmlText)));
+        assertEquals(XML, doc.xmlText());
+    }
+}
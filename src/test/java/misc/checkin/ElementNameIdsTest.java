@@ -0,0 +1,62 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package misc.checkin;
+
+import org.apache.xmlbeans.impl.values.ElementNameIds;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.namespace.QName;
+import java.lang.ref.WeakReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ElementNameIdsTest {
+    private static final String NS = "http://xbean.test/ElementNameIds";
+
+    @Test
+    void testRegister() {
+        QName[] names = {new QName(NS, "a"), new QName(NS, "b")};
+        int[] ids = ElementNameIds.register(names);
+
+        assertTrue(ids[0] > 0);
+        assertTrue(ids[1] > 0);
+        assertNotEquals(ids[0], ids[1]);
+
+        // the array now holds the registered names
+        assertSame(names[0], ElementNameIds.lookup(new QName(NS, "a", "p")));
+        assertEquals(ids[1], ElementNameIds.idOf(new QName(NS, "b")));
+        assertArrayEquals(ids, ElementNameIds.register(new QName(NS, "a"), new QName(NS, "b")));
+
+        assertEquals(ElementNameIds.UNREGISTERED, ElementNameIds.idOf(new QName(NS, "c")));
+    }
+
+    @Test
+    void testUnreachableNamesAreReleased() throws InterruptedException {
+        QName[] names = {new QName(NS, "released")};
+        ElementNameIds.register(names);
+        WeakReference<QName> registered = new WeakReference<>(names[0]);
+        //noinspection UnusedAssignment
+        names = null;
+
+        for (int i = 0; i < 50 && registered.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertNull(registered.get());
+        assertEquals(ElementNameIds.UNREGISTERED, ElementNameIds.idOf(new QName(NS, "released")));
+    }
+}
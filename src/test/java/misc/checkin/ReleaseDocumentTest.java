@@ -0,0 +1,169 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package misc.checkin;
+
+import org.apache.xmlbeans.XmlBase64Binary;
+import org.apache.xmlbeans.XmlBeans;
+import org.apache.xmlbeans.XmlCursor;
+import org.apache.xmlbeans.XmlException;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Node;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReleaseDocumentTest {
+    private static final String XML = "<r a='attr'><x>hello world</x><y>some more text</y></r>";
+
+    private static final XmlOptions POOLED = new XmlOptions().setLoadUseCharBufferPool();
+
+    @Test
+    void testReleasedDocumentCanNotBeRead() throws XmlException {
+        XmlObject doc = XmlObject.Factory.parse(XML, POOLED);
+        assertEquals(XmlObject.Factory.parse(XML).xmlText(), doc.xmlText());
+
+        XmlCursor c = doc.newCursor();
+        c.toFirstChild();
+        Node text = doc.getDomNode().getFirstChild().getFirstChild().getFirstChild();
+
+        doc.releaseDocument();
+        // releasing again does nothing
+        doc.releaseDocument();
+
+        assertThrows(IllegalStateException.class, doc::xmlText);
+        assertThrows(IllegalStateException.class, c::getTextValue);
+        assertThrows(IllegalStateException.class, text::getNodeValue);
+
+        // cursors can still be closed
+        c.close();
+    }
+
+    @Test
+    void testReleasedDocumentFailsRepeatedly() throws XmlException {
+        XmlObject doc = XmlObject.Factory.parse(XML);
+        XMLStreamReader reader = doc.newXMLStreamReader();
+
+        doc.releaseDocument();
+
+        // each failed call leaves the document as it was, so the next one fails the same way
+        for (int i = 0; i < 20; i++) {
+            assertThrows(IllegalStateException.class, doc::xmlText);
+            assertThrows(IllegalStateException.class, reader::next);
+        }
+    }
+
+    @Test
+    void testReleaseLeavesOtherDocumentsAlone() throws XmlException {
+        XmlObject doc = XmlObject.Factory.parse(XML, POOLED);
+        XmlObject copied = XmlObject.Factory.parse("<o/>");
+        XmlObject moved = XmlObject.Factory.parse("<o/>");
+
+        try (XmlCursor c = doc.newCursor(); XmlCursor o = copied.newCursor(); XmlCursor m = moved.newCursor()) {
+            c.toFirstChild();
+            c.toFirstChild();
+            o.toFirstChild();
+            o.toEndToken();
+            c.copyXml(o);
+
+            c.toNextSibling();
+            m.toFirstChild();
+            m.toEndToken();
+            c.moveXml(m);
+        }
+
+        doc.releaseDocument();
+
+        // documents loaded afterwards must not overwrite the text still in use
+        for (int i = 0; i < 10; i++) {
+            XmlObject next = XmlObject.Factory.parse("<z>" + i + "zzzzzzzzzzzzzzzzzzzzzzzzzzzzzzzz</z>", POOLED);
+            assertEquals("<z>" + i + "zzzzzzzzzzzzzzzzzzzzzzzzzzzzzzzz</z>", next.xmlText());
+        }
+
+        assertEquals("<o><x>hello world</x></o>", copied.xmlText());
+        assertEquals("<o><y>some more text</y></o>", moved.xmlText());
+    }
+
+    @Test
+    void testPooledDocumentsAreEditable() throws XmlException {
+        for (int i = 0; i < 100; i++) {
+            XmlObject doc = XmlObject.Factory.parse(XML, POOLED);
+
+            try (XmlCursor c = doc.newCursor()) {
+                c.toFirstChild();
+                c.toFirstChild();
+                c.setTextValue("changed " + i);
+                c.insertChars("before");
+            }
+
+            assertEquals("<r a=\"attr\">before<x>changed " + i + "</x><y>some more text</y></r>", doc.xmlText());
+
+            doc.releaseDocument();
+        }
+    }
+
+    private static XmlBase64Binary parseBase64(String encoded) throws XmlException {
+        return (XmlBase64Binary) XmlBeans.getContextTypeLoader().parse(
+            "<xml-fragment>" + encoded + "</xml-fragment>", XmlBase64Binary.type, POOLED);
+    }
+
+    @Test
+    void testOpenValueStreamOutlivesRelease() throws XmlException, IOException {
+        byte[] bytes = "the bytes of the released document".getBytes(StandardCharsets.US_ASCII);
+        String encoded = Base64.getEncoder().encodeToString(bytes);
+        XmlBase64Binary value = parseBase64(encoded);
+
+        InputStream in = value.getInputStreamValue();
+        value.releaseDocument();
+
+        // loaded into the buffers the released document would have given back
+        String other = Base64.getEncoder().encodeToString("something else entirely, of the same length"
+            .substring(0, bytes.length).getBytes(StandardCharsets.US_ASCII));
+        XmlBase64Binary next = parseBase64(other);
+        assertEquals(bytes.length, next.getByteArrayValue().length);
+
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        byte[] buf = new byte[7];
+        for (int n; (n = in.read(buf)) > 0; ) {
+            read.write(buf, 0, n);
+        }
+        assertArrayEquals(bytes, read.toByteArray());
+    }
+
+    @Test
+    void testBatchedReaderFailsAfterRelease() throws XmlException {
+        XmlObject doc = XmlObject.Factory.parse(XML, POOLED);
+        XMLStreamReader reader = doc.newXMLStreamReader(new XmlOptions().setSaveStreamReaderBatchSize(16));
+
+        while (reader.getEventType() != XMLStreamConstants.CHARACTERS) {
+            assertDoesNotThrow(reader::next);
+        }
+
+        doc.releaseDocument();
+        XmlObject.Factory.parse("<z>zzzzzzzzzzzzzzzzzzzzzzzzz</z>", POOLED);
+
+        // the events of the batch are recorded, but their chars may belong to the other document
+        assertThrows(IllegalStateException.class, reader::getTextCharacters);
+        assertThrows(IllegalStateException.class, reader::getText);
+    }
+}
@@ -16,9 +16,12 @@
 package misc.checkin;
 
 import org.apache.xmlbeans.*;
+import org.apache.xmlbeans.impl.common.InvalidLexicalValueException;
+import org.apache.xmlbeans.impl.richParser.SchemaXMLStreamReader;
 import org.apache.xmlbeans.impl.richParser.XMLStreamReaderExt;
 import org.apache.xmlbeans.impl.richParser.XMLStreamReaderExtImpl;
 import org.junit.jupiter.api.Test;
+import org.openuri.testNumerals.DocDocument;
 import tools.util.JarUtil;
 
 import javax.xml.namespace.QName;
@@ -30,12 +33,15 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringReader;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.Calendar;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 
 
 /**
@@ -66,6 +72,57 @@ public class RichParserTests {
         }
     }
 
+    @Test
+    void testSchemaTypedValues() throws Exception {
+        String xml = "<doc xmlns='http://openuri.org/testNumerals' xmlns:t='http://openuri.org/testNumerals'>" +
+            "<int> 12 </int><string> a  b </string><boolean>1</boolean><QName>t:x</QName><decimal>1.50</decimal>" +
+            "</doc>";
+
+        XMLStreamReader xsr = XMLInputFactory.newInstance().createXMLStreamReader(new StringReader(xml));
+        SchemaXMLStreamReader sxsr = new SchemaXMLStreamReader(xsr, null);
+        List<XmlAnySimpleType> values = new ArrayList<>();
+
+        while (sxsr.hasNext()) {
+            if (sxsr.next() == XMLEvent.START_ELEMENT && sxsr.getElementType().isSimpleType()) {
+                values.add(sxsr.getSimpleValue());
+                assertEquals(XMLEvent.END_ELEMENT, sxsr.getEventType());
+            }
+        }
+
+        assertEquals(DocDocument.type, sxsr.getDocumentType());
+        assertEquals(5, values.size());
+        assertEquals(12, ((XmlInt) values.get(0)).getIntValue());
+        assertEquals(" a  b ", ((XmlString) values.get(1)).getStringValue());
+        assertTrue(((XmlBoolean) values.get(2)).getBooleanValue());
+        assertEquals(new QName("http://openuri.org/testNumerals", "x"), ((XmlQName) values.get(3)).getQNameValue());
+        assertEquals(new BigDecimal("1.50"), ((XmlDecimal) values.get(4)).getBigDecimalValue());
+    }
+
+    @Test
+    void testSchemaTypedValidation() throws Exception {
+        String xml = "<doc xmlns='http://openuri.org/testNumerals'><long>7</long><int>x</int><unknown/></doc>";
+
+        XMLStreamReader xsr = XMLInputFactory.newInstance().createXMLStreamReader(new StringReader(xml));
+        List<XmlError> errors = new ArrayList<>();
+        SchemaXMLStreamReader sxsr = new SchemaXMLStreamReader(xsr, DocDocument.type, null, null, errors);
+
+        sxsr.nextTag();
+        assertEquals(DocDocument.type.getElementProperties()[0].getType(), sxsr.getElementType());
+        sxsr.nextTag();
+        assertEquals(XmlLong.type, sxsr.getElementType());
+        assertEquals(7L, ((XmlLong) sxsr.getSimpleValue()).getLongValue());
+        sxsr.nextTag();
+        assertThrows(InvalidLexicalValueException.class, sxsr::getSimpleValue);
+        sxsr.nextTag();
+        assertNull(sxsr.getElementType());
+
+        while (sxsr.hasNext()) {
+            sxsr.next();
+        }
+
+        assertFalse(errors.isEmpty());
+    }
+
     private static final String[] strings = {
         "    this is a long string ... in attribute  ",
         "    this is a long string\n... in text  "};
@@ -0,0 +1,162 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package misc.checkin;
+
+import org.apache.xmlbeans.XmlCursor;
+import org.apache.xmlbeans.XmlDecimal;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.impl.store.TreeDiff;
+import org.apache.xmlbeans.impl.store.TreeDiff.Edit;
+import org.apache.xmlbeans.impl.store.TreeDiff.Kind;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.namespace.QName;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TreeDiffTest {
+
+    @Test
+    void testEqualTrees() throws Exception {
+        XmlObject a = XmlObject.Factory.parse("<r xmlns:p='urn:p' a='1'><p:i>1</p:i><!--c--><j>x<?pi?>y</j></r>");
+        XmlObject b = XmlObject.Factory.parse("<r xmlns:q='urn:p' a='1'>\n  <q:i>1</q:i>\n  <j>xy</j>\n</r>");
+
+        assertTrue(TreeDiff.diff(a, b, false).isEmpty());
+        assertTrue(TreeDiff.diff(a, a.copy(), false).isEmpty());
+    }
+
+    @Test
+    void testAttributes() throws Exception {
+        XmlObject a = XmlObject.Factory.parse("<r a='1' b='2'/>");
+        XmlObject b = XmlObject.Factory.parse("<r a='3' c='4'/>");
+
+        List<Edit> edits = TreeDiff.diff(a, b, false);
+
+        assertEquals(3, edits.size());
+        assertEdit(edits.get(0), Kind.ATTRIBUTE_CHANGED, "/r[1]/@a", "1", "3");
+        assertEdit(edits.get(1), Kind.ATTRIBUTE_REMOVED, "/r[1]/@b", "2", null);
+        assertEdit(edits.get(2), Kind.ATTRIBUTE_ADDED, "/r[1]/@c", null, "4");
+    }
+
+    @Test
+    void testInsertedSiblingIsAligned() throws Exception {
+        XmlObject a = XmlObject.Factory.parse("<r><i>1</i><i>2</i><i>3</i><i>4</i></r>");
+        XmlObject b = XmlObject.Factory.parse("<r><i>1</i><i>new</i><i>2</i><i>3</i><i>5</i></r>");
+
+        List<Edit> edits = TreeDiff.diff(a, b, false);
+
+        assertEquals(2, edits.size());
+        assertEdit(edits.get(0), Kind.ELEMENT_ADDED, "/r[1]/i[2]", null, null);
+        assertEdit(edits.get(1), Kind.TEXT_CHANGED, "/r[1]/i[4]/text()", "4", "5");
+    }
+
+    @Test
+    void testRemovedElementAndMixedText() throws Exception {
+        XmlObject a = XmlObject.Factory.parse("<r>a<x/><y/></r>");
+        XmlObject b = XmlObject.Factory.parse("<r>a<y/>c</r>");
+
+        List<Edit> edits = TreeDiff.diff(a, b, false);
+
+        assertEquals(2, edits.size());
+        assertEdit(edits.get(0), Kind.ELEMENT_REMOVED, "/r[1]/x[1]", null, null);
+        assertEdit(edits.get(1), Kind.TEXT_CHANGED, "/r[1]/text()", "", "c");
+    }
+
+    @Test
+    void testValueEquality() throws Exception {
+        XmlObject a = XmlDecimal.Factory.parse("<xml-fragment>1.0</xml-fragment>");
+        XmlObject b = XmlDecimal.Factory.parse("<xml-fragment>1</xml-fragment>");
+
+        assertEquals(1, TreeDiff.diff(a, b, false).size());
+        assertTrue(TreeDiff.diff(a, b, true).isEmpty());
+    }
+
+    @Test
+    void testCursors() throws Exception {
+        XmlObject a = XmlObject.Factory.parse("<r><s><t>1</t></s></r>");
+        XmlObject b = XmlObject.Factory.parse("<q><s><t>2</t></s></q>");
+
+        try (XmlCursor ca = a.newCursor(); XmlCursor cb = b.newCursor()) {
+            ca.toFirstChild();
+            ca.toFirstChild();
+            cb.toFirstChild();
+            assertEdit(TreeDiff.diff(ca, cb, false).get(0), Kind.ELEMENT_REMOVED, "/s", null, null);
+
+            cb.toFirstChild();
+            List<Edit> edits = TreeDiff.diff(ca, cb, false);
+            assertEquals(1, edits.size());
+            assertEdit(edits.get(0), Kind.TEXT_CHANGED, "/s/t[1]/text()", "1", "2");
+
+            ca.toEndToken();
+            assertThrows(IllegalStateException.class, () -> TreeDiff.diff(ca, cb, false));
+        }
+    }
+
+    @Test
+    void testEqualHashesAreConfirmed() throws Exception {
+        // "Aa" and "BB" hash the same, char by char
+        XmlObject a = XmlObject.Factory.parse("<r><i a='Aa'/><j>Aa</j></r>");
+        XmlObject b = XmlObject.Factory.parse("<r><i a='BB'/><j>BB</j></r>");
+
+        List<Edit> edits = TreeDiff.diff(a, b, false);
+
+        assertEquals(2, edits.size());
+        assertEdit(edits.get(0), Kind.ATTRIBUTE_CHANGED, "/r[1]/i[1]/@a", "Aa", "BB");
+        assertEdit(edits.get(1), Kind.TEXT_CHANGED, "/r[1]/j[1]/text()", "Aa", "BB");
+    }
+
+    @Test
+    void testDeepDocument() throws Exception {
+        XmlObject a = deepDocument(100000);
+        XmlObject b = deepDocument(100000);
+
+        assertTrue(TreeDiff.diff(a, b, false).isEmpty());
+
+        try (XmlCursor c = b.newCursor()) {
+            c.toFirstChild();
+            c.setAttributeText(new QName("x"), "1");
+        }
+
+        List<Edit> edits = TreeDiff.diff(a, b, false);
+
+        assertEquals(1, edits.size());
+        assertEdit(edits.get(0), Kind.ATTRIBUTE_ADDED, "/e[1]/@x", null, "1");
+    }
+
+    private static XmlObject deepDocument(int depth) {
+        XmlObject o = XmlObject.Factory.newInstance();
+
+        try (XmlCursor c = o.newCursor()) {
+            c.toNextToken();
+
+            for (int i = 0; i < depth; i++) {
+                c.beginElement("e");
+            }
+
+            c.insertChars("bottom");
+        }
+
+        return o;
+    }
+
+    private static void assertEdit(Edit edit, Kind kind, String path, String oldValue, String newValue) {
+        assertEquals(kind, edit.getKind());
+        assertEquals(path, edit.getPath());
+        assertEquals(oldValue, edit.getOldValue());
+        assertEquals(newValue, edit.getNewValue());
+    }
+}
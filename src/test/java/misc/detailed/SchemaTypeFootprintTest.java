@@ -0,0 +1,109 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package misc.detailed;
+
+import org.apache.xmlbeans.SchemaProperty;
+import org.apache.xmlbeans.SchemaType;
+import org.apache.xmlbeans.SchemaTypeSystem;
+import org.apache.xmlbeans.XmlAnySimpleType;
+import org.junit.jupiter.api.Test;
+import org.tranxml.tranXML.version40.CarLocationMessageDocument;
+
+import javax.xml.namespace.QName;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the loaded type graph of the tranXML schemas, whose many components repeat
+ * the same names and facet values, which are only kept once per type system.
+ */
+public class SchemaTypeFootprintTest {
+    private static List<SchemaType> allTypes(SchemaTypeSystem sts) {
+        List<SchemaType> result = new ArrayList<>();
+        List<SchemaType> todo = new ArrayList<>();
+        todo.addAll(Arrays.asList(sts.globalTypes()));
+        todo.addAll(Arrays.asList(sts.documentTypes()));
+        todo.addAll(Arrays.asList(sts.attributeTypes()));
+        while (!todo.isEmpty()) {
+            SchemaType type = todo.remove(todo.size() - 1);
+            result.add(type);
+            todo.addAll(Arrays.asList(type.getAnonymousTypes()));
+        }
+        return result;
+    }
+
+    @Test
+    void testSharedFacetValues() {
+        Map<List<Object>, XmlAnySimpleType> values = new HashMap<>();
+        int shared = 0;
+        for (SchemaType type : allTypes(CarLocationMessageDocument.type.getTypeSystem())) {
+            for (int facet = 0; facet <= SchemaType.LAST_BASIC_FACET; facet++) {
+                XmlAnySimpleType value = type.getFacet(facet);
+                // values of the built-in types are read with the same type reference
+                if (value == null || !value.schemaType().isBuiltinType()) {
+                    continue;
+                }
+                XmlAnySimpleType first = values.putIfAbsent(Arrays.asList(value.schemaType(), value.getStringValue()), value);
+                if (first != null) {
+                    assertSame(first, value, type + " facet " + facet);
+                    shared++;
+                }
+            }
+        }
+        assertTrue(shared > 0);
+    }
+
+    @Test
+    void testPropertiesByName() {
+        for (SchemaType type : allTypes(CarLocationMessageDocument.type.getTypeSystem())) {
+            SchemaProperty[] elements = type.getElementProperties();
+            for (SchemaProperty prop : elements) {
+                assertSame(prop, type.getElementProperty(prop.getName()), type + " " + prop.getName());
+            }
+            for (SchemaProperty prop : type.getAttributeProperties()) {
+                assertSame(prop, type.getAttributeProperty(prop.getName()), type + " " + prop.getName());
+            }
+            assertNull(type.getElementProperty(new QName("urn:unknown", "unknown")));
+
+            // the returned array is a copy
+            if (elements.length > 0) {
+                elements[0] = null;
+                assertNotNull(type.getElementProperties()[0]);
+            }
+        }
+    }
+
+    @Test
+    void testSharedNames() {
+        Map<QName, QName> names = new HashMap<>();
+        int shared = 0;
+        for (SchemaType type : allTypes(CarLocationMessageDocument.type.getTypeSystem())) {
+            for (SchemaProperty prop : type.getElementProperties()) {
+                QName first = names.putIfAbsent(prop.getName(), prop.getName());
+                if (first != null) {
+                    assertSame(first, prop.getName(), type + " " + prop.getName());
+                    shared++;
+                }
+            }
+        }
+        assertTrue(shared > 0);
+    }
+}
@@ -0,0 +1,172 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package xmlcursor.checkin;
+
+import org.apache.xmlbeans.XmlCursor;
+import org.apache.xmlbeans.XmlCursor.TokenType;
+import org.apache.xmlbeans.XmlException;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+
+import javax.xml.namespace.QName;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeferredLoadTest {
+    private static final String XML =
+        "<env xmlns='urn:env' xmlns:p='urn:p'>\n" +
+        "  <head id='h'><p:title>Title</p:title></head>\n" +
+        "  <!-- body follows -->\n" +
+        "  <body a='1'>text <item id='i1' p:x='y'>one<![CDATA[<two>]]></item>\n" +
+        "    <?pi data?>\n" +
+        "    <item id='i2'><deep><deeper>three</deeper></deep></item>tail</body>\n" +
+        "</env>";
+
+    private static XmlOptions options(int depth) {
+        return new XmlOptions().setLoadDeferSubtreeDepth(depth);
+    }
+
+    @Test
+    void testSameDocument() throws XmlException {
+        XmlObject eager = XmlObject.Factory.parse(XML);
+
+        for (int depth = 1; depth <= 4; depth++) {
+            assertEquals(eager.xmlText(), XmlObject.Factory.parse(XML, options(depth)).xmlText());
+            assertEquals(tokens(eager), tokens(XmlObject.Factory.parse(XML, options(depth))));
+        }
+
+        XmlOptions names = new XmlOptions().setLoadDeferSubtreeNames(
+            Collections.singleton(new QName("urn:env", "item")));
+        assertEquals(eager.xmlText(), XmlObject.Factory.parse(XML, names).xmlText());
+    }
+
+    @Test
+    void testStrippingOptions() throws XmlException {
+        XmlOptions strip = new XmlOptions().setLoadStripWhitespace().setLoadStripComments().setLoadStripProcinsts();
+        XmlObject eager = XmlObject.Factory.parse(XML, strip);
+
+        for (int depth = 1; depth <= 3; depth++) {
+            XmlOptions lazy = new XmlOptions(strip).setLoadDeferSubtreeDepth(depth);
+            assertEquals(eager.xmlText(), XmlObject.Factory.parse(XML, lazy).xmlText());
+        }
+    }
+
+    @Test
+    void testNavigation() throws XmlException {
+        XmlObject doc = XmlObject.Factory.parse(XML, options(2));
+
+        try (XmlCursor c = doc.newCursor()) {
+            assertTrue(c.toFirstChild());
+            assertTrue(c.toChild(new QName("urn:env", "body")));
+            assertEquals("1", c.getAttributeText(new QName("a")));
+            assertEquals("text one<two>\n    \n    threetail", c.getTextValue());
+
+            // walking backwards from the end sees the same tokens
+            c.toEndToken();
+            assertEquals(TokenType.TEXT, c.toPrevToken());
+            assertEquals("tail", c.getChars());
+            assertEquals(TokenType.END, c.toPrevToken());
+        }
+
+        // the contents can be edited and copied like any other
+        XmlObject other = XmlObject.Factory.parse(XML, options(2));
+        try (XmlCursor c = other.newCursor(); XmlCursor d = doc.newCursor()) {
+            c.toFirstChild();
+            c.toLastChild();
+            c.removeXmlContents();
+            c.toEndToken();
+            d.toFirstChild();
+            d.toLastChild();
+            d.toFirstChild();
+            d.copyXmlContents(c);
+        }
+        try (XmlCursor c = other.newCursor()) {
+            c.toFirstChild();
+            c.toLastChild();
+            assertEquals("one<two>", c.getTextValue());
+        }
+    }
+
+    @Test
+    void testDom() throws XmlException {
+        XmlObject eager = XmlObject.Factory.parse(XML);
+        Document lazy = (Document) XmlObject.Factory.parse(XML, options(1)).getDomNode();
+
+        Node body = lazy.getDocumentElement().getLastChild().getPreviousSibling();
+        assertEquals("body", body.getLocalName());
+        assertEquals(7, body.getChildNodes().getLength());
+        assertEquals("tail", body.getLastChild().getNodeValue());
+
+        assertNotNull(lazy.getElementById("i2"));
+        assertEquals(eager.xmlText(), XmlObject.Factory.parse(lazy).xmlText());
+
+        // ID attributes declared by the DTD apply to the deferred contents as well
+        String dtd =
+            "<!DOCTYPE doc [<!ATTLIST item key ID #IMPLIED>]>" +
+            "<doc><list><item key='k1'/><item id='k2'/></list></doc>";
+        Document withDtd = (Document) XmlObject.Factory.parse(dtd, options(1)).getDomNode();
+        assertNotNull(withDtd.getElementById("k1"));
+        assertNull(withDtd.getElementById("k2"));
+    }
+
+    @Test
+    void testDomElementsByTagName() throws XmlException {
+        Document eager = (Document) XmlObject.Factory.parse(XML).getDomNode();
+
+        for (int depth = 1; depth <= 3; depth++) {
+            Document lazy = (Document) XmlObject.Factory.parse(XML, options(depth)).getDomNode();
+
+            // twice, the second query of an unchanged document goes through its index
+            for (int i = 0; i < 2; i++) {
+                assertEquals(0, lazy.getElementsByTagName("none").getLength());
+                assertEquals(1, lazy.getElementsByTagName("p:title").getLength());
+                assertEquals(2, lazy.getElementsByTagNameNS("urn:env", "item").getLength());
+                assertEquals(1, lazy.getElementsByTagNameNS("*", "deeper").getLength());
+                assertEquals(eager.getElementsByTagName("*").getLength(), lazy.getElementsByTagName("*").getLength());
+            }
+
+            Node body = lazy.getElementsByTagName("body").item(0);
+            body.appendChild(lazy.createElementNS("urn:env", "item"));
+            assertEquals(3, lazy.getElementsByTagNameNS("urn:env", "item").getLength());
+            assertEquals(3, lazy.getElementsByTagNameNS("urn:env", "item").getLength());
+            assertEquals("deeper", lazy.getElementsByTagName("deeper").item(0).getNodeName());
+        }
+    }
+
+    @Test
+    void testSelectPath() throws XmlException {
+        XmlObject doc = XmlObject.Factory.parse(XML, options(2));
+        XmlObject[] items = doc.selectPath("declare namespace e='urn:env' .//e:item");
+        assertEquals(2, items.length);
+        assertEquals("three", items[1].newCursor().getTextValue());
+    }
+
+    private static String tokens(XmlObject o) {
+        StringBuilder sb = new StringBuilder();
+
+        try (XmlCursor c = o.newCursor()) {
+            for (TokenType t = c.currentTokenType(); !t.isNone(); t = c.toNextToken()) {
+                sb.append(t).append(t.isText() ? c.getChars() : "").append(t.isStart() ? c.getName() : "");
+            }
+        }
+
+        return sb.toString();
+    }
+}
@@ -0,0 +1,95 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package xmlcursor.checkin;
+
+import org.apache.xmlbeans.XmlCursor;
+import org.apache.xmlbeans.XmlCursor.TokenBuffer;
+import org.apache.xmlbeans.XmlCursor.TokenType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static xmlcursor.common.BasicCursorTestCase.cur;
+
+public class ToNextTokensTest {
+
+    private static final String XML =
+        "<foo xmlns:x=\"urn:x\" a=\"1\"><!--c--><x:bar>text</x:bar><bar>more</bar><?pi data?></foo>";
+
+    @Test
+    void testMatchesToNextToken() throws Exception {
+        try (XmlCursor single = cur(XML); XmlCursor batched = cur(XML)) {
+            TokenBuffer buf = new TokenBuffer(3);
+
+            int n;
+            while ((n = batched.toNextTokens(buf)) > 0) {
+                for (int i = 0; i < n; i++) {
+                    TokenType t = single.toNextToken();
+                    assertEquals(t.intValue(), buf.tokenTypes()[i]);
+
+                    int id = buf.nameIds()[i];
+                    if (single.getName() == null) {
+                        assertEquals(-1, id);
+                    } else {
+                        assertEquals(single.getName(), buf.getName(id));
+                        assertEquals(single.getName().getPrefix(), buf.getName(id).getPrefix());
+                    }
+
+                    if (t.isText()) {
+                        assertEquals(single.getChars(), buf.getText(i));
+                    } else if (t.isAttr() || t.isComment() || t.isProcinst()) {
+                        assertEquals(single.getTextValue(), buf.getText(i));
+                    } else {
+                        assertNull(buf.getText(i));
+                    }
+                }
+                assertTrue(single.isAtSamePositionAs(batched));
+            }
+
+            assertEquals(TokenType.NONE, single.toNextToken());
+        }
+    }
+
+    @Test
+    void testNameIdsAreStable() throws Exception {
+        try (XmlCursor xc = cur(XML)) {
+            TokenBuffer buf = new TokenBuffer(64);
+            int n = xc.toNextTokens(buf);
+
+            int first = -1;
+            int second = -1;
+            for (int i = 0; i < n; i++) {
+                if (buf.tokenTypes()[i] == TokenType.INT_START && buf.getName(buf.nameIds()[i]).getLocalPart().equals("bar")) {
+                    if (first < 0) {
+                        first = buf.nameIds()[i];
+                    } else {
+                        second = buf.nameIds()[i];
+                    }
+                }
+            }
+
+            // x:bar and bar differ in namespace, so they get different ids
+            assertNotEquals(first, second);
+            assertTrue(buf.getNameCount() > second);
+            assertEquals(TokenType.ENDDOC, xc.currentTokenType());
+            assertEquals(0, xc.toNextTokens(buf));
+        }
+    }
+
+    @Test
+    void testInvalidCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBuffer(0));
+    }
+}
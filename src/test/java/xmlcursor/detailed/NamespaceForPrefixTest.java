@@ -124,5 +124,41 @@ public class NamespaceForPrefixTest {
             assertThrows(IllegalStateException.class, () -> m_xc.namespaceForPrefix(null));
         }
     }
-}
 
+    @Test
+    void testNamespaceForPrefixAfterChanges() throws Exception {
+        try (XmlCursor m_xc = cur("<r xmlns:p=\"uri1\"><a><b/></a><c xmlns:p=\"uri2\"/></r>");
+             XmlCursor xc2 = m_xc.newCursor()) {
+            m_xc.toFirstChild();
+            m_xc.toFirstChild();
+            m_xc.toFirstChild();
+            assertEquals("uri1", m_xc.namespaceForPrefix("p"));
+            assertEquals("uri1", m_xc.namespaceForPrefix("p"));
+            assertNull(m_xc.namespaceForPrefix("q"));
+
+            // a closer declaration
+            xc2.toFirstChild();
+            xc2.toFirstChild();
+            xc2.toNextToken();
+            xc2.insertNamespace("p", "uri3");
+            assertEquals("uri3", m_xc.namespaceForPrefix("p"));
+
+            // moved into the scope of another declaration
+            xc2.toParent();
+            xc2.toNextSibling();
+            xc2.toEndToken();
+            m_xc.moveXml(xc2);
+            xc2.toParent();
+            xc2.toFirstChild();
+            assertEquals("uri2", xc2.namespaceForPrefix("p"));
+
+            // the declaration removed again
+            xc2.toParent();
+            xc2.toNextToken();
+            assertTrue(xc2.isNamespace());
+            xc2.removeXml();
+            xc2.toFirstChild();
+            assertEquals("uri1", xc2.namespaceForPrefix("p"));
+        }
+    }
+}
@@ -21,6 +21,8 @@ import org.apache.xmlbeans.XmlOptions;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 
 import static common.Common.P;
 import static common.Common.XBEAN_CASE_ROOT;
@@ -159,4 +161,112 @@ public class XmlLineNumberTest {
             assertEquals(-1, ln.getOffset());
         }
     }
+
+    /**
+     * test that the line numbers kept aside during the load are the same bookmarks
+     * for the bookmark queries, and stay with their content once the document is modified
+     */
+    @Test
+    void testLineNumbersAfterChange() throws Exception {
+        XmlOptions opt = new XmlOptions().setLoadLineNumbersEndElement();
+        XmlObject xo = XmlObject.Factory.parse(XML, opt);
+
+        try (XmlCursor c = xo.newCursor()) {
+            int count = 0;
+            while (c.toNextBookmark(XmlLineNumber.class) != null) {
+                count++;
+            }
+            // start and end of the 5 elements
+            assertEquals(10, count);
+
+            c.toStartDoc();
+            c.toFirstChild();
+            c.toFirstChild();
+            List<Object> refs = new ArrayList<>();
+            c.getAllBookmarkRefs(refs);
+            assertEquals(2, refs.size());
+            assertTrue(refs.contains(c.getBookmark(XmlLineNumber.class)));
+
+            // insert an element in front of <name>, the existing line numbers must not move
+            c.toFirstChild();
+            c.beginElement("inserted");
+            c.toParent();
+            c.toNextSibling();
+            XmlLineNumber ln = (XmlLineNumber) c.getBookmark(XmlLineNumber.class);
+            assertEquals(2, ln.getLine());
+            assertEquals(10, ln.getColumn());
+
+            // and they follow the element when it is moved elsewhere
+            try (XmlCursor dest = xo.newCursor()) {
+                dest.toFirstChild();
+                dest.toEndToken();
+                c.moveXml(dest);
+
+                dest.toStartDoc();
+                dest.toFirstChild();
+                dest.toLastChild();
+                assertEquals("name", dest.getName().getLocalPart());
+                ln = (XmlLineNumber) dest.getBookmark(XmlLineNumber.class);
+                assertEquals(2, ln.getLine());
+                dest.toFirstChild();
+                ln = (XmlLineNumber) dest.getBookmark(XmlLineNumber.class);
+                assertEquals(3, ln.getLine());
+                assertEquals(14, ln.getColumn());
+            }
+
+            c.toStartDoc();
+            c.toFirstChild();
+            c.toFirstChild();
+            c.toFirstChild();
+            assertEquals("inserted", c.getName().getLocalPart());
+            assertNull(c.getBookmark(XmlLineNumber.class));
+        }
+    }
+
+    /**
+     * test that text edits keep the line numbers of the surrounding elements, and that
+     * the line numbers go along when an element is moved into another document
+     */
+    @Test
+    void testLineNumbersAfterTextChangeAndMoveOut() throws Exception {
+        XmlOptions opt = new XmlOptions().setLoadLineNumbers();
+        XmlObject xo = XmlObject.Factory.parse(XML, opt);
+
+        try (XmlCursor c = xo.newCursor()) {
+            c.toFirstChild();
+            c.toFirstChild();
+            c.toFirstChild();
+            c.toFirstChild();
+            assertEquals("first_name", c.getName().getLocalPart());
+            c.setTextValue("Alan Mathison");
+            c.toNextSibling();
+            c.insertChars("x");
+            assertEquals("last_name", c.getName().getLocalPart());
+
+            XmlObject other = XmlObject.Factory.parse("<other/>");
+            try (XmlCursor dest = other.newCursor()) {
+                dest.toFirstChild();
+                dest.toEndToken();
+                c.toParent();
+                assertEquals("name", c.getName().getLocalPart());
+                c.moveXml(dest);
+
+                dest.toStartDoc();
+                dest.toFirstChild();
+                dest.toFirstChild();
+                assertEquals("name", dest.getName().getLocalPart());
+                XmlLineNumber ln = (XmlLineNumber) dest.getBookmark(XmlLineNumber.class);
+                assertEquals(2, ln.getLine());
+                dest.toLastChild();
+                ln = (XmlLineNumber) dest.getBookmark(XmlLineNumber.class);
+                assertEquals(4, ln.getLine());
+            }
+
+            c.toStartDoc();
+            c.toFirstChild();
+            c.toFirstChild();
+            XmlLineNumber ln = (XmlLineNumber) c.getBookmark(XmlLineNumber.class);
+            assertEquals(1, ln.getLine());
+        }
+    }
 }
@@ -0,0 +1,167 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package xmlcursor.jsr173.common;
+
+import org.apache.xmlbeans.XmlCursor;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+import java.util.ConcurrentModificationException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchedReaderTest {
+
+    private static final String DOC =
+        "<?xml-stylesheet href=\"style.xsl\"?>" +
+        "<a:root xmlns:a=\"urn:a\" xmlns=\"urn:def\" x=\"1\" a:y=\"two\">" +
+        "<!-- comment -->text<b z=\"\"/>  <c xmlns:q=\"urn:q\" q:w=\"w\">more text</c>" +
+        "<?pi data?><d>last</d>" +
+        "</a:root>";
+
+    @ParameterizedTest
+    @ValueSource(ints = {2, 3, 64})
+    void testSameEventsAsUnbatched(int batchSize) throws Exception {
+        XmlObject o = XmlObject.Factory.parse(DOC);
+
+        XMLStreamReader expected = o.newXMLStreamReader();
+        XMLStreamReader actual = o.newXMLStreamReader(new XmlOptions().setSaveStreamReaderBatchSize(batchSize));
+
+        for (; ; ) {
+            assertEquals(expected.getEventType(), actual.getEventType());
+            compareEvent(expected, actual);
+
+            assertEquals(expected.hasNext(), actual.hasNext());
+            if (!expected.hasNext()) {
+                break;
+            }
+
+            assertEquals(expected.next(), actual.next());
+        }
+
+        assertThrows(IllegalStateException.class, actual::next);
+    }
+
+    private static void compareEvent(XMLStreamReader expected, XMLStreamReader actual) {
+        int type = expected.getEventType();
+
+        assertEquals(expected.hasName(), actual.hasName());
+        assertEquals(expected.hasText(), actual.hasText());
+        assertEquals(expected.getPITarget(), actual.getPITarget());
+        assertEquals(expected.getPIData(), actual.getPIData());
+
+        if (expected.hasName()) {
+            assertEquals(expected.getName(), actual.getName());
+            assertEquals(expected.getNamespaceCount(), actual.getNamespaceCount());
+            for (int i = 0; i < expected.getNamespaceCount(); i++) {
+                assertEquals(expected.getNamespacePrefix(i), actual.getNamespacePrefix(i));
+                assertEquals(expected.getNamespaceURI(i), actual.getNamespaceURI(i));
+            }
+            assertEquals(expected.getNamespaceURI("a"), actual.getNamespaceURI("a"));
+            assertEquals(expected.getNamespaceURI("q"), actual.getNamespaceURI("q"));
+        }
+
+        if (type == XMLStreamConstants.START_ELEMENT) {
+            assertEquals(expected.getAttributeCount(), actual.getAttributeCount());
+            for (int i = 0; i < expected.getAttributeCount(); i++) {
+                assertEquals(expected.getAttributeName(i), actual.getAttributeName(i));
+                assertEquals(expected.getAttributeValue(i), actual.getAttributeValue(i));
+            }
+            assertEquals(expected.getAttributeValue("urn:a", "y"), actual.getAttributeValue("urn:a", "y"));
+            assertThrows(IndexOutOfBoundsException.class, () -> actual.getAttributeName(actual.getAttributeCount()));
+        } else {
+            assertThrows(IllegalStateException.class, actual::getAttributeCount);
+        }
+
+        if (expected.hasText()) {
+            assertEquals(expected.getText(), actual.getText());
+            assertEquals(expected.getText(),
+                new String(actual.getTextCharacters(), actual.getTextStart(), actual.getTextLength()));
+            assertEquals(expected.isWhiteSpace(), actual.isWhiteSpace());
+        } else {
+            assertThrows(IllegalStateException.class, actual::getText);
+            assertFalse(actual.isWhiteSpace());
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {2, 64})
+    void testPartialTextCopy(int batchSize) throws Exception {
+        XmlObject o = XmlObject.Factory.parse("<root>0123456789</root>");
+        XMLStreamReader r = o.newXMLStreamReader(new XmlOptions().setSaveStreamReaderBatchSize(batchSize));
+
+        assertEquals(XMLStreamConstants.START_ELEMENT, r.getEventType());
+        assertEquals(XMLStreamConstants.CHARACTERS, r.next());
+
+        char[] target = new char[4];
+        assertEquals(4, r.getTextCharacters(3, target, 0, 4));
+        assertEquals("3456", new String(target));
+        assertEquals(2, r.getTextCharacters(8, target, 0, 4));
+
+        assertEquals(XMLStreamConstants.END_ELEMENT, r.next());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {2, 64})
+    void testTextCharactersAreACopy(int batchSize) throws Exception {
+        XmlObject o = XmlObject.Factory.parse("<root>0123456789</root>");
+        XMLStreamReader r = o.newXMLStreamReader(new XmlOptions().setSaveStreamReaderBatchSize(batchSize));
+
+        assertEquals(XMLStreamConstants.CHARACTERS, r.next());
+
+        char[] chars = r.getTextCharacters();
+        chars[r.getTextStart()] = 'X';
+
+        assertEquals("0123456789", r.getText());
+        assertEquals("<root>0123456789</root>", o.xmlText());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {2, 64})
+    void testElementText(int batchSize) throws Exception {
+        XmlObject o = XmlObject.Factory.parse("<root><a>x<!--c-->y</a><b/></root>");
+        XMLStreamReader r = o.newXMLStreamReader(new XmlOptions().setSaveStreamReaderBatchSize(batchSize));
+
+        assertEquals(XMLStreamConstants.START_ELEMENT, r.next());
+        assertEquals("a", r.getLocalName());
+        assertEquals("xy", r.getElementText());
+        r.next();
+        assertEquals(XMLStreamConstants.START_ELEMENT, r.nextTag());
+        assertEquals("b", r.getLocalName());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {2, 64})
+    void testDocumentChanged(int batchSize) throws Exception {
+        XmlObject o = XmlObject.Factory.parse(DOC);
+        XMLStreamReader r = o.newXMLStreamReader(new XmlOptions().setSaveStreamReaderBatchSize(batchSize));
+
+        r.next();
+
+        try (XmlCursor c = o.newCursor()) {
+            c.toFirstChild();
+            c.setAttributeText(new QName("x"), "changed");
+        }
+
+        assertThrows(ConcurrentModificationException.class, r::next);
+        assertThrows(ConcurrentModificationException.class, r::getEventType);
+    }
+}
@@ -21,13 +21,19 @@ import com.easypo.XmlPurchaseOrderDocumentBean;
 import org.apache.xmlbeans.XmlCursor;
 import org.apache.xmlbeans.XmlException;
 import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
 import org.apache.xmlbeans.XmlTime;
 import org.apache.xmlbeans.impl.xb.xsdschema.SchemaDocument;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import xint.test.PositionDocument;
 
+import javax.xml.namespace.QName;
+import java.io.ByteArrayInputStream;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -226,4 +232,54 @@ public class AssortedTests {
         XmlTime xt = XmlTime.Factory.parse("<xml-fragment>12:00:00</xml-fragment>");
         assertEquals("12:00:00", xt.getCalendarValue().toString());
     }
+
+    @Test
+    void testParseByteBufferAndChannel() throws Exception {
+        String xml = "<?xml version='1.0' encoding='ISO-8859-1'?><test>caf\u00e9</test>";
+        byte[] bytes = xml.getBytes(StandardCharsets.ISO_8859_1);
+
+        XmlObject heap = XmlObject.Factory.parse(ByteBuffer.wrap(bytes));
+        assertEquals("<test>caf\u00e9</test>", heap.xmlText());
+
+        // only the bytes between position and limit are parsed, the buffer itself is not touched
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length + 4);
+        direct.put(new byte[]{1, 2});
+        direct.put(bytes);
+        direct.put(new byte[]{3, 4});
+        direct.flip();
+        direct.position(2);
+        direct.limit(2 + bytes.length);
+
+        XmlObject fromDirect = XmlObject.Factory.parse(direct);
+        assertEquals("<test>caf\u00e9</test>", fromDirect.xmlText());
+        assertEquals(2, direct.position());
+        assertEquals(2 + bytes.length, direct.limit());
+
+        XmlObject fromChannel = XmlObject.Factory.parse(Channels.newChannel(new ByteArrayInputStream(bytes)));
+        assertEquals("<test>caf\u00e9</test>", fromChannel.xmlText());
+    }
+
+    @Test
+    void testParseDeduplicateText() throws Exception {
+        String xml = "<r cur='USD'><a>USD</a><a>USD</a><a> USD </a><a>x<!--c-->y</a></r>";
+        XmlObject plain = XmlObject.Factory.parse(xml);
+        XmlObject dedup = XmlObject.Factory.parse(xml, new XmlOptions().setLoadDeduplicateText());
+        assertEquals(plain.xmlText(), dedup.xmlText());
+
+        try (XmlCursor c = dedup.newCursor()) {
+            c.toFirstChild();
+            String attr = c.getAttributeText(new QName("cur"));
+            c.toFirstChild();
+            assertSame(attr, c.getTextValue());
+
+            // changing one of the values leaves the others alone
+            c.setTextValue("EUR");
+            c.toNextSibling();
+            assertSame(attr, c.getTextValue());
+        }
+        assertEquals("<r cur=\"USD\"><a>EUR</a><a>USD</a><a> USD </a><a>x<!--c-->y</a></r>", dedup.xmlText());
+
+        XmlOptions shortValues = new XmlOptions().setLoadDeduplicateText().setLoadDeduplicateTextMaxLength(2);
+        assertEquals(plain.xmlText(), XmlObject.Factory.parse(xml, shortValues).xmlText());
+    }
 }
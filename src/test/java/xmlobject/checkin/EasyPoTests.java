@@ -17,12 +17,14 @@ package xmlobject.checkin;
 
 import com.easypo.XmlPurchaseOrderDocumentBean;
 import com.easypo.XmlPurchaseOrderDocumentBean.PurchaseOrder;
+import org.apache.xmlbeans.XmlCursor;
 import org.apache.xmlbeans.XmlException;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
+import javax.xml.namespace.QName;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 
@@ -61,6 +63,31 @@ public class EasyPoTests {
         assertEquals(3, order.sizeOfLineItemArray());
     }
 
+    @Test
+    void testRenamedElements() throws Exception {
+        XmlPurchaseOrderDocumentBean doc = (XmlPurchaseOrderDocumentBean) jobj("xbean/xmlobject/easypo1.xml");
+        PurchaseOrder order = doc.getPurchaseOrder();
+        QName lineItem = new QName("http://openuri.org/easypo", "line-item");
+        QName other = new QName("http://openuri.org/easypo", "other-item");
+
+        try (XmlCursor c = order.getLineItemArray(1).newCursor()) {
+            c.setName(other);
+            assertEquals(2, order.sizeOfLineItemArray());
+            assertEquals("Burnham's Celestial Handbook, Vol 3", order.getLineItemArray(1).getDescription());
+
+            c.setName(lineItem);
+            assertEquals(3, order.sizeOfLineItemArray());
+            assertEquals("Burnham's Celestial Handbook, Vol 2", order.getLineItemArray(1).getDescription());
+        }
+
+        order.removeLineItem(0);
+        assertEquals(2, order.sizeOfLineItemArray());
+        assertEquals("Burnham's Celestial Handbook, Vol 2", order.getLineItemArray(0).getDescription());
+
+        order.unsetShipper();
+        assertFalse(order.isSetShipper());
+    }
+
     @Test
     void testAutoValidationOk() {
         Assertions.assertDoesNotThrow(() -> XmlPurchaseOrderDocumentBean.Factory.parse(
@@ -15,15 +15,20 @@
 package xmlobject.checkin;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.xmlbeans.XmlCursor;
 import org.apache.xmlbeans.XmlException;
 import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
 import org.junit.jupiter.api.Test;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Reader;
+import java.nio.channels.Channels;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 
 public class SaverTest {
 
@@ -46,4 +51,70 @@ public class SaverTest {
             System.setProperty("line.separator", lineSeparator);
         }
     }
+
+    @Test
+    void testLargeTextInChunks() throws IOException, XmlException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            sb.append("a]]>b");
+        }
+        String text = sb.append("<&").toString();
+
+        // escaped chunk by chunk, no "]]>" may slip through between two chunks
+        String saved = saveAndReparse(text);
+        assertFalse(saved.contains("]]>"));
+        assertFalse(saved.contains("CDATA"));
+
+        // texts which end up in a CDATA section are still saved in one piece
+        saved = saveAndReparse(text.replace("b", "<"));
+        assertTrue(saved.contains("<![CDATA["));
+    }
+
+    private static String saveAndReparse(String text) throws IOException, XmlException {
+        XmlObject object = XmlObject.Factory.parse("<test>" +
+            text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;") + "</test>");
+
+        String saved;
+        try (Reader r = object.newReader()) {
+            saved = IOUtils.toString(r);
+        }
+
+        try (XmlCursor c = XmlObject.Factory.parse(saved).newCursor()) {
+            assertTrue(c.toFirstChild());
+            assertEquals(text, c.getTextValue());
+        }
+
+        return saved;
+    }
+
+    @Test
+    void testSaveEncodedBytes() throws IOException, XmlException {
+        // ascii, latin-1, bmp, a surrogate pair and escaped chars, across the encoder chunks
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            sb.append("a\u00e9\u20ac\ud83d\ude00<&");
+        }
+        XmlObject object = XmlObject.Factory.parse("<test a='\u00e9\ud83d\ude00'/>");
+        try (XmlCursor c = object.newCursor()) {
+            c.toFirstChild();
+            c.setTextValue(sb.toString());
+        }
+
+        for (String encoding : new String[]{"UTF-8", "ISO-8859-1", "US-ASCII"}) {
+            XmlOptions options = new XmlOptions().setCharacterEncoding(encoding);
+
+            byte[] expected;
+            try (InputStream is = object.newInputStream(options)) {
+                expected = IOUtils.toByteArray(is);
+            }
+
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            object.save(bos, options);
+            assertArrayEquals(expected, bos.toByteArray(), encoding);
+
+            bos.reset();
+            object.save(Channels.newChannel(bos), options);
+            assertArrayEquals(expected, bos.toByteArray(), encoding);
+        }
+    }
 }
@@ -17,13 +17,26 @@
 package xmlobject.schematypes.checkin;
 
 
+import org.apache.commons.io.IOUtils;
+import org.apache.xmlbeans.XmlBase64Binary;
+import org.apache.xmlbeans.XmlBoolean;
+import org.apache.xmlbeans.XmlDecimal;
+import org.apache.xmlbeans.XmlDouble;
 import org.apache.xmlbeans.XmlException;
+import org.apache.xmlbeans.XmlHexBinary;
+import org.apache.xmlbeans.XmlInt;
+import org.apache.xmlbeans.XmlLong;
 import org.apache.xmlbeans.impl.values.XmlValueOutOfRangeException;
 import org.junit.jupiter.api.Test;
 import org.openuri.testNumerals.DocDocument;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.Base64;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -135,4 +148,101 @@ public class NumeralsTests {
         assertEquals(new BigDecimal("1.001"), doc.getDecimalArray()[0]);
         assertEquals(new BigInteger("1000000000"), doc.getIntegerArray(0));
     }
+
+    @Test
+    void testNumeralArrays() throws XmlException {
+        DocDocument.Doc doc = DocDocument.Factory.parse(XML).getDoc();
+
+        // an existing user has to see the values set in bulk
+        XmlInt first = doc.xgetIntArray(0);
+        doc.setIntArray(new int[]{1, 2, 3, 4, 5});
+        assertEquals(1, first.getIntValue());
+        assertArrayEquals(new int[]{1, 2, 3, 4, 5}, doc.getIntArray());
+        assertEquals(5, doc.sizeOfIntArray());
+
+        doc.setLongArray(new long[]{Long.MIN_VALUE});
+        assertArrayEquals(new long[]{Long.MIN_VALUE}, doc.getLongArray());
+
+        doc.setDoubleArray(new double[]{0.5, Double.NEGATIVE_INFINITY, Double.NaN});
+        assertArrayEquals(new double[]{0.5, Double.NEGATIVE_INFINITY, Double.NaN}, doc.getDoubleArray(), 0);
+
+        doc.setStringArray(new String[]{" a ", "", "b"});
+        assertArrayEquals(new String[]{" a ", "", "b"}, doc.getStringArray());
+
+        doc.setIntArray(new int[0]);
+        assertEquals(0, doc.getIntArray().length);
+
+        // nil values are replaced like with the typed setters
+        doc.addNewInt().setNil();
+        doc.setIntArray(new int[]{7});
+        assertFalse(doc.xgetIntArray(0).isNil());
+        assertEquals(7, doc.getIntArray(0));
+
+        DocDocument.Doc invalid = DocDocument.Factory.parse(
+            "<doc xmlns='http://openuri.org/testNumerals'><int>1</int><int>one</int></doc>").getDoc();
+        assertThrows(XmlValueOutOfRangeException.class, invalid::getIntArray);
+    }
+
+    @Test
+    void testValuesLexedFromStoreChars() throws XmlException {
+        assertEquals(-12, XmlInt.Factory.parse("<xml-fragment>\n\t -12 </xml-fragment>").getIntValue());
+        assertEquals(Long.MIN_VALUE, XmlLong.Factory.parse("<xml-fragment>-9223372036854775808</xml-fragment>").getLongValue());
+        assertEquals(-1500.0, XmlDouble.Factory.parse("<xml-fragment> -1.5e3 </xml-fragment>").getDoubleValue(), 0);
+        assertEquals(0.1, XmlDouble.Factory.parse("<xml-fragment>.1</xml-fragment>").getDoubleValue(), 0);
+        assertEquals(1e300, XmlDouble.Factory.parse("<xml-fragment>1e300</xml-fragment>").getDoubleValue(), 0);
+        assertEquals(new BigDecimal("1.50"), XmlDecimal.Factory.parse("<xml-fragment> +1.50 </xml-fragment>").getBigDecimalValue());
+        assertEquals(new BigDecimal("12345678901234567890.5"),
+            XmlDecimal.Factory.parse("<xml-fragment>12345678901234567890.5</xml-fragment>").getBigDecimalValue());
+        assertTrue(XmlBoolean.Factory.parse("<xml-fragment> 1 </xml-fragment>").getBooleanValue());
+
+        // values which can not be lexed in place still go through the text
+        assertEquals(12, XmlInt.Factory.parse("<xml-fragment>1<!--c-->2</xml-fragment>").getIntValue());
+        assertThrows(XmlValueOutOfRangeException.class,
+            () -> XmlInt.Factory.parse("<xml-fragment>1 2</xml-fragment>").getIntValue());
+        assertThrows(XmlValueOutOfRangeException.class,
+            () -> XmlLong.Factory.parse("<xml-fragment>9223372036854775808</xml-fragment>").getLongValue());
+    }
+
+    @Test
+    void testBinaryStreams() throws XmlException, IOException {
+        byte[] bytes = new byte[100000];
+        new Random(42).nextBytes(bytes);
+
+        DocDocument document = DocDocument.Factory.parse(
+            "<doc xmlns='http://openuri.org/testNumerals'>" +
+            "<hexBinary>\n 0aFf </hexBinary>" +
+            "<base64Binary>\n" + Base64.getMimeEncoder().encodeToString(bytes) + "\n</base64Binary>" +
+            "</doc>");
+        DocDocument.Doc doc = document.getDoc();
+
+        XmlHexBinary hex = doc.xgetHexBinaryArray(0);
+        XmlBase64Binary base64 = doc.xgetBase64BinaryArray(0);
+
+        assertArrayEquals(new byte[]{0x0a, (byte) 0xff}, IOUtils.toByteArray(hex.getInputStreamValue()));
+        assertArrayEquals(bytes, IOUtils.toByteArray(base64.getInputStreamValue()));
+
+        // a stream keeps decoding the text it was created for
+        InputStream in = base64.getInputStreamValue();
+        base64.setByteArrayValue(new byte[]{1, 2, 3});
+        assertArrayEquals(bytes, IOUtils.toByteArray(in));
+        assertArrayEquals(new byte[]{1, 2, 3}, IOUtils.toByteArray(base64.getInputStreamValue()));
+
+        hex.setInputStreamValue(new ByteArrayInputStream(bytes));
+        base64.setInputStreamValue(new ByteArrayInputStream(bytes));
+        assertArrayEquals(bytes, hex.getByteArrayValue());
+        assertArrayEquals(bytes, doc.getBase64BinaryArray(0));
+
+        DocDocument.Doc copy = DocDocument.Factory.parse(document.newReader()).getDoc();
+        assertArrayEquals(bytes, copy.getHexBinaryArray(0));
+        assertArrayEquals(bytes, IOUtils.toByteArray(copy.xgetBase64BinaryArray(0).getInputStreamValue()));
+
+        // nil values are replaced like with the byte[] setter
+        copy.xgetHexBinaryArray(0).setNil();
+        copy.xgetHexBinaryArray(0).setInputStreamValue(new ByteArrayInputStream(new byte[]{7}));
+        assertFalse(copy.xgetHexBinaryArray(0).isNil());
+        assertArrayEquals(new byte[]{7}, copy.getHexBinaryArray(0));
+
+        XmlHexBinary invalid = XmlHexBinary.Factory.parse("<xml-fragment>0a 0b</xml-fragment>");
+        assertThrows(IOException.class, () -> IOUtils.toByteArray(invalid.getInputStreamValue()));
+    }
 }
@@ -31,8 +31,7 @@ import java.util.HashSet;
 import java.util.Set;
 import java.util.Vector;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.*;
 import static xmlcursor.common.BasicCursorTestCase.jcur;
 
 
@@ -83,6 +82,24 @@ public class XmlLoaderMiscTest {
         }
     }
 
+    @Test
+    void testTypeLoaderIndex() throws Exception {
+        SchemaTypeLoader stl = XmlBeans.typeLoaderIndex(CarLocationMessageDocument.type.getTypeSystem());
+        assertNotNull(stl);
+
+        assertSame(CarLocationMessageDocument.type, stl.findDocumentType(CarLocationMessageDocument.type.getDocumentElementName()));
+        assertSame(GeographicLocation.type, stl.typeForClassname(GeographicLocation.class.getName()));
+        assertSame(XmlString.type, stl.findType(XmlString.type.getName()));
+        assertNull(stl.findType(new QName("urn:unknown", "unknown")));
+        assertTrue(stl.isNamespaceDefined(CarLocationMessageDocument.type.getDocumentElementName().getNamespaceURI()));
+
+        try (XmlCursor m_xc = stl.parse(JarUtil.getResourceFromJar(Common.TRANXML_FILE_CLM), null, null).newCursor()) {
+            m_xc.selectPath(Common.CLM_NS_XQUERY_DEFAULT + "$this//FleetID");
+            m_xc.toNextSelection();
+            assertEquals("FLEETNAME", m_xc.getTextValue());
+        }
+    }
+
     @Test
     void testGetContextTypeLoader() throws Exception {
         SchemaTypeLoader stl = XmlBeans.getContextTypeLoader();